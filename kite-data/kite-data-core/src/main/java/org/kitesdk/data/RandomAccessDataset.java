@@ -15,6 +15,8 @@
  */
 package org.kitesdk.data;
 
+import java.util.Collection;
+import java.util.List;
 import javax.annotation.concurrent.Immutable;
 
 /**
@@ -43,6 +45,21 @@ public interface RandomAccessDataset<E> extends Dataset<E> {
    */
   public E get(Key key);
 
+  /**
+   * Return the entities stored in the dataset at the rows specified by the
+   * given {@link Key keys}, fetched with as few requests as possible.
+   * <p>
+   * The returned list has one entry for each key, in the order the keys are
+   * returned by the collection's iterator. Entries are null if no entity
+   * exists for the corresponding key.
+   *
+   * @param keys
+   *          The keys of the entities to get
+   * @return A list of entities of type E, with nulls for missing entities
+   * @since 1.2.0
+   */
+  public List<E> get(Collection<Key> keys);
+
   /**
    * Put the entity into the dataset.
    *
@@ -53,6 +70,23 @@ public interface RandomAccessDataset<E> extends Dataset<E> {
    */
   public boolean put(E entity);
 
+  /**
+   * Put a collection of entities into the dataset, using as few requests as
+   * possible.
+   * <p>
+   * Entities that are checked for update conflicts cannot be batched and are
+   * stored individually. The order in which entities are stored is not
+   * defined, so the collection should not contain more than one entity with
+   * the same key.
+   *
+   * @param entities
+   *          The entities to store
+   * @return True if all puts succeeded, false if any put failed due to an
+   *         update conflict
+   * @since 1.2.0
+   */
+  public boolean putAll(Collection<E> entities);
+
   /**
    * Increment a field named <code>fieldName</code> on the entity by the
    * specified amount.
@@ -76,6 +110,16 @@ public interface RandomAccessDataset<E> extends Dataset<E> {
    */
   public void delete(Key key);
 
+  /**
+   * Deletes the entities in the dataset with the given {@link Key keys}, using
+   * as few requests as possible.
+   *
+   * @param keys
+   *          The keys of the entities to delete.
+   * @since 1.2.0
+   */
+  public void deleteAll(Collection<Key> keys);
+
   /**
    * Deletes the entity passed to this method in the dataset.
    * If that entity has a checkConflict field, then the delete is performed only 
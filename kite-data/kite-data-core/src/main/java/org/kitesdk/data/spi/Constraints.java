@@ -136,6 +136,20 @@ public class Constraints {
     return toEntityPredicate(accessor);
   }
 
+  /**
+   * Get the {@link Predicate} for each constrained field or partition that is
+   * not already satisfied by the given {@link StorageKey}.
+   *
+   * @param key a StorageKey for the entities that will be tested, or null
+   * @return a map from field or partition name to its Predicate
+   */
+  public Map<String, Predicate> getPredicates(@Nullable StorageKey key) {
+    if (key != null) {
+      return minimizeFor(key);
+    }
+    return constraints;
+  }
+
   @VisibleForTesting
   @SuppressWarnings("unchecked")
   Map<String, Predicate> minimizeFor(StorageKey key) {
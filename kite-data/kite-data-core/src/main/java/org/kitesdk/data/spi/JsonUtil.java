@@ -19,6 +19,7 @@ package org.kitesdk.data.spi;
 import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.core.JsonParseException;
 import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.JsonMappingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -362,6 +363,301 @@ public class JsonUtil {
     }
   }
 
+  /**
+   * Converts the JSON value at the parser's current token to an Avro datum
+   * without building a {@link JsonNode} tree.
+   * <p>
+   * This produces the same data as
+   * {@link #convertToAvro(GenericData, JsonNode, Schema)}, but reads values
+   * directly from the parser's tokens and skips fields that are not in the
+   * schema. When this returns, the parser is positioned on the last token of
+   * the value. Unions of more than one record, map, array, or union are
+   * resolved by reading the value as a tree.
+   *
+   * @param model a GenericData model used to create records
+   * @param parser a JsonParser positioned on the first token of a value
+   * @param schema the Schema of the value
+   * @return an Avro datum for the value
+   * @throws IOException if the value cannot be read from the parser
+   */
+  public static Object readAvro(GenericData model, JsonParser parser,
+                                Schema schema) throws IOException {
+    JsonToken token = parser.getCurrentToken();
+    switch (schema.getType()) {
+      case RECORD:
+        DatasetRecordException.check(token == JsonToken.START_OBJECT,
+            "Cannot convert non-object to record: %s", parser.getText());
+        Object record = model.newRecord(null, schema);
+        List<Schema.Field> fields = schema.getFields();
+        boolean[] found = new boolean[fields.size()];
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+          Schema.Field field = schema.getField(parser.getCurrentName());
+          parser.nextToken();
+          if (field == null) {
+            parser.skipChildren();
+          } else {
+            found[field.pos()] = true;
+            model.setField(record, field.name(), field.pos(),
+                readField(model, parser, field));
+          }
+        }
+        for (Schema.Field field : fields) {
+          if (!found[field.pos()]) {
+            model.setField(record, field.name(), field.pos(),
+                convertField(model, null, field));
+          }
+        }
+        return record;
+
+      case MAP:
+        DatasetRecordException.check(token == JsonToken.START_OBJECT,
+            "Cannot convert non-object to map: %s", parser.getText());
+        Map<String, Object> map = Maps.newLinkedHashMap();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+          String key = parser.getCurrentName();
+          parser.nextToken();
+          map.put(key, readAvro(model, parser, schema.getValueType()));
+        }
+        return map;
+
+      case ARRAY:
+        DatasetRecordException.check(token == JsonToken.START_ARRAY,
+            "Cannot convert to array: %s", parser.getText());
+        List<Object> list = Lists.newArrayList();
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+          list.add(readAvro(model, parser, schema.getElementType()));
+        }
+        return list;
+
+      case UNION:
+        Schema resolved = resolveUnion(parser, schema.getTypes());
+        if (resolved == null) {
+          return convertToAvro(model,
+              parser.<JsonNode>readValueAsTree(), schema);
+        }
+        return readAvro(model, parser, resolved);
+
+      case BOOLEAN:
+        DatasetRecordException.check(
+            token == JsonToken.VALUE_TRUE || token == JsonToken.VALUE_FALSE,
+            "Cannot convert to boolean: %s", parser.getText());
+        return parser.getBooleanValue();
+
+      case FLOAT:
+        DatasetRecordException.check(
+            isNumber(parser, JsonParser.NumberType.FLOAT,
+                JsonParser.NumberType.INT),
+            "Cannot convert to float: %s", parser.getText());
+        return parser.getFloatValue();
+
+      case DOUBLE:
+        DatasetRecordException.check(
+            isNumber(parser, JsonParser.NumberType.DOUBLE,
+                JsonParser.NumberType.FLOAT, JsonParser.NumberType.LONG,
+                JsonParser.NumberType.INT),
+            "Cannot convert to double: %s", parser.getText());
+        return parser.getDoubleValue();
+
+      case INT:
+        DatasetRecordException.check(
+            isNumber(parser, JsonParser.NumberType.INT),
+            "Cannot convert to int: %s", parser.getText());
+        return parser.getIntValue();
+
+      case LONG:
+        DatasetRecordException.check(
+            isNumber(parser, JsonParser.NumberType.LONG,
+                JsonParser.NumberType.INT),
+            "Cannot convert to long: %s", parser.getText());
+        return parser.getLongValue();
+
+      case STRING:
+        DatasetRecordException.check(token == JsonToken.VALUE_STRING,
+            "Cannot convert to string: %s", parser.getText());
+        return parser.getText();
+
+      case ENUM:
+        DatasetRecordException.check(token == JsonToken.VALUE_STRING,
+            "Cannot convert to string: %s", parser.getText());
+        return model.createEnum(parser.getText(), schema);
+
+      case BYTES:
+        DatasetRecordException.check(isBinary(parser),
+            "Cannot convert to binary: %s", parser.getText());
+        return ByteBuffer.wrap(parser.getBinaryValue());
+
+      case FIXED:
+        DatasetRecordException.check(isBinary(parser),
+            "Cannot convert to fixed: %s", parser.getText());
+        byte[] bytes = parser.getBinaryValue();
+        DatasetRecordException.check(bytes.length < schema.getFixedSize(),
+            "Binary data is too short: %s bytes for %s", bytes.length, schema);
+        return model.createFixed(null, bytes, schema);
+
+      case NULL:
+        parser.skipChildren();
+        return null;
+
+      default:
+        // don't use DatasetRecordException because this is a Schema problem
+        throw new IllegalArgumentException("Unknown schema type: " + schema);
+    }
+  }
+
+  private static Object readField(GenericData model, JsonParser parser,
+                                  Schema.Field field) throws IOException {
+    try {
+      Object value = readAvro(model, parser, field.schema());
+      if (value != null || SchemaUtil.nullOk(field.schema())) {
+        return value;
+      } else {
+        return model.getDefaultValue(field);
+      }
+    } catch (DatasetRecordException e) {
+      // add the field name to the error message
+      throw new DatasetRecordException(String.format(
+          "Cannot convert field %s", field.name()), e);
+    } catch (AvroRuntimeException e) {
+      throw new DatasetRecordException(String.format(
+          "Field %s: cannot make %s value: '%s'",
+          field.name(), field.schema(), parser.getText()), e);
+    }
+  }
+
+  private static boolean isNumber(JsonParser parser,
+                                  JsonParser.NumberType... types)
+      throws IOException {
+    JsonToken token = parser.getCurrentToken();
+    if (token != JsonToken.VALUE_NUMBER_INT &&
+        token != JsonToken.VALUE_NUMBER_FLOAT) {
+      return false;
+    }
+    JsonParser.NumberType numberType = parser.getNumberType();
+    for (JsonParser.NumberType type : types) {
+      if (type == numberType) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static boolean isBinary(JsonParser parser) throws IOException {
+    return (parser.getCurrentToken() == JsonToken.VALUE_EMBEDDED_OBJECT &&
+        parser.getEmbeddedObject() instanceof byte[]);
+  }
+
+  /**
+   * Resolves a union using the parser's current token, like
+   * {@link #resolveUnion(JsonNode, Collection)}.
+   *
+   * @return the union branch for the current value, or null if the value is
+   *          an object or array and more than one branch could match it
+   */
+  private static Schema resolveUnion(JsonParser parser,
+                                     Collection<Schema> schemas)
+      throws IOException {
+    Set<Schema.Type> primitives = Sets.newHashSet();
+    List<Schema> others = Lists.newArrayList();
+    for (Schema schema : schemas) {
+      if (PRIMITIVES.containsKey(schema.getType())) {
+        primitives.add(schema.getType());
+      } else {
+        others.add(schema);
+      }
+    }
+
+    JsonToken token = parser.getCurrentToken();
+    switch (token) {
+      case START_OBJECT:
+      case START_ARRAY:
+        // matching records depends on the fields present, so this can only
+        // be streamed if there is one candidate that can hold the value
+        Schema candidate = null;
+        for (Schema schema : others) {
+          Schema.Type type = schema.getType();
+          if (token == JsonToken.START_ARRAY ?
+              type == Schema.Type.ARRAY :
+              (type == Schema.Type.RECORD || type == Schema.Type.MAP)) {
+            if (candidate != null) {
+              return null;
+            }
+            candidate = schema;
+          } else if (type == Schema.Type.UNION) {
+            return null;
+          }
+        }
+        if (candidate != null) {
+          return candidate;
+        }
+        break;
+
+      case VALUE_NULL:
+        Schema nullSchema = closestPrimitive(primitives, Schema.Type.NULL);
+        if (nullSchema != null) {
+          return nullSchema;
+        }
+        break;
+
+      case VALUE_TRUE:
+      case VALUE_FALSE:
+        Schema boolSchema = closestPrimitive(primitives, Schema.Type.BOOLEAN);
+        if (boolSchema != null) {
+          return boolSchema;
+        }
+        break;
+
+      case VALUE_NUMBER_INT:
+      case VALUE_NUMBER_FLOAT:
+        Schema numberSchema = null;
+        switch (parser.getNumberType()) {
+          case INT:
+            numberSchema = closestPrimitive(primitives,
+                Schema.Type.INT, Schema.Type.LONG,
+                Schema.Type.FLOAT, Schema.Type.DOUBLE);
+            break;
+          case LONG:
+            numberSchema = closestPrimitive(primitives,
+                Schema.Type.LONG, Schema.Type.DOUBLE);
+            break;
+          case FLOAT:
+            numberSchema = closestPrimitive(primitives,
+                Schema.Type.FLOAT, Schema.Type.DOUBLE);
+            break;
+          case DOUBLE:
+            numberSchema = closestPrimitive(primitives, Schema.Type.DOUBLE);
+            break;
+          default:
+            // big numbers are not matched to primitives
+        }
+        if (numberSchema != null) {
+          return numberSchema;
+        }
+        break;
+
+      case VALUE_STRING:
+        for (Schema schema : others) {
+          if (schema.getType() == Schema.Type.STRING) {
+            return schema;
+          } else if (schema.getType() == Schema.Type.ENUM &&
+              schema.hasEnumSymbol(parser.getText())) {
+            return schema;
+          } else if (schema.getType() == Schema.Type.UNION) {
+            // nested unions match or throw an exception
+            resolveUnion(parser, schema.getTypes());
+            return schema;
+          }
+        }
+        break;
+
+      default:
+        // other tokens, like embedded objects, are resolved using a tree
+        return null;
+    }
+
+    throw new DatasetRecordException(String.format(
+        "Cannot resolve union: %s not in %s", parser.getText(), schemas));
+  }
+
   private static Schema resolveUnion(JsonNode datum, Collection<Schema> schemas) {
     Set<Schema.Type> primitives = Sets.newHashSet();
     List<Schema> others = Lists.newArrayList();
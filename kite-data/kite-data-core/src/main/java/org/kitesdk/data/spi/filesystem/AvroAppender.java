@@ -77,9 +77,18 @@ class AvroAppender<E> implements FileSystemWriter.FileAppender<E> {
 
   @Override
   public long pos() throws IOException {
+    // the stream tracks its position locally, so this does not contact the
+    // file system. it lags the data size by at most the current block, which
+    // is written when it reaches the sync interval.
     return out.getPos();
   }
 
+  @Override
+  public long bufferedSize() {
+    // blocks are written to the stream when they reach the sync interval
+    return 0;
+  }
+
   @Override
   public void flush() throws IOException {
     // Avro sync forces the end of the current block so the data is recoverable
@@ -66,6 +66,11 @@ class CSVAppender<E> implements FileSystemWriter.FileAppender<E> {
     return outgoing.getPos();
   }
 
+  @Override
+  public long bufferedSize() {
+    return 0;
+  }
+
   @Override
   public void close() throws IOException {
     writer.close();
@@ -16,10 +16,16 @@
 
 package org.kitesdk.data.spi.filesystem;
 
-import au.com.bytecode.opencsv.CSVReader;
+import au.com.bytecode.opencsv.CSVParser;
+import com.google.common.collect.ObjectArrays;
+import java.io.BufferedReader;
 import java.io.InputStream;
 import com.google.common.collect.Lists;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.util.Arrays;
 import java.util.List;
+import org.apache.hadoop.io.Text;
 import org.apache.hadoop.mapreduce.InputSplit;
 import org.apache.hadoop.mapreduce.RecordReader;
 import org.apache.hadoop.mapreduce.TaskAttemptContext;
@@ -34,6 +40,7 @@ import org.apache.avro.Schema;
 import org.apache.hadoop.fs.FSDataInputStream;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.util.LineReader;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -52,10 +59,12 @@ public class CSVFileReader<E> extends AbstractDatasetReader<E> {
   private final Path path;
   private final Schema schema;
   private final boolean reuseRecords;
+  private final long start;
+  private final long end;
 
   private final Class<E> recordClass;
 
-  private CSVReader reader = null;
+  private PositionedCSVReader reader = null;
   private CSVRecordBuilder<E> builder;
 
   // progress reporting
@@ -72,8 +81,27 @@ public class CSVFileReader<E> extends AbstractDatasetReader<E> {
   public CSVFileReader(FileSystem fileSystem, Path path,
                        DatasetDescriptor descriptor,
                        EntityAccessor<E> accessor) {
+    this(fileSystem, path, descriptor, accessor, 0, Long.MAX_VALUE);
+  }
+
+  /**
+   * Creates a reader for the records that start between {@code start} and
+   * {@code start + length}.
+   * <p>
+   * Records are separated by line endings, so the first record in the range
+   * is the first one following a line ending after {@code start}. The last
+   * record is the one that starts on or before the end of the range, even if
+   * its quoted values span lines past the end of the range.
+   */
+  @SuppressWarnings("unchecked")
+  public CSVFileReader(FileSystem fileSystem, Path path,
+                       DatasetDescriptor descriptor,
+                       EntityAccessor<E> accessor,
+                       long start, long length) {
     this.fs = fileSystem;
     this.path = path;
+    this.start = start;
+    this.end = (length == Long.MAX_VALUE ? length : start + length);
     this.schema = accessor.getReadSchema();
     this.recordClass = accessor.getType();
     this.state = ReaderWriterState.NEW;
@@ -90,6 +118,8 @@ public class CSVFileReader<E> extends AbstractDatasetReader<E> {
     this.fs = null;
     this.path = null;
     this.incoming = incoming;
+    this.start = 0;
+    this.end = Long.MAX_VALUE;
     this.schema = schema;
     this.recordClass = type;
     this.state = ReaderWriterState.NEW;
@@ -117,20 +147,54 @@ public class CSVFileReader<E> extends AbstractDatasetReader<E> {
       }
     }
 
-    this.reader = CSVUtil.newReader(incoming, props);
-
     List<String> header = null;
-    if (props.useHeader) {
-      this.hasNext = advance();
-      header = Lists.newArrayList(next);
-    } else if (props.header != null) {
-      try {
+    try {
+      if (start > 0) {
+        Preconditions.checkArgument(isSplittable(props),
+            "Cannot read part of a file using charset: %s", props.charset);
+
+        // lines to skip and the header are in the first split, but the header
+        // is still needed to read records and data may start after this split
+        long dataStart = 0;
+        if (props.useHeader || props.linesToSkip > 0) {
+          PositionedCSVReader first = new PositionedCSVReader(
+              fs.open(path), 0, props);
+          try {
+            first.skipLines(props.linesToSkip);
+            if (props.useHeader) {
+              header = toList(first.readRecord());
+            }
+            dataStart = first.getPos();
+          } finally {
+            first.close();
+          }
+        }
+
+        FSDataInputStream in = (FSDataInputStream) incoming;
+        if (dataStart > start) {
+          in.seek(dataStart);
+          this.reader = new PositionedCSVReader(in, dataStart, props);
+        } else {
+          // the record that contains start belongs to the previous split
+          in.seek(start);
+          this.reader = new PositionedCSVReader(in, start, props);
+          reader.skipLines(1);
+        }
+
+      } else {
+        this.reader = new PositionedCSVReader(incoming, 0, props);
+        reader.skipLines(props.linesToSkip);
+        if (props.useHeader) {
+          header = toList(reader.readRecord());
+        }
+      }
+
+      if (header == null && props.header != null) {
         header = Lists.newArrayList(
             CSVUtil.newParser(props).parseLine(props.header));
-      } catch (IOException e) {
-        throw new DatasetIOException(
-            "Failed to parse header from properties: " + props.header, e);
       }
+    } catch (IOException e) {
+      throw new DatasetIOException("Cannot read from path: " + path, e);
     }
 
     this.builder = new CSVRecordBuilder<E>(schema, recordClass, header);
@@ -170,8 +234,12 @@ public class CSVFileReader<E> extends AbstractDatasetReader<E> {
   }
 
   private boolean advance() {
+    if (reader.getPos() > end) {
+      // the next record starts in the following split
+      return false;
+    }
     try {
-      next = reader.readNext();
+      next = reader.readRecord();
     } catch (IOException ex) {
       throw new DatasetIOException("Could not read record", ex);
     }
@@ -200,6 +268,20 @@ public class CSVFileReader<E> extends AbstractDatasetReader<E> {
     return (this.state == ReaderWriterState.OPEN);
   }
 
+  private static List<String> toList(String[] values) {
+    return (values == null ? null : Arrays.asList(values));
+  }
+
+  /**
+   * Returns whether files using the given {@link CSVProperties} can be read in
+   * parts. Record boundaries are found by scanning bytes for line endings, so
+   * the charset must encode line endings as single bytes.
+   */
+  static boolean isSplittable(CSVProperties props) {
+    return Arrays.equals(new byte[] {'\n', '\r'},
+        "\n\r".getBytes(Charset.forName(props.charset)));
+  }
+
   public RecordReader<E, Void> asRecordReader() {
     Preconditions.checkArgument(incoming instanceof FSDataInputStream,
         "Cannot use {} in a record reader", incoming.getClass());
@@ -235,10 +317,11 @@ public class CSVFileReader<E> extends AbstractDatasetReader<E> {
 
     @Override
     public float getProgress() throws IOException, InterruptedException {
-      if (size == 0) {
+      long length = Math.min(end, size) - start;
+      if (length <= 0) {
         return 0.0f;
       }
-      return ((float) ((FSDataInputStream) incoming).getPos()) / size;
+      return Math.min(1.0f, ((float) (reader.getPos() - start)) / length);
     }
 
     @Override
@@ -246,4 +329,91 @@ public class CSVFileReader<E> extends AbstractDatasetReader<E> {
       CSVFileReader.this.close();
     }
   }
+
+  /**
+   * Reads CSV records line by line and keeps track of the position of the
+   * next record in the underlying stream.
+   * <p>
+   * If the charset cannot be scanned for line endings, this falls back to
+   * decoding the stream with a {@link BufferedReader} and positions are not
+   * tracked.
+   */
+  private static class PositionedCSVReader {
+    private final CSVParser parser;
+    private final Charset charset;
+    private final LineReader lines;
+    private final BufferedReader decoded;
+    private final Text line = new Text();
+    private long pos;
+
+    private PositionedCSVReader(InputStream in, long pos, CSVProperties props) {
+      this.parser = CSVUtil.newParser(props);
+      this.charset = Charset.forName(props.charset);
+      this.pos = pos;
+      if (isSplittable(props)) {
+        this.lines = new LineReader(in);
+        this.decoded = null;
+      } else {
+        this.lines = null;
+        this.decoded = new BufferedReader(new InputStreamReader(in, charset));
+      }
+    }
+
+    public long getPos() {
+      return pos;
+    }
+
+    public void skipLines(int count) throws IOException {
+      for (int i = 0; i < count; i += 1) {
+        if (readLine() == null) {
+          return;
+        }
+      }
+    }
+
+    /**
+     * Reads the next record, which may span lines if a quoted value contains
+     * line endings.
+     *
+     * @return the record's values, or null if there are no more records
+     */
+    public String[] readRecord() throws IOException {
+      String[] result = null;
+      do {
+        String nextLine = readLine();
+        if (nextLine == null) {
+          return result;
+        }
+        String[] values = parser.parseLineMulti(nextLine);
+        if (values.length > 0) {
+          if (result == null) {
+            result = values;
+          } else {
+            result = ObjectArrays.concat(result, values, String.class);
+          }
+        }
+      } while (parser.isPending());
+      return result;
+    }
+
+    private String readLine() throws IOException {
+      if (decoded != null) {
+        return decoded.readLine();
+      }
+      int consumed = lines.readLine(line);
+      if (consumed == 0) {
+        return null;
+      }
+      pos += consumed;
+      return new String(line.getBytes(), 0, line.getLength(), charset);
+    }
+
+    public void close() throws IOException {
+      if (decoded != null) {
+        decoded.close();
+      } else {
+        lines.close();
+      }
+    }
+  }
 }
@@ -20,6 +20,7 @@ import java.io.IOException;
 import java.util.List;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.compress.CompressionCodecFactory;
 import org.apache.hadoop.mapreduce.InputSplit;
 import org.apache.hadoop.mapreduce.JobContext;
 import org.apache.hadoop.mapreduce.RecordReader;
@@ -32,6 +33,7 @@ import org.kitesdk.data.DatasetOperationException;
 import org.kitesdk.data.View;
 import org.kitesdk.data.spi.AbstractRefinableView;
 import org.kitesdk.data.spi.DataModelUtil;
+import org.kitesdk.data.spi.DescriptorUtil;
 import org.kitesdk.data.spi.EntityAccessor;
 
 class CSVInputFormat<E> extends FileInputFormat<E, Void> {
@@ -45,7 +47,14 @@ class CSVInputFormat<E> extends FileInputFormat<E, Void> {
 
   @Override
   protected boolean isSplitable(JobContext context, Path filename) {
-    return false;
+    // a split that starts inside a quoted value with line endings would read
+    // the rest of the value as records, so splitting must be enabled
+    if (!DescriptorUtil.isEnabled(CSVProperties.SPLITTABLE_PROPERTY, descriptor)) {
+      return false;
+    }
+    Configuration conf = Hadoop.JobContext.getConfiguration.invoke(context);
+    return (new CompressionCodecFactory(conf).getCodec(filename) == null &&
+        CSVFileReader.isSplittable(CSVProperties.fromDescriptor(descriptor)));
   }
 
   @Override
@@ -59,16 +68,18 @@ class CSVInputFormat<E> extends FileInputFormat<E, Void> {
       throws IOException, InterruptedException {
     Configuration conf = Hadoop.TaskAttemptContext
         .getConfiguration.invoke(context);
-    Path path;
+    FileSplit fileSplit;
     if (split instanceof FileSplit) {
-      path = ((FileSplit) split).getPath();
+      fileSplit = (FileSplit) split;
     } else {
       throw new DatasetOperationException(
           "Split is not a FileSplit: %s:%s",
           split.getClass().getCanonicalName(), split);
     }
+    Path path = fileSplit.getPath();
     CSVFileReader<E> reader = new CSVFileReader<E>(
-        path.getFileSystem(conf), path, descriptor, accessor);
+        path.getFileSystem(conf), path, descriptor, accessor,
+        fileSplit.getStart(), fileSplit.getLength());
     reader.initialize();
     return reader.asRecordReader();
   }
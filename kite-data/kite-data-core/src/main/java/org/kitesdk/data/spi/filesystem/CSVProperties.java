@@ -35,6 +35,9 @@ public class CSVProperties {
   public static final String HEADER_PROPERTY = "kite.csv.header";
   public static final String HAS_HEADER_PROPERTY = "kite.csv.has-header";
   public static final String LINES_TO_SKIP_PROPERTY = "kite.csv.lines-to-skip";
+  // set to true to split files for MapReduce; only safe if quoted values do
+  // not contain line endings, because splits are aligned to line endings
+  public static final String SPLITTABLE_PROPERTY = "kite.csv.splittable";
 
   // old properties
   public static final String OLD_CHARSET_PROPERTY = "cdk.csv.charset";
@@ -27,11 +27,18 @@ import org.kitesdk.data.DatasetOperationException;
 import org.kitesdk.data.DatasetRecordException;
 import org.kitesdk.data.spi.SchemaUtil;
 
+/**
+ * Builds records from CSV fields.
+ * <p>
+ * The conversion for each field is resolved once, when the builder is
+ * created, so converting a row does not inspect the schema.
+ */
 class CSVRecordBuilder<E> {
   private final Schema schema;
   private final Class<E> recordClass;
   private final Schema.Field[] fields;
   private final int[] indexes; // Record position to CSV field position
+  private final FieldConverter[] converters;
 
   public CSVRecordBuilder(Schema schema, Class<E> recordClass,
                           @Nullable List<String> header) {
@@ -63,6 +70,11 @@ class CSVRecordBuilder<E> {
         indexes[i] = i;
       }
     }
+
+    converters = new FieldConverter[fields.length];
+    for (int i = 0; i < fields.length; i += 1) {
+      converters[i] = new FieldConverter(fields[i]);
+    }
   }
 
   public E makeRecord(String[] fields, @Nullable E reuse) {
@@ -95,7 +107,7 @@ class CSVRecordBuilder<E> {
     for (int i = 0; i < indexes.length; i += 1) {
       int index = indexes[i];
       record.put(i,
-          makeValue(index < data.length ? data[index] : null, fields[i]));
+          converters[i].convert(index < data.length ? data[index] : null));
     }
   }
 
@@ -103,98 +115,202 @@ class CSVRecordBuilder<E> {
     for (int i = 0; i < indexes.length; i += 1) {
       Schema.Field field = fields[i];
       int index = indexes[i];
-      Object value = makeValue(index < data.length ? data[index] : null, field);
+      Object value = converters[i].convert(
+          index < data.length ? data[index] : null);
       ReflectData.get().setField(record, field.name(), i, value);
     }
   }
 
-  private static Object makeValue(@Nullable String string, Schema.Field field) {
-    try {
-      Object value = makeValue(string, field.schema());
-      if (value != null || SchemaUtil.nullOk(field.schema())) {
-        return value;
-      } else {
-        // this will fail if there is no default value
-        return ReflectData.get().getDefaultValue(field);
+  /**
+   * Converts a CSV value for a field, using the field's default value when the
+   * value is missing and the field schema does not allow nulls.
+   */
+  private static class FieldConverter {
+    private final Schema.Field field;
+    private final ValueConverter converter;
+    private final boolean nullOk;
+
+    private FieldConverter(Schema.Field field) {
+      this.field = field;
+      this.converter = converterFor(field.schema());
+      this.nullOk = SchemaUtil.nullOk(field.schema());
+    }
+
+    private Object convert(@Nullable String string) {
+      try {
+        Object value = (string == null ? null : converter.convert(string));
+        if (value != null || nullOk) {
+          return value;
+        } else {
+          // this will fail if there is no default value
+          return ReflectData.get().getDefaultValue(field);
+        }
+      } catch (DatasetRecordException e) {
+        // add the field name to the error message
+        throw new DatasetRecordException(String.format(
+            "Cannot convert field %s", field.name()), e);
+      } catch (NumberFormatException e) {
+        throw new DatasetRecordException(String.format(
+            "Field %s: value not a %s: '%s'",
+            field.name(), field.schema(), string), e);
+      } catch (AvroRuntimeException e) {
+        throw new DatasetRecordException(String.format(
+            "Field %s: cannot make %s value: '%s'",
+            field.name(), field.schema(), string), e);
       }
-    } catch (DatasetRecordException e) {
-      // add the field name to the error message
-      throw new DatasetRecordException(String.format(
-          "Cannot convert field %s", field.name()), e);
-    } catch (NumberFormatException e) {
-      throw new DatasetRecordException(String.format(
-          "Field %s: value not a %s: '%s'",
-          field.name(), field.schema(), string), e);
-    } catch (AvroRuntimeException e) {
-      throw new DatasetRecordException(String.format(
-          "Field %s: cannot make %s value: '%s'",
-          field.name(), field.schema(), string), e);
     }
   }
 
   /**
-   * Returns a the value as the first matching schema type or null.
-   *
-   * Note that if the value may be null even if the schema does not allow the
+   * Converts a non-null String to a value for a schema, or returns null.
+   * <p>
+   * Note that the value may be null even if the schema does not allow the
    * value to be null.
-   *
-   * @param string a String representation of the value
-   * @param schema a Schema
-   * @return the string coerced to the correct type from the schema or null
    */
-  private static Object makeValue(@Nullable String string, Schema schema) {
-    if (string == null) {
+  private abstract static class ValueConverter {
+    abstract Object convert(String string);
+  }
+
+  private static ValueConverter converterFor(Schema schema) {
+    switch (schema.getType()) {
+      case BOOLEAN:
+        return BOOLEAN;
+      case STRING:
+        return STRING;
+      case FLOAT:
+        return FLOAT;
+      case DOUBLE:
+        return DOUBLE;
+      case INT:
+        return INT;
+      case LONG:
+        return LONG;
+      case ENUM:
+        return new EnumConverter(schema);
+      case UNION:
+        List<Schema> types = schema.getTypes();
+        ValueConverter[] options = new ValueConverter[types.size()];
+        for (int i = 0; i < options.length; i += 1) {
+          options[i] = converterFor(types.get(i));
+        }
+        return new UnionConverter(options);
+      case NULL:
+        return NULL;
+      default:
+        // FIXED, BYTES, MAP, ARRAY, RECORD are not supported
+        return new UnsupportedConverter(schema);
+    }
+  }
+
+  private static final ValueConverter BOOLEAN = new ValueConverter() {
+    @Override
+    Object convert(String string) {
+      return Boolean.valueOf(string);
+    }
+  };
+
+  private static final ValueConverter STRING = new ValueConverter() {
+    @Override
+    Object convert(String string) {
+      return string;
+    }
+  };
+
+  // empty strings are considered null for numeric types. checking first
+  // avoids creating and catching a NumberFormatException for each one.
+
+  private static final ValueConverter FLOAT = new ValueConverter() {
+    @Override
+    Object convert(String string) {
+      return string.isEmpty() ? null : Float.valueOf(string);
+    }
+  };
+
+  private static final ValueConverter DOUBLE = new ValueConverter() {
+    @Override
+    Object convert(String string) {
+      return string.isEmpty() ? null : Double.valueOf(string);
+    }
+  };
+
+  private static final ValueConverter INT = new ValueConverter() {
+    @Override
+    Object convert(String string) {
+      return string.isEmpty() ? null : Integer.valueOf(string);
+    }
+  };
+
+  private static final ValueConverter LONG = new ValueConverter() {
+    @Override
+    Object convert(String string) {
+      return string.isEmpty() ? null : Long.valueOf(string);
+    }
+  };
+
+  private static final ValueConverter NULL = new ValueConverter() {
+    @Override
+    Object convert(String string) {
       return null;
     }
+  };
 
-    try {
-      switch (schema.getType()) {
-        case BOOLEAN:
-          return Boolean.valueOf(string);
-        case STRING:
-          return string;
-        case FLOAT:
-          return Float.valueOf(string);
-        case DOUBLE:
-          return Double.valueOf(string);
-        case INT:
-          return Integer.valueOf(string);
-        case LONG:
-          return Long.valueOf(string);
-        case ENUM:
-          // TODO: translate to enum class
-          if (schema.hasEnumSymbol(string)) {
-            return string;
-          } else {
-            try {
-              return schema.getEnumSymbols().get(Integer.parseInt(string));
-            } catch (IndexOutOfBoundsException ex) {
-              return null;
-            }
-          }
-        case UNION:
-          Object value = null;
-          for (Schema possible : schema.getTypes()) {
-            value = makeValue(string, possible);
-            if (value != null) {
-              return value;
-            }
-          }
-          return null;
-        case NULL:
-          return null;
-        default:
-          // FIXED, BYTES, MAP, ARRAY, RECORD are not supported
-          throw new DatasetOperationException(
-              "Unsupported field type:" + schema.getType());
-      }
-    } catch (NumberFormatException e) {
-      // empty string is considered null for numeric types
-      if (string.isEmpty()) {
+  private static class EnumConverter extends ValueConverter {
+    private final Schema schema;
+    private final List<String> symbols;
+
+    private EnumConverter(Schema schema) {
+      this.schema = schema;
+      this.symbols = schema.getEnumSymbols();
+    }
+
+    @Override
+    Object convert(String string) {
+      // TODO: translate to enum class
+      if (schema.hasEnumSymbol(string)) {
+        return string;
+      } else if (string.isEmpty()) {
         return null;
       } else {
-        throw e;
+        try {
+          return symbols.get(Integer.parseInt(string));
+        } catch (IndexOutOfBoundsException ex) {
+          return null;
+        }
+      }
+    }
+  }
+
+  private static class UnionConverter extends ValueConverter {
+    private final ValueConverter[] options;
+
+    private UnionConverter(ValueConverter[] options) {
+      this.options = options;
+    }
+
+    @Override
+    Object convert(String string) {
+      // returns the value as the first matching schema type
+      for (ValueConverter option : options) {
+        Object value = option.convert(string);
+        if (value != null) {
+          return value;
+        }
       }
+      return null;
+    }
+  }
+
+  private static class UnsupportedConverter extends ValueConverter {
+    private final Schema.Type type;
+
+    private UnsupportedConverter(Schema schema) {
+      this.type = schema.getType();
+    }
+
+    @Override
+    Object convert(String string) {
+      throw new DatasetOperationException(
+          "Unsupported field type:" + type);
     }
   }
 }
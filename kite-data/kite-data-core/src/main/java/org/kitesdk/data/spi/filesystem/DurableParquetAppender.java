@@ -69,6 +69,11 @@ class DurableParquetAppender<E extends IndexedRecord> implements FileSystemWrite
     return parquetAppender.pos();
   }
 
+  @Override
+  public long bufferedSize() throws IOException {
+    return parquetAppender.bufferedSize();
+  }
+
   @Override
   public void flush() throws IOException {
     avroAppender.flush();
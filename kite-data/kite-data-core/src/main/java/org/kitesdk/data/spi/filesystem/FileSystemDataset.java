@@ -41,6 +41,7 @@ import org.kitesdk.data.spi.PartitionListener;
 import com.google.common.base.Objects;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.FileStatus;
 import org.apache.hadoop.fs.FileSystem;
@@ -55,6 +56,7 @@ import javax.annotation.Nullable;
 import java.io.IOException;
 import java.net.URI;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import org.apache.avro.generic.IndexedRecord;
 import org.kitesdk.data.Formats;
@@ -273,6 +275,7 @@ public class FileSystemDataset<E> extends AbstractDataset<E> implements
           // ensure that the directory exists, it may or may not have been
           // created by the partitionListener
           fileSystem.mkdirs(partitionDirectory);
+          ListingCache.invalidate(fileSystem, partitionDirectory);
         } else {
           return null;
         }
@@ -290,10 +293,7 @@ public class FileSystemDataset<E> extends AbstractDataset<E> implements
         .name(name)
         .fileSystem(fileSystem)
         .uri(uri)
-        .descriptor(new DatasetDescriptor.Builder(descriptor)
-            .location(partitionDirectory)
-            .partitionStrategy(subpartitionStrategy)
-            .build())
+        .descriptor(partitionDescriptor(partitionDirectory, subpartitionStrategy))
         .type(type)
         .partitionKey(key)
         .partitionListener(partitionListener)
@@ -312,6 +312,11 @@ public class FileSystemDataset<E> extends AbstractDataset<E> implements
 
     Path partitionDirectory = toDirectoryName(directory, key);
 
+    boolean useManifest = PartitionManifest.isEnabled(descriptor);
+    if (useManifest) {
+      PartitionManifest.invalidate(fileSystem, manifestRoot());
+    }
+
     try {
       if (!fileSystem.delete(partitionDirectory, true)) {
         throw new IOException("Partition directory " + partitionDirectory
@@ -320,6 +325,11 @@ public class FileSystemDataset<E> extends AbstractDataset<E> implements
     } catch (IOException e) {
       throw new DatasetIOException("Unable to locate or drop dataset partition directory " + partitionDirectory, e);
     }
+
+    ListingCache.invalidateAll(fileSystem, partitionDirectory);
+    if (useManifest) {
+      PartitionManifest.rebuild(fileSystem, manifestRoot());
+    }
   }
 
   @Override
@@ -350,10 +360,7 @@ public class FileSystemDataset<E> extends AbstractDataset<E> implements
           .name(name)
           .fileSystem(fileSystem)
           .uri(uri)
-          .descriptor(new DatasetDescriptor.Builder(descriptor)
-              .location(p)
-              .partitionStrategy(subPartitionStrategy)
-              .build())
+          .descriptor(partitionDescriptor(p, subPartitionStrategy))
           .type(type)
           .partitionKey(key)
           .partitionListener(partitionListener);
@@ -364,6 +371,23 @@ public class FileSystemDataset<E> extends AbstractDataset<E> implements
     return partitions;
   }
 
+  private DatasetDescriptor partitionDescriptor(
+      Path location, PartitionStrategy subpartitionStrategy) {
+    DatasetDescriptor.Builder builder = new DatasetDescriptor.Builder(descriptor)
+        .location(location)
+        .partitionStrategy(subpartitionStrategy);
+    if (PartitionManifest.isEnabled(descriptor)) {
+      // reads and writes in the partition use this dataset's manifest
+      builder.property(FileSystemProperties.MANIFEST_ROOT_PROP,
+          manifestRoot().toString());
+    }
+    return builder.build();
+  }
+
+  private Path manifestRoot() {
+    return PartitionManifest.rootFor(descriptor, directory);
+  }
+
   public void addExistingPartitions() {
     if (partitionListener != null && descriptor.isPartitioned()) {
       for (Iterator<Path> i = dirIterator(); i.hasNext(); ) {
@@ -389,6 +413,7 @@ public class FileSystemDataset<E> extends AbstractDataset<E> implements
     // check that the dataset's descriptor can read the update
     Compatibility.checkCompatible(updateDescriptor, descriptor);
 
+    Map<Path, Long> merged = Maps.newHashMap();
     for (PartitionView<E> src : update.getCoveringPartitions()) {
       if (src instanceof FileSystemPartitionView) {
         URI relative = ((FileSystemPartitionView<E>) src).getRelativeLocation();
@@ -413,12 +438,20 @@ public class FileSystemDataset<E> extends AbstractDataset<E> implements
             new Path(dest.getLocation().toString()),
             "tmp" /* data should be added to recover from a failure */ );
         FileSystemUtil.finishMove(fileSystem, staged);
+        for (Pair<Path, Path> move : staged) {
+          merged.put(move.second(), -1L); // record counts are not known
+        }
 
       } else {
         throw new IllegalArgumentException(
             "Incompatible PartitionView: " + src.getClass().getName());
       }
     }
+
+    ListingCache.invalidateAll(fileSystem, directory);
+    if (PartitionManifest.isEnabled(descriptor)) {
+      PartitionManifest.addFiles(fileSystem, manifestRoot(), merged);
+    }
   }
 
   @Override
@@ -439,6 +472,12 @@ public class FileSystemDataset<E> extends AbstractDataset<E> implements
     // check that the dataset's descriptor can read the update
     Compatibility.checkCompatible(updateDescriptor, descriptor);
 
+    boolean useManifest = PartitionManifest.isEnabled(descriptor);
+    if (useManifest) {
+      // the manifest is rebuilt after the replacement is finished
+      PartitionManifest.invalidate(fileSystem, manifestRoot());
+    }
+
     if (descriptor.isPartitioned()) {
       // track current partitions: either replace or delete
       Set<PartitionView<E>> notReplaced = Sets.newHashSet(
@@ -503,6 +542,11 @@ public class FileSystemDataset<E> extends AbstractDataset<E> implements
       deleteAll(); // remove all existing files
       FileSystemUtil.finishMove(fileSystem, staged);
     }
+
+    ListingCache.invalidateAll(fileSystem, directory);
+    if (useManifest) {
+      PartitionManifest.rebuild(fileSystem, manifestRoot());
+    }
   }
 
   @Override
@@ -580,10 +624,11 @@ public class FileSystemDataset<E> extends AbstractDataset<E> implements
   @Override
   public long getSize() {
     long size = 0;
+    ListingCache listing = unbounded.listingCache();
     for (Iterator<Path> i = dirIterator(); i.hasNext(); ) {
       Path dir = i.next();
       try {
-        for (FileStatus st : fileSystem.listStatus(dir)) {
+        for (FileStatus st : listing.listStatus(dir)) {
           size += st.getLen();
         }
       } catch (IOException e) {
@@ -600,6 +645,19 @@ public class FileSystemDataset<E> extends AbstractDataset<E> implements
 
   @Override
   public boolean isEmpty() {
+    // the manifest records the number of records in each file, so the
+    // dataset can be checked without opening a reader
+    PartitionManifest manifest = unbounded.listingCache().getManifest();
+    if (manifest != null) {
+      try {
+        long records = manifest.getRecordCount(directory);
+        if (records >= 0) {
+          return records == 0;
+        }
+      } catch (IOException e) {
+        throw new DatasetIOException("Cannot count records in " + directory, e);
+      }
+    }
     return unbounded.isEmpty();
   }
 
@@ -157,6 +157,11 @@ public class FileSystemDatasetRepository extends AbstractDatasetRepository
     // notify the partition listener about any existing data partitions
     dataset.addExistingPartitions();
 
+    if (PartitionManifest.isEnabled(newDescriptor)) {
+      // record any existing data files
+      PartitionManifest.rebuild(dataset.getFileSystem(), dataset.getDirectory());
+    }
+
     return dataset;
   }
 
@@ -177,7 +182,7 @@ public class FileSystemDatasetRepository extends AbstractDatasetRepository
     LOG.debug("Updated dataset: {} schema: {} location: {}", new Object[] {
         name, updatedDescriptor.getSchema(), updatedDescriptor.getLocation() });
 
-    return new FileSystemDataset.Builder<E>()
+    FileSystemDataset<E> dataset = new FileSystemDataset.Builder<E>()
         .namespace(namespace)
         .name(name)
         .configuration(conf)
@@ -187,6 +192,14 @@ public class FileSystemDatasetRepository extends AbstractDatasetRepository
         .partitionKey(updatedDescriptor.isPartitioned() ? new PartitionKey() : null)
         .partitionListener(getPartitionListener())
         .build();
+
+    if (PartitionManifest.isEnabled(updatedDescriptor) &&
+        !PartitionManifest.isEnabled(oldDescriptor)) {
+      // files written while the manifest was disabled were not recorded
+      PartitionManifest.rebuild(dataset.getFileSystem(), dataset.getDirectory());
+    }
+
+    return dataset;
   }
 
   @Override
@@ -24,8 +24,12 @@ import org.kitesdk.data.PartitionStrategy;
 import org.kitesdk.data.spi.StorageKey;
 import com.google.common.base.Function;
 import com.google.common.base.Preconditions;
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterators;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import org.apache.hadoop.fs.FileStatus;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
@@ -36,6 +40,11 @@ import java.io.IOException;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 class FileSystemPartitionIterator implements
     Iterator<StorageKey>, Iterable<StorageKey> {
@@ -50,6 +59,7 @@ class FileSystemPartitionIterator implements
   private final Schema schema;
   private final Predicate<StorageKey> predicate;
   private final MakePartialKey makeKey;
+  private final ListingCache listing;
 
   class FileSystemIterator extends MultiLevelIterator<String> {
     public FileSystemIterator(int depth) throws IOException {
@@ -57,41 +67,145 @@ class FileSystemPartitionIterator implements
     }
 
     @Override
-    @SuppressWarnings({"unchecked", "deprecation"})
     public Iterable<String> getLevel(List<String> current) {
-      final Set<String> dirs = Sets.newLinkedHashSet();
+      Path dir = toPath(current);
+      if (applies(dir)) {
+        return listDirectories(dir);
+      }
+      return ImmutableList.of();
+    }
+  }
+
+  /**
+   * Lists partition directories one level at a time, with the
+   * {@code listStatus} calls for each level run in parallel on a thread pool.
+   *
+   * The predicate is applied to each directory before it is listed, so pruned
+   * directories are never sent to the file system. Entries are returned in the
+   * same order as {@link FileSystemIterator}.
+   */
+  class ParallelFileSystemIterator extends AbstractIterator<List<String>> {
+    private final int depth;
+    private final int numThreads;
+    private Iterator<List<String>> leaves = null;
 
-      Path dir = rootDirectory;
-      for (int i = 0, n = current.size(); i < n; i += 1) {
-        dir = new Path(dir, current.get(i));
+    public ParallelFileSystemIterator(int depth, int numThreads) {
+      Preconditions.checkArgument(depth > 0, "Depth must be > 0");
+      this.depth = depth;
+      this.numThreads = numThreads;
+    }
+
+    @Override
+    protected List<String> computeNext() {
+      if (leaves == null) {
+        this.leaves = listLeaves().iterator();
       }
+      if (leaves.hasNext()) {
+        return leaves.next();
+      }
+      return endOfData();
+    }
 
-      StorageKey key = makeKey.apply(dir);
-      boolean applies = true;
-      //if the key doesn't have any values then do not apply the predicate and assume it is ok.  The official
-      //predicate applied on the full path will exclude the details.
-      if(key.size() > 0){
-        applies = predicate.apply(key);
-      }else{
-        LOG.debug("Not applying predicate proactively because path {} does not have any key values.", dir);
+    private List<List<String>> listLeaves() {
+      ExecutorService pool = Executors.newFixedThreadPool(numThreads,
+          new ThreadFactoryBuilder()
+              .setDaemon(true)
+              .setNameFormat("kite-partition-listing-%d")
+              .build());
+      try {
+        List<List<String>> level = Lists.newArrayList();
+        level.add(ImmutableList.<String>of());
+        for (int i = 0; i < depth; i += 1) {
+          level = listNextLevel(pool, level);
+        }
+        return level;
+      } finally {
+        pool.shutdownNow();
       }
-      if(applies) {
-        try {
-          for (FileStatus stat : fs.listStatus(dir, PathFilters.notHidden())) {
-            if (stat.isDir()) {
-              // TODO: add a check here for range.couldContain(Marker)
-              dirs.add(stat.getPath().getName());
+    }
+
+    private List<List<String>> listNextLevel(ExecutorService pool,
+                                             List<List<String>> level) {
+      // the predicate uses a reused key, so it is only called from this thread
+      List<List<String>> parents = Lists.newArrayList();
+      List<Future<Set<String>>> children = Lists.newArrayList();
+      for (List<String> parent : level) {
+        final Path dir = toPath(parent);
+        if (applies(dir)) {
+          parents.add(parent);
+          children.add(pool.submit(new Callable<Set<String>>() {
+            @Override
+            public Set<String> call() {
+              return listDirectories(dir);
             }
-          }
-        } catch (IOException ex) {
-          throw new DatasetException("Cannot list directory:" + dir, ex);
+          }));
+        }
+      }
+
+      List<List<String>> nextLevel = Lists.newArrayList();
+      for (int i = 0, n = parents.size(); i < n; i += 1) {
+        List<String> parent = parents.get(i);
+        for (String child : getUnchecked(children.get(i))) {
+          nextLevel.add(ImmutableList.<String>builder()
+              .addAll(parent).add(child).build());
         }
-      }else{
-        LOG.debug("Skipping exploring {} path as it did not match the predicate {}", dir, predicate);
       }
+      return nextLevel;
+    }
+
+    private Set<String> getUnchecked(Future<Set<String>> future) {
+      try {
+        return future.get();
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+        throw new DatasetException("Interrupted while listing partitions", ex);
+      } catch (ExecutionException ex) {
+        if (ex.getCause() instanceof RuntimeException) {
+          throw (RuntimeException) ex.getCause();
+        }
+        throw new DatasetException("Cannot list partitions", ex.getCause());
+      }
+    }
+  }
+
+  private Path toPath(List<String> current) {
+    Path dir = rootDirectory;
+    for (int i = 0, n = current.size(); i < n; i += 1) {
+      dir = new Path(dir, current.get(i));
+    }
+    return dir;
+  }
+
+  private boolean applies(Path dir) {
+    StorageKey key = makeKey.apply(dir);
+    //if the key doesn't have any values then do not apply the predicate and assume it is ok.  The official
+    //predicate applied on the full path will exclude the details.
+    if (key.size() > 0) {
+      if (predicate.apply(key)) {
+        return true;
+      }
+      LOG.debug("Skipping exploring {} path as it did not match the predicate {}", dir, predicate);
+      return false;
+    } else {
+      LOG.debug("Not applying predicate proactively because path {} does not have any key values.", dir);
+      return true;
+    }
+  }
 
-      return dirs;
+  @SuppressWarnings("deprecation")
+  private Set<String> listDirectories(Path dir) {
+    final Set<String> dirs = Sets.newLinkedHashSet();
+    try {
+      for (FileStatus stat : listing.listStatus(dir, PathFilters.notHidden())) {
+        if (stat.isDir()) {
+          // TODO: add a check here for range.couldContain(Marker)
+          dirs.add(stat.getPath().getName());
+        }
+      }
+    } catch (IOException ex) {
+      throw new DatasetException("Cannot list directory:" + dir, ex);
     }
+    return dirs;
   }
 
   /**
@@ -147,23 +261,45 @@ class FileSystemPartitionIterator implements
     }
   }
 
-  @SuppressWarnings("deprecation")
   FileSystemPartitionIterator(
       FileSystem fs, Path root, PartitionStrategy strategy, Schema schema,
       final Predicate<StorageKey> predicate)
       throws IOException {
+    this(fs, root, strategy, schema, predicate, 1);
+  }
+
+  FileSystemPartitionIterator(
+      FileSystem fs, Path root, PartitionStrategy strategy, Schema schema,
+      final Predicate<StorageKey> predicate, int listingThreads)
+      throws IOException {
+    this(fs, root, strategy, schema, predicate, listingThreads,
+        ListingCache.uncached(fs));
+  }
+
+  @SuppressWarnings("deprecation")
+  FileSystemPartitionIterator(
+      FileSystem fs, Path root, PartitionStrategy strategy, Schema schema,
+      final Predicate<StorageKey> predicate, int listingThreads,
+      ListingCache listing)
+      throws IOException {
     Preconditions.checkArgument(fs.isDirectory(root));
     this.fs = fs;
+    this.listing = listing;
     this.strategy = strategy;
     this.schema = schema;
     this.predicate = predicate;
 
     this.rootDirectory = root;
     this.makeKey = new MakePartialKey(rootDirectory, strategy, schema);
+    int depth = Accessor.getDefault().getFieldPartitioners(strategy).size();
+    Iterator<List<String>> dirs;
+    if (listingThreads > 1) {
+      dirs = new ParallelFileSystemIterator(depth, listingThreads);
+    } else {
+      dirs = new FileSystemIterator(depth);
+    }
     this.iterator = Iterators.filter(
-        Iterators.transform(
-            new FileSystemIterator(
-                Accessor.getDefault().getFieldPartitioners(strategy).size()), new MakeKey(strategy, schema)),
+        Iterators.transform(dirs, new MakeKey(strategy, schema)),
         predicate);
   }
 
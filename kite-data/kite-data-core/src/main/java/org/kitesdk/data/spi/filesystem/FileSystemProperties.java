@@ -36,6 +36,52 @@ public class FileSystemProperties {
    */
   public static final String WRITER_CACHE_SIZE_PROP = "kite.writer.cache-size";
 
+  /**
+   * Used to close and commit writers evicted from the writer cache in
+   * background threads instead of the thread calling write. When all of the
+   * threads are busy and the queue of evicted writers is full, writers are
+   * closed by the writing thread. Flush, sync, and close wait for every
+   * pending commit. Writers are closed synchronously by default.
+   *
+   * The value should be an integer.
+   */
+  public static final String WRITER_CLOSE_THREADS_PROP =
+      "kite.writer.close-threads";
+
+  /**
+   * Used to limit the memory used by open partition writers, in bytes. When
+   * the estimated data buffered by all open writers exceeds the budget, the
+   * writers buffering the most data are closed until the total is within the
+   * budget. This is checked periodically, in addition to the limit on the
+   * number of open writers.
+   *
+   * The value should be a long.
+   */
+  public static final String WRITER_MEMORY_BUDGET_PROP =
+      "kite.writer.memory-budget";
+
+  /**
+   * Used to enable sorted writes to partitioned datasets. Entities are
+   * buffered in memory up to this size in bytes, sorted by partition, and
+   * spilled to local temporary files. When the writer is closed, the sorted
+   * runs are merged and partitions are written one at a time. No data is
+   * written to the dataset until the writer is closed.
+   *
+   * The value should be a long.
+   */
+  public static final String WRITER_SORT_BUFFER_SIZE_PROP =
+      "kite.writer.sort-buffer-size";
+
+  /**
+   * Used to split uncompressed JSON files for MapReduce. Splits start at the
+   * first line after the split start that begins with '{', so this is only
+   * safe when each record starts a line and nested objects do not. Files are
+   * read in one task by default.
+   *
+   * The value should be a boolean.
+   */
+  public static final String JSON_SPLITTABLE_PROP = "kite.json.splittable";
+
   /**
    * Used to enable CSV writing; for testing only.
    *
@@ -49,6 +95,33 @@ public class FileSystemProperties {
    */
   public static final String REUSE_RECORDS = "kite.reader.reuse-records";
 
+  /**
+   * Used to set the number of data files that a reader will open ahead of the
+   * file it is currently reading. Files are opened in the background so that
+   * open and first-block latency overlaps with decoding. Prefetching is
+   * disabled when this is 0 or unset.
+   *
+   * The value should be an integer.
+   */
+  public static final String READER_PREFETCH_FILES_PROP = "kite.reader.prefetch-files";
+
+  /**
+   * Used to set the number of background threads used to open prefetched data
+   * files. Defaults to the number of files to prefetch.
+   *
+   * The value should be an integer.
+   */
+  public static final String READER_PREFETCH_THREADS_PROP = "kite.reader.prefetch-threads";
+
+  /**
+   * Used to limit the total size, in bytes, of the data files that a reader
+   * has opened ahead of the file it is currently reading. At least one file is
+   * always prefetched, regardless of its size.
+   *
+   * The value should be a long.
+   */
+  public static final String READER_PREFETCH_MAX_BYTES_PROP = "kite.reader.prefetch-max-bytes";
+
   /**
    * Used to set the target size, in bytes, for data files. Data files will be
    * closed and finalized once they reach this size.
@@ -61,6 +134,64 @@ public class FileSystemProperties {
    */
   public static final String ROLL_INTERVAL_S_PROP = "kite.writer.roll-interval-seconds";
 
+  /**
+   * Used to set the number of threads used to list partition directories when
+   * planning reads of a partitioned dataset. Each level of the partition
+   * hierarchy is listed in parallel; the default, 1, lists directories one at
+   * a time.
+   *
+   * The value should be an integer.
+   */
+  public static final String PARTITION_LISTING_THREADS_PROP = "kite.partition-listing.threads";
+
+  /**
+   * Used to enable the in-process cache of directory listings and set how
+   * long, in milliseconds, a cached listing may be used. Listings are
+   * invalidated when data is written, merged, replaced, or deleted in the same
+   * process; the TTL bounds how long changes made by other processes may go
+   * unnoticed. Caching is disabled when this is 0 or unset.
+   *
+   * The value should be a long.
+   */
+  public static final String LISTING_CACHE_TTL_MS_PROP = "kite.listing-cache.ttl-ms";
+
+  /**
+   * Used to validate cached directory listings against the modification time
+   * of the directory before they are used. This costs one file status call
+   * per directory instead of a full listing, and detects changes made by other
+   * processes on file systems that update directory modification times.
+   *
+   * The value should be a boolean.
+   */
+  public static final String LISTING_CACHE_CHECK_MOD_TIME_PROP =
+      "kite.listing-cache.check-modification-time";
+
+  /**
+   * Used to enable a partition manifest that records the data files in a
+   * dataset. When enabled, readers and split planning use the manifest instead
+   * of listing partition directories, and writers add the files they commit.
+   *
+   * The value should be a boolean.
+   */
+  public static final String MANIFEST_ENABLED_PROP = "kite.manifest.enabled";
+
+  /**
+   * Set on the descriptors of partition datasets to the location of the
+   * dataset whose manifest records their files.
+   */
+  static final String MANIFEST_ROOT_PROP = "kite.manifest.root";
+
+  /**
+   * Used to check the modification time of every directory listed from the
+   * partition manifest, to detect files added or removed without updating
+   * it. This costs one file system call per directory. When disabled, only
+   * the dataset root is checked when the manifest is loaded.
+   *
+   * The value should be a boolean.
+   */
+  public static final String MANIFEST_CHECK_DIRECTORIES_PROP =
+      "kite.manifest.check-directories";
+
   /**
    * Until HADOOP-9565 is available and fully adopted, need to make this configurable so that
    * we can avoid multiple expensive copy operations when writing output to a file system that
@@ -31,6 +31,7 @@ import org.kitesdk.data.spi.AbstractDatasetReader;
 import org.kitesdk.data.spi.AbstractDatasetWriter;
 import org.kitesdk.data.spi.AbstractRefinableView;
 import org.kitesdk.data.spi.Constraints;
+import org.kitesdk.data.spi.DescriptorUtil;
 import org.kitesdk.data.spi.InputFormatAccessor;
 import org.kitesdk.data.spi.LastModifiedAccessor;
 import org.kitesdk.data.spi.PartitionListener;
@@ -48,6 +49,8 @@ import org.apache.hadoop.conf.Configuration;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import static org.kitesdk.data.spi.filesystem.FileSystemProperties.PARTITION_LISTING_THREADS_PROP;
+
 /**
  * FileSystem implementation of a {@link org.kitesdk.data.spi.Constraints}-based
  * {@link org.kitesdk.data.RefinableView}.
@@ -115,7 +118,11 @@ class FileSystemView<E> extends AbstractRefinableView<E> implements InputFormatA
     checkSchemaForWrite();
     AbstractDatasetWriter<E> writer;
     if (dataset.getDescriptor().isPartitioned()) {
-      writer = PartitionedDatasetWriter.newWriter(this);
+      if (SpillingPartitionedDatasetWriter.isEnabled(dataset.getDescriptor())) {
+        writer = new SpillingPartitionedDatasetWriter<E>(this);
+      } else {
+        writer = PartitionedDatasetWriter.newWriter(this);
+      }
     } else {
       writer = FileSystemWriter.newWriter(
           fs, root, -1, -1 /* get from descriptor */, dataset.getDescriptor(), this.getAccessor().getWriteSchema());
@@ -179,10 +186,11 @@ class FileSystemView<E> extends AbstractRefinableView<E> implements InputFormatA
   }
 
   PathIterator pathIterator() {
+    ListingCache listing = listingCache();
     if (dataset.getDescriptor().isPartitioned()) {
-      return new PathIterator(fs, root, partitionIterator());
+      return new PathIterator(fs, root, partitionIterator(listing), listing);
     } else {
-      return new PathIterator(fs, root, null);
+      return new PathIterator(fs, root, null, listing);
     }
   }
 
@@ -208,17 +216,34 @@ class FileSystemView<E> extends AbstractRefinableView<E> implements InputFormatA
   }
 
   private FileSystemPartitionIterator partitionIterator() {
+    return partitionIterator(listingCache());
+  }
+
+  private FileSystemPartitionIterator partitionIterator(ListingCache listing) {
     DatasetDescriptor descriptor = dataset.getDescriptor();
     try {
       return new FileSystemPartitionIterator(
           fs, root, descriptor.getPartitionStrategy(), descriptor.getSchema(),
-          getKeyPredicate());
+          getKeyPredicate(),
+          DescriptorUtil.getInt(PARTITION_LISTING_THREADS_PROP, descriptor, 1),
+          listing);
     } catch (IOException ex) {
       throw new DatasetException("Cannot list partitions in view:" + this, ex);
     }
   }
 
+  ListingCache listingCache() {
+    return ListingCache.forDataset(fs, root, dataset.getDescriptor());
+  }
+
   boolean deleteAllUnsafe(boolean useTrash) {
+    boolean useManifest = PartitionManifest.isEnabled(dataset.getDescriptor());
+    Path manifestRoot = PartitionManifest.rootFor(dataset.getDescriptor(), root);
+    if (useManifest) {
+      // the manifest is rebuilt after the files are removed
+      PartitionManifest.invalidate(fs, manifestRoot);
+    }
+
     boolean deleted = false;
     if (dataset.getDescriptor().isPartitioned()) {
       for (StorageKey key : partitionIterator()) {
@@ -241,16 +266,21 @@ class FileSystemView<E> extends AbstractRefinableView<E> implements InputFormatA
             : FileSystemUtil.cleanlyDelete(fs, root, path)) || deleted;
       }
     }
+    ListingCache.invalidateAll(fs, root);
+    if (useManifest) {
+      PartitionManifest.rebuild(fs, manifestRoot);
+    }
     return deleted;
   }
 
   @Override
   public long getSize() {
     long size = 0;
+    ListingCache listing = listingCache();
     for (Iterator<Path> i = dirIterator(); i.hasNext(); ) {
       Path dir = i.next();
       try {
-        for (FileStatus st : fs.listStatus(dir)) {
+        for (FileStatus st : listing.listStatus(dir)) {
           size += st.getLen();
         }
       } catch (IOException e) {
@@ -263,10 +293,11 @@ class FileSystemView<E> extends AbstractRefinableView<E> implements InputFormatA
   @Override
   public long getLastModified() {
     long lastMod = -1;
+    ListingCache listing = listingCache();
     for (Iterator<Path> i = dirIterator(); i.hasNext(); ) {
       Path dir = i.next();
       try {
-        for (FileStatus st : fs.listStatus(dir)) {
+        for (FileStatus st : listing.listStatus(dir)) {
           if (lastMod < st.getModificationTime()) {
             lastMod = st.getModificationTime();
           }
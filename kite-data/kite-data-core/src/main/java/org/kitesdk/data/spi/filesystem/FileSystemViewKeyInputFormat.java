@@ -121,10 +121,15 @@ class FileSystemViewKeyInputFormat<E> extends InputFormat<E, Void> {
         AvroParquetCombineInputFormat delegate = new AvroParquetCombineInputFormat();
         return delegate.getSplits(jobContext);
       } else if (Formats.JSON.equals(format)) {
-        return new JSONInputFormat().getSplits(jobContext);
+        // the view's descriptor determines whether files are splittable
+        JSONInputFormat<E> delegate = new JSONInputFormat<E>();
+        delegate.setView(view != null ? view : dataset);
+        return delegate.getSplits(jobContext);
       } else if (Formats.CSV.equals(format)) {
-        // this generates an unchecked cast exception?
-        return new CSVInputFormat().getSplits(jobContext);
+        // the view's CSV properties determine whether files are splittable
+        CSVInputFormat<E> delegate = new CSVInputFormat<E>();
+        delegate.setView(view != null ? view : dataset);
+        return delegate.getSplits(jobContext);
       } else if (Formats.INPUTFORMAT.equals(format)) {
         return InputFormatUtil.newInputFormatInstance(dataset.getDescriptor())
             .getSplits(jobContext);
@@ -73,11 +73,13 @@ class FileSystemWriter<E> extends AbstractDatasetWriter<E> implements RollingWri
     void open() throws IOException;
     void append(E entity) throws IOException;
     long pos() throws IOException;
+    long bufferedSize() throws IOException;
     void sync() throws IOException;
     void cleanup() throws IOException;
   }
 
   private final Path directory;
+  private final Path manifestRoot;
   private final DatasetDescriptor descriptor;
   private final Schema schema;
   private long targetFileSize;
@@ -124,6 +126,15 @@ class FileSystemWriter<E> extends AbstractDatasetWriter<E> implements RollingWri
     // For performance reasons we will skip temp file creation if the file system does not support
     // efficient renaming, and write the file directly.
     this.useTempPath = FileSystemUtil.supportsRename(fs.getUri(), conf);
+
+    // committed files are added to the dataset's manifest, if it has one
+    if (PartitionManifest.isEnabled(descriptor) &&
+        descriptor.getLocation() != null) {
+      this.manifestRoot = fs.makeQualified(PartitionManifest.rootFor(
+          descriptor, new Path(descriptor.getLocation())));
+    } else {
+      this.manifestRoot = null;
+    }
   }
 
   @Override
@@ -200,6 +211,22 @@ class FileSystemWriter<E> extends AbstractDatasetWriter<E> implements RollingWri
     }
   }
 
+  /**
+   * Returns an estimate of the number of bytes buffered in memory by this
+   * writer that have not been written to the file system.
+   */
+  long bufferedSize() {
+    if (!ReaderWriterState.OPEN.equals(state)) {
+      return 0;
+    }
+    try {
+      return appender.bufferedSize();
+    } catch (IOException e) {
+      throw new DatasetIOException(
+          "Failed to get buffered size of " + appender, e);
+    }
+  }
+
   @Override
   public final void close() {
     try {
@@ -244,6 +271,12 @@ class FileSystemWriter<E> extends AbstractDatasetWriter<E> implements RollingWri
         LOG.debug("Committed {} for appender {} ({} entities)",
             new Object[]{finalPath, appender, count});
 
+        // the new file must be visible to cached listings in this process
+        ListingCache.invalidate(fs, directory);
+        if (manifestRoot != null) {
+          PartitionManifest.addFile(fs, manifestRoot, finalPath, count);
+        }
+
       } else {
         // discard the temp file
         try {
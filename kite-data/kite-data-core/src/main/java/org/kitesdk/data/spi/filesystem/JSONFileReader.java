@@ -16,22 +16,24 @@
 
 package org.kitesdk.data.spi.filesystem;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.google.common.base.Function;
+import com.fasterxml.jackson.core.JsonLocation;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.base.Preconditions;
-import com.google.common.collect.Iterators;
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.Iterator;
-import javax.annotation.Nullable;
+import java.util.NoSuchElementException;
 import org.apache.avro.Schema;
 import org.apache.avro.generic.GenericData;
 import org.apache.hadoop.fs.FSDataInputStream;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.Text;
 import org.apache.hadoop.mapreduce.InputSplit;
 import org.apache.hadoop.mapreduce.RecordReader;
 import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.util.LineReader;
 import org.kitesdk.data.DatasetIOException;
 import org.kitesdk.data.spi.AbstractDatasetReader;
 import org.kitesdk.data.spi.DataModelUtil;
@@ -46,23 +48,47 @@ public class JSONFileReader<E> extends AbstractDatasetReader<E> {
   private static final Logger LOG = LoggerFactory
       .getLogger(JSONFileReader.class);
 
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
   private final FileSystem fs;
   private final Path path;
   private final GenericData model;
   private final Schema schema;
+  private final long start;
+  private final long end;
 
   // progress reporting
   private long size = 0;
   private InputStream incoming = null;
+  private long offset = 0;
 
   // state
   private ReaderWriterState state = ReaderWriterState.NEW;
-  private Iterator<E> iterator;
+  private JsonParser parser = null;
+  private boolean hasNext = false;
 
   public JSONFileReader(FileSystem fileSystem, Path path,
                         EntityAccessor<E> accessor) {
+    this(fileSystem, path, accessor, 0, Long.MAX_VALUE);
+  }
+
+  /**
+   * Creates a reader for the top-level objects that start between
+   * {@code start} and {@code start + length}.
+   * <p>
+   * Objects are found by looking for a line that starts with '{', so the
+   * first object in the range is the first one at the start of a line after
+   * {@code start}. Reading stops at the first object that starts a line after
+   * the end of the range; objects that do not start a line are always read
+   * with the object before them.
+   */
+  public JSONFileReader(FileSystem fileSystem, Path path,
+                        EntityAccessor<E> accessor,
+                        long start, long length) {
     this.fs = fileSystem;
     this.path = path;
+    this.start = start;
+    this.end = (length == Long.MAX_VALUE ? length : start + length);
     this.schema = accessor.getReadSchema();
     this.model = DataModelUtil.getDataModelForType(accessor.getType());
     this.state = ReaderWriterState.NEW;
@@ -72,6 +98,8 @@ public class JSONFileReader<E> extends AbstractDatasetReader<E> {
     this.fs = null;
     this.path = null;
     this.incoming = incoming;
+    this.start = 0;
+    this.end = Long.MAX_VALUE;
     this.schema = schema;
     this.model = DataModelUtil.getDataModelForType(type);
     this.state = ReaderWriterState.NEW;
@@ -95,14 +123,19 @@ public class JSONFileReader<E> extends AbstractDatasetReader<E> {
       }
     }
 
-    this.iterator = Iterators.transform(JsonUtil.parser(incoming),
-        new Function<JsonNode, E>() {
-          @Override
-          @SuppressWarnings("unchecked")
-          public E apply(@Nullable JsonNode node) {
-            return (E) JsonUtil.convertToAvro(model, node, schema);
-          }
-        });
+    try {
+      if (start > 0) {
+        FSDataInputStream in = (FSDataInputStream) incoming;
+        this.offset = nextObjectStart(in, start);
+        in.seek(offset);
+      }
+      this.parser = MAPPER.getFactory().createParser(incoming);
+    } catch (IOException e) {
+      throw new DatasetIOException("Cannot initialize JSON parser", e);
+    }
+
+    // initialize by reading the first object
+    this.hasNext = advance();
 
     this.state = ReaderWriterState.OPEN;
   }
@@ -111,14 +144,79 @@ public class JSONFileReader<E> extends AbstractDatasetReader<E> {
   public boolean hasNext() {
     Preconditions.checkState(state.equals(ReaderWriterState.OPEN),
         "Attempt to read from a file in state:%s", state);
-    return iterator.hasNext();
+    return hasNext;
   }
 
   @Override
+  @SuppressWarnings("unchecked")
   public E next() {
     Preconditions.checkState(state.equals(ReaderWriterState.OPEN),
         "Attempt to read from a file in state:%s", state);
-    return iterator.next();
+
+    if (!hasNext) {
+      throw new NoSuchElementException();
+    }
+
+    try {
+      return (E) JsonUtil.readAvro(model, parser, schema);
+    } catch (IOException ex) {
+      throw new DatasetIOException("Could not read record", ex);
+    } finally {
+      this.hasNext = advance();
+    }
+  }
+
+  private boolean advance() {
+    try {
+      // if the last value could not be converted, skip the rest of it
+      while (!parser.getParsingContext().inRoot()) {
+        if (parser.nextToken() == null) {
+          return false;
+        }
+      }
+      JsonToken token = parser.nextToken();
+      if (token == null) {
+        return false;
+      }
+      if (token == JsonToken.START_OBJECT && end != Long.MAX_VALUE) {
+        JsonLocation location = parser.getTokenLocation();
+        if (location.getColumnNr() == 1 && position(location) > end) {
+          // the next object starts in the following split
+          return false;
+        }
+      }
+    } catch (IOException ex) {
+      throw new DatasetIOException("Could not read record", ex);
+    }
+    return true;
+  }
+
+  private long position(JsonLocation location) {
+    // parsers for byte streams may only report the offset as a char offset
+    long parsed = location.getByteOffset();
+    return offset + (parsed >= 0 ? parsed : location.getCharOffset());
+  }
+
+  /**
+   * Returns the position of the first line after {@code start} that starts
+   * with '{', or the end of the file if there is no such line.
+   */
+  private static long nextObjectStart(FSDataInputStream in, long start)
+      throws IOException {
+    in.seek(start);
+    // the LineReader is not closed because that would close the stream
+    LineReader lines = new LineReader(in);
+    Text firstByte = new Text();
+    // the line that contains start belongs to the previous split
+    long pos = start + lines.readLine(firstByte, 1);
+    while (true) {
+      int consumed = lines.readLine(firstByte, 1);
+      if (consumed == 0 ||
+          (firstByte.getLength() > 0 && firstByte.getBytes()[0] == '{')) {
+        return pos;
+      }
+      pos += consumed;
+    }
   }
 
   @Override
@@ -129,8 +227,8 @@ public class JSONFileReader<E> extends AbstractDatasetReader<E> {
 
     LOG.debug("Closing reader on path:{}", path);
 
-    iterator = null;
     try {
+      parser.close();
       incoming.close();
     } catch (IOException e) {
       throw new DatasetIOException("Unable to close reader path:" + path, e);
@@ -179,10 +277,12 @@ public class JSONFileReader<E> extends AbstractDatasetReader<E> {
 
     @Override
     public float getProgress() throws IOException, InterruptedException {
-      if (size == 0) {
+      long length = Math.min(end, size) - start;
+      if (length <= 0) {
         return 0.0f;
       }
-      return ((float) ((FSDataInputStream) incoming).getPos()) / size;
+      return Math.min(1.0f,
+          ((float) (position(parser.getCurrentLocation()) - start)) / length);
     }
 
     @Override
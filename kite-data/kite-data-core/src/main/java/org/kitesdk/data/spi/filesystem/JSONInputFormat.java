@@ -20,6 +20,7 @@ import java.io.IOException;
 import java.util.List;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.compress.CompressionCodecFactory;
 import org.apache.hadoop.mapreduce.InputSplit;
 import org.apache.hadoop.mapreduce.JobContext;
 import org.apache.hadoop.mapreduce.RecordReader;
@@ -32,18 +33,28 @@ import org.kitesdk.data.DatasetOperationException;
 import org.kitesdk.data.View;
 import org.kitesdk.data.spi.AbstractRefinableView;
 import org.kitesdk.data.spi.DataModelUtil;
+import org.kitesdk.data.spi.DescriptorUtil;
 import org.kitesdk.data.spi.EntityAccessor;
 
 class JSONInputFormat<E> extends FileInputFormat<E, Void> {
+  private DatasetDescriptor descriptor = null;
   private EntityAccessor<E> accessor = null;
 
   public void setView(View<E> view) {
+    this.descriptor = view.getDataset().getDescriptor();
     this.accessor = DataModelUtil.accessor(view.getType(), view.getSchema());
   }
 
   @Override
   protected boolean isSplitable(JobContext context, Path filename) {
-    return false;
+    // a split that starts on a nested object that begins a line would read
+    // the rest of the record as records, so splitting must be enabled
+    if (descriptor == null || !DescriptorUtil.isEnabled(
+        FileSystemProperties.JSON_SPLITTABLE_PROP, descriptor)) {
+      return false;
+    }
+    Configuration conf = Hadoop.JobContext.getConfiguration.invoke(context);
+    return (new CompressionCodecFactory(conf).getCodec(filename) == null);
   }
 
   @Override
@@ -57,16 +68,18 @@ class JSONInputFormat<E> extends FileInputFormat<E, Void> {
       throws IOException, InterruptedException {
     Configuration conf = Hadoop.TaskAttemptContext
         .getConfiguration.invoke(context);
-    Path path;
+    FileSplit fileSplit;
     if (split instanceof FileSplit) {
-      path = ((FileSplit) split).getPath();
+      fileSplit = (FileSplit) split;
     } else {
       throw new DatasetOperationException(
           "Split is not a FileSplit: %s:%s",
           split.getClass().getCanonicalName(), split);
     }
+    Path path = fileSplit.getPath();
     JSONFileReader<E> reader = new JSONFileReader<E>(
-        path.getFileSystem(conf), path, accessor);
+        path.getFileSystem(conf), path, accessor,
+        fileSplit.getStart(), fileSplit.getLength());
     reader.initialize();
     return reader.asRecordReader();
   }
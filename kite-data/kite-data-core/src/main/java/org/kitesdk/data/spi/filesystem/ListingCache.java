@@ -0,0 +1,248 @@
+/*
+ * Copyright 2015 Cloudera Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kitesdk.data.spi.filesystem;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Objects;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.Lists;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.Nullable;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.fs.PathFilter;
+import org.kitesdk.data.DatasetDescriptor;
+import org.kitesdk.data.spi.DescriptorUtil;
+
+import static org.kitesdk.data.spi.filesystem.FileSystemProperties.LISTING_CACHE_CHECK_MOD_TIME_PROP;
+import static org.kitesdk.data.spi.filesystem.FileSystemProperties.LISTING_CACHE_TTL_MS_PROP;
+import static org.kitesdk.data.spi.filesystem.FileSystemProperties.MANIFEST_CHECK_DIRECTORIES_PROP;
+
+/**
+ * Lists directories in a {@link FileSystemDataset}, optionally caching the
+ * results in-process.
+ * <p>
+ * When the dataset has a {@link PartitionManifest}, listings of directories in
+ * the dataset are answered from the manifest, which is read once per
+ * instance.
+ * <p>
+ * Cached listings are shared by every dataset and view in the JVM and are
+ * keyed by qualified directory path. A listing is reused until it is older
+ * than the configured TTL or, when enabled, until the modification time of
+ * the directory changes. Writers in this process invalidate the directories
+ * they add files to, and merge, replace, and delete invalidate every listing
+ * under the dataset root.
+ */
+class ListingCache {
+
+  private static final int MAX_CACHED_DIRECTORIES = 100000;
+
+  private static final Cache<Path, Listing> LISTINGS = CacheBuilder.newBuilder()
+      .maximumSize(MAX_CACHED_DIRECTORIES)
+      .build();
+
+  // incremented on every invalidation so that listings loaded concurrently
+  // with a change are not added to the cache
+  private static final AtomicLong GENERATION = new AtomicLong(0);
+
+  private final FileSystem fs;
+  private final long ttlMillis;
+  private final boolean checkModTime;
+  private final Path manifestRoot;
+  private final boolean checkManifestDirs;
+  private boolean manifestLoaded = false;
+  private PartitionManifest manifest = null;
+
+  private ListingCache(FileSystem fs, long ttlMillis, boolean checkModTime,
+                       @Nullable Path manifestRoot, boolean checkManifestDirs) {
+    this.fs = fs;
+    this.ttlMillis = ttlMillis;
+    this.checkModTime = checkModTime;
+    this.manifestRoot = manifestRoot;
+    this.checkManifestDirs = checkManifestDirs;
+  }
+
+  /**
+   * Returns a {@code ListingCache} for the dataset at {@code root}, configured
+   * by the descriptor's properties. Caching is disabled unless the TTL
+   * property is set to a positive value.
+   */
+  static ListingCache forDataset(FileSystem fs, Path root,
+                                 DatasetDescriptor descriptor) {
+    return new ListingCache(fs,
+        DescriptorUtil.getLong(LISTING_CACHE_TTL_MS_PROP, descriptor, -1),
+        DescriptorUtil.isEnabled(LISTING_CACHE_CHECK_MOD_TIME_PROP, descriptor),
+        PartitionManifest.isEnabled(descriptor) ?
+            PartitionManifest.rootFor(descriptor, root) : null,
+        DescriptorUtil.isEnabled(MANIFEST_CHECK_DIRECTORIES_PROP, descriptor));
+  }
+
+  /**
+   * Returns a {@code ListingCache} that always lists the file system.
+   */
+  static ListingCache uncached(FileSystem fs) {
+    return new ListingCache(fs, -1, false, null, false);
+  }
+
+  boolean isEnabled() {
+    return ttlMillis > 0;
+  }
+
+  FileStatus[] listStatus(Path dir) throws IOException {
+    return listStatus(dir, null);
+  }
+
+  FileStatus[] listStatus(Path dir, @Nullable PathFilter filter)
+      throws IOException {
+    PartitionManifest manifest = getManifest();
+    if (manifest != null) {
+      FileStatus[] stats = manifest.listStatus(dir);
+      if (stats != null) {
+        return filter(stats, filter);
+      }
+    }
+
+    if (!isEnabled()) {
+      return (filter == null ? fs.listStatus(dir) : fs.listStatus(dir, filter));
+    }
+
+    Path key = fs.makeQualified(dir);
+    Listing listing = LISTINGS.getIfPresent(key);
+    if (listing == null || isStale(key, listing)) {
+      long generation = GENERATION.get();
+      listing = load(key);
+      if (generation == GENERATION.get()) {
+        LISTINGS.put(key, listing);
+      }
+    }
+
+    return filter(listing.stats, filter);
+  }
+
+  /**
+   * Returns the dataset's manifest, or null if it is disabled or cannot be
+   * used.
+   */
+  @Nullable
+  synchronized PartitionManifest getManifest() {
+    if (manifestRoot != null && !manifestLoaded) {
+      this.manifest = PartitionManifest.load(
+          fs, manifestRoot, checkManifestDirs);
+      this.manifestLoaded = true;
+    }
+    return manifest;
+  }
+
+  private boolean isStale(Path dir, Listing listing) throws IOException {
+    if (System.currentTimeMillis() - listing.loadedAt > ttlMillis) {
+      return true;
+    }
+    return checkModTime &&
+        fs.getFileStatus(dir).getModificationTime() != listing.modTime;
+  }
+
+  private Listing load(Path dir) throws IOException {
+    long loadedAt = System.currentTimeMillis();
+    // get the modification time first so that a concurrent change is seen as
+    // a modification the next time this listing is checked
+    long modTime = checkModTime ?
+        fs.getFileStatus(dir).getModificationTime() : -1;
+    return new Listing(fs.listStatus(dir), loadedAt, modTime);
+  }
+
+  /**
+   * Invalidates the cached listings of a directory and all of its parents,
+   * which are affected when the directory is created.
+   */
+  static void invalidate(FileSystem fs, Path dir) {
+    GENERATION.incrementAndGet();
+    for (Path p = fs.makeQualified(dir); p != null; p = p.getParent()) {
+      LISTINGS.invalidate(p);
+    }
+  }
+
+  /**
+   * Invalidates the cached listings of a directory, its parents, and every
+   * directory under it.
+   */
+  static void invalidateAll(FileSystem fs, Path root) {
+    invalidate(fs, root);
+    Path qualified = fs.makeQualified(root);
+    for (Iterator<Path> keys = LISTINGS.asMap().keySet().iterator();
+         keys.hasNext(); ) {
+      if (isUnder(keys.next(), qualified)) {
+        keys.remove();
+      }
+    }
+  }
+
+  @VisibleForTesting
+  static void invalidateAll() {
+    GENERATION.incrementAndGet();
+    LISTINGS.invalidateAll();
+  }
+
+  private static FileStatus[] filter(FileStatus[] stats,
+                                     @Nullable PathFilter filter) {
+    if (filter == null) {
+      return stats.clone();
+    }
+    List<FileStatus> accepted = Lists.newArrayListWithCapacity(stats.length);
+    for (FileStatus stat : stats) {
+      if (filter.accept(stat.getPath())) {
+        accepted.add(stat);
+      }
+    }
+    return accepted.toArray(new FileStatus[accepted.size()]);
+  }
+
+  private static boolean isUnder(Path path, Path root) {
+    for (Path p = path; p != null; p = p.getParent()) {
+      if (p.equals(root)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  @Override
+  public String toString() {
+    return Objects.toStringHelper(this)
+        .add("fs", fs.getUri())
+        .add("ttlMillis", ttlMillis)
+        .add("checkModTime", checkModTime)
+        .add("manifestRoot", manifestRoot)
+        .toString();
+  }
+
+  private static class Listing {
+    private final FileStatus[] stats;
+    private final long loadedAt;
+    private final long modTime;
+
+    private Listing(FileStatus[] stats, long loadedAt, long modTime) {
+      this.stats = stats;
+      this.loadedAt = loadedAt;
+      this.modTime = modTime;
+    }
+  }
+}
@@ -16,17 +16,30 @@
 package org.kitesdk.data.spi.filesystem;
 
 import com.google.common.collect.Iterators;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.LinkedList;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import org.apache.hadoop.fs.Path;
 import org.kitesdk.data.DatasetDescriptor;
+import org.kitesdk.data.DatasetException;
+import org.kitesdk.data.DatasetOperationException;
 import org.kitesdk.data.Format;
 import org.kitesdk.data.Formats;
 import org.kitesdk.data.UnknownFormatException;
 import org.kitesdk.data.spi.AbstractDatasetReader;
 import org.kitesdk.data.spi.Constraints;
+import org.kitesdk.data.spi.DescriptorUtil;
 import org.kitesdk.data.spi.EntityAccessor;
 import org.kitesdk.data.spi.ReaderWriterState;
+import org.kitesdk.data.spi.StorageKey;
 import com.google.common.base.Objects;
 import com.google.common.base.Preconditions;
 import org.apache.hadoop.fs.FileSystem;
@@ -34,6 +47,10 @@ import org.apache.hadoop.fs.FileSystem;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
 
+import static org.kitesdk.data.spi.filesystem.FileSystemProperties.READER_PREFETCH_FILES_PROP;
+import static org.kitesdk.data.spi.filesystem.FileSystemProperties.READER_PREFETCH_MAX_BYTES_PROP;
+import static org.kitesdk.data.spi.filesystem.FileSystemProperties.READER_PREFETCH_THREADS_PROP;
+
 class MultiFileDatasetReader<E> extends AbstractDatasetReader<E> {
 
   private static final Set<Format> SUPPORTED_FORMATS = Sets.newHashSet(
@@ -53,6 +70,18 @@ class MultiFileDatasetReader<E> extends AbstractDatasetReader<E> {
 
   private ReaderWriterState state;
 
+  // read-ahead state, used only when prefetching is enabled
+  private final int prefetchFiles;
+  private final int prefetchThreads;
+  private final long prefetchMaxBytes;
+  private ExecutorService prefetchPool = null;
+  private final LinkedList<PrefetchedReader> prefetched = Lists.newLinkedList();
+  private long prefetchedBytes = 0;
+  // readers opened in the background that have not been closed, guarded by
+  // the set itself so that close() can release readers opened concurrently
+  private final Set<AbstractDatasetReader<E>> openReaders = Sets.newHashSet();
+  private boolean closed = false;
+
   public MultiFileDatasetReader(FileSystem fileSystem, Iterable<Path> files,
       DatasetDescriptor descriptor, Constraints constraints,
       EntityAccessor<E> accessor) {
@@ -71,6 +100,13 @@ class MultiFileDatasetReader<E> extends AbstractDatasetReader<E> {
       this.pathIter = null;
     }
     this.accessor = accessor;
+
+    this.prefetchFiles = DescriptorUtil.getInt(
+        READER_PREFETCH_FILES_PROP, descriptor, 0);
+    this.prefetchThreads = DescriptorUtil.getInt(
+        READER_PREFETCH_THREADS_PROP, descriptor, prefetchFiles);
+    this.prefetchMaxBytes = DescriptorUtil.getLong(
+        READER_PREFETCH_MAX_BYTES_PROP, descriptor, Long.MAX_VALUE);
   }
 
   @Override
@@ -83,30 +119,129 @@ class MultiFileDatasetReader<E> extends AbstractDatasetReader<E> {
       throw new UnknownFormatException("Cannot open format:" + format.getName());
     }
 
+    if (prefetchFiles > 0) {
+      this.prefetchPool = Executors.newFixedThreadPool(
+          Math.max(1, prefetchThreads),
+          new ThreadFactoryBuilder()
+              .setDaemon(true)
+              .setNameFormat("kite-reader-prefetch-%d")
+              .build());
+    }
+
     this.state = ReaderWriterState.OPEN;
   }
 
   @SuppressWarnings("unchecked") // See https://github.com/Parquet/parquet-mr/issues/106
-  private void openNextReader() {
+  private AbstractDatasetReader<E> open(Path path, StorageKey key) {
+    AbstractDatasetReader<E> newReader;
     if (Formats.PARQUET.equals(descriptor.getFormat())) {
-      this.reader = new ParquetFileSystemDatasetReader(fileSystem,
-          filesIter.next(), accessor.getReadSchema(), accessor.getType());
+      // records are still filtered by the entity predicate after reading
+      newReader = new ParquetFileSystemDatasetReader(fileSystem,
+          path, accessor.getReadSchema(), accessor.getType(),
+          constraints.getPredicates(key));
     } else if (Formats.JSON.equals(descriptor.getFormat())) {
-      this.reader = new JSONFileReader<E>(
-          fileSystem, filesIter.next(), accessor);
+      newReader = new JSONFileReader<E>(fileSystem, path, accessor);
     } else if (Formats.CSV.equals(descriptor.getFormat())) {
-      this.reader = new CSVFileReader<E>(fileSystem, filesIter.next(),
-          descriptor, accessor);
+      newReader = new CSVFileReader<E>(fileSystem, path, descriptor, accessor);
     } else if (Formats.INPUTFORMAT.equals(descriptor.getFormat())) {
-      this.reader = new InputFormatReader(fileSystem, filesIter.next(), descriptor);
+      newReader = new InputFormatReader(fileSystem, path, descriptor);
     } else {
-      this.reader = new FileSystemDatasetReader<E>(fileSystem, filesIter.next(),
+      newReader = new FileSystemDatasetReader<E>(fileSystem, path,
           accessor.getReadSchema(), accessor.getType());
     }
-    reader.initialize();
+    newReader.initialize();
+    return newReader;
+  }
+
+  private boolean hasNextReader() {
+    return !prefetched.isEmpty() || filesIter.hasNext();
+  }
+
+  private void openNextReader() {
+    StorageKey key;
+    if (prefetchPool != null) {
+      fillPrefetchQueue();
+      PrefetchedReader next = prefetched.removeFirst();
+      this.prefetchedBytes -= next.length;
+      this.reader = next.get();
+      key = next.key;
+      // start opening the following files while this one is consumed
+      fillPrefetchQueue();
+    } else {
+      Path path = filesIter.next();
+      key = (pathIter != null ? pathIter.getStorageKey() : null);
+      this.reader = open(path, key);
+    }
     this.readerIterator = Iterators.filter(reader,
-        constraints.toEntityPredicate(
-            (pathIter != null ? pathIter.getStorageKey() : null), accessor));
+        constraints.toEntityPredicate(key, accessor));
+  }
+
+  /**
+   * Submits background opens for upcoming files until either the configured
+   * number of files or the byte budget is reached. At least one file is
+   * always submitted if there are files remaining.
+   */
+  private void fillPrefetchQueue() {
+    while (prefetched.size() < prefetchFiles && filesIter.hasNext() &&
+        (prefetched.isEmpty() || prefetchedBytes < prefetchMaxBytes)) {
+      final Path path = filesIter.next();
+      final StorageKey key;
+      long length = 0;
+      if (pathIter != null) {
+        // the iterator reuses keys and moves on before this file is read
+        key = (pathIter.getStorageKey() != null ?
+            StorageKey.copy(pathIter.getStorageKey()) : null);
+        length = pathIter.getLength();
+      } else {
+        key = null;
+      }
+      Future<AbstractDatasetReader<E>> future = prefetchPool.submit(
+          new Callable<AbstractDatasetReader<E>>() {
+            @Override
+            public AbstractDatasetReader<E> call() {
+              return prefetch(path, key);
+            }
+          });
+      prefetched.addLast(new PrefetchedReader(future, key, length));
+      this.prefetchedBytes += length;
+    }
+  }
+
+  /**
+   * Opens the reader for path and decodes its first block. Called from a
+   * prefetch thread.
+   */
+  private AbstractDatasetReader<E> prefetch(Path path, StorageKey key) {
+    synchronized (openReaders) {
+      if (closed) {
+        return null;
+      }
+    }
+    AbstractDatasetReader<E> newReader = open(path, key);
+    try {
+      newReader.hasNext();
+    } catch (RuntimeException e) {
+      // the reader is not tracked yet, so nothing else will close it
+      newReader.close();
+      throw e;
+    }
+    synchronized (openReaders) {
+      if (closed) {
+        newReader.close();
+        return null;
+      }
+      openReaders.add(newReader);
+    }
+    return newReader;
+  }
+
+  private void closeReader() {
+    synchronized (openReaders) {
+      openReaders.remove(reader);
+    }
+    reader.close();
+    reader = null;
+    readerIterator = null;
   }
 
   @Override
@@ -116,7 +251,7 @@ class MultiFileDatasetReader<E> extends AbstractDatasetReader<E> {
 
     while (true) {
       if (readerIterator == null) {
-        if (filesIter.hasNext()) {
+        if (hasNextReader()) {
           openNextReader();
         } else {
           return false;
@@ -125,9 +260,7 @@ class MultiFileDatasetReader<E> extends AbstractDatasetReader<E> {
         if (readerIterator.hasNext()) {
           return true;
         } else {
-          readerIterator = null;
-          reader.close();
-          reader = null;
+          closeReader();
         }
       }
     }
@@ -166,9 +299,23 @@ class MultiFileDatasetReader<E> extends AbstractDatasetReader<E> {
       return;
     }
     if (reader != null) {
-      reader.close();
-      reader = null;
-      readerIterator = null;
+      closeReader();
+    }
+    if (prefetchPool != null) {
+      for (PrefetchedReader pending : prefetched) {
+        pending.future.cancel(false);
+      }
+      prefetched.clear();
+      prefetchPool.shutdown();
+      List<AbstractDatasetReader<E>> toClose;
+      synchronized (openReaders) {
+        this.closed = true;
+        toClose = Lists.newArrayList(openReaders);
+        openReaders.clear();
+      }
+      for (AbstractDatasetReader<E> opened : toClose) {
+        opened.close();
+      }
     }
     state = ReaderWriterState.CLOSED;
   }
@@ -186,7 +333,40 @@ class MultiFileDatasetReader<E> extends AbstractDatasetReader<E> {
       .add("filesIter", filesIter)
       .add("reader", reader)
       .add("state", state)
+      .add("prefetchFiles", prefetchFiles)
       .toString();
   }
 
+  private class PrefetchedReader {
+    private final Future<AbstractDatasetReader<E>> future;
+    private final StorageKey key;
+    private final long length;
+
+    private PrefetchedReader(Future<AbstractDatasetReader<E>> future,
+                             StorageKey key, long length) {
+      this.future = future;
+      this.key = key;
+      this.length = length;
+    }
+
+    private AbstractDatasetReader<E> get() {
+      try {
+        return future.get();
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+        throw new DatasetOperationException(
+            "Interrupted while waiting for a prefetched reader", ex);
+      } catch (ExecutionException ex) {
+        // rethrow the original failure so callers see the same exceptions as
+        // when files are opened serially
+        if (ex.getCause() instanceof RuntimeException) {
+          throw (RuntimeException) ex.getCause();
+        } else if (ex.getCause() instanceof Error) {
+          throw (Error) ex.getCause();
+        }
+        throw new DatasetException("Cannot open prefetched reader", ex.getCause());
+      }
+    }
+  }
+
 }
@@ -18,6 +18,7 @@ package org.kitesdk.data.spi.filesystem;
 import com.google.common.base.Objects;
 import com.google.common.io.Closeables;
 import java.io.IOException;
+import java.lang.reflect.Field;
 import java.util.Arrays;
 import org.apache.avro.Schema;
 import org.apache.avro.generic.IndexedRecord;
@@ -26,18 +27,49 @@ import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
 import org.kitesdk.data.CompressionType;
 import org.kitesdk.data.Formats;
+import org.kitesdk.data.ValidationException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.apache.parquet.avro.AvroParquetWriter;
+import org.apache.parquet.column.ColumnWriteStore;
+import org.apache.parquet.column.ParquetProperties.WriterVersion;
+import org.apache.parquet.hadoop.ParquetOutputFormat;
 import org.apache.parquet.hadoop.ParquetWriter;
 import org.apache.parquet.hadoop.metadata.CompressionCodecName;
 
+/**
+ * Writes Avro records to a Parquet file.
+ * <p>
+ * The writer is configured using the standard Parquet properties, which can be
+ * set as {@link org.kitesdk.data.DatasetDescriptor} properties and are copied
+ * to the {@link Configuration} by {@link FileSystemWriter}:
+ * <ul>
+ * <li>{@code parquet.block.size}: the row group size in bytes (default 50 MB)
+ * </li>
+ * <li>{@code parquet.page.size}: the page size in bytes</li>
+ * <li>{@code parquet.dictionary.page.size}: the dictionary page size limit in
+ * bytes</li>
+ * <li>{@code parquet.enable.dictionary}: whether to use dictionary encoding
+ * </li>
+ * <li>{@code parquet.writer.version}: the writer version, v1 or v2</li>
+ * <li>{@code parquet.writer.max-padding}: the number of bytes that may be
+ * padded to align row groups with HDFS blocks (default 0, no alignment)</li>
+ * </ul>
+ */
 class ParquetAppender<E extends IndexedRecord> implements FileSystemWriter.FileAppender<E> {
 
   private static final Logger LOG = LoggerFactory
     .getLogger(ParquetAppender.class);
   private static final int DEFAULT_ROW_GROUP_SIZE = 50 * 1024 * 1024;
 
+  // ParquetWriter does not expose the size of the row group it is buffering,
+  // so it is read from the internal writer's current column store. these are
+  // null if the fields are not found, and the row group size is used instead.
+  private static final Field WRITER_FIELD = hiddenField(
+      ParquetWriter.class, "writer");
+  private static final Field COLUMN_STORE_FIELD = (WRITER_FIELD == null ?
+      null : hiddenField(WRITER_FIELD.getType(), "columnStore"));
+
   private final Path path;
   private final Schema schema;
   private final FileSystem fileSystem;
@@ -45,7 +77,9 @@ class ParquetAppender<E extends IndexedRecord> implements FileSystemWriter.FileA
   private final boolean enableCompression;
   private final CompressionType compressionType;
 
-  private AvroParquetWriter<E> avroParquetWriter = null;
+  private final int rowGroupSize;
+
+  private ParquetWriter<E> avroParquetWriter = null;
 
   public ParquetAppender(FileSystem fileSystem, Path path, Schema schema,
                          Configuration conf, CompressionType compressionType) {
@@ -55,6 +89,10 @@ class ParquetAppender<E extends IndexedRecord> implements FileSystemWriter.FileA
     this.conf = conf;
     this.enableCompression = compressionType != CompressionType.Uncompressed;
     this.compressionType = compressionType;
+    this.rowGroupSize = conf.getInt(
+        ParquetOutputFormat.BLOCK_SIZE, DEFAULT_ROW_GROUP_SIZE);
+    ValidationException.check(rowGroupSize > 0,
+        "Invalid Parquet row group size: %s", rowGroupSize);
   }
 
   @Override
@@ -63,10 +101,32 @@ class ParquetAppender<E extends IndexedRecord> implements FileSystemWriter.FileA
     if (enableCompression) {
       codecName = getCompressionCodecName();
     }
-    avroParquetWriter = new AvroParquetWriter<E>(fileSystem.makeQualified(path),
-        schema, codecName, DEFAULT_ROW_GROUP_SIZE,
-        ParquetWriter.DEFAULT_PAGE_SIZE,
-        ParquetWriter.DEFAULT_IS_DICTIONARY_ENABLED, conf);
+    int pageSize = conf.getInt(
+        ParquetOutputFormat.PAGE_SIZE, ParquetWriter.DEFAULT_PAGE_SIZE);
+    int dictionaryPageSize = conf.getInt(
+        ParquetOutputFormat.DICTIONARY_PAGE_SIZE, pageSize);
+    int maxPaddingSize = conf.getInt(ParquetOutputFormat.MAX_PADDING_BYTES, 0);
+    ValidationException.check(pageSize > 0 && dictionaryPageSize > 0,
+        "Invalid Parquet page size: %s (dictionary: %s)",
+        pageSize, dictionaryPageSize);
+    ValidationException.check(maxPaddingSize >= 0,
+        "Invalid Parquet max padding: %s", maxPaddingSize);
+
+    avroParquetWriter = AvroParquetWriter.<E>builder(fileSystem.makeQualified(path))
+        .withSchema(schema)
+        .withConf(conf)
+        .withCompressionCodec(codecName)
+        .withRowGroupSize(rowGroupSize)
+        .withPageSize(pageSize)
+        .withDictionaryPageSize(dictionaryPageSize)
+        .withDictionaryEncoding(conf.getBoolean(
+            ParquetOutputFormat.ENABLE_DICTIONARY,
+            ParquetWriter.DEFAULT_IS_DICTIONARY_ENABLED))
+        .withWriterVersion(WriterVersion.fromString(conf.get(
+            ParquetOutputFormat.WRITER_VERSION,
+            ParquetWriter.DEFAULT_WRITER_VERSION.getShortName())))
+        .withMaxPaddingSize(maxPaddingSize)
+        .build();
   }
 
   @Override
@@ -76,9 +136,37 @@ class ParquetAppender<E extends IndexedRecord> implements FileSystemWriter.FileA
 
   @Override
   public long pos() throws IOException {
-    // TODO: add a callback to set the position when Parquet decides to flush
-    // this is not a good way to find out the current position
-    return fileSystem.getFileStatus(path).getLen();
+    if (avroParquetWriter == null) {
+      return 0;
+    }
+    // the data size is the position after the last row group plus the size
+    // of the current row group, which is kept in memory until it is full.
+    // this avoids asking the file system for the length, which only reflects
+    // row groups that have already been written.
+    return avroParquetWriter.getDataSize();
+  }
+
+  @Override
+  public long bufferedSize() throws IOException {
+    if (avroParquetWriter == null) {
+      return 0;
+    }
+    if (COLUMN_STORE_FIELD != null) {
+      try {
+        // a new column store is created for each row group, so this is the
+        // size of the data added since the last row group was written
+        ColumnWriteStore columnStore = (ColumnWriteStore) COLUMN_STORE_FIELD
+            .get(WRITER_FIELD.get(avroParquetWriter));
+        if (columnStore != null) {
+          return columnStore.getBufferedSize();
+        }
+      } catch (IllegalAccessException e) {
+        LOG.debug("Cannot read Parquet column store", e);
+      }
+    }
+    // the current row group is written before it grows much past the row
+    // group size, so the size bounds the buffered data
+    return Math.min(avroParquetWriter.getDataSize(), rowGroupSize);
   }
 
   @Override
@@ -111,6 +199,20 @@ class ParquetAppender<E extends IndexedRecord> implements FileSystemWriter.FileA
       .toString();
   }
 
+  private static Field hiddenField(Class<?> type, String name) {
+    try {
+      Field field = type.getDeclaredField(name);
+      field.setAccessible(true);
+      return field;
+    } catch (NoSuchFieldException e) {
+      LOG.debug("Cannot find field {} in {}", name, type);
+      return null;
+    } catch (SecurityException e) {
+      LOG.debug("Cannot access field {} in {}", name, type);
+      return null;
+    }
+  }
+
   private CompressionCodecName getCompressionCodecName() {
     switch (compressionType) {
       case Snappy:
@@ -15,6 +15,12 @@
  */
 package org.kitesdk.data.spi.filesystem;
 
+import com.google.common.base.Predicate;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
 
 import org.apache.hadoop.conf.Configuration;
@@ -32,8 +38,15 @@ import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.apache.parquet.avro.AvroParquetReader;
 import org.apache.parquet.avro.AvroReadSupport;
+import org.apache.parquet.filter2.compat.FilterCompat;
+import org.apache.parquet.filter2.predicate.FilterPredicate;
+import org.apache.parquet.format.converter.ParquetMetadataConverter;
+import org.apache.parquet.hadoop.ParquetFileReader;
+import org.apache.parquet.hadoop.ParquetReader;
+import org.apache.parquet.hadoop.metadata.ParquetMetadata;
+import org.apache.parquet.schema.MessageType;
+import org.apache.parquet.schema.Type;
 
 class ParquetFileSystemDatasetReader<E extends IndexedRecord> extends AbstractDatasetReader<E> {
 
@@ -42,9 +55,10 @@ class ParquetFileSystemDatasetReader<E extends IndexedRecord> extends AbstractDa
   private Schema schema;
   private Schema readerSchema;
   private Class<E> type;
+  private Map<String, Predicate> predicates;
 
   private ReaderWriterState state;
-  private AvroParquetReader<E> reader;
+  private ParquetReader<E> reader;
 
   private E next;
 
@@ -53,6 +67,16 @@ class ParquetFileSystemDatasetReader<E extends IndexedRecord> extends AbstractDa
 
   public ParquetFileSystemDatasetReader(FileSystem fileSystem, Path path,
       Schema schema, Class<E> type) {
+    this(fileSystem, path, schema, type, ImmutableMap.<String, Predicate>of());
+  }
+
+  /**
+   * Creates a reader that uses the given field predicates to skip row groups.
+   * Records that do not match the predicates may still be returned, so callers
+   * must filter the records they read.
+   */
+  public ParquetFileSystemDatasetReader(FileSystem fileSystem, Path path,
+      Schema schema, Class<E> type, Map<String, Predicate> predicates) {
     Preconditions.checkArgument(fileSystem != null, "FileSystem cannot be null");
     Preconditions.checkArgument(path != null, "Path cannot be null");
     Preconditions.checkArgument(schema != null, "Schema cannot be null");
@@ -64,6 +88,7 @@ class ParquetFileSystemDatasetReader<E extends IndexedRecord> extends AbstractDa
     this.path = path;
     this.schema = schema;
     this.type = type;
+    this.predicates = predicates;
     this.readerSchema = DataModelUtil.getReaderSchema(type, schema);
 
     this.state = ReaderWriterState.NEW;
@@ -78,9 +103,24 @@ class ParquetFileSystemDatasetReader<E extends IndexedRecord> extends AbstractDa
 
     try {
       final Configuration conf = fileSystem.getConf();
+      final Path qualified = fileSystem.makeQualified(path);
       AvroReadSupport.setAvroReadSchema(conf, readerSchema);
-      reader = new AvroParquetReader<E>(
-          conf, fileSystem.makeQualified(path));
+      ParquetReader.Builder<E> builder = ParquetReader
+          .builder(new ProjectingReadSupport<E>(readerSchema), qualified)
+          .withConf(conf);
+      Map<String, Predicate> columnPredicates = readPredicates();
+      if (!columnPredicates.isEmpty()) {
+        // filters can only use columns that are present in this file
+        ParquetMetadata footer = ParquetFileReader.readFooter(
+            conf, qualified, ParquetMetadataConverter.NO_FILTER);
+        FilterPredicate filter = ParquetFilters.toFilter(
+            columnPredicates, footer.getFileMetaData().getSchema());
+        if (filter != null) {
+          LOG.debug("Filtering row groups in {} with {}", path, filter);
+          builder.withFilter(FilterCompat.get(filter));
+        }
+      }
+      reader = builder.build();
     } catch (IOException e) {
       throw new DatasetIOException("Unable to create reader path:" + path, e);
     }
@@ -144,6 +184,22 @@ class ParquetFileSystemDatasetReader<E extends IndexedRecord> extends AbstractDa
       .toString();
   }
 
+  /**
+   * Returns the predicates for fields in the read schema. Other predicates
+   * are for partitions or for columns that are not requested from the file.
+   */
+  private Map<String, Predicate> readPredicates() {
+    Map<String, Predicate> read = Maps.newHashMap();
+    if (readerSchema.getType() == Schema.Type.RECORD) {
+      for (Map.Entry<String, Predicate> entry : predicates.entrySet()) {
+        if (readerSchema.getField(entry.getKey()) != null) {
+          read.put(entry.getKey(), entry.getValue());
+        }
+      }
+    }
+    return read;
+  }
+
   private void advance() {
     try {
       this.next = reader.read();
@@ -155,4 +211,55 @@ class ParquetFileSystemDatasetReader<E extends IndexedRecord> extends AbstractDa
     }
   }
 
+  /**
+   * Requests only the columns of the file that are used by the read schema,
+   * unless a projection is already set in the configuration.
+   */
+  private static class ProjectingReadSupport<E> extends AvroReadSupport<E> {
+    private final Schema readSchema;
+
+    private ProjectingReadSupport(Schema readSchema) {
+      this.readSchema = readSchema;
+    }
+
+    @Override
+    public ReadContext init(Configuration conf,
+                            Map<String, String> keyValueMetaData,
+                            MessageType fileSchema) {
+      ReadContext context = super.init(conf, keyValueMetaData, fileSchema);
+      if (context.getRequestedSchema() != fileSchema ||
+          readSchema.getType() != Schema.Type.RECORD) {
+        return context;
+      }
+
+      List<Type> projected = Lists.newArrayList();
+      for (Type field : fileSchema.getFields()) {
+        if (isRead(field.getName())) {
+          projected.add(field);
+        }
+      }
+
+      if (projected.isEmpty() ||
+          projected.size() == fileSchema.getFieldCount()) {
+        return context;
+      }
+
+      return new ReadContext(
+          new MessageType(fileSchema.getName(), projected),
+          context.getReadSupportMetadata());
+    }
+
+    private boolean isRead(String name) {
+      if (readSchema.getField(name) != null) {
+        return true;
+      }
+      // renamed fields are resolved using aliases
+      for (Schema.Field field : readSchema.getFields()) {
+        if (field.aliases().contains(name)) {
+          return true;
+        }
+      }
+      return false;
+    }
+  }
 }
@@ -0,0 +1,237 @@
+/*
+ * Copyright 2015 Cloudera Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kitesdk.data.spi.filesystem;
+
+import com.google.common.base.Predicate;
+import java.util.Map;
+import javax.annotation.Nullable;
+import org.apache.avro.generic.GenericEnumSymbol;
+import org.apache.parquet.filter2.predicate.FilterApi;
+import org.apache.parquet.filter2.predicate.FilterPredicate;
+import org.apache.parquet.filter2.predicate.Operators;
+import org.apache.parquet.io.api.Binary;
+import org.apache.parquet.schema.MessageType;
+import org.apache.parquet.schema.PrimitiveType.PrimitiveTypeName;
+import org.apache.parquet.schema.Type;
+import org.kitesdk.data.spi.predicates.Exists;
+import org.kitesdk.data.spi.predicates.In;
+import org.kitesdk.data.spi.predicates.Predicates;
+import org.kitesdk.data.spi.predicates.Range;
+
+/**
+ * Translates {@link org.kitesdk.data.spi.Constraints} predicates into Parquet
+ * {@link FilterPredicate}s that skip row groups using column statistics.
+ * <p>
+ * Records read with a filter are still tested against the view's predicates,
+ * so a translated filter may match more records than the original predicate
+ * but never fewer. Predicates that cannot be translated exactly are left out:
+ * <ul>
+ * <li>Columns that are missing from the file, nested, or repeated</li>
+ * <li>Ranges of strings, because Parquet compares binary statistics as
+ * signed bytes rather than as characters</li>
+ * <li>Float and double values, because NaN can corrupt their statistics</li>
+ * </ul>
+ */
+class ParquetFilters {
+
+  private ParquetFilters() {
+  }
+
+  /**
+   * Returns a {@link FilterPredicate} for the given field predicates, or null
+   * if none of them can be applied to the file schema.
+   *
+   * @param predicates a map from field name to {@link Predicate}
+   * @param fileSchema the Parquet schema of the file that will be read
+   * @return a FilterPredicate or null
+   */
+  @Nullable
+  static FilterPredicate toFilter(Map<String, Predicate> predicates,
+                                  MessageType fileSchema) {
+    FilterPredicate filter = null;
+    for (Map.Entry<String, Predicate> entry : predicates.entrySet()) {
+      String name = entry.getKey();
+      String[] path = new String[] {name};
+      if (!fileSchema.containsPath(path) ||
+          fileSchema.getMaxRepetitionLevel(path) > 0) {
+        continue;
+      }
+      Type type = fileSchema.getType(path);
+      if (!type.isPrimitive()) {
+        continue;
+      }
+
+      FilterPredicate columnFilter = toFilter(name,
+          type.asPrimitiveType().getPrimitiveTypeName(), entry.getValue());
+      if (columnFilter != null) {
+        filter = (filter == null ?
+            columnFilter : FilterApi.and(filter, columnFilter));
+      }
+    }
+    return filter;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static FilterPredicate toFilter(String column, PrimitiveTypeName type,
+                                          Predicate predicate) {
+    if (predicate instanceof Exists) {
+      return notNull(column, type);
+    } else if (predicate instanceof In) {
+      FilterPredicate filter = null;
+      for (Object value : Predicates.asSet((In<Object>) predicate)) {
+        FilterPredicate valueFilter = eq(column, type, value);
+        if (valueFilter == null) {
+          // all values must be included or the filter would drop records
+          return null;
+        }
+        filter = (filter == null ?
+            valueFilter : FilterApi.or(filter, valueFilter));
+      }
+      return filter;
+    } else if (predicate instanceof Range) {
+      return range(column, type, (Range<Object>) predicate);
+    }
+    return null;
+  }
+
+  private static FilterPredicate notNull(String column, PrimitiveTypeName type) {
+    switch (type) {
+      case INT32:
+        return FilterApi.notEq(FilterApi.intColumn(column), (Integer) null);
+      case INT64:
+        return FilterApi.notEq(FilterApi.longColumn(column), (Long) null);
+      case FLOAT:
+        return FilterApi.notEq(FilterApi.floatColumn(column), (Float) null);
+      case DOUBLE:
+        return FilterApi.notEq(FilterApi.doubleColumn(column), (Double) null);
+      case BOOLEAN:
+        return FilterApi.notEq(FilterApi.booleanColumn(column), (Boolean) null);
+      case BINARY:
+        return FilterApi.notEq(FilterApi.binaryColumn(column), (Binary) null);
+      default:
+        return null;
+    }
+  }
+
+  private static FilterPredicate eq(String column, PrimitiveTypeName type,
+                                    Object value) {
+    switch (type) {
+      case INT32:
+        Integer intValue = toInt(value);
+        return (intValue == null ? null :
+            FilterApi.eq(FilterApi.intColumn(column), intValue));
+      case INT64:
+        Long longValue = toLong(value);
+        return (longValue == null ? null :
+            FilterApi.eq(FilterApi.longColumn(column), longValue));
+      case BOOLEAN:
+        return (value instanceof Boolean ?
+            FilterApi.eq(FilterApi.booleanColumn(column), (Boolean) value) :
+            null);
+      case BINARY:
+        Binary binary = toBinary(value);
+        return (binary == null ? null :
+            FilterApi.eq(FilterApi.binaryColumn(column), binary));
+      default:
+        return null;
+    }
+  }
+
+  private static FilterPredicate range(String column, PrimitiveTypeName type,
+                                       Range<Object> range) {
+    FilterPredicate lower = null;
+    FilterPredicate upper = null;
+    switch (type) {
+      case INT32:
+        Operators.IntColumn intColumn = FilterApi.intColumn(column);
+        if (range.hasLowerBound()) {
+          Integer value = toInt(range.lowerEndpoint());
+          if (value == null) {
+            return null;
+          }
+          lower = range.isLowerBoundClosed() ?
+              FilterApi.gtEq(intColumn, value) : FilterApi.gt(intColumn, value);
+        }
+        if (range.hasUpperBound()) {
+          Integer value = toInt(range.upperEndpoint());
+          if (value == null) {
+            return null;
+          }
+          upper = range.isUpperBoundClosed() ?
+              FilterApi.ltEq(intColumn, value) : FilterApi.lt(intColumn, value);
+        }
+        break;
+      case INT64:
+        Operators.LongColumn longColumn = FilterApi.longColumn(column);
+        if (range.hasLowerBound()) {
+          Long value = toLong(range.lowerEndpoint());
+          if (value == null) {
+            return null;
+          }
+          lower = range.isLowerBoundClosed() ?
+              FilterApi.gtEq(longColumn, value) : FilterApi.gt(longColumn, value);
+        }
+        if (range.hasUpperBound()) {
+          Long value = toLong(range.upperEndpoint());
+          if (value == null) {
+            return null;
+          }
+          upper = range.isUpperBoundClosed() ?
+              FilterApi.ltEq(longColumn, value) : FilterApi.lt(longColumn, value);
+        }
+        break;
+      default:
+        return null;
+    }
+
+    if (lower != null && upper != null) {
+      return FilterApi.and(lower, upper);
+    }
+    return (lower != null ? lower : upper);
+  }
+
+  private static boolean isIntegral(Object value) {
+    return (value instanceof Integer || value instanceof Long ||
+        value instanceof Short || value instanceof Byte);
+  }
+
+  private static Integer toInt(Object value) {
+    if (isIntegral(value)) {
+      long longValue = ((Number) value).longValue();
+      if (longValue == (int) longValue) {
+        return (int) longValue;
+      }
+    }
+    return null;
+  }
+
+  private static Long toLong(Object value) {
+    if (isIntegral(value)) {
+      return ((Number) value).longValue();
+    }
+    return null;
+  }
+
+  private static Binary toBinary(Object value) {
+    if (value instanceof CharSequence || value instanceof GenericEnumSymbol) {
+      return Binary.fromString(value.toString());
+    } else if (value instanceof Enum) {
+      return Binary.fromString(((Enum) value).name());
+    }
+    return null;
+  }
+}
@@ -0,0 +1,675 @@
+/*
+ * Copyright 2015 Cloudera Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kitesdk.data.spi.filesystem;
+
+import com.google.common.base.Objects;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.common.io.Closeables;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentMap;
+import javax.annotation.Nullable;
+import org.apache.avro.Schema;
+import org.apache.avro.SchemaBuilder;
+import org.apache.avro.file.DataFileReader;
+import org.apache.avro.file.DataFileWriter;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.kitesdk.data.DatasetDescriptor;
+import org.kitesdk.data.DatasetIOException;
+import org.kitesdk.data.spi.DescriptorUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A persistent list of the data files in a {@link FileSystemDataset}, used to
+ * plan reads without walking the partition directories.
+ * <p>
+ * The manifest is stored in a hidden {@code .manifest} directory under the
+ * dataset root. It consists of a snapshot file, written by
+ * {@link #rebuild(FileSystem, Path)} from a full walk of the dataset, and
+ * delta files that each record the files added by one writer commit or merge.
+ * Every file is written to a hidden temporary name and renamed into place, so
+ * readers never see partial updates, and entries are keyed by path so that a
+ * file recorded in both a snapshot and a delta is listed once. When a commit
+ * leaves more than {@link #MAX_DELTAS} deltas, they are compacted into a new
+ * snapshot.
+ * <p>
+ * The manifest also records the modification time of each directory that it
+ * lists. When the manifest is loaded, the dataset root's current modification
+ * time must match, so partitions added or removed by writers that do not
+ * update the manifest, or any other change to the root's entries such as
+ * creating the signals directory, cause readers to list directories until
+ * the manifest is rebuilt. Changes inside existing partition directories are
+ * only detected if
+ * {@link FileSystemProperties#MANIFEST_CHECK_DIRECTORIES_PROP} is enabled,
+ * which answers a directory's listing from the manifest only while its
+ * current modification time matches, at the cost of one file system call per
+ * directory. Both checks depend on a file system that updates directory
+ * modification times, and a change made in the same millisecond that a
+ * directory was recorded is not detected.
+ * <p>
+ * The manifest is only used when the snapshot is present. Operations that
+ * remove data (delete, replace, and dropping partitions) remove the snapshot
+ * first and rebuild it after the change, so readers fall back to walking the
+ * directories while the manifest may be stale. Partition datasets share the
+ * manifest of the dataset that contains them; see {@link #rootFor}.
+ */
+class PartitionManifest {
+
+  private static final Logger LOG = LoggerFactory
+      .getLogger(PartitionManifest.class);
+
+  static final String MANIFEST_DIRECTORY_NAME = ".manifest";
+  private static final String SNAPSHOT_NAME = "snapshot.avro";
+  private static final String DELTA_PREFIX = "delta-";
+  private static final String EXTENSION = ".avro";
+
+  // the number of deltas left by commits before they are compacted
+  static final int MAX_DELTAS = 32;
+
+  static final Schema ENTRY_SCHEMA = SchemaBuilder.record("ManifestEntry")
+      .namespace("org.kitesdk.data.spi.filesystem")
+      .fields()
+      .requiredString("path")
+      .requiredLong("length")
+      .requiredLong("modificationTime")
+      .requiredLong("records")
+      .name("directory").type().booleanType().booleanDefault(false)
+      .endRecord();
+
+  private final FileSystem fs;
+  private final Path root;
+  private final List<Entry> files = Lists.newArrayList();
+  private final Map<Path, Long> dirModTimes = Maps.newHashMap();
+  private final Map<Path, List<FileStatus>> listings;
+  private final boolean checkDirectories;
+  private final ConcurrentMap<Path, Boolean> currentDirs =
+      Maps.newConcurrentMap();
+
+  private PartitionManifest(FileSystem fs, Path root,
+                            Map<String, Entry> entries,
+                            boolean checkDirectories) {
+    this.fs = fs;
+    this.root = root;
+    this.checkDirectories = checkDirectories;
+    for (Entry entry : entries.values()) {
+      if (entry.directory) {
+        dirModTimes.put(resolve(root, entry.path), entry.modTime);
+      } else {
+        files.add(entry);
+      }
+    }
+    this.listings = buildListings(root, files, dirModTimes);
+  }
+
+  /**
+   * Returns whether the manifest is enabled by the descriptor's properties.
+   */
+  static boolean isEnabled(DatasetDescriptor descriptor) {
+    return DescriptorUtil.isEnabled(
+        FileSystemProperties.MANIFEST_ENABLED_PROP, descriptor);
+  }
+
+  /**
+   * Returns the root of the dataset whose manifest records the files under
+   * {@code location}, which is {@code location} unless the descriptor belongs
+   * to a partition dataset.
+   */
+  static Path rootFor(DatasetDescriptor descriptor, Path location) {
+    String manifestRoot = descriptor.getProperty(
+        FileSystemProperties.MANIFEST_ROOT_PROP);
+    return (manifestRoot != null ? new Path(manifestRoot) : location);
+  }
+
+  /**
+   * Loads the manifest for the dataset at {@code root}.
+   *
+   * @param checkDirectories whether to check the modification time of each
+   *                         directory before answering its listing, rather
+   *                         than only the root's when loading
+   * @return the manifest, or null if it is missing, stale, or unreadable
+   */
+  @Nullable
+  static PartitionManifest load(FileSystem fs, Path root,
+                                boolean checkDirectories) {
+    Path qualifiedRoot = fs.makeQualified(root);
+    try {
+      Map<String, Entry> entries = readEntries(fs, qualifiedRoot, true);
+      if (entries == null) {
+        return null;
+      }
+      PartitionManifest manifest = new PartitionManifest(
+          fs, qualifiedRoot, entries, checkDirectories);
+      if (!checkDirectories && !manifest.hasRecordedModTime(qualifiedRoot)) {
+        LOG.debug("Manifest for {} is stale, listing directories", root);
+        return null;
+      }
+      return manifest;
+    } catch (IOException e) {
+      LOG.warn("Cannot read manifest for " + root + ", listing directories", e);
+      return null;
+    }
+  }
+
+  /**
+   * Returns the listing of a directory recorded in this manifest.
+   *
+   * @return the file and directory statuses in {@code dir}, or null if
+   *         {@code dir} is not in this dataset or has changed since it was
+   *         recorded
+   */
+  @Nullable
+  FileStatus[] listStatus(Path dir) throws IOException {
+    Path qualified = qualify(dir);
+    if (!isUnder(qualified, root) || !isCurrent(qualified)) {
+      return null;
+    }
+    List<FileStatus> stats = listings.get(qualified);
+    if (stats == null) {
+      return new FileStatus[0];
+    }
+    return stats.toArray(new FileStatus[stats.size()]);
+  }
+
+  /**
+   * Returns the total number of records in the files recorded under
+   * {@code dir}.
+   *
+   * @return the number of records, or -1 if {@code dir} is not in this
+   *         dataset, has changed since it was recorded, or the count is not
+   *         known for any of its files
+   */
+  long getRecordCount(Path dir) throws IOException {
+    Path qualified = qualify(dir);
+    if (!isUnder(qualified, root) || !isCurrent(qualified)) {
+      return -1;
+    }
+    if (checkDirectories) {
+      // a changed directory may have files that are not recorded
+      for (Path recorded : dirModTimes.keySet()) {
+        if (isUnder(recorded, qualified) && !isCurrent(recorded)) {
+          return -1;
+        }
+      }
+    }
+    long total = 0;
+    for (Entry entry : files) {
+      if (isUnder(new Path(root, entry.path), qualified)) {
+        if (entry.records < 0) {
+          return -1;
+        }
+        total += entry.records;
+      }
+    }
+    return total;
+  }
+
+  int size() {
+    return files.size();
+  }
+
+  private Path qualify(Path dir) {
+    return (dir.toUri().getScheme() == null ? new Path(root, dir) : dir);
+  }
+
+  /**
+   * Returns whether the listing of {@code dir} can be answered from this
+   * manifest. When directories are checked, each is checked once.
+   */
+  private boolean isCurrent(Path dir) throws IOException {
+    if (!checkDirectories) {
+      // the root was checked when this manifest was loaded
+      return dirModTimes.containsKey(dir);
+    }
+    Boolean current = currentDirs.get(dir);
+    if (current == null) {
+      current = hasRecordedModTime(dir);
+      currentDirs.put(dir, current);
+    }
+    return current;
+  }
+
+  /**
+   * Returns whether {@code dir} has the modification time recorded for it.
+   */
+  private boolean hasRecordedModTime(Path dir) throws IOException {
+    Long recorded = dirModTimes.get(dir);
+    if (recorded == null) {
+      return false;
+    }
+    try {
+      return fs.getFileStatus(dir).getModificationTime() == recorded;
+    } catch (FileNotFoundException e) {
+      return false;
+    }
+  }
+
+  /**
+   * Records a data file committed by a writer.
+   */
+  static void addFile(FileSystem fs, Path root, Path file, long records) {
+    Map<Path, Long> files = Maps.newHashMap();
+    files.put(file, records);
+    addFiles(fs, root, files);
+  }
+
+  /**
+   * Records data files added to the dataset, with their record counts or -1
+   * if the number of records is not known, and the modification times of the
+   * directories that contain them. Files must be added after they are moved
+   * into place.
+   * <p>
+   * If the update cannot be written, the snapshot is removed so that readers
+   * do not use a manifest that is missing files.
+   */
+  static void addFiles(FileSystem fs, Path root, Map<Path, Long> files) {
+    if (files.isEmpty()) {
+      return;
+    }
+    Path qualifiedRoot = fs.makeQualified(root);
+    Path manifestDir = manifestDirectory(qualifiedRoot);
+    try {
+      List<Entry> added = Lists.newArrayListWithCapacity(files.size());
+      Set<Path> dirs = Sets.newLinkedHashSet();
+      for (Map.Entry<Path, Long> file : files.entrySet()) {
+        FileStatus stat = fs.getFileStatus(file.getKey());
+        Path path = fs.makeQualified(stat.getPath());
+        if (isUnder(path, qualifiedRoot) &&
+            PathFilters.notHidden().accept(path)) {
+          added.add(new Entry(relativize(qualifiedRoot, path),
+              stat.getLen(), stat.getModificationTime(), file.getValue()));
+          // the file's parents up to the root; parents of a directory that
+          // was already added are already in the set
+          Path dir = path.getParent();
+          while (dirs.add(dir) && !dir.equals(qualifiedRoot)) {
+            dir = dir.getParent();
+          }
+        }
+      }
+      if (added.isEmpty()) {
+        return;
+      }
+      for (Path dir : dirs) {
+        added.add(directoryEntry(fs, qualifiedRoot, fs.getFileStatus(dir)));
+      }
+      write(fs, manifestDir,
+          DELTA_PREFIX + UUID.randomUUID() + EXTENSION, added);
+    } catch (IOException e) {
+      LOG.warn("Cannot update manifest for " + root + ", invalidating", e);
+      invalidate(fs, root);
+      return;
+    }
+
+    try {
+      compact(fs, qualifiedRoot);
+    } catch (IOException e) {
+      LOG.warn("Cannot compact manifest for " + root, e);
+    }
+  }
+
+  /**
+   * Replaces the snapshot with one that includes all current deltas, if there
+   * are more than {@link #MAX_DELTAS}.
+   * <p>
+   * Deltas are removed only after the new snapshot is in place, and readers
+   * read the snapshot after the deltas, so a reader never misses entries from
+   * a delta removed after it listed the manifest directory.
+   */
+  private static void compact(FileSystem fs, Path root) throws IOException {
+    Path manifestDir = manifestDirectory(root);
+    List<Path> deltas = listDeltas(fs, manifestDir);
+    if (deltas.size() <= MAX_DELTAS) {
+      return;
+    }
+
+    // read after listing so that every listed delta is in the new snapshot
+    Map<String, Entry> entries = readEntries(fs, root, true);
+    if (entries == null) {
+      // without a snapshot the manifest is not used until it is rebuilt
+      return;
+    }
+
+    write(fs, manifestDir, SNAPSHOT_NAME, Lists.newArrayList(entries.values()));
+
+    for (Path delta : deltas) {
+      fs.delete(delta, false);
+    }
+  }
+
+  /**
+   * Removes the manifest snapshot so that readers walk the dataset
+   * directories until the manifest is rebuilt.
+   */
+  static void invalidate(FileSystem fs, Path root) {
+    Path snapshot = new Path(manifestDirectory(root), SNAPSHOT_NAME);
+    try {
+      fs.delete(snapshot, false);
+    } catch (IOException e) {
+      throw new DatasetIOException(
+          "Cannot invalidate manifest snapshot " + snapshot, e);
+    }
+  }
+
+  /**
+   * Rebuilds the manifest snapshot from a walk of the dataset directories.
+   * Record counts from the previous manifest are kept for files that have not
+   * changed.
+   */
+  static void rebuild(FileSystem fs, Path root) {
+    Path qualifiedRoot = fs.makeQualified(root);
+    Path manifestDir = manifestDirectory(qualifiedRoot);
+    try {
+      // creating the manifest directory changes the root's modification time,
+      // so it must exist before the root is recorded
+      fs.mkdirs(manifestDir);
+
+      // deltas written before the walk are included in the new snapshot
+      List<Path> deltas = listDeltas(fs, manifestDir);
+      Map<String, Entry> previous = readEntries(fs, qualifiedRoot, false);
+
+      // each directory is recorded before it is listed so that a concurrent
+      // change makes the recorded modification time stale
+      List<Entry> walked = Lists.newArrayList();
+      walked.add(directoryEntry(fs, qualifiedRoot,
+          fs.getFileStatus(qualifiedRoot)));
+      walk(fs, qualifiedRoot, qualifiedRoot, previous, walked);
+
+      write(fs, manifestDir, SNAPSHOT_NAME, walked);
+
+      for (Path delta : deltas) {
+        fs.delete(delta, false);
+      }
+    } catch (IOException e) {
+      throw new DatasetIOException("Cannot rebuild manifest for " + root, e);
+    }
+  }
+
+  @Override
+  public String toString() {
+    return Objects.toStringHelper(this)
+        .add("root", root)
+        .add("files", files.size())
+        .add("directories", dirModTimes.size())
+        .toString();
+  }
+
+  private static Path manifestDirectory(Path root) {
+    return new Path(root, MANIFEST_DIRECTORY_NAME);
+  }
+
+  @SuppressWarnings("deprecation")
+  private static void walk(FileSystem fs, Path root, Path dir,
+                           @Nullable Map<String, Entry> previous,
+                           List<Entry> entries) throws IOException {
+    for (FileStatus stat : fs.listStatus(dir, PathFilters.notHidden())) {
+      if (stat.isDir()) {
+        entries.add(directoryEntry(fs, root, stat));
+        walk(fs, root, stat.getPath(), previous, entries);
+      } else {
+        String path = relativize(root, fs.makeQualified(stat.getPath()));
+        long records = -1;
+        Entry known = (previous != null ? previous.get(path) : null);
+        if (known != null && !known.directory &&
+            known.length == stat.getLen()) {
+          records = known.records;
+        }
+        entries.add(new Entry(
+            path, stat.getLen(), stat.getModificationTime(), records));
+      }
+    }
+  }
+
+  private static Entry directoryEntry(FileSystem fs, Path root,
+                                      FileStatus stat) {
+    Path dir = fs.makeQualified(stat.getPath());
+    return new Entry((dir.equals(root) ? "" : relativize(root, dir)), 0,
+        stat.getModificationTime(), -1, true);
+  }
+
+  private static List<Path> listDeltas(FileSystem fs, Path manifestDir)
+      throws IOException {
+    List<Path> deltas = Lists.newArrayList();
+    FileStatus[] stats = listManifestFiles(fs, manifestDir);
+    if (stats != null) {
+      for (FileStatus stat : stats) {
+        if (stat.getPath().getName().startsWith(DELTA_PREFIX)) {
+          deltas.add(stat.getPath());
+        }
+      }
+    }
+    return deltas;
+  }
+
+  @Nullable
+  private static FileStatus[] listManifestFiles(FileSystem fs, Path manifestDir)
+      throws IOException {
+    try {
+      // returns null for missing directories in Hadoop 1
+      return fs.listStatus(manifestDir, PathFilters.notHidden());
+    } catch (FileNotFoundException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Reads all manifest entries, or returns null if a snapshot is required and
+   * there is none.
+   */
+  @Nullable
+  private static Map<String, Entry> readEntries(FileSystem fs, Path root,
+                                                boolean requireSnapshot)
+      throws IOException {
+    FileStatus[] stats = listManifestFiles(fs, manifestDirectory(root));
+    if (stats == null) {
+      return null;
+    }
+
+    FileStatus snapshot = null;
+    List<FileStatus> deltas = Lists.newArrayList();
+    for (FileStatus stat : stats) {
+      String name = stat.getPath().getName();
+      if (SNAPSHOT_NAME.equals(name)) {
+        snapshot = stat;
+      } else if (name.startsWith(DELTA_PREFIX)) {
+        deltas.add(stat);
+      }
+    }
+    if (requireSnapshot && snapshot == null) {
+      return null;
+    }
+
+    // deltas are read first: a delta removed by a concurrent compaction or
+    // rebuild after the listing is included in the snapshot that replaced it
+    Map<String, Entry> entries = Maps.newLinkedHashMap();
+    for (FileStatus delta : deltas) {
+      try {
+        read(fs, delta, entries);
+      } catch (FileNotFoundException e) {
+        // removed after the listing
+      }
+    }
+    if (snapshot != null) {
+      try {
+        read(fs, snapshot, entries);
+      } catch (FileNotFoundException e) {
+        // replaced by a concurrent rebuild after the listing
+        return (requireSnapshot ? null : entries);
+      }
+    }
+
+    return entries;
+  }
+
+  private static void read(FileSystem fs, FileStatus stat,
+                           Map<String, Entry> entries) throws IOException {
+    DataFileReader<GenericRecord> reader = new DataFileReader<GenericRecord>(
+        new AvroFSInput(fs.open(stat.getPath()), stat.getLen()),
+        new GenericDatumReader<GenericRecord>(ENTRY_SCHEMA));
+    try {
+      GenericRecord record = null;
+      while (reader.hasNext()) {
+        record = reader.next(record);
+        Entry entry = new Entry(
+            record.get("path").toString(),
+            (Long) record.get("length"),
+            (Long) record.get("modificationTime"),
+            (Long) record.get("records"),
+            (Boolean) record.get("directory"));
+        // deltas are not ordered, so keep the latest time for a directory
+        Entry known = entries.get(entry.path);
+        if (!entry.directory || known == null || known.modTime < entry.modTime) {
+          entries.put(entry.path, entry);
+        }
+      }
+    } finally {
+      Closeables.close(reader, true);
+    }
+  }
+
+  private static void write(FileSystem fs, Path manifestDir, String name,
+                            List<Entry> entries) throws IOException {
+    Path tempPath = new Path(manifestDir, "." + name + "." + UUID.randomUUID());
+    Path finalPath = new Path(manifestDir, name);
+
+    DataFileWriter<GenericRecord> writer = new DataFileWriter<GenericRecord>(
+        new GenericDatumWriter<GenericRecord>(ENTRY_SCHEMA));
+    boolean threw = true;
+    try {
+      writer.create(ENTRY_SCHEMA, fs.create(tempPath, false));
+      GenericRecord record = new GenericData.Record(ENTRY_SCHEMA);
+      for (Entry entry : entries) {
+        record.put("path", entry.path);
+        record.put("length", entry.length);
+        record.put("modificationTime", entry.modTime);
+        record.put("records", entry.records);
+        record.put("directory", entry.directory);
+        writer.append(record);
+      }
+      threw = false;
+    } finally {
+      Closeables.close(writer, threw);
+    }
+
+    if (SNAPSHOT_NAME.equals(name)) {
+      // rename does not replace an existing snapshot
+      fs.delete(finalPath, false);
+    }
+    if (!fs.rename(tempPath, finalPath)) {
+      fs.delete(tempPath, false);
+      throw new IOException("Failed to move " + tempPath + " to " + finalPath);
+    }
+  }
+
+  private static Map<Path, List<FileStatus>> buildListings(
+      Path root, Collection<Entry> files, Map<Path, Long> dirModTimes) {
+    Map<Path, List<FileStatus>> listings = Maps.newHashMap();
+    Set<Path> knownDirs = Sets.newHashSet();
+    for (Path dir : dirModTimes.keySet()) {
+      addDirectory(listings, root, dir, dirModTimes, knownDirs);
+    }
+    for (Entry entry : files) {
+      Path file = new Path(root, entry.path);
+      add(listings, file.getParent(), new FileStatus(
+          entry.length, false, 0, 0, entry.modTime, file));
+      addDirectory(listings, root, file.getParent(), dirModTimes, knownDirs);
+    }
+
+    // match the order returned by listStatus
+    for (List<FileStatus> stats : listings.values()) {
+      Collections.sort(stats);
+    }
+
+    return listings;
+  }
+
+  /**
+   * Adds a directory and each of its parents to its own parent's listing once.
+   */
+  private static void addDirectory(Map<Path, List<FileStatus>> listings,
+                                   Path root, Path dir,
+                                   Map<Path, Long> dirModTimes,
+                                   Set<Path> knownDirs) {
+    for (Path p = dir; !p.equals(root) && knownDirs.add(p); p = p.getParent()) {
+      Long modTime = dirModTimes.get(p);
+      add(listings, p.getParent(), new FileStatus(
+          0, true, 0, 0, (modTime != null ? modTime : 0), p));
+    }
+  }
+
+  private static void add(Map<Path, List<FileStatus>> listings, Path dir,
+                          FileStatus stat) {
+    List<FileStatus> stats = listings.get(dir);
+    if (stats == null) {
+      stats = Lists.newArrayList();
+      listings.put(dir, stats);
+    }
+    stats.add(stat);
+  }
+
+  private static String relativize(Path root, Path path) {
+    return root.toUri().relativize(path.toUri()).getPath();
+  }
+
+  private static Path resolve(Path root, String path) {
+    // the root directory is recorded with an empty relative path
+    return (path.isEmpty() ? root : new Path(root, path));
+  }
+
+  private static boolean isUnder(Path path, Path root) {
+    for (Path p = path; p != null; p = p.getParent()) {
+      if (p.equals(root)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static class Entry {
+    private final String path;
+    private final long length;
+    private final long modTime;
+    private final long records;
+    private final boolean directory;
+
+    private Entry(String path, long length, long modTime, long records) {
+      this(path, length, modTime, records, false);
+    }
+
+    private Entry(String path, long length, long modTime, long records,
+                  boolean directory) {
+      this.path = path;
+      this.length = length;
+      this.modTime = modTime;
+      this.records = records;
+      this.directory = directory;
+    }
+  }
+}
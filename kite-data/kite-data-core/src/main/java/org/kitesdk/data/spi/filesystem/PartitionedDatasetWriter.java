@@ -16,8 +16,22 @@
 package org.kitesdk.data.spi.filesystem;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import org.kitesdk.data.DatasetDescriptor;
+import org.kitesdk.data.DatasetException;
+import org.kitesdk.data.DatasetOperationException;
 import org.kitesdk.data.DatasetWriter;
 import org.kitesdk.data.Format;
 import org.kitesdk.data.Formats;
@@ -27,6 +41,7 @@ import org.kitesdk.data.ValidationException;
 import org.kitesdk.data.spi.AbstractDatasetWriter;
 import org.kitesdk.data.spi.DescriptorUtil;
 import org.kitesdk.data.spi.EntityAccessor;
+import org.kitesdk.data.spi.Pair;
 import org.kitesdk.data.spi.PartitionListener;
 import org.kitesdk.data.spi.RollingWriter;
 import org.kitesdk.data.spi.StorageKey;
@@ -47,6 +62,8 @@ import org.slf4j.LoggerFactory;
 import static org.kitesdk.data.spi.filesystem.FileSystemProperties.ROLL_INTERVAL_S_PROP;
 import static org.kitesdk.data.spi.filesystem.FileSystemProperties.TARGET_FILE_SIZE_PROP;
 import static org.kitesdk.data.spi.filesystem.FileSystemProperties.WRITER_CACHE_SIZE_PROP;
+import static org.kitesdk.data.spi.filesystem.FileSystemProperties.WRITER_CLOSE_THREADS_PROP;
+import static org.kitesdk.data.spi.filesystem.FileSystemProperties.WRITER_MEMORY_BUDGET_PROP;
 
 abstract class PartitionedDatasetWriter<E, W extends FileSystemWriter<E>>
     extends AbstractDatasetWriter<E> implements RollingWriter {
@@ -55,12 +72,17 @@ abstract class PartitionedDatasetWriter<E, W extends FileSystemWriter<E>>
     .getLogger(PartitionedDatasetWriter.class);
 
   private static final int DEFAULT_WRITER_CACHE_SIZE = 10;
+  private static final int MEMORY_CHECK_INTERVAL = 1000;
 
   protected FileSystemView<E> view;
   private final int maxWriters;
+  private final int closeThreads;
+  private final long memoryBudget;
+  private int writesSinceMemoryCheck = 0;
 
   private final PartitionStrategy partitionStrategy;
   protected LoadingCache<StorageKey, W> cachedWriters;
+  protected DatasetWriterCloser<E> closer;
 
   private final StorageKey reusedKey;
   private final EntityAccessor<E> accessor;
@@ -111,6 +133,10 @@ abstract class PartitionedDatasetWriter<E, W extends FileSystemWriter<E>>
     }
     this.maxWriters = DescriptorUtil.getInt(WRITER_CACHE_SIZE_PROP, descriptor,
         defaultMaxWriters);
+    this.closeThreads = DescriptorUtil.getInt(WRITER_CLOSE_THREADS_PROP,
+        descriptor, 0);
+    this.memoryBudget = DescriptorUtil.getLong(WRITER_MEMORY_BUDGET_PROP,
+        descriptor, -1);
 
     this.state = ReaderWriterState.NEW;
     this.reusedKey = new StorageKey(partitionStrategy);
@@ -118,12 +144,8 @@ abstract class PartitionedDatasetWriter<E, W extends FileSystemWriter<E>>
     this.provided = view.getProvidedValues();
 
     // get file rolling properties
-    if (!Formats.PARQUET.equals(descriptor.getFormat())) {
-      this.targetFileSize = DescriptorUtil.getLong(
-          TARGET_FILE_SIZE_PROP, descriptor, -1);
-    } else {
-      targetFileSize = -1;
-    }
+    this.targetFileSize = DescriptorUtil.getLong(
+        TARGET_FILE_SIZE_PROP, descriptor, -1);
     this.rollIntervalMillis = 1000 * DescriptorUtil.getLong(
         ROLL_INTERVAL_S_PROP, descriptor, -1);
   }
@@ -141,8 +163,9 @@ abstract class PartitionedDatasetWriter<E, W extends FileSystemWriter<E>>
     LOG.debug("Opening partitioned dataset writer w/strategy:{}",
       partitionStrategy);
 
+    closer = new DatasetWriterCloser<E>(closeThreads);
     cachedWriters = CacheBuilder.newBuilder().maximumSize(maxWriters)
-      .removalListener(new DatasetWriterCloser<E>())
+      .removalListener(closer)
       .build(createCacheLoader());
 
     state = ReaderWriterState.OPEN;
@@ -163,6 +186,9 @@ abstract class PartitionedDatasetWriter<E, W extends FileSystemWriter<E>>
       // checking when a new writer is created
       Preconditions.checkArgument(view.includes(entity),
           "View %s does not include entity %s", view, entity);
+      // failures when closing evicted writers are not propagated by the cache,
+      // so check for them when writers may have been evicted
+      closer.checkCompleted();
       // get a new key because it is stored in the cache
       StorageKey key = StorageKey.copy(reusedKey);
       try {
@@ -174,6 +200,52 @@ abstract class PartitionedDatasetWriter<E, W extends FileSystemWriter<E>>
     }
 
     writer.write(entity);
+
+    if (memoryBudget > 0) {
+      writesSinceMemoryCheck += 1;
+      if (writesSinceMemoryCheck >= MEMORY_CHECK_INTERVAL) {
+        this.writesSinceMemoryCheck = 0;
+        checkMemoryBudget();
+      }
+    }
+  }
+
+  /**
+   * Closes the writers buffering the most data until the estimated total is
+   * within the memory budget.
+   */
+  private void checkMemoryBudget() {
+    List<Pair<StorageKey, Long>> sizes = Lists.newArrayList();
+    long total = 0;
+    for (Map.Entry<StorageKey, W> entry : cachedWriters.asMap().entrySet()) {
+      long size = entry.getValue().bufferedSize();
+      sizes.add(Pair.of(entry.getKey(), size));
+      total += size;
+    }
+
+    if (total <= memoryBudget) {
+      return;
+    }
+
+    Collections.sort(sizes, new Comparator<Pair<StorageKey, Long>>() {
+      @Override
+      public int compare(Pair<StorageKey, Long> left,
+                         Pair<StorageKey, Long> right) {
+        // largest first
+        return right.second().compareTo(left.second());
+      }
+    });
+
+    for (Pair<StorageKey, Long> size : sizes) {
+      if (total <= memoryBudget) {
+        break;
+      }
+      LOG.debug("Closing writer for partition:{} buffering {} bytes",
+          size.first(), size.second());
+      // the removal listener closes the writer
+      cachedWriters.invalidate(size.first());
+      total -= size.second();
+    }
   }
 
   @Override
@@ -182,9 +254,14 @@ abstract class PartitionedDatasetWriter<E, W extends FileSystemWriter<E>>
 
       LOG.debug("Closing all cached writers for view:{}", view);
 
-      for (DatasetWriter<E> writer : cachedWriters.asMap().values()) {
-        LOG.debug("Closing partition writer:{}", writer);
-        writer.close();
+      try {
+        for (Map.Entry<StorageKey, W> entry : cachedWriters.asMap().entrySet()) {
+          closer.close(entry.getKey(), entry.getValue());
+        }
+        // wait for the writers above and any evicted writers to be committed
+        closer.await();
+      } finally {
+        closer.shutdown();
       }
 
       state = ReaderWriterState.CLOSED;
@@ -236,6 +313,8 @@ abstract class PartitionedDatasetWriter<E, W extends FileSystemWriter<E>>
     return Objects.toStringHelper(this)
         .add("partitionStrategy", partitionStrategy)
         .add("maxWriters", maxWriters)
+        .add("closeThreads", closeThreads)
+        .add("memoryBudget", memoryBudget)
         .add("view", view)
         .add("cachedWriters", cachedWriters)
         .toString();
@@ -333,21 +412,135 @@ abstract class PartitionedDatasetWriter<E, W extends FileSystemWriter<E>>
 
   }
 
-  private static class DatasetWriterCloser<E> implements
+  /**
+   * Closes writers when they are evicted from the writer cache.
+   * <p>
+   * When configured with close threads, writers are closed and committed in
+   * the background using a bounded queue. If the queue is full, the thread
+   * that evicted the writer closes it, which limits the number of writers
+   * that are waiting to be closed. Failures are thrown by
+   * {@link #checkCompleted()} or {@link #await()}.
+   */
+  @VisibleForTesting
+  static class DatasetWriterCloser<E> implements
     RemovalListener<StorageKey, DatasetWriter<E>> {
 
+    private final ExecutorService pool;
+    private final List<Future<?>> pending = Lists.newLinkedList();
+
+    DatasetWriterCloser(int closeThreads) {
+      if (closeThreads > 0) {
+        this.pool = new ThreadPoolExecutor(closeThreads, closeThreads,
+            0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<Runnable>(closeThreads),
+            new ThreadFactoryBuilder()
+                .setDaemon(true)
+                .setNameFormat("kite-writer-closer-%d")
+                .build(),
+            new ThreadPoolExecutor.CallerRunsPolicy());
+      } else {
+        this.pool = null;
+      }
+    }
+
     @Override
     public void onRemoval(
       RemovalNotification<StorageKey, DatasetWriter<E>> notification) {
+      close(notification.getKey(), notification.getValue());
+    }
 
-      DatasetWriter<E> writer = notification.getValue();
+    void close(final StorageKey key, final DatasetWriter<E> writer) {
+      if (pool == null) {
+        LOG.debug("Closing writer:{} for partition:{}", writer, key);
+        writer.close();
+        return;
+      }
 
-      LOG.debug("Closing writer:{} for partition:{}", writer,
-        notification.getKey());
+      Future<?> future = pool.submit(new Runnable() {
+        @Override
+        public void run() {
+          LOG.debug("Closing writer:{} for partition:{}", writer, key);
+          writer.close();
+        }
+      });
 
-      writer.close();
+      synchronized (pending) {
+        pending.add(future);
+      }
     }
 
+    /**
+     * Waits for all pending writers to be closed and committed.
+     */
+    void await() {
+      List<Future<?>> toWait;
+      synchronized (pending) {
+        toWait = Lists.newArrayList(pending);
+        pending.clear();
+      }
+
+      RuntimeException failure = null;
+      for (Future<?> future : toWait) {
+        try {
+          getUnchecked(future);
+        } catch (RuntimeException e) {
+          // keep waiting so that every commit is attempted
+          if (failure == null) {
+            failure = e;
+          } else {
+            LOG.warn("Failed to close partition writer", e);
+          }
+        }
+      }
+
+      if (failure != null) {
+        throw failure;
+      }
+    }
+
+    void shutdown() {
+      if (pool != null) {
+        pool.shutdown();
+      }
+    }
+
+    /**
+     * Throws the failure from any background close that has completed.
+     */
+    void checkCompleted() {
+      List<Future<?>> done = Lists.newArrayList();
+      synchronized (pending) {
+        for (Iterator<Future<?>> futures = pending.iterator();
+             futures.hasNext(); ) {
+          Future<?> future = futures.next();
+          if (future.isDone()) {
+            done.add(future);
+            futures.remove();
+          }
+        }
+      }
+      for (Future<?> future : done) {
+        getUnchecked(future);
+      }
+    }
+
+    private static void getUnchecked(Future<?> future) {
+      try {
+        future.get();
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+        throw new DatasetOperationException(
+            "Interrupted while closing partition writers", ex);
+      } catch (ExecutionException ex) {
+        if (ex.getCause() instanceof RuntimeException) {
+          throw (RuntimeException) ex.getCause();
+        } else if (ex.getCause() instanceof Error) {
+          throw (Error) ex.getCause();
+        }
+        throw new DatasetException(
+            "Cannot close partition writer", ex.getCause());
+      }
+    }
   }
 
   private static class NonDurablePartitionedDatasetWriter<E> extends
@@ -416,6 +609,9 @@ abstract class PartitionedDatasetWriter<E, W extends FileSystemWriter<E>>
         LOG.debug("Flushing partition writer:{}", writer);
         writer.flush();
       }
+
+      // writers evicted before the flush must be committed as well
+      closer.await();
     }
 
     @Override
@@ -429,6 +625,8 @@ abstract class PartitionedDatasetWriter<E, W extends FileSystemWriter<E>>
         LOG.debug("Syncing partition writer:{}", writer);
         writer.sync();
       }
+
+      closer.await();
     }
   }
 }
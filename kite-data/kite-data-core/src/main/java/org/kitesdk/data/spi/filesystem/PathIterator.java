@@ -32,14 +32,23 @@ public class PathIterator implements Iterator<Path>, Iterable<Path> {
   private final FileSystem fs;
   private final Path root;
   private final Iterator<StorageKey> partitions;
+  private final ListingCache listing;
   private StorageKey key = null;
-  private Iterator<Path> files = null;
+  private Iterator<FileStatus> files = null;
+  private FileStatus current = null;
 
   public PathIterator(FileSystem fs, Path root,
                       @Nullable Iterator<StorageKey> partitions) {
+    this(fs, root, partitions, ListingCache.uncached(fs));
+  }
+
+  PathIterator(FileSystem fs, Path root,
+               @Nullable Iterator<StorageKey> partitions,
+               ListingCache listing) {
     this.fs = fs;
     this.root = root;
     this.partitions = partitions;
+    this.listing = listing;
   }
 
   @Override
@@ -62,13 +71,25 @@ public class PathIterator implements Iterator<Path>, Iterable<Path> {
     return key;
   }
 
+  /**
+   * Returns the length in bytes of the current file Path.
+   *
+   * Must be called after next().
+   *
+   * @return the length of the current file Path
+   */
+  public long getLength() {
+    return current.getLen();
+  }
+
   @Override
   public Path next() {
     if (!hasNext()) {
       throw new NoSuchElementException();
     }
 
-    return files.next();
+    this.current = files.next();
+    return current.getPath();
   }
 
   @Override
@@ -86,7 +107,7 @@ public class PathIterator implements Iterator<Path>, Iterable<Path> {
           return false;
         }
         try {
-          stats = fs.listStatus(root, PathFilters.notHidden());
+          stats = listing.listStatus(root, PathFilters.notHidden());
         } catch (IOException ex) {
           throw new DatasetIOException("Cannot list files in " + root, ex);
         }
@@ -95,7 +116,7 @@ public class PathIterator implements Iterator<Path>, Iterable<Path> {
       } else if (partitions.hasNext()) {
         StorageKey key = partitions.next();
         try {
-          stats = fs.listStatus(
+          stats = listing.listStatus(
               new Path(root, key.getPath()), PathFilters.notHidden());
         } catch (IOException ex) {
           throw new DatasetIOException("Cannot list files in " + key.getPath(), ex);
@@ -106,10 +127,10 @@ public class PathIterator implements Iterator<Path>, Iterable<Path> {
         return false;
       }
 
-      List<Path> nextFileSet = Lists.newArrayListWithCapacity(stats.length);
+      List<FileStatus> nextFileSet = Lists.newArrayListWithCapacity(stats.length);
       for (FileStatus stat : stats) {
         if (!stat.isDir()) {
-          nextFileSet.add(stat.getPath());
+          nextFileSet.add(stat);
         }
       }
 
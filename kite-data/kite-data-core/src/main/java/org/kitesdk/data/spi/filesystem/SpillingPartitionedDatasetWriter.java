@@ -0,0 +1,548 @@
+/*
+ * Copyright 2015 Cloudera Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kitesdk.data.spi.filesystem;
+
+import com.google.common.base.Objects;
+import com.google.common.base.Preconditions;
+import com.google.common.base.Throwables;
+import com.google.common.collect.Lists;
+import com.google.common.io.Closeables;
+import com.google.common.io.Files;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.io.BinaryDecoder;
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.DatumReader;
+import org.apache.avro.io.DecoderFactory;
+import org.apache.avro.io.EncoderFactory;
+import org.apache.avro.reflect.ReflectDatumWriter;
+import org.apache.avro.util.Utf8;
+import org.kitesdk.data.DatasetDescriptor;
+import org.kitesdk.data.DatasetException;
+import org.kitesdk.data.DatasetIOException;
+import org.kitesdk.data.DatasetOperationException;
+import org.kitesdk.data.ValidationException;
+import org.kitesdk.data.spi.AbstractDatasetWriter;
+import org.kitesdk.data.spi.DataModelUtil;
+import org.kitesdk.data.spi.DescriptorUtil;
+import org.kitesdk.data.spi.EntityAccessor;
+import org.kitesdk.data.spi.ReaderWriterState;
+import org.kitesdk.data.spi.SchemaUtil;
+import org.kitesdk.data.spi.StorageKey;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static org.kitesdk.data.spi.filesystem.FileSystemProperties.ROLL_INTERVAL_S_PROP;
+import static org.kitesdk.data.spi.filesystem.FileSystemProperties.TARGET_FILE_SIZE_PROP;
+import static org.kitesdk.data.spi.filesystem.FileSystemProperties.WRITER_SORT_BUFFER_SIZE_PROP;
+
+/**
+ * A partitioned writer that sorts entities by partition before writing them,
+ * so that only one partition writer is open at a time.
+ * <p>
+ * Entities are serialized into an in-memory buffer. When the buffer reaches
+ * the configured size, it is sorted by {@link StorageKey} and spilled to a
+ * run file in a local temporary directory, with the key of each entity. When
+ * the writer is closed, the runs are merged and each partition is written
+ * sequentially, producing one file per partition (or more if files roll).
+ * Entities with the same key are written in the order they were received.
+ * <p>
+ * No data is written to the dataset until this writer is closed.
+ */
+class SpillingPartitionedDatasetWriter<E> extends AbstractDatasetWriter<E> {
+
+  private static final Logger LOG = LoggerFactory
+      .getLogger(SpillingPartitionedDatasetWriter.class);
+
+  // approximate memory used by each buffered entry, in addition to its data
+  private static final int ENTRY_OVERHEAD = 64;
+
+  // maximum number of runs that are open at once during a merge
+  static final int MERGE_FACTOR = 64;
+
+  private final FileSystemView<E> view;
+  private final long bufferSize;
+  private final long targetFileSize;
+  private final long rollIntervalMillis;
+  private final EntityAccessor<E> accessor;
+  private final Map<String, Object> provided;
+  private final Schema schema;
+  private final ReflectDatumWriter<E> datumWriter;
+  private final GenericData.Record keyRecord;
+  private final GenericDatumWriter<GenericData.Record> keyWriter;
+
+  private final StorageKey reusedKey;
+  private StorageKey lastKey = null;
+  private final List<Entry> buffer = Lists.newArrayList();
+  private long bufferedBytes = 0;
+  private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+  private BinaryEncoder encoder = null;
+
+  private File spillDirectory = null;
+  private final List<File> runs = Lists.newArrayList();
+  private int nextRun = 0;
+  private BinaryEncoder runEncoder = null;
+
+  private ReaderWriterState state;
+
+  static boolean isEnabled(DatasetDescriptor descriptor) {
+    return DescriptorUtil.getLong(
+        WRITER_SORT_BUFFER_SIZE_PROP, descriptor, -1) > 0;
+  }
+
+  SpillingPartitionedDatasetWriter(FileSystemView<E> view) {
+    DatasetDescriptor descriptor = view.getDataset().getDescriptor();
+    Preconditions.checkArgument(descriptor.isPartitioned(),
+        "Dataset " + view.getDataset() + " is not partitioned");
+
+    this.view = view;
+    this.bufferSize = DescriptorUtil.getLong(
+        WRITER_SORT_BUFFER_SIZE_PROP, descriptor, -1);
+    this.targetFileSize = DescriptorUtil.getLong(
+        TARGET_FILE_SIZE_PROP, descriptor, -1);
+    this.rollIntervalMillis = 1000 * DescriptorUtil.getLong(
+        ROLL_INTERVAL_S_PROP, descriptor, -1);
+    this.accessor = view.getAccessor();
+    this.provided = view.getProvidedValues();
+    this.schema = accessor.getWriteSchema();
+    this.datumWriter = new ReflectDatumWriter<E>(schema);
+    this.keyRecord = new GenericData.Record(SchemaUtil.keySchema(
+        schema, descriptor.getPartitionStrategy()));
+    this.keyWriter = new GenericDatumWriter<GenericData.Record>(
+        keyRecord.getSchema());
+    this.reusedKey = new StorageKey(descriptor.getPartitionStrategy());
+    this.state = ReaderWriterState.NEW;
+  }
+
+  @Override
+  public void initialize() {
+    Preconditions.checkState(state.equals(ReaderWriterState.NEW),
+        "Unable to open a writer from state:%s", state);
+
+    DatasetDescriptor descriptor = view.getDataset().getDescriptor();
+    ValidationException.check(
+        FileSystemWriter.isSupportedFormat(descriptor),
+        "Not a supported format: %s", descriptor.getFormat());
+
+    LOG.debug("Opening sorting partitioned writer with buffer size:{}",
+        bufferSize);
+
+    this.state = ReaderWriterState.OPEN;
+  }
+
+  @Override
+  public void write(E entity) {
+    Preconditions.checkState(state.equals(ReaderWriterState.OPEN),
+        "Attempt to write to a writer in state:%s", state);
+
+    accessor.keyFor(entity, provided, reusedKey);
+    if (!reusedKey.equals(lastKey)) {
+      // only check whether the entity belongs in the view when the key changes
+      Preconditions.checkArgument(view.includes(entity),
+          "View %s does not include entity %s", view, entity);
+      this.lastKey = StorageKey.copy(reusedKey);
+    }
+
+    try {
+      bytes.reset();
+      this.encoder = EncoderFactory.get().directBinaryEncoder(bytes, encoder);
+      datumWriter.write(entity, encoder);
+      encoder.flush();
+    } catch (IOException e) {
+      this.state = ReaderWriterState.ERROR;
+      throw new DatasetIOException("Failed to buffer " + entity, e);
+    }
+
+    byte[] data = bytes.toByteArray();
+    buffer.add(new Entry(lastKey, data));
+    bufferedBytes += data.length + ENTRY_OVERHEAD;
+
+    if (bufferedBytes >= bufferSize) {
+      spill();
+    }
+  }
+
+  @Override
+  public void close() {
+    if (state.equals(ReaderWriterState.OPEN)) {
+      try {
+        if (runs.isEmpty()) {
+          // everything fit in memory, write the buffer directly
+          Collections.sort(buffer);
+          writeSorted(new BufferIterator(buffer));
+        } else {
+          spill();
+          mergeRuns();
+        }
+        this.state = ReaderWriterState.CLOSED;
+      } catch (RuntimeException e) {
+        this.state = ReaderWriterState.ERROR;
+        Throwables.propagateIfInstanceOf(e, DatasetException.class);
+        throw new DatasetOperationException(e,
+            "Failed to write sorted entities to %s", view);
+      } catch (IOException e) {
+        this.state = ReaderWriterState.ERROR;
+        throw new DatasetIOException("Failed to merge sorted runs", e);
+      } finally {
+        buffer.clear();
+        deleteSpillDirectory();
+      }
+    } else if (state.equals(ReaderWriterState.ERROR)) {
+      buffer.clear();
+      deleteSpillDirectory();
+      this.state = ReaderWriterState.CLOSED;
+    }
+  }
+
+  @Override
+  public boolean isOpen() {
+    return state.equals(ReaderWriterState.OPEN);
+  }
+
+  @Override
+  public String toString() {
+    return Objects.toStringHelper(this)
+        .add("view", view)
+        .add("bufferSize", bufferSize)
+        .add("runs", runs.size())
+        .toString();
+  }
+
+  private void spill() {
+    if (buffer.isEmpty()) {
+      return;
+    }
+
+    // the sort is stable, so entities with the same key stay in order
+    Collections.sort(buffer);
+
+    try {
+      File run = writeRun(new BufferIterator(buffer));
+      runs.add(run);
+      LOG.debug("Spilled {} entities to {}", buffer.size(), run);
+    } catch (IOException e) {
+      this.state = ReaderWriterState.ERROR;
+      throw new DatasetIOException("Failed to spill sorted run", e);
+    }
+
+    buffer.clear();
+    this.bufferedBytes = 0;
+  }
+
+  private void mergeRuns() throws IOException {
+    // merge groups of runs until few enough are left to open at once. each
+    // group is consecutive, so entities with the same key stay in order.
+    while (runs.size() > MERGE_FACTOR) {
+      List<File> merged = Lists.newArrayList();
+      for (int i = 0; i < runs.size(); i += MERGE_FACTOR) {
+        List<File> group = runs.subList(
+            i, Math.min(i + MERGE_FACTOR, runs.size()));
+        MergeIterator sorted = new MergeIterator(group);
+        try {
+          merged.add(writeRun(sorted));
+        } finally {
+          sorted.close();
+        }
+        for (File run : group) {
+          if (!run.delete()) {
+            LOG.warn("Failed to delete sorted run {}", run);
+          }
+        }
+      }
+      LOG.debug("Merged {} sorted runs into {}", runs.size(), merged.size());
+      runs.clear();
+      runs.addAll(merged);
+    }
+
+    MergeIterator sorted = new MergeIterator(runs);
+    try {
+      writeSorted(sorted);
+    } finally {
+      sorted.close();
+    }
+  }
+
+  /**
+   * Writes each key and entity to a new run file. Runs store the key so that
+   * merging does not need to decode entities.
+   */
+  private File writeRun(SortedIterator sorted) throws IOException {
+    if (spillDirectory == null) {
+      this.spillDirectory = Files.createTempDir();
+    }
+    File run = new File(spillDirectory, "run-" + nextRun);
+    nextRun += 1;
+
+    OutputStream out = new BufferedOutputStream(new FileOutputStream(run));
+    boolean threw = true;
+    try {
+      this.runEncoder = EncoderFactory.get().binaryEncoder(out, runEncoder);
+      while (sorted.advance()) {
+        StorageKey key = sorted.key();
+        for (int i = 0; i < key.size(); i += 1) {
+          keyRecord.put(i, key.get(i));
+        }
+        keyWriter.write(keyRecord, runEncoder);
+        runEncoder.writeBytes(sorted.data());
+      }
+      runEncoder.flush();
+      threw = false;
+    } finally {
+      Closeables.close(out, threw);
+    }
+
+    return run;
+  }
+
+  private void writeSorted(SortedIterator sorted) throws IOException {
+    PartitionedDatasetWriter.DatasetWriterCacheLoader<E> loader =
+        new PartitionedDatasetWriter.DatasetWriterCacheLoader<E>(view,
+            new PartitionedDatasetWriter.ConfAccessor() {
+              @Override
+              public long getTargetFileSize() {
+                return targetFileSize;
+              }
+
+              @Override
+              public long getRollIntervalMillis() {
+                return rollIntervalMillis;
+              }
+            });
+
+    DatumReader<E> reader = DataModelUtil.getDatumReaderForType(
+        accessor.getType(), schema);
+    BinaryDecoder decoder = null;
+
+    StorageKey currentKey = null;
+    FileSystemWriter<E> writer = null;
+    try {
+      while (sorted.advance()) {
+        StorageKey key = sorted.key();
+        if (writer == null || !key.equals(currentKey)) {
+          if (writer != null) {
+            writer.close();
+          }
+          currentKey = key;
+          writer = open(loader, key);
+        }
+
+        decoder = DecoderFactory.get().binaryDecoder(sorted.data(), decoder);
+        writer.write(reader.read(null, decoder));
+      }
+    } finally {
+      if (writer != null) {
+        writer.close();
+      }
+    }
+  }
+
+  private FileSystemWriter<E> open(
+      PartitionedDatasetWriter.DatasetWriterCacheLoader<E> loader,
+      StorageKey key) {
+    try {
+      return loader.load(key);
+    } catch (RuntimeException e) {
+      throw e;
+    } catch (Exception e) {
+      throw new DatasetOperationException(e,
+          "Failed to open writer for partition %s", key);
+    }
+  }
+
+  private void deleteSpillDirectory() {
+    if (spillDirectory != null) {
+      // list the directory to include runs from a failed merge
+      File[] files = spillDirectory.listFiles();
+      if (files != null) {
+        for (File run : files) {
+          if (!run.delete()) {
+            LOG.warn("Failed to delete sorted run {}", run);
+          }
+        }
+      }
+      if (!spillDirectory.delete()) {
+        LOG.warn("Failed to delete spill directory {}", spillDirectory);
+      }
+      runs.clear();
+      this.spillDirectory = null;
+    }
+  }
+
+  private static class Entry implements Comparable<Entry> {
+    private final StorageKey key;
+    private final byte[] data;
+
+    private Entry(StorageKey key, byte[] data) {
+      this.key = key;
+      this.data = data;
+    }
+
+    @Override
+    public int compareTo(Entry other) {
+      return key.compareTo(other.key);
+    }
+  }
+
+  private interface SortedIterator {
+    boolean advance() throws IOException;
+    StorageKey key();
+    byte[] data();
+  }
+
+  private static class BufferIterator implements SortedIterator {
+    private final List<Entry> entries;
+    private int next = 0;
+    private Entry current = null;
+
+    private BufferIterator(List<Entry> entries) {
+      this.entries = entries;
+    }
+
+    @Override
+    public boolean advance() {
+      if (next < entries.size()) {
+        this.current = entries.get(next);
+        next += 1;
+        return true;
+      }
+      return false;
+    }
+
+    @Override
+    public StorageKey key() {
+      return current.key;
+    }
+
+    @Override
+    public byte[] data() {
+      return current.data;
+    }
+  }
+
+  private class MergeIterator implements SortedIterator {
+    private final List<RunReader> readers;
+    private final PriorityQueue<RunReader> queue;
+    private RunReader current = null;
+
+    private MergeIterator(List<File> runs) throws IOException {
+      this.readers = Lists.newArrayListWithCapacity(runs.size());
+      this.queue = new PriorityQueue<RunReader>(Math.max(1, runs.size()));
+      boolean threw = true;
+      try {
+        for (int i = 0; i < runs.size(); i += 1) {
+          RunReader reader = new RunReader(i, runs.get(i));
+          readers.add(reader);
+          if (reader.advance()) {
+            queue.add(reader);
+          }
+        }
+        threw = false;
+      } finally {
+        if (threw) {
+          close();
+        }
+      }
+    }
+
+    @Override
+    public boolean advance() throws IOException {
+      if (current != null && current.advance()) {
+        queue.add(current);
+      }
+      this.current = queue.poll();
+      return current != null;
+    }
+
+    @Override
+    public StorageKey key() {
+      return current.key;
+    }
+
+    @Override
+    public byte[] data() {
+      return current.data;
+    }
+
+    private void close() throws IOException {
+      for (RunReader reader : readers) {
+        Closeables.close(reader.in, true);
+      }
+    }
+  }
+
+  private class RunReader implements Comparable<RunReader> {
+    private final int index;
+    private final InputStream in;
+    private final BinaryDecoder decoder;
+    private final GenericDatumReader<GenericData.Record> keyReader;
+    private GenericData.Record reused = null;
+    private ByteBuffer buffer = null;
+    private StorageKey key;
+    private byte[] data;
+
+    private RunReader(int index, File run) throws IOException {
+      this.index = index;
+      this.in = new BufferedInputStream(new FileInputStream(run));
+      this.decoder = DecoderFactory.get().binaryDecoder(in, null);
+      this.keyReader = new GenericDatumReader<GenericData.Record>(
+          keyRecord.getSchema());
+    }
+
+    private boolean advance() throws IOException {
+      if (decoder.isEnd()) {
+        return false;
+      }
+
+      this.reused = keyReader.read(reused, decoder);
+      this.key = new StorageKey(reusedKey.getPartitionStrategy());
+      for (int i = 0; i < key.size(); i += 1) {
+        Object value = reused.get(i);
+        // the reused record also reuses strings
+        key.replace(i, value instanceof Utf8 ? value.toString() : value);
+      }
+
+      this.buffer = decoder.readBytes(buffer);
+      this.data = new byte[buffer.remaining()];
+      buffer.get(data);
+      return true;
+    }
+
+    @Override
+    public int compareTo(RunReader other) {
+      int cmp = key.compareTo(other.key);
+      // runs are in write order, so break ties by run to keep entities in order
+      return (cmp != 0 ? cmp : (index < other.index ? -1 :
+          (index == other.index ? 0 : 1)));
+    }
+  }
+}
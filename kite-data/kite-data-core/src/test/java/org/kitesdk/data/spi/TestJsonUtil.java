@@ -16,7 +16,10 @@
 
 package org.kitesdk.data.spi;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.BinaryNode;
 import com.google.common.base.Function;
 import com.google.common.collect.ImmutableList;
@@ -24,6 +27,7 @@ import com.google.common.collect.Iterators;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.util.Iterator;
 import java.util.Map;
 import org.apache.avro.Schema;
@@ -32,6 +36,8 @@ import org.apache.avro.generic.GenericData;
 import org.codehaus.jackson.node.NullNode;
 import org.junit.Assert;
 import org.junit.Test;
+import org.kitesdk.data.DatasetRecordException;
+import org.kitesdk.data.TestHelpers;
 
 public class TestJsonUtil {
   @Test
@@ -422,6 +428,70 @@ public class TestJsonUtil {
     return result;
   }
 
+  @Test
+  public void testReadAvroMatchesTreeConversion() throws Exception {
+    Schema location = SchemaBuilder.record("Location").fields()
+        .requiredDouble("lat")
+        .requiredDouble("long")
+        .endRecord();
+    Schema schema = SchemaBuilder.record("Event").fields()
+        .requiredLong("id")
+        .optionalString("name")
+        .name("count").type().intType().intDefault(7)
+        .name("tags").type().array().items().stringType().noDefault()
+        .name("attrs").type().map().values().longType().noDefault()
+        .name("color").type().enumeration("Color").symbols("RED", "BLUE")
+            .noDefault()
+        .name("location").type().optional().type(location)
+        .name("value").type().unionOf()
+            .nullType().and().intType().and().doubleType().and().stringType()
+            .endUnion().noDefault()
+        .endRecord();
+
+    String[] events = new String[] {
+        "{\"id\": 1, \"name\": \"a\", \"count\": 3, \"tags\": [\"x\", \"y\"], " +
+            "\"attrs\": {\"k\": 4}, \"color\": \"RED\", " +
+            "\"location\": {\"lat\": 1.5, \"long\": -2}, \"value\": 34}",
+        "{\"unknown\": {\"nested\": [1, {\"a\": null}]}, \"id\": 2, " +
+            "\"tags\": [], \"attrs\": {}, \"color\": \"BLUE\", " +
+            "\"location\": null, \"value\": 2.5}",
+        "{\"id\": 3, \"name\": null, \"tags\": [\"z\"], \"attrs\": {\"a\": 1}, " +
+            "\"color\": \"RED\", \"value\": \"str\"}"
+    };
+
+    for (String event : events) {
+      JsonParser parser = new ObjectMapper().getFactory().createParser(event);
+      parser.nextToken();
+      Object streamed = JsonUtil.readAvro(GenericData.get(), parser, schema);
+      Assert.assertEquals("Should consume the entire object",
+          JsonToken.END_OBJECT, parser.getCurrentToken());
+      Assert.assertNull(parser.nextToken());
+      Assert.assertEquals("Should match tree conversion",
+          convertGeneric(JsonUtil.parse(event), schema), streamed);
+    }
+  }
+
+  @Test
+  public void testReadAvroRejectsBadValues() throws Exception {
+    final Schema schema = SchemaBuilder.record("Event").fields()
+        .requiredLong("id")
+        .endRecord();
+    final JsonParser parser = new ObjectMapper().getFactory()
+        .createParser("{\"id\": \"not a number\"}");
+    parser.nextToken();
+    TestHelpers.assertThrows("Should reject a string for a long field",
+        DatasetRecordException.class, new Runnable() {
+          @Override
+          public void run() {
+            try {
+              JsonUtil.readAvro(GenericData.get(), parser, schema);
+            } catch (IOException e) {
+              throw new RuntimeException(e);
+            }
+          }
+        });
+  }
+
   private static Object convertGeneric(JsonNode datum, Schema schema) {
     return JsonUtil.convertToAvro(GenericData.get(), datum, schema);
   }
@@ -33,6 +33,8 @@ import org.junit.BeforeClass;
 import org.junit.Test;
 
 import java.io.IOException;
+import java.util.List;
+import com.google.common.collect.Lists;
 import org.kitesdk.data.spi.DataModelUtil;
 
 public class TestCSVFileReader extends TestDatasetReaders<GenericData.Record> {
@@ -531,4 +533,90 @@ public class TestCSVFileReader extends TestDatasetReaders<GenericData.Record> {
     });
     Assert.assertFalse(reader.hasNext());
   }
+
+  @Test
+  public void testSplits() throws IOException {
+    StringBuilder content = new StringBuilder("id,string,even\n");
+    for (int i = 0; i < 20; i += 1) {
+      content.append(i).append(",s").append(i).append(",")
+          .append(i % 2 == 0).append("\n");
+    }
+    Path splitFile = new Path("target/splits.csv");
+    FSDataOutputStream out = localfs.create(splitFile, true);
+    out.writeBytes(content.toString());
+    out.close();
+
+    DatasetDescriptor desc = new DatasetDescriptor.Builder()
+        .property("kite.csv.has-header", "true")
+        .schema(VALIDATOR_SCHEMA)
+        .build();
+
+    long length = localfs.getFileStatus(splitFile).getLen();
+    for (long splitSize = 1; splitSize <= length; splitSize += 1) {
+      List<Integer> ids = Lists.newArrayList();
+      for (long start = 0; start < length; start += splitSize) {
+        CSVFileReader<GenericData.Record> reader =
+            new CSVFileReader<GenericData.Record>(localfs, splitFile, desc,
+                DataModelUtil.accessor(GenericData.Record.class, desc.getSchema()),
+                start, Math.min(splitSize, length - start));
+        reader.initialize();
+        try {
+          while (reader.hasNext()) {
+            GenericData.Record record = reader.next();
+            Assert.assertEquals("Should use the header in every split",
+                "s" + record.get("id"), record.get("string"));
+            ids.add((Integer) record.get("id"));
+          }
+        } finally {
+          reader.close();
+        }
+      }
+
+      Assert.assertEquals("Should read each record once with split size " +
+          splitSize, 20, ids.size());
+      for (int i = 0; i < 20; i += 1) {
+        Assert.assertEquals(i, (int) ids.get(i));
+      }
+    }
+  }
+
+  @Test
+  public void testSplitReadsMultiLineRecordPastEnd() throws IOException {
+    Path splitFile = new Path("target/multiline.csv");
+    FSDataOutputStream out = localfs.create(splitFile, true);
+    // the first record starts at byte 15 and ends at byte 27
+    out.writeBytes("id,string,even\n0,\"a\nb\",true\n1,c,false\n");
+    out.close();
+
+    DatasetDescriptor desc = new DatasetDescriptor.Builder()
+        .property("kite.csv.has-header", "true")
+        .schema(VALIDATOR_SCHEMA)
+        .build();
+    long length = localfs.getFileStatus(splitFile).getLen();
+
+    CSVFileReader<GenericData.Record> first =
+        new CSVFileReader<GenericData.Record>(localfs, splitFile, desc,
+            DataModelUtil.accessor(GenericData.Record.class, desc.getSchema()),
+            0, 22);
+    first.initialize();
+    Assert.assertTrue(first.hasNext());
+    GenericData.Record record = first.next();
+    Assert.assertEquals(0, record.get("id"));
+    Assert.assertEquals("a\nb", record.get("string"));
+    Assert.assertFalse("Should stop after the record that crosses the end",
+        first.hasNext());
+    first.close();
+
+    CSVFileReader<GenericData.Record> second =
+        new CSVFileReader<GenericData.Record>(localfs, splitFile, desc,
+            DataModelUtil.accessor(GenericData.Record.class, desc.getSchema()),
+            22, length - 22);
+    second.initialize();
+    Assert.assertTrue(second.hasNext());
+    record = second.next();
+    Assert.assertEquals(1, record.get("id"));
+    Assert.assertEquals("c", record.get("string"));
+    Assert.assertFalse(second.hasNext());
+    second.close();
+  }
 }
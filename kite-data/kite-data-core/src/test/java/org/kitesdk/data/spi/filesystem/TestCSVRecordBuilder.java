@@ -0,0 +1,120 @@
+/*
+ * Copyright 2015 Cloudera Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kitesdk.data.spi.filesystem;
+
+import java.util.Arrays;
+import org.apache.avro.Schema;
+import org.apache.avro.SchemaBuilder;
+import org.apache.avro.generic.GenericData;
+import org.junit.Assert;
+import org.junit.Test;
+import org.kitesdk.data.DatasetRecordException;
+import org.kitesdk.data.TestHelpers;
+
+public class TestCSVRecordBuilder {
+
+  private static final Schema SCHEMA = SchemaBuilder.record("Test").fields()
+      .requiredLong("id")
+      .optionalInt("count")
+      .name("score").type().unionOf().doubleType().and().stringType()
+          .endUnion().noDefault()
+      .name("color").type().enumeration("Color").symbols("RED", "GREEN")
+          .enumDefault("RED")
+      .name("flag").type().booleanType().booleanDefault(true)
+      .endRecord();
+
+  @Test
+  public void testConvertByPosition() {
+    CSVRecordBuilder<GenericData.Record> builder =
+        new CSVRecordBuilder<GenericData.Record>(
+            SCHEMA, GenericData.Record.class, null);
+
+    GenericData.Record record = builder.makeRecord(
+        new String[] {"34", "2", "1.5", "GREEN", "false"}, null);
+    Assert.assertEquals(34L, record.get("id"));
+    Assert.assertEquals(2, record.get("count"));
+    Assert.assertEquals(1.5, record.get("score"));
+    Assert.assertEquals("GREEN", record.get("color"));
+    Assert.assertEquals(false, record.get("flag"));
+  }
+
+  @Test
+  public void testConvertWithHeader() {
+    CSVRecordBuilder<GenericData.Record> builder =
+        new CSVRecordBuilder<GenericData.Record>(
+            SCHEMA, GenericData.Record.class,
+            Arrays.asList("color", "id", "score", "unknown"));
+
+    GenericData.Record record = builder.makeRecord(
+        new String[] {"1", "35", "2.5", "x"}, null);
+    Assert.assertEquals(35L, record.get("id"));
+    Assert.assertEquals(2.5, record.get("score"));
+    Assert.assertNull("Should use null for missing optional fields",
+        record.get("count"));
+    Assert.assertEquals("Should convert enum ordinals",
+        "GREEN", record.get("color"));
+    Assert.assertEquals("Should use the default for missing fields",
+        true, record.get("flag"));
+  }
+
+  @Test
+  public void testEmptyValues() {
+    CSVRecordBuilder<GenericData.Record> builder =
+        new CSVRecordBuilder<GenericData.Record>(
+            SCHEMA, GenericData.Record.class, null);
+
+    GenericData.Record record = builder.makeRecord(
+        new String[] {"36", "", "", "", "true"}, null);
+    Assert.assertNull("Should convert empty numbers to null",
+        record.get("count"));
+    Assert.assertEquals("Should use the first matching union branch",
+        "", record.get("score"));
+    Assert.assertEquals("Should use the default for empty enums",
+        "RED", record.get("color").toString());
+  }
+
+  @Test
+  public void testUnionFallsThroughOnlyOnNull() {
+    final CSVRecordBuilder<GenericData.Record> builder =
+        new CSVRecordBuilder<GenericData.Record>(
+            SCHEMA, GenericData.Record.class, null);
+
+    TestHelpers.assertThrows("Should reject values that are not a double",
+        DatasetRecordException.class, new Runnable() {
+          @Override
+          public void run() {
+            builder.makeRecord(
+                new String[] {"37", "1", "abc", "RED", "true"}, null);
+          }
+        });
+  }
+
+  @Test
+  public void testRequiredFieldWithoutDefault() {
+    final CSVRecordBuilder<GenericData.Record> builder =
+        new CSVRecordBuilder<GenericData.Record>(
+            SCHEMA, GenericData.Record.class, null);
+
+    TestHelpers.assertThrows("Should reject missing required values",
+        DatasetRecordException.class, new Runnable() {
+          @Override
+          public void run() {
+            builder.makeRecord(new String[] {""}, null);
+          }
+        });
+  }
+}
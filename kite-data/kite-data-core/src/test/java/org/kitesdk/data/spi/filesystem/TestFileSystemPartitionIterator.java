@@ -192,6 +192,32 @@ public class TestFileSystemPartitionIterator extends MiniDFSTest {
     assertIterableEquals(keys.subList(5, 17), partitions);
   }
 
+  @Test
+  public void testParallelListingPreservesOrder() throws Exception {
+    Iterable<StorageKey> partitions = new FileSystemPartitionIterator(
+        fileSystem, testDirectory, strategy, schema,
+        emptyConstraints.toKeyPredicate(), 4);
+
+    int i = 0;
+    for (StorageKey actual : partitions) {
+      Assert.assertEquals("Partition " + i + " out of order",
+          keys.get(i), actual);
+      i += 1;
+    }
+    Assert.assertEquals("Wrong number of partitions", keys.size(), i);
+  }
+
+  @Test
+  public void testParallelLargerRange() throws Exception {
+    Predicate<StorageKey> predicate = emptyConstraints
+        .from("timestamp", oct_25_2012)
+        .to("timestamp", oct_24_2013)
+        .toKeyPredicate();
+    Iterable<StorageKey> partitions = new FileSystemPartitionIterator(
+        fileSystem, testDirectory, strategy, schema, predicate, 4);
+    assertIterableEquals(keys.subList(5, 17), partitions);
+  }
+
   public static <T> void assertIterableEquals(
       Iterable<T> expected, Iterable<T> actualIterable) {
     Set<T> expectedSet = Sets.newHashSet(expected);
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2015 Cloudera Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kitesdk.data.spi.filesystem;
+
+import com.google.common.collect.Lists;
+import java.io.IOException;
+import java.util.List;
+import org.apache.avro.Schema;
+import org.apache.avro.SchemaBuilder;
+import org.apache.avro.generic.GenericData;
+import org.apache.hadoop.fs.FSDataOutputStream;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.kitesdk.data.LocalFileSystem;
+import org.kitesdk.data.spi.DataModelUtil;
+import org.kitesdk.data.spi.EntityAccessor;
+
+public class TestJSONFileReader {
+
+  private static final Schema SCHEMA = SchemaBuilder.record("Event").fields()
+      .requiredInt("id")
+      .requiredString("name")
+      .endRecord();
+
+  private static final EntityAccessor<GenericData.Record> ACCESSOR =
+      DataModelUtil.accessor(GenericData.Record.class, SCHEMA);
+
+  private static FileSystem localfs = null;
+  private static Path jsonFile = null;
+
+  @BeforeClass
+  public static void createJSONFile() throws IOException {
+    localfs = LocalFileSystem.getInstance();
+    jsonFile = new Path("target/splits.json");
+
+    StringBuilder content = new StringBuilder();
+    for (int i = 0; i < 10; i += 1) {
+      content.append("{\"id\": ").append(i)
+          .append(", \"name\": \"n{").append(i).append("\"}\n");
+    }
+    // an object that spans lines, with a nested value
+    content.append("{\n  \"id\": 10,\n  \"name\": \"n{10\",\n")
+        .append("  \"ignored\": {\n    \"a\": 1\n  }\n}\n");
+    // objects that do not start a line are read with the previous object
+    content.append("{\"id\": 11, \"name\": \"n{11\"} {\"id\": 12, \"name\": \"n{12\"}\n");
+    for (int i = 13; i < 20; i += 1) {
+      content.append("{\"id\": ").append(i)
+          .append(", \"name\": \"n{").append(i).append("\"}\n");
+    }
+
+    FSDataOutputStream out = localfs.create(jsonFile, true);
+    out.writeBytes(content.toString());
+    out.close();
+  }
+
+  @Test
+  public void testReadWholeFile() {
+    JSONFileReader<GenericData.Record> reader =
+        new JSONFileReader<GenericData.Record>(localfs, jsonFile, ACCESSOR);
+    reader.initialize();
+    try {
+      int count = 0;
+      while (reader.hasNext()) {
+        GenericData.Record record = reader.next();
+        Assert.assertEquals(count, record.get("id"));
+        Assert.assertEquals("n{" + count, record.get("name").toString());
+        count += 1;
+      }
+      Assert.assertEquals(20, count);
+    } finally {
+      reader.close();
+    }
+  }
+
+  @Test
+  public void testSplits() throws IOException {
+    long length = localfs.getFileStatus(jsonFile).getLen();
+    for (long splitSize = 1; splitSize <= length; splitSize += 1) {
+      List<Integer> ids = Lists.newArrayList();
+      for (long start = 0; start < length; start += splitSize) {
+        JSONFileReader<GenericData.Record> reader =
+            new JSONFileReader<GenericData.Record>(localfs, jsonFile, ACCESSOR,
+                start, Math.min(splitSize, length - start));
+        reader.initialize();
+        try {
+          while (reader.hasNext()) {
+            ids.add((Integer) reader.next().get("id"));
+          }
+        } finally {
+          reader.close();
+        }
+      }
+
+      Assert.assertEquals("Should read each object once with split size " +
+          splitSize, 20, ids.size());
+      for (int i = 0; i < 20; i += 1) {
+        Assert.assertEquals(i, (int) ids.get(i));
+      }
+    }
+  }
+}
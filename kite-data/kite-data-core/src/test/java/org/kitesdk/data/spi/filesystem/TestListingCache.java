@@ -0,0 +1,138 @@
+/*
+ * Copyright 2015 Cloudera Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kitesdk.data.spi.filesystem;
+
+import com.google.common.io.Files;
+import java.io.IOException;
+import org.apache.avro.generic.GenericData.Record;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.kitesdk.data.DatasetDescriptor;
+
+import static org.kitesdk.data.spi.filesystem.DatasetTestUtilities.USER_SCHEMA;
+import static org.kitesdk.data.spi.filesystem.DatasetTestUtilities.datasetSize;
+import static org.kitesdk.data.spi.filesystem.DatasetTestUtilities.writeTestUsers;
+
+public class TestListingCache {
+
+  private FileSystem fs;
+  private Path testDirectory;
+
+  @Before
+  public void setUp() throws IOException {
+    this.fs = FileSystem.getLocal(new Configuration());
+    this.testDirectory = fs.makeQualified(
+        new Path(Files.createTempDir().getAbsolutePath()));
+    ListingCache.invalidateAll();
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    ListingCache.invalidateAll();
+    fs.delete(testDirectory, true);
+  }
+
+  private FileSystemDataset<Record> newDataset(DatasetDescriptor descriptor) {
+    return new FileSystemDataset.Builder<Record>()
+        .namespace("ns")
+        .name("test")
+        .configuration(new Configuration())
+        .descriptor(descriptor)
+        .type(Record.class)
+        .build();
+  }
+
+  private DatasetDescriptor.Builder descriptor() {
+    return new DatasetDescriptor.Builder()
+        .schema(USER_SCHEMA)
+        .location(testDirectory);
+  }
+
+  @Test
+  public void testDisabledByDefault() throws IOException {
+    ListingCache cache = ListingCache.forDataset(fs, testDirectory, descriptor().build());
+    Assert.assertFalse(cache.isEnabled());
+
+    Assert.assertEquals(0, cache.listStatus(testDirectory).length);
+    fs.createNewFile(new Path(testDirectory, "a"));
+    Assert.assertEquals(1, cache.listStatus(testDirectory).length);
+  }
+
+  @Test
+  public void testCachedUntilInvalidated() throws IOException {
+    ListingCache cache = ListingCache.forDataset(fs, testDirectory, descriptor()
+        .property(FileSystemProperties.LISTING_CACHE_TTL_MS_PROP, "600000")
+        .build());
+    Assert.assertTrue(cache.isEnabled());
+
+    Assert.assertEquals(0, cache.listStatus(testDirectory).length);
+    fs.createNewFile(new Path(testDirectory, "a"));
+    Assert.assertEquals("Should use the cached listing",
+        0, cache.listStatus(testDirectory).length);
+
+    ListingCache.invalidate(fs, testDirectory);
+    Assert.assertEquals(1, cache.listStatus(testDirectory).length);
+  }
+
+  @Test
+  public void testFilterAppliedToCachedListing() throws IOException {
+    ListingCache cache = ListingCache.forDataset(fs, testDirectory, descriptor()
+        .property(FileSystemProperties.LISTING_CACHE_TTL_MS_PROP, "600000")
+        .build());
+
+    fs.createNewFile(new Path(testDirectory, "a"));
+    fs.createNewFile(new Path(testDirectory, ".hidden"));
+    Assert.assertEquals(2, cache.listStatus(testDirectory).length);
+    Assert.assertEquals(1,
+        cache.listStatus(testDirectory, PathFilters.notHidden()).length);
+  }
+
+  @Test
+  public void testInvalidateAllRemovesChildren() throws IOException {
+    ListingCache cache = ListingCache.forDataset(fs, testDirectory, descriptor()
+        .property(FileSystemProperties.LISTING_CACHE_TTL_MS_PROP, "600000")
+        .build());
+    Path child = new Path(testDirectory, "child");
+    fs.mkdirs(child);
+
+    Assert.assertEquals(0, cache.listStatus(child).length);
+    fs.createNewFile(new Path(child, "a"));
+    Assert.assertEquals(0, cache.listStatus(child).length);
+
+    ListingCache.invalidateAll(fs, testDirectory);
+    Assert.assertEquals(1, cache.listStatus(child).length);
+  }
+
+  @Test
+  public void testWritersInvalidateListings() {
+    FileSystemDataset<Record> ds = newDataset(descriptor()
+        .property(FileSystemProperties.LISTING_CACHE_TTL_MS_PROP, "600000")
+        .build());
+
+    writeTestUsers(ds, 10);
+    Assert.assertEquals(10, datasetSize(ds));
+
+    writeTestUsers(ds, 10, 10);
+    Assert.assertEquals("Should see files committed in this process",
+        20, datasetSize(ds));
+  }
+}
@@ -53,6 +53,10 @@ public class TestMultiFileDatasetReader extends TestDatasetReaders {
     };
   public static final DatasetDescriptor DESCRIPTOR = new DatasetDescriptor
       .Builder().schema(STRING_SCHEMA).build();
+  public static final DatasetDescriptor PREFETCH_DESCRIPTOR = new DatasetDescriptor
+      .Builder().schema(STRING_SCHEMA)
+      .property(FileSystemProperties.READER_PREFETCH_FILES_PROP, "2")
+      .build();
   private static final EntityAccessor<Record> ACCESSOR =
       DataModelUtil.accessor(Record.class, STRING_SCHEMA);
 
@@ -219,4 +223,44 @@ public class TestMultiFileDatasetReader extends TestDatasetReaders {
           fileSystem.delete(emptyFile, true));
     }
   }
+
+  @Test
+  public void testPrefetchMultipleFiles() throws IOException {
+    MultiFileDatasetReader<Record> reader = new MultiFileDatasetReader<Record>(
+        fileSystem,
+        Lists.newArrayList(TEST_FILE, TEST_FILE, TEST_FILE, TEST_FILE, TEST_FILE),
+        PREFETCH_DESCRIPTOR, CONSTRAINTS, ACCESSOR);
+
+    checkReaderBehavior(reader, 500, VALIDATOR);
+  }
+
+  @Test
+  public void testPrefetchCloseBeforeExhausted() throws IOException {
+    MultiFileDatasetReader<Record> reader = new MultiFileDatasetReader<Record>(
+        fileSystem, Lists.newArrayList(TEST_FILE, TEST_FILE, TEST_FILE),
+        PREFETCH_DESCRIPTOR, CONSTRAINTS, ACCESSOR);
+
+    reader.initialize();
+    Assert.assertTrue(reader.hasNext());
+    VALIDATOR.validate(reader.next(), 0);
+    reader.close();
+    Assert.assertFalse("Reader is open after close()", reader.isOpen());
+  }
+
+  @Test(expected = DatasetIOException.class)
+  public void testPrefetchMissingPath() throws IOException {
+    Path missingFile = new Path("data/no-such-file.avro");
+
+    // the failure to open should be reported in order, while iterating
+    MultiFileDatasetReader<Record> reader = new MultiFileDatasetReader<Record>(
+        fileSystem, Lists.newArrayList(TEST_FILE, missingFile, TEST_FILE),
+        PREFETCH_DESCRIPTOR, CONSTRAINTS, ACCESSOR);
+
+    try {
+      reader.initialize();
+      checkReaderIteration(reader, 300, VALIDATOR);
+    } finally {
+      reader.close();
+    }
+  }
 }
@@ -0,0 +1,213 @@
+/*
+ * Copyright 2015 Cloudera Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kitesdk.data.spi.filesystem;
+
+import com.google.common.base.Predicate;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Sets;
+import com.google.common.io.Files;
+import java.io.IOException;
+import java.util.Set;
+import org.apache.avro.Schema;
+import org.apache.avro.SchemaBuilder;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.generic.GenericRecordBuilder;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.parquet.filter2.predicate.FilterApi;
+import org.apache.parquet.io.api.Binary;
+import org.apache.parquet.schema.MessageType;
+import org.apache.parquet.schema.MessageTypeParser;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.kitesdk.data.Dataset;
+import org.kitesdk.data.DatasetDescriptor;
+import org.kitesdk.data.DatasetWriter;
+import org.kitesdk.data.Formats;
+import org.kitesdk.data.spi.predicates.Predicates;
+import org.kitesdk.data.spi.predicates.Ranges;
+
+public class TestParquetFilters {
+
+  private static final MessageType FILE_SCHEMA = MessageTypeParser
+      .parseMessageType("message Event {\n" +
+          "  required int64 id;\n" +
+          "  required int32 count;\n" +
+          "  optional binary name (UTF8);\n" +
+          "  optional double score;\n" +
+          "  repeated int32 tags;\n" +
+          "  optional group location {\n" +
+          "    required double lat;\n" +
+          "  }\n" +
+          "}");
+
+  private static final Schema SCHEMA = SchemaBuilder.record("Event").fields()
+      .requiredLong("id")
+      .optionalString("name")
+      .requiredDouble("score")
+      .endRecord();
+
+  private FileSystem fs;
+  private Path testDirectory;
+
+  @Before
+  public void setUp() throws IOException {
+    this.fs = FileSystem.getLocal(new Configuration());
+    this.testDirectory = fs.makeQualified(
+        new Path(Files.createTempDir().getAbsolutePath()));
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    fs.delete(testDirectory, true);
+  }
+
+  @Test
+  public void testExists() {
+    Assert.assertEquals(
+        FilterApi.notEq(FilterApi.binaryColumn("name"), (Binary) null),
+        ParquetFilters.toFilter(
+            ImmutableMap.<String, Predicate>of("name", Predicates.exists()),
+            FILE_SCHEMA));
+  }
+
+  @Test
+  public void testIn() {
+    Assert.assertEquals(
+        FilterApi.or(
+            FilterApi.eq(FilterApi.binaryColumn("name"), Binary.fromString("a")),
+            FilterApi.eq(FilterApi.binaryColumn("name"), Binary.fromString("b"))),
+        ParquetFilters.toFilter(
+            ImmutableMap.<String, Predicate>of("name", Predicates.in("a", "b")),
+            FILE_SCHEMA));
+
+    Assert.assertEquals("Should convert long values for int columns",
+        FilterApi.eq(FilterApi.intColumn("count"), 3),
+        ParquetFilters.toFilter(
+            ImmutableMap.<String, Predicate>of("count", Predicates.in(3L)),
+            FILE_SCHEMA));
+
+    Assert.assertNull("Should not filter by values that do not fit the column",
+        ParquetFilters.toFilter(
+            ImmutableMap.<String, Predicate>of("count",
+                Predicates.in(3L, Long.MAX_VALUE)),
+            FILE_SCHEMA));
+  }
+
+  @Test
+  public void testRange() {
+    Assert.assertEquals(
+        FilterApi.and(
+            FilterApi.gtEq(FilterApi.longColumn("id"), 5L),
+            FilterApi.lt(FilterApi.longColumn("id"), 10L)),
+        ParquetFilters.toFilter(
+            ImmutableMap.<String, Predicate>of("id", Ranges.closedOpen(5L, 10L)),
+            FILE_SCHEMA));
+
+    Assert.assertEquals(
+        FilterApi.gt(FilterApi.longColumn("id"), 5L),
+        ParquetFilters.toFilter(
+            ImmutableMap.<String, Predicate>of("id", Ranges.greaterThan(5L)),
+            FILE_SCHEMA));
+
+    Assert.assertNull("Should not filter string ranges",
+        ParquetFilters.toFilter(
+            ImmutableMap.<String, Predicate>of("name", Ranges.closed("a", "b")),
+            FILE_SCHEMA));
+
+    Assert.assertNull("Should not filter double ranges",
+        ParquetFilters.toFilter(
+            ImmutableMap.<String, Predicate>of("score", Ranges.atLeast(1.0)),
+            FILE_SCHEMA));
+  }
+
+  @Test
+  public void testSkipsUnsupportedColumns() {
+    Assert.assertNull("Should not filter missing columns",
+        ParquetFilters.toFilter(
+            ImmutableMap.<String, Predicate>of("year", Predicates.in(2015)),
+            FILE_SCHEMA));
+    Assert.assertNull("Should not filter repeated columns",
+        ParquetFilters.toFilter(
+            ImmutableMap.<String, Predicate>of("tags", Predicates.in(1)),
+            FILE_SCHEMA));
+    Assert.assertNull("Should not filter groups",
+        ParquetFilters.toFilter(
+            ImmutableMap.<String, Predicate>of("location", Predicates.exists()),
+            FILE_SCHEMA));
+  }
+
+  @Test
+  public void testCombinesColumns() {
+    Assert.assertEquals(
+        FilterApi.and(
+            FilterApi.eq(FilterApi.longColumn("id"), 1L),
+            FilterApi.notEq(FilterApi.binaryColumn("name"), (Binary) null)),
+        ParquetFilters.toFilter(
+            ImmutableMap.<String, Predicate>of(
+                "id", Predicates.in(1L),
+                "year", Predicates.in(2015),
+                "name", Predicates.exists()),
+            FILE_SCHEMA));
+  }
+
+  @Test
+  public void testReadFilteredView() {
+    FileSystemDatasetRepository repo =
+        new FileSystemDatasetRepository(fs.getConf(), testDirectory);
+    Dataset<GenericRecord> events = repo.create("ns", "events",
+        new DatasetDescriptor.Builder()
+            .schema(SCHEMA)
+            .format(Formats.PARQUET)
+            .build(),
+        GenericRecord.class);
+
+    DatasetWriter<GenericRecord> writer = events.newWriter();
+    try {
+      for (long i = 0; i < 100; i += 1) {
+        writer.write(new GenericRecordBuilder(SCHEMA)
+            .set("id", i)
+            .set("name", (i % 10 == 0) ? null : "name-" + i)
+            .set("score", (double) i)
+            .build());
+      }
+    } finally {
+      writer.close();
+    }
+
+    Set<Long> ids = Sets.newHashSet();
+    for (GenericRecord record : DatasetTestUtilities.materialize(
+        events.from("id", 90L).with("name"))) {
+      ids.add((Long) record.get("id"));
+    }
+    Assert.assertEquals(Sets.newHashSet(91L, 92L, 93L, 94L, 95L, 96L, 97L,
+        98L, 99L), ids);
+
+    Schema idOnly = SchemaBuilder.record("Event").fields()
+        .requiredLong("id")
+        .endRecord();
+    Set<GenericRecord> projected = DatasetTestUtilities.materialize(
+        events.with("id", 3L, 4L).asSchema(idOnly));
+    Assert.assertEquals(Sets.newHashSet(
+            new GenericRecordBuilder(idOnly).set("id", 3L).build(),
+            new GenericRecordBuilder(idOnly).set("id", 4L).build()),
+        projected);
+  }
+}
@@ -17,19 +17,25 @@
 package org.kitesdk.data.spi.filesystem;
 
 import java.io.IOException;
+import java.util.concurrent.Callable;
 import org.apache.avro.Schema;
 import org.apache.avro.SchemaBuilder;
 import org.apache.avro.generic.GenericData.Record;
 import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.FileStatus;
 import org.apache.hadoop.fs.Path;
+import org.apache.parquet.format.converter.ParquetMetadataConverter;
+import org.apache.parquet.hadoop.ParquetFileReader;
+import org.apache.parquet.hadoop.metadata.ParquetMetadata;
 import org.junit.Assert;
-import org.junit.Ignore;
 import org.junit.Test;
 import org.kitesdk.data.DatasetDescriptor;
 import org.kitesdk.data.DatasetReader;
 import org.kitesdk.data.Flushable;
 import org.kitesdk.data.LocalFileSystem;
 import org.kitesdk.data.Syncable;
+import org.kitesdk.data.TestHelpers;
+import org.kitesdk.data.ValidationException;
 
 public class TestParquetWriter extends TestFileSystemWriters {
 
@@ -115,8 +121,91 @@ public class TestParquetWriter extends TestFileSystemWriters {
         ParquetAppender.class, writer.newAppender(testDirectory).getClass());
   }
 
-  @Override
-  @Ignore // Needs PARQUET-308 to estimate current file size
-  public void testTargetFileSize() throws IOException {
+  @Test
+  public void testParquetWriterTuning() throws IOException {
+    FileSystemWriter<Record> writer = FileSystemWriter.newWriter(
+        fs, testDirectory, -1, -1,
+        new DatasetDescriptor.Builder()
+            .property("parquet.block.size", String.valueOf(64 * 1024))
+            .property("parquet.page.size", String.valueOf(8 * 1024))
+            .property("parquet.enable.dictionary", "false")
+            .property("parquet.writer.version", "v2")
+            .schema(TEST_SCHEMA)
+            .format("parquet")
+            .build(), TEST_SCHEMA);
+    init(writer);
+    for (long i = 0; i < 10000; i += 1) {
+      writer.write(record(i, "test-" + i));
+    }
+    writer.close();
+
+    FileStatus[] stats = fs.listStatus(testDirectory, PathFilters.notHidden());
+    Assert.assertEquals("Should contain a visible data file", 1, stats.length);
+
+    ParquetMetadata footer = ParquetFileReader.readFooter(
+        fs.getConf(), stats[0].getPath(), ParquetMetadataConverter.NO_FILTER);
+    Assert.assertTrue("Should use the configured row group size",
+        footer.getBlocks().size() > 1);
+
+    DatasetReader<Record> reader = newReader(stats[0].getPath(), TEST_SCHEMA);
+    long count = 0;
+    for (Record record : init(reader)) {
+      Assert.assertEquals(count, record.get("id"));
+      count += 1;
+    }
+    Assert.assertEquals("Should read all records", 10000, count);
+  }
+
+  @Test
+  public void testBufferedSize() throws IOException {
+    int rowGroupSize = 64 * 1024;
+    FileSystemWriter<Record> writer = FileSystemWriter.newWriter(
+        fs, testDirectory, -1, -1,
+        new DatasetDescriptor.Builder()
+            .property("parquet.block.size", String.valueOf(rowGroupSize))
+            .schema(TEST_SCHEMA)
+            .format("parquet")
+            .build(), TEST_SCHEMA);
+    init(writer);
+    Assert.assertEquals("Should not buffer data before writing",
+        0, writer.bufferedSize());
+
+    int rowGroupsWritten = 0;
+    long lastBufferedSize = 0;
+    for (long i = 0; i < 20000; i += 1) {
+      writer.write(record(i, "test-" + i));
+      long bufferedSize = writer.bufferedSize();
+      Assert.assertTrue("Should not buffer more than a row group: " + bufferedSize,
+          bufferedSize < 2 * rowGroupSize);
+      if (bufferedSize < lastBufferedSize) {
+        Assert.assertTrue("Should only count data after the last row group: " +
+            bufferedSize, bufferedSize < 1024);
+        rowGroupsWritten += 1;
+      }
+      lastBufferedSize = bufferedSize;
+    }
+    writer.close();
+
+    Assert.assertTrue("Should write row groups while buffering",
+        rowGroupsWritten > 1);
+  }
+
+  @Test
+  public void testInvalidRowGroupSize() {
+    final FileSystemWriter<Record> writer = FileSystemWriter.newWriter(
+        fs, testDirectory, -1, -1,
+        new DatasetDescriptor.Builder()
+            .property("parquet.block.size", "-1")
+            .schema(TEST_SCHEMA)
+            .format("parquet")
+            .build(), TEST_SCHEMA);
+    TestHelpers.assertThrows("Should reject a negative row group size",
+        ValidationException.class, new Callable<Void>() {
+          @Override
+          public Void call() throws IOException {
+            writer.newAppender(testDirectory);
+            return null;
+          }
+        });
   }
 }
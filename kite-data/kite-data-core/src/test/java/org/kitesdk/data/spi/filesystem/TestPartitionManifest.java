@@ -0,0 +1,233 @@
+/*
+ * Copyright 2015 Cloudera Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kitesdk.data.spi.filesystem;
+
+import com.google.common.io.Files;
+import java.io.IOException;
+import org.apache.avro.generic.GenericData.Record;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.kitesdk.data.Dataset;
+import org.kitesdk.data.DatasetDescriptor;
+import org.kitesdk.data.PartitionStrategy;
+import org.kitesdk.data.spi.PartitionKey;
+
+import static org.kitesdk.data.spi.filesystem.DatasetTestUtilities.USER_SCHEMA;
+import static org.kitesdk.data.spi.filesystem.DatasetTestUtilities.datasetSize;
+import static org.kitesdk.data.spi.filesystem.DatasetTestUtilities.writeTestUsers;
+
+public class TestPartitionManifest {
+
+  private static final PartitionStrategy STRATEGY = new PartitionStrategy.Builder()
+      .hash("username", 2)
+      .build();
+
+  private FileSystem fs;
+  private Path testDirectory;
+  private FileSystemDatasetRepository repo;
+
+  @Before
+  public void setUp() throws IOException {
+    this.fs = FileSystem.getLocal(new Configuration());
+    this.testDirectory = fs.makeQualified(
+        new Path(Files.createTempDir().getAbsolutePath()));
+    this.repo = new FileSystemDatasetRepository(fs.getConf(), testDirectory);
+    ListingCache.invalidateAll();
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    fs.delete(testDirectory, true);
+  }
+
+  private DatasetDescriptor.Builder descriptor() {
+    return new DatasetDescriptor.Builder()
+        .schema(USER_SCHEMA)
+        .partitionStrategy(STRATEGY)
+        .property(FileSystemProperties.MANIFEST_ENABLED_PROP, "true");
+  }
+
+  private FileSystemDataset<Record> withoutManifest(Dataset<Record> ds) {
+    return new FileSystemDataset.Builder<Record>()
+        .namespace("ns")
+        .name("test")
+        .configuration(fs.getConf())
+        .descriptor(new DatasetDescriptor.Builder(ds.getDescriptor())
+            .property(FileSystemProperties.MANIFEST_ENABLED_PROP, "false")
+            .build())
+        .type(Record.class)
+        .build();
+  }
+
+  private static Path root(Dataset<Record> ds) {
+    return ((FileSystemDataset<Record>) ds).getDirectory();
+  }
+
+  @Test
+  public void testMissingManifest() throws IOException {
+    Path root = new Path(testDirectory, "missing");
+    fs.mkdirs(root);
+    Assert.assertNull(PartitionManifest.load(fs, root, false));
+  }
+
+  @Test
+  public void testCreateBuildsManifest() {
+    Dataset<Record> ds = repo.create("ns", "test", descriptor().build());
+
+    PartitionManifest manifest = PartitionManifest.load(fs, root(ds), false);
+    Assert.assertNotNull("Should create a manifest", manifest);
+    Assert.assertEquals(0, manifest.size());
+  }
+
+  @Test
+  public void testWritersAddFiles() throws IOException {
+    Dataset<Record> ds = repo.create("ns", "test", descriptor().build());
+    writeTestUsers(ds, 10);
+
+    PartitionManifest manifest = PartitionManifest.load(fs, root(ds), false);
+    Assert.assertNotNull(manifest);
+    Assert.assertTrue("Should record the written files", manifest.size() > 0);
+    Assert.assertEquals(10, manifest.getRecordCount(root(ds)));
+    Assert.assertEquals(10, datasetSize(ds));
+  }
+
+  @Test
+  public void testReadersUseManifest() {
+    Dataset<Record> ds = repo.create("ns", "test", descriptor()
+        .property(FileSystemProperties.MANIFEST_CHECK_DIRECTORIES_PROP, "true")
+        .build());
+    writeTestUsers(ds, 10);
+
+    // files written without the manifest change the directory modification
+    // times, so readers list those directories
+    writeTestUsers(withoutManifest(ds), 10, 10);
+    Assert.assertEquals("Should list directories changed outside the manifest",
+        20, datasetSize(ds));
+
+    PartitionManifest.rebuild(fs, root(ds));
+    Assert.assertEquals(20, datasetSize(ds));
+  }
+
+  @Test
+  public void testRootChangeDisablesManifest() throws Exception {
+    Dataset<Record> ds = repo.create("ns", "test", descriptor().build());
+    writeTestUsers(ds, 10);
+    Assert.assertNotNull(PartitionManifest.load(fs, root(ds), false));
+
+    // some file systems only keep modification times to the second
+    Thread.sleep(1000);
+    fs.mkdirs(new Path(root(ds), "username_hash=2"));
+    Assert.assertNull("Should not use the manifest after the root changes",
+        PartitionManifest.load(fs, root(ds), false));
+  }
+
+  @Test
+  public void testRecordCounts() throws IOException {
+    FileSystemDataset<Record> ds = (FileSystemDataset<Record>) repo.create(
+        "ns", "test", descriptor().build());
+    Assert.assertTrue(ds.isEmpty());
+    writeTestUsers(ds, 10);
+
+    PartitionManifest manifest = PartitionManifest.load(fs, root(ds), false);
+    Assert.assertNotNull(manifest);
+    Assert.assertEquals("Should count records in each partition", 10,
+        manifest.getRecordCount(new Path(root(ds), "username_hash=0")) +
+        manifest.getRecordCount(new Path(root(ds), "username_hash=1")));
+    Assert.assertFalse(ds.isEmpty());
+  }
+
+  @Test
+  @SuppressWarnings("deprecation")
+  public void testPartitionWritesUpdateManifest() throws IOException {
+    FileSystemDataset<Record> ds = (FileSystemDataset<Record>) repo.create(
+        "ns", "test", descriptor().build());
+    writeTestUsers(ds, 10);
+
+    FileSystemDataset<Record> partition = (FileSystemDataset<Record>)
+        ds.getPartition(new PartitionKey(0), false);
+    Assert.assertNotNull(partition);
+    Assert.assertNotNull("Getting a partition should keep the manifest",
+        PartitionManifest.load(fs, root(ds), false));
+
+    writeTestUsers(partition, 5, 10);
+    PartitionManifest manifest = PartitionManifest.load(fs, root(ds), false);
+    Assert.assertNotNull(manifest);
+    Assert.assertEquals("Should record files written to the partition",
+        15, manifest.getRecordCount(root(ds)));
+    Assert.assertEquals(15, datasetSize(ds));
+  }
+
+  @Test
+  public void testCommitsCompactDeltas() throws IOException {
+    Dataset<Record> ds = repo.create("ns", "test", descriptor().build());
+    int writes = PartitionManifest.MAX_DELTAS + 1;
+    for (int i = 0; i < writes; i++) {
+      writeTestUsers(ds, 1, i);
+    }
+
+    Path manifestDir = new Path(root(ds),
+        PartitionManifest.MANIFEST_DIRECTORY_NAME);
+    Assert.assertTrue("Should compact deltas into the snapshot",
+        fs.listStatus(manifestDir, PathFilters.notHidden()).length <=
+            PartitionManifest.MAX_DELTAS);
+
+    PartitionManifest manifest = PartitionManifest.load(fs, root(ds), false);
+    Assert.assertNotNull(manifest);
+    Assert.assertEquals(writes, manifest.getRecordCount(root(ds)));
+    Assert.assertEquals(writes, datasetSize(ds));
+  }
+
+  @Test
+  public void testRebuildKeepsRecordCounts() throws IOException {
+    Dataset<Record> ds = repo.create("ns", "test", descriptor().build());
+    writeTestUsers(ds, 10);
+
+    PartitionManifest.rebuild(fs, root(ds));
+    PartitionManifest manifest = PartitionManifest.load(fs, root(ds), false);
+    Assert.assertNotNull(manifest);
+    Assert.assertEquals("Should keep counts for unchanged files",
+        10, manifest.getRecordCount(root(ds)));
+  }
+
+  @Test
+  public void testSizeMatchesListing() {
+    Dataset<Record> ds = repo.create("ns", "test", descriptor().build());
+    writeTestUsers(ds, 10);
+
+    FileSystemDataset<Record> listed = withoutManifest(ds);
+    Assert.assertEquals(listed.getSize(),
+        ((FileSystemDataset<Record>) ds).getSize());
+  }
+
+  @Test
+  public void testDeleteRebuildsManifest() {
+    Dataset<Record> ds = repo.create("ns", "test", descriptor().build());
+    writeTestUsers(ds, 10);
+
+    ((FileSystemDataset<Record>) ds).deleteAll();
+
+    PartitionManifest manifest = PartitionManifest.load(fs, root(ds), false);
+    Assert.assertNotNull(manifest);
+    Assert.assertEquals(0, manifest.size());
+    Assert.assertEquals(0, datasetSize(ds));
+  }
+}
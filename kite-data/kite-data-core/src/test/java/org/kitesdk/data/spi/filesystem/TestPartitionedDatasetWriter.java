@@ -24,6 +24,8 @@ import org.kitesdk.data.Dataset;
 import org.kitesdk.data.DatasetDescriptor;
 import org.kitesdk.data.DatasetWriter;
 import org.kitesdk.data.Datasets;
+import org.kitesdk.data.Flushable;
+import org.kitesdk.data.Formats;
 import org.kitesdk.data.PartitionStrategy;
 import com.google.common.io.Closeables;
 import com.google.common.io.Files;
@@ -158,6 +160,108 @@ public class TestPartitionedDatasetWriter {
         DatasetTestUtilities.materialize(users.with("version", 7)));
   }
 
+  @Test
+  public void testBackgroundClose() throws IOException {
+    FileSystemDataset<Record> users = (FileSystemDataset<Record>) repo.create(
+        "ns", "background",
+        new DatasetDescriptor.Builder()
+            .schema(USER_SCHEMA)
+            .partitionStrategy(new PartitionStrategy.Builder()
+                .identity("username")
+                .build())
+            .property(FileSystemProperties.WRITER_CACHE_SIZE_PROP, "1")
+            .property(FileSystemProperties.WRITER_CLOSE_THREADS_PROP, "2")
+            .build(),
+        Record.class);
+
+    // every record uses a new partition and evicts the previous writer
+    DatasetTestUtilities.writeTestUsers(users, 20);
+
+    Assert.assertEquals("Should commit evicted writers before close returns",
+        20, DatasetTestUtilities.datasetSize(users));
+  }
+
+  @Test
+  public void testFlushWaitsForBackgroundClose() throws IOException {
+    FileSystemDataset<Record> users = (FileSystemDataset<Record>) repo.create(
+        "ns", "background",
+        new DatasetDescriptor.Builder()
+            .schema(USER_SCHEMA)
+            .partitionStrategy(new PartitionStrategy.Builder()
+                .identity("username")
+                .build())
+            .property(FileSystemProperties.WRITER_CACHE_SIZE_PROP, "1")
+            .property(FileSystemProperties.WRITER_CLOSE_THREADS_PROP, "2")
+            .build(),
+        Record.class);
+
+    DatasetWriter<Record> writer = users.newWriter();
+    try {
+      for (int i = 0; i < 10; i++) {
+        writer.write(new GenericRecordBuilder(USER_SCHEMA)
+            .set("username", "test-" + i)
+            .set("email", "email-" + i)
+            .build());
+      }
+      ((Flushable) writer).flush();
+
+      Assert.assertEquals("Should commit evicted writers before flush returns",
+          10, DatasetTestUtilities.datasetSize(users));
+    } finally {
+      writer.close();
+    }
+  }
+
+  @Test
+  public void testMemoryBudgetClosesWriters() throws IOException {
+    FileSystemDataset<Record> users = (FileSystemDataset<Record>) repo.create(
+        "ns", "budget",
+        new DatasetDescriptor.Builder()
+            .schema(USER_SCHEMA)
+            .format(Formats.PARQUET)
+            .partitionStrategy(new PartitionStrategy.Builder()
+                .hash("username", 2)
+                .build())
+            .property(FileSystemProperties.WRITER_MEMORY_BUDGET_PROP, "1")
+            .build(),
+        Record.class);
+
+    // the budget is checked every 1000 records and closes all open writers
+    DatasetTestUtilities.writeTestUsers(users, 2500);
+
+    Assert.assertEquals(2500, DatasetTestUtilities.datasetSize(users));
+    int files = 0;
+    for (Path ignored : users.pathIterator()) {
+      files += 1;
+    }
+    Assert.assertTrue("Should close writers that exceed the budget",
+        files > 2);
+  }
+
+  @Test
+  public void testParquetTargetFileSize() throws IOException {
+    FileSystemDataset<Record> users = (FileSystemDataset<Record>) repo.create(
+        "ns", "rolled",
+        new DatasetDescriptor.Builder()
+            .schema(USER_SCHEMA)
+            .format(Formats.PARQUET)
+            .partitionStrategy(new PartitionStrategy.Builder()
+                .hash("username", 2)
+                .build())
+            .property(FileSystemProperties.TARGET_FILE_SIZE_PROP, "16384")
+            .build(),
+        Record.class);
+
+    DatasetTestUtilities.writeTestUsers(users, 40000);
+
+    Assert.assertEquals(40000, DatasetTestUtilities.datasetSize(users));
+    int files = 0;
+    for (Path ignored : users.pathIterator()) {
+      files += 1;
+    }
+    Assert.assertTrue("Should roll Parquet files by size", files > 2);
+  }
+
   private static <E> void writeToView(View<E> view, E... entities) {
     DatasetWriter<E> writer = null;
     try {
@@ -0,0 +1,183 @@
+/*
+ * Copyright 2015 Cloudera Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kitesdk.data.spi.filesystem;
+
+import com.google.common.collect.Lists;
+import com.google.common.io.Files;
+import java.io.IOException;
+import java.util.List;
+import org.apache.avro.generic.GenericData.Record;
+import org.apache.avro.generic.GenericRecordBuilder;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.kitesdk.data.DatasetDescriptor;
+import org.kitesdk.data.DatasetReader;
+import org.kitesdk.data.DatasetWriter;
+import org.kitesdk.data.PartitionStrategy;
+
+import static org.kitesdk.data.spi.filesystem.DatasetTestUtilities.USER_SCHEMA;
+import static org.kitesdk.data.spi.filesystem.DatasetTestUtilities.datasetSize;
+import static org.kitesdk.data.spi.filesystem.DatasetTestUtilities.writeTestUsers;
+
+public class TestSpillingPartitionedDatasetWriter {
+
+  private static final PartitionStrategy STRATEGY = new PartitionStrategy.Builder()
+      .hash("username", 4)
+      .build();
+
+  private FileSystem fs;
+  private Path testDirectory;
+  private FileSystemDatasetRepository repo;
+
+  @Before
+  public void setUp() throws IOException {
+    this.fs = FileSystem.getLocal(new Configuration());
+    this.testDirectory = fs.makeQualified(
+        new Path(Files.createTempDir().getAbsolutePath()));
+    this.repo = new FileSystemDatasetRepository(fs.getConf(), testDirectory);
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    fs.delete(testDirectory, true);
+  }
+
+  private FileSystemDataset<Record> create(String bufferSize) {
+    return create(new DatasetDescriptor.Builder()
+        .schema(USER_SCHEMA)
+        .partitionStrategy(STRATEGY)
+        .property(FileSystemProperties.WRITER_SORT_BUFFER_SIZE_PROP,
+            bufferSize)
+        .build());
+  }
+
+  private FileSystemDataset<Record> create(DatasetDescriptor descriptor) {
+    return (FileSystemDataset<Record>) repo.create("ns", "sorted",
+        descriptor, Record.class);
+  }
+
+  private int countFiles(FileSystemDataset<Record> ds) {
+    int files = 0;
+    for (Path ignored : ds.pathIterator()) {
+      files += 1;
+    }
+    return files;
+  }
+
+  @Test
+  public void testInMemorySort() {
+    FileSystemDataset<Record> ds = create("100000000");
+
+    DatasetWriter<Record> writer = ds.newWriter();
+    Assert.assertTrue("Should use the sorting writer",
+        writer instanceof SpillingPartitionedDatasetWriter);
+    writer.close();
+
+    writeTestUsers(ds, 100);
+    Assert.assertEquals(100, datasetSize(ds));
+    Assert.assertTrue("Should write one file per partition",
+        countFiles(ds) <= 4);
+  }
+
+  @Test
+  public void testSpilledRuns() {
+    // small enough to spill every few records
+    FileSystemDataset<Record> ds = create("1024");
+
+    writeTestUsers(ds, 1000);
+    Assert.assertEquals(1000, datasetSize(ds));
+    Assert.assertTrue("Should write one file per partition",
+        countFiles(ds) <= 4);
+  }
+
+  @Test
+  public void testKeepsOrderWithinPartition() {
+    FileSystemDataset<Record> ds = create("1024");
+
+    writeTestUsers(ds, 1000);
+    assertWriteOrder(ds);
+  }
+
+  @Test
+  public void testMergesRunsInGroups() {
+    // spills every few records, so the runs are merged in more than one pass
+    FileSystemDataset<Record> ds = create("256");
+
+    writeTestUsers(ds, 2000);
+    Assert.assertEquals(2000, datasetSize(ds));
+    Assert.assertTrue("Should write one file per partition",
+        countFiles(ds) <= 4);
+    assertWriteOrder(ds);
+  }
+
+  private void assertWriteOrder(FileSystemDataset<Record> ds) {
+    // usernames are written in increasing order within each partition
+    DatasetReader<Record> reader = ds.newReader();
+    try {
+      List<Integer> last = Lists.newArrayList(-1, -1, -1, -1);
+      for (Record record : reader) {
+        String username = record.get("username").toString();
+        int id = Integer.parseInt(username.substring(username.indexOf('-') + 1));
+        int partition = (username.hashCode() & Integer.MAX_VALUE) % 4;
+        Assert.assertTrue("Should keep write order", id > last.get(partition));
+        last.set(partition, id);
+      }
+    } finally {
+      reader.close();
+    }
+  }
+
+  @Test
+  public void testTargetFileSize() {
+    FileSystemDataset<Record> ds = create(new DatasetDescriptor.Builder()
+        .schema(USER_SCHEMA)
+        .partitionStrategy(STRATEGY)
+        .property(FileSystemProperties.WRITER_SORT_BUFFER_SIZE_PROP,
+            "100000000")
+        .property(FileSystemProperties.TARGET_FILE_SIZE_PROP, "32768")
+        .build());
+
+    writeTestUsers(ds, 40000);
+    Assert.assertEquals(40000, datasetSize(ds));
+    Assert.assertTrue("Should roll files in each partition",
+        countFiles(ds) > 4);
+  }
+
+  @Test
+  public void testNothingWrittenBeforeClose() {
+    FileSystemDataset<Record> ds = create("1024");
+
+    DatasetWriter<Record> writer = ds.newWriter();
+    try {
+      for (int i = 0; i < 100; i++) {
+        writer.write(new GenericRecordBuilder(USER_SCHEMA)
+            .set("username", "test-" + i)
+            .set("email", "email-" + i)
+            .build());
+      }
+      Assert.assertEquals(0, datasetSize(ds));
+    } finally {
+      writer.close();
+    }
+    Assert.assertEquals(100, datasetSize(ds));
+  }
+}
@@ -0,0 +1,378 @@
+/**
+ * Copyright 2015 Cloudera Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kitesdk.data.hbase;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.io.Closeable;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import org.kitesdk.data.DatasetException;
+import org.kitesdk.data.Key;
+import org.kitesdk.data.RandomAccessDataset;
+
+/**
+ * Runs the operations of a {@link RandomAccessDataset} in the background and
+ * returns {@link ListenableFuture futures} for their results.
+ * <p>
+ * Gets that are waiting to run are combined into multi-gets using
+ * {@link RandomAccessDataset#get(java.util.Collection)}, so many outstanding
+ * gets are served by a small number of threads. Concurrent gets for the same
+ * key can also be coalesced so that they share one request and one future.
+ * <p>
+ * The number of outstanding operations is limited by a window. When the window
+ * is full, new operations block the calling thread until an operation
+ * completes.
+ *
+ * @param <E> The type of entities stored in the dataset.
+ * @since 1.2.0
+ */
+public class AsyncRandomAccessDataset<E> implements Closeable {
+
+  private final RandomAccessDataset<E> dataset;
+  private final int maxBatchSize;
+  private final boolean coalesceGets;
+  private final Semaphore window;
+  private final ListeningExecutorService executor;
+  private final Queue<PendingGet<E>> pendingGets =
+      new ConcurrentLinkedQueue<PendingGet<E>>();
+  private final ConcurrentMap<Key, SettableFuture<E>> outstandingGets =
+      new ConcurrentHashMap<Key, SettableFuture<E>>();
+  private final Runnable getBatcher = new Runnable() {
+    @Override
+    public void run() {
+      runPendingGets();
+    }
+  };
+
+  private volatile boolean closed = false;
+
+  private AsyncRandomAccessDataset(RandomAccessDataset<E> dataset,
+                                   int maxInFlight, int threads,
+                                   int maxBatchSize, boolean coalesceGets) {
+    this.dataset = dataset;
+    this.maxBatchSize = maxBatchSize;
+    this.coalesceGets = coalesceGets;
+    this.window = new Semaphore(maxInFlight);
+    this.executor = MoreExecutors.listeningDecorator(
+        Executors.newFixedThreadPool(threads, new ThreadFactoryBuilder()
+            .setDaemon(true)
+            .setNameFormat("kite-hbase-async-%d")
+            .build()));
+  }
+
+  /**
+   * Return a future for the entity stored at the row specified with
+   * {@link Key} <code>key</code>. The future's value is null if no such
+   * entity exists.
+   * <p>
+   * If gets are coalesced and a get for the same key is outstanding, the
+   * future for that get is returned. Cancelling a shared future cancels it
+   * for every caller.
+   *
+   * @param key
+   *          The key of the entity to get
+   * @return A future for the entity of type E, or null if one is not found
+   */
+  public ListenableFuture<E> get(Key key) {
+    Preconditions.checkNotNull(key, "Key cannot be null");
+    if (coalesceGets) {
+      SettableFuture<E> outstanding = outstandingGets.get(key);
+      if (outstanding != null) {
+        return outstanding;
+      }
+    }
+
+    acquire();
+    SettableFuture<E> future = SettableFuture.create();
+    if (coalesceGets) {
+      SettableFuture<E> outstanding = outstandingGets.putIfAbsent(key, future);
+      if (outstanding != null) {
+        window.release();
+        return outstanding;
+      }
+    }
+
+    PendingGet<E> pending = new PendingGet<E>(key, future);
+    pendingGets.add(pending);
+    try {
+      executor.execute(getBatcher);
+    } catch (RuntimeException e) {
+      // if the get was not removed, a running batch has already taken it
+      if (pendingGets.remove(pending)) {
+        complete(pending).setException(e);
+        window.release();
+      }
+      throw e;
+    }
+    return future;
+  }
+
+  /**
+   * Put the entity into the dataset in the background.
+   *
+   * @param entity
+   *          The entity to store
+   * @return A future that is true if the put succeeded, false if the put
+   *         failed due to an update conflict
+   * @see RandomAccessDataset#put(Object)
+   */
+  public ListenableFuture<Boolean> put(final E entity) {
+    return submit(new Callable<Boolean>() {
+      @Override
+      public Boolean call() {
+        return dataset.put(entity);
+      }
+    });
+  }
+
+  /**
+   * Increment a field on the entity in the background.
+   *
+   * @param key
+   *          The key of the entity to increment
+   * @param fieldName
+   *          The name of the field on the entity to increment
+   * @param amount
+   *          The amount to increment the field by
+   * @return A future for the new field amount
+   * @see RandomAccessDataset#increment(Key, String, long)
+   */
+  public ListenableFuture<Long> increment(final Key key,
+                                          final String fieldName,
+                                          final long amount) {
+    return submit(new Callable<Long>() {
+      @Override
+      public Long call() {
+        return dataset.increment(key, fieldName, amount);
+      }
+    });
+  }
+
+  /**
+   * Delete the entity with {@link Key} <code>key</code> in the background.
+   *
+   * @param key
+   *          The key of the entity to delete
+   * @return A future that completes when the entity is deleted
+   * @see RandomAccessDataset#delete(Key)
+   */
+  public ListenableFuture<Void> delete(final Key key) {
+    return submit(new Callable<Void>() {
+      @Override
+      public Void call() {
+        dataset.delete(key);
+        return null;
+      }
+    });
+  }
+
+  /**
+   * Delete the entity in the background.
+   *
+   * @param entity
+   *          The entity, whose checkConflict field can be validated before the
+   *          delete is performed
+   * @return A future that is true if the delete succeeded, false if the
+   *         delete failed due to an update conflict
+   * @see RandomAccessDataset#delete(Object)
+   */
+  public ListenableFuture<Boolean> delete(final E entity) {
+    return submit(new Callable<Boolean>() {
+      @Override
+      public Boolean call() {
+        return dataset.delete(entity);
+      }
+    });
+  }
+
+  /**
+   * Waits for outstanding operations to complete and stops the background
+   * threads. Operations cannot be started after this is called.
+   */
+  @Override
+  public void close() {
+    this.closed = true;
+    executor.shutdown();
+    try {
+      while (!executor.awaitTermination(1, TimeUnit.SECONDS)) {
+        // keep waiting for outstanding operations
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new DatasetException(
+          "Interrupted while waiting for outstanding operations", e);
+    }
+  }
+
+  private <T> ListenableFuture<T> submit(final Callable<T> operation) {
+    acquire();
+    try {
+      return executor.submit(new Callable<T>() {
+        @Override
+        public T call() throws Exception {
+          try {
+            return operation.call();
+          } finally {
+            window.release();
+          }
+        }
+      });
+    } catch (RuntimeException e) {
+      window.release();
+      throw e;
+    }
+  }
+
+  private void acquire() {
+    Preconditions.checkState(!closed, "Cannot start operations after close");
+    window.acquireUninterruptibly();
+  }
+
+  private void runPendingGets() {
+    List<PendingGet<E>> batch = Lists.newArrayList();
+    PendingGet<E> pending;
+    while (batch.size() < maxBatchSize &&
+        (pending = pendingGets.poll()) != null) {
+      batch.add(pending);
+    }
+    if (batch.isEmpty()) {
+      // another batch already ran the gets this task was submitted for
+      return;
+    }
+
+    try {
+      List<Key> keys = Lists.newArrayListWithCapacity(batch.size());
+      for (PendingGet<E> get : batch) {
+        keys.add(get.key);
+      }
+
+      List<E> entities = dataset.get(keys);
+      for (int i = 0; i < batch.size(); i += 1) {
+        complete(batch.get(i)).set(entities.get(i));
+      }
+    } catch (Throwable t) {
+      for (PendingGet<E> get : batch) {
+        // does nothing for gets that were completed before the failure
+        complete(get).setException(t);
+      }
+    } finally {
+      window.release(batch.size());
+    }
+  }
+
+  private SettableFuture<E> complete(PendingGet<E> get) {
+    // remove before setting the value so later gets see new data
+    if (coalesceGets) {
+      outstandingGets.remove(get.key, get.future);
+    }
+    return get.future;
+  }
+
+  private static class PendingGet<E> {
+    private final Key key;
+    private final SettableFuture<E> future;
+
+    private PendingGet(Key key, SettableFuture<E> future) {
+      this.key = key;
+      this.future = future;
+    }
+  }
+
+  /**
+   * A fluent builder to aid in the construction of
+   * {@link AsyncRandomAccessDataset} instances.
+   *
+   * @param <E> The type of entities stored in the dataset.
+   */
+  public static class Builder<E> {
+
+    private final RandomAccessDataset<E> dataset;
+    private int maxInFlight = 1000;
+    private int threads = 4;
+    private int maxBatchSize = 100;
+    private boolean coalesceGets = true;
+
+    /**
+     * Construct a {@link Builder} for a {@link RandomAccessDataset}.
+     *
+     * @param dataset the dataset that will run operations
+     */
+    public Builder(RandomAccessDataset<E> dataset) {
+      Preconditions.checkNotNull(dataset, "Dataset cannot be null");
+      this.dataset = dataset;
+    }
+
+    /**
+     * The maximum number of operations that may be outstanding. When this
+     * many operations are outstanding, new operations block until one
+     * completes. Defaults to 1000.
+     */
+    public Builder<E> maxInFlight(int maxInFlight) {
+      Preconditions.checkArgument(maxInFlight > 0,
+          "Max in-flight operations must be positive: %s", maxInFlight);
+      this.maxInFlight = maxInFlight;
+      return this;
+    }
+
+    /**
+     * The number of threads used to run operations. Defaults to 4.
+     */
+    public Builder<E> threads(int threads) {
+      Preconditions.checkArgument(threads > 0,
+          "Number of threads must be positive: %s", threads);
+      this.threads = threads;
+      return this;
+    }
+
+    /**
+     * The maximum number of gets combined into one multi-get. Defaults to
+     * 100.
+     */
+    public Builder<E> maxBatchSize(int maxBatchSize) {
+      Preconditions.checkArgument(maxBatchSize > 0,
+          "Batch size must be positive: %s", maxBatchSize);
+      this.maxBatchSize = maxBatchSize;
+      return this;
+    }
+
+    /**
+     * Whether concurrent gets for the same key share a request. Defaults to
+     * true.
+     */
+    public Builder<E> coalesceGets(boolean coalesceGets) {
+      this.coalesceGets = coalesceGets;
+      return this;
+    }
+
+    public AsyncRandomAccessDataset<E> build() {
+      return new AsyncRandomAccessDataset<E>(
+          dataset, maxInFlight, threads, maxBatchSize, coalesceGets);
+    }
+  }
+}
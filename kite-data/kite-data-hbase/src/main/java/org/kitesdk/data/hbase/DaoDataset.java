@@ -16,7 +16,10 @@
 package org.kitesdk.data.hbase;
 
 import com.google.common.base.Preconditions;
+import com.google.common.cache.CacheStats;
+import com.google.common.collect.Lists;
 import java.net.URI;
+import java.util.Collection;
 import java.util.List;
 
 import org.apache.avro.generic.IndexedRecord;
@@ -25,12 +28,14 @@ import org.apache.hadoop.mapreduce.InputFormat;
 import org.kitesdk.data.DatasetDescriptor;
 import org.kitesdk.data.Key;
 import org.kitesdk.data.hbase.impl.BaseDao;
+import org.kitesdk.data.hbase.impl.CachingDao;
 import org.kitesdk.data.hbase.impl.CompositeBaseDao;
 import org.kitesdk.data.hbase.impl.DeleteActionModifier;
 import org.kitesdk.data.hbase.impl.GetModifier;
 import org.kitesdk.data.hbase.impl.PutActionModifier;
 import org.kitesdk.data.hbase.impl.ScanModifier;
 import org.kitesdk.data.hbase.spi.HBaseActionModifiable;
+import org.kitesdk.data.hbase.spi.HBaseEntityCacheable;
 import org.kitesdk.data.impl.Accessor;
 import org.kitesdk.data.spi.PartitionKey;
 import org.kitesdk.data.PartitionStrategy;
@@ -42,7 +47,7 @@ import org.kitesdk.data.spi.Constraints;
 import org.kitesdk.data.spi.InputFormatAccessor;
 
 class DaoDataset<E> extends AbstractDataset<E> implements RandomAccessDataset<E>,
-    InputFormatAccessor<E>, HBaseActionModifiable {
+    InputFormatAccessor<E>, HBaseActionModifiable, HBaseEntityCacheable {
 
   private final String namespace;
   private final String name;
@@ -111,11 +116,21 @@ class DaoDataset<E> extends AbstractDataset<E> implements RandomAccessDataset<E>
     return dao.get(keyFor(getDescriptor().getPartitionStrategy(), key));
   }
 
+  @Override
+  public List<E> get(Collection<Key> keys) {
+    return dao.get(keysFor(getDescriptor().getPartitionStrategy(), keys));
+  }
+
   @Override
   public boolean put(E entity) {
     return dao.put(entity);
   }
 
+  @Override
+  public boolean putAll(Collection<E> entities) {
+    return dao.putAll(entities);
+  }
+
   @Override
   @SuppressWarnings("deprecation")
   public long increment(Key key, String fieldName, long amount) {
@@ -128,6 +143,11 @@ class DaoDataset<E> extends AbstractDataset<E> implements RandomAccessDataset<E>
     dao.delete(keyFor(getDescriptor().getPartitionStrategy(), key));
   }
 
+  @Override
+  public void deleteAll(Collection<Key> keys) {
+    dao.deleteAll(keysFor(getDescriptor().getPartitionStrategy(), keys));
+  }
+
   @Override
   public boolean delete(E entity) {
     return dao.delete(entity);
@@ -145,6 +165,16 @@ class DaoDataset<E> extends AbstractDataset<E> implements RandomAccessDataset<E>
     return new PartitionKey(values);
   }
 
+  @SuppressWarnings("deprecation")
+  private static List<PartitionKey> keysFor(PartitionStrategy strategy,
+                                            Collection<Key> keys) {
+    List<PartitionKey> partitionKeys = Lists.newArrayListWithCapacity(keys.size());
+    for (Key key : keys) {
+      partitionKeys.add(keyFor(strategy, key));
+    }
+    return partitionKeys;
+  }
+
   @Override
   public InputFormat<E, Void> getInputFormat(Configuration conf) {
     return new HBaseViewKeyInputFormat<E>(this);
@@ -153,6 +183,9 @@ class DaoDataset<E> extends AbstractDataset<E> implements RandomAccessDataset<E>
   @SuppressWarnings("unchecked")
   private BaseDao<E> getBaseDao() {
     Dao<E> dao = getDao();
+    if (dao instanceof CachingDao) {
+      dao = ((CachingDao<E>) dao).getDao();
+    }
     if(dao instanceof CompositeBaseDao) {
       dao = ((CompositeBaseDao) dao).getDao();
     }
@@ -163,6 +196,21 @@ class DaoDataset<E> extends AbstractDataset<E> implements RandomAccessDataset<E>
         "Action not supported for Dao " + dao.getClass());
   }
 
+  @Override
+  public CacheStats getEntityCacheStats() {
+    if (dao instanceof CachingDao) {
+      return ((CachingDao<E>) dao).getStats();
+    }
+    return null;
+  }
+
+  @Override
+  public void invalidateEntityCache() {
+    if (dao instanceof CachingDao) {
+      ((CachingDao<E>) dao).invalidateAll();
+    }
+  }
+
   @Override
   public void registerGetModifier(GetModifier getModifier) {
     getBaseDao().getHBaseClientTemplate().registerGetModifier(getModifier);
@@ -16,14 +16,36 @@
 package org.kitesdk.data.hbase;
 
 import com.google.common.base.Preconditions;
+import com.google.common.base.Function;
+import com.google.common.base.Predicate;
 import com.google.common.collect.Iterables;
+import com.google.common.collect.Iterators;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.IndexedRecord;
 import org.apache.hadoop.mapreduce.InputFormat;
 import org.kitesdk.data.DatasetReader;
 import org.kitesdk.data.DatasetWriter;
+import org.kitesdk.data.DatasetDescriptor;
+import org.kitesdk.data.FieldMapping;
 import org.kitesdk.data.Flushable;
+import org.kitesdk.data.hbase.avro.AvroUtils;
+import org.kitesdk.data.hbase.filters.EntityFilter;
+import org.kitesdk.data.hbase.filters.ExistsEntityFilter;
+import org.kitesdk.data.hbase.filters.InEntityFilter;
+import org.kitesdk.data.hbase.impl.BaseDao;
+import org.kitesdk.data.hbase.impl.BaseEntityScanner;
+import org.kitesdk.data.hbase.impl.CachingDao;
+import org.kitesdk.data.hbase.impl.Dao;
 import org.kitesdk.data.hbase.impl.EntityBatch;
+import org.kitesdk.data.hbase.impl.EntityMapper;
+import org.kitesdk.data.hbase.impl.EntitySchema;
 import org.kitesdk.data.hbase.impl.EntityScanner;
+import org.kitesdk.data.hbase.impl.EntityScannerBuilder;
+import org.kitesdk.data.hbase.impl.ParallelEntityScanner;
 import org.kitesdk.data.impl.Accessor;
 import org.kitesdk.data.spi.AbstractDatasetReader;
 import org.kitesdk.data.spi.AbstractDatasetWriter;
@@ -32,32 +54,67 @@ import org.kitesdk.data.spi.PartitionKey;
 import org.kitesdk.data.PartitionStrategy;
 import org.kitesdk.data.spi.AbstractRefinableView;
 import org.kitesdk.data.spi.Constraints;
+import org.kitesdk.data.spi.DataModelUtil;
+import org.kitesdk.data.spi.DescriptorUtil;
 import org.kitesdk.data.spi.InitializeAccessor;
 import org.kitesdk.data.spi.InputFormatAccessor;
+import org.kitesdk.data.spi.EntityAccessor;
 import org.kitesdk.data.spi.StorageKey;
 import org.kitesdk.data.spi.Marker;
 import org.kitesdk.data.spi.MarkerRange;
+import org.kitesdk.data.spi.SchemaUtil;
+import org.kitesdk.data.spi.predicates.Exists;
+import org.kitesdk.data.spi.predicates.In;
+import org.kitesdk.data.spi.predicates.Predicates;
 import java.util.List;
 import org.apache.avro.Schema;
+import org.apache.avro.Schema.Field;
 import org.apache.hadoop.conf.Configuration;
 
 class DaoView<E> extends AbstractRefinableView<E> implements InputFormatAccessor<E> {
 
+  private static final int DEFAULT_SCAN_BUFFER_SIZE = 1000;
+
   private final DaoDataset<E> dataset;
 
+  // the dataset fields in this view's schema, or null if all are read
+  private final Set<String> projectedFields;
+
   DaoView(DaoDataset<E> dataset, Class<E> type) {
     super(dataset, type);
     this.dataset = dataset;
+    this.projectedFields = null;
   }
 
   private DaoView(DaoView<E> view, Constraints constraints) {
     super(view, constraints);
     this.dataset = view.dataset;
+    this.projectedFields = view.projectedFields;
   }
 
   private DaoView(DaoView<?> view, Schema schema, Class<E> type) {
     super(view, schema, type);
     this.dataset = (DaoDataset<E>) view.dataset.asType(type);
+    this.projectedFields = projectedFields(
+        dataset.getDescriptor().getSchema(), schema, type);
+  }
+
+  /**
+   * Returns the names of the dataset fields that are in a generic projection
+   * schema, or null if the view reads whole entities.
+   */
+  private static Set<String> projectedFields(Schema datasetSchema,
+      Schema schema, Class<?> type) {
+    if (!DataModelUtil.isGeneric(type) || datasetSchema.equals(schema)) {
+      return null;
+    }
+    Set<String> fields = new HashSet<String>();
+    for (Field field : schema.getFields()) {
+      if (datasetSchema.getField(field.name()) != null) {
+        fields.add(field.name());
+      }
+    }
+    return fields;
   }
 
   @Override
@@ -79,11 +136,164 @@ class DaoView<E> extends AbstractRefinableView<E> implements InputFormatAccessor
         toPartitionKey(range.getEnd()), range.getEnd().isInclusive());
   }
 
+  /**
+   * Returns a scanner that filters rows in HBase using this view's
+   * constraints, and reads only the columns needed for a projection.
+   */
+  EntityScanner<E> newFilteredScanner() {
+    Dao<E> dao = dataset.getDao();
+    if (dao instanceof CachingDao) {
+      dao = ((CachingDao<E>) dao).getDao();
+    }
+    if (!(dao instanceof BaseDao)) {
+      return newEntityScanner();
+    }
+    BaseDao<E> baseDao = (BaseDao<E>) dao;
+
+    MarkerRange range = Iterables.getOnlyElement(constraints.toKeyRanges());
+    EntityScannerBuilder<E> builder = baseDao.getScannerBuilder()
+        .setStartKey(toPartitionKey(range.getStart()))
+        .setStartInclusive(range.getStart().isInclusive())
+        .setStopKey(toPartitionKey(range.getEnd()))
+        .setStopInclusive(range.getEnd().isInclusive());
+
+    Map<String, Predicate> predicates = constraints.getPredicates(null);
+    EntityMapper<E> mapper = baseDao.getEntityMapper();
+    for (Map.Entry<String, Predicate> entry : predicates.entrySet()) {
+      EntityFilter filter = toEntityFilter(
+          mapper, entry.getKey(), entry.getValue());
+      if (filter != null) {
+        builder.addFilter(filter);
+      }
+    }
+
+    if (projectedFields != null) {
+      Set<String> fields = new HashSet<String>(projectedFields);
+      // constrained fields are read so that entities can be filtered
+      fields.addAll(predicates.keySet());
+      // HBase skips rows that have none of the requested columns, so a column
+      // that every row has is read as well. Without one, whole rows are read.
+      String presentField = presentField(mapper, fields);
+      if (presentField != null) {
+        fields.add(presentField);
+        builder.setFields(fields);
+      }
+    }
+
+    return builder.build();
+  }
+
+  /**
+   * Returns a field that has a column in every row because its value cannot
+   * be null, preferring one of {@code fields}, or null if there is none.
+   */
+  private String presentField(EntityMapper<E> mapper, Set<String> fields) {
+    Schema schema = dataset.getDescriptor().getSchema();
+    String present = null;
+    for (FieldMapping fieldMapping : mapper.getEntitySchema()
+        .getColumnMappingDescriptor().getFieldMappings()) {
+      String name = fieldMapping.getFieldName();
+      Field field = schema.getField(name);
+      if (fieldMapping.getMappingType() == FieldMapping.MappingType.COLUMN &&
+          field != null && !SchemaUtil.nullOk(field.schema())) {
+        if (fields.contains(name)) {
+          return name;
+        } else if (present == null) {
+          present = name;
+        }
+      }
+    }
+    return present;
+  }
+
+  /**
+   * Returns an EntityFilter that passes at least the rows with entities that
+   * match a constraint, or null if the constraint can't be checked in HBase.
+   * Rows that pass are still filtered by the constraint when they are read.
+   */
+  @SuppressWarnings("unchecked")
+  private EntityFilter toEntityFilter(EntityMapper<E> mapper, String name,
+      Predicate predicate) {
+    EntitySchema entitySchema = mapper.getEntitySchema();
+    FieldMapping fieldMapping = entitySchema.getColumnMappingDescriptor()
+        .getFieldMapping(name);
+    if (fieldMapping == null ||
+        fieldMapping.getMappingType() != FieldMapping.MappingType.COLUMN) {
+      return null;
+    }
+
+    if (predicate instanceof In) {
+      // values are compared as serialized bytes, which is only reliable for
+      // primitive values that have one encoding
+      Field field = dataset.getDescriptor().getSchema().getField(name);
+      if (field == null || !hasComparableEncoding(field.schema())) {
+        return null;
+      }
+      return new InEntityFilter(entitySchema, mapper.getEntitySerDe(), name,
+          Predicates.asSet((In<Object>) predicate));
+
+    } else if (predicate instanceof Exists) {
+      // a missing column is read as the default, which may exist
+      if (mapper.getEntitySerDe().getDefaultValue(name) != null) {
+        return null;
+      }
+      return new ExistsEntityFilter(entitySchema, name);
+    }
+
+    // ranges are not pushed down because serialized values don't sort in
+    // the same order as the values
+    return null;
+  }
+
+  private static boolean hasComparableEncoding(Schema schema) {
+    switch (schema.getType()) {
+      case STRING:
+      case INT:
+      case LONG:
+      case BOOLEAN:
+        return true;
+      default:
+        return false;
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private EntityScanner<E> newReaderScanner() {
+    EntityScanner<E> scanner = newFilteredScanner();
+    DatasetDescriptor descriptor = dataset.getDescriptor();
+    int threads = DescriptorUtil.getInt(
+        HBaseProperties.SCAN_THREADS_PROP, descriptor, 1);
+    if (threads > 1 && scanner instanceof BaseEntityScanner) {
+      int bufferSize = DescriptorUtil.getInt(
+          HBaseProperties.SCAN_BUFFER_SIZE_PROP, descriptor,
+          DEFAULT_SCAN_BUFFER_SIZE);
+      boolean ordered = !DescriptorUtil.isDisabled(
+          HBaseProperties.SCAN_ORDERED_PROP, descriptor);
+      return new ParallelEntityScanner<E>((BaseEntityScanner<E>) scanner,
+          threads, bufferSize, ordered);
+    }
+    return scanner;
+  }
+
   @Override
   public DatasetReader<E> newReader() {
-    final DatasetReader<E> wrappedReader = newEntityScanner();
-    final Iterator<E> filteredIterator = constraints.filter(
-        wrappedReader.iterator(), getAccessor());
+    final DatasetReader<E> wrappedReader = newReaderScanner();
+    final Iterator<E> filteredIterator;
+    if (projectedFields == null) {
+      filteredIterator = constraints.filter(
+          wrappedReader.iterator(), getAccessor());
+    } else {
+      // the scanner returns dataset entities, which are filtered before they
+      // are projected because constrained fields may not be projected
+      EntityAccessor<E> datasetAccessor = DataModelUtil.accessor(
+          getType(), dataset.getDescriptor().getSchema());
+      // rows without any of the entity's columns are mapped to null
+      Iterator<E> entities = Iterators.filter(wrappedReader.iterator(),
+          com.google.common.base.Predicates.notNull());
+      filteredIterator = Iterators.transform(
+          constraints.filter(entities, datasetAccessor),
+          new Projection<E>(getSchema()));
+    }
     AbstractDatasetReader<E> reader = new AbstractDatasetReader<E>() {
       @Override
       public void initialize() {
@@ -179,6 +389,37 @@ class DaoView<E> extends AbstractRefinableView<E> implements InputFormatAccessor
     return writer;
   }
 
+  /**
+   * Copies the fields of a dataset entity into a record with a projected
+   * schema. Fields that are not in the dataset are set to their defaults.
+   */
+  private static class Projection<E> implements Function<E, E> {
+    private final Schema schema;
+    private final Map<String, Object> defaults;
+
+    private Projection(Schema schema) {
+      this.schema = schema;
+      this.defaults = AvroUtils.getDefaultValueMap(schema);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E apply(E entity) {
+      IndexedRecord record = (IndexedRecord) entity;
+      Schema entitySchema = record.getSchema();
+      GenericData.Record projected = new GenericData.Record(schema);
+      for (Field field : schema.getFields()) {
+        Field entityField = entitySchema.getField(field.name());
+        if (entityField != null) {
+          projected.put(field.pos(), record.get(entityField.pos()));
+        } else {
+          projected.put(field.pos(), defaults.get(field.name()));
+        }
+      }
+      return (E) projected;
+    }
+  }
+
   abstract static class AbstractFlushableDatasetWriter<E> extends AbstractDatasetWriter<E>
       implements Flushable {
   }
@@ -23,16 +23,24 @@ import org.kitesdk.data.DatasetDescriptor;
 import org.kitesdk.data.DatasetIOException;
 import org.kitesdk.data.DatasetOperationException;
 import org.kitesdk.data.RandomAccessDataset;
+import org.kitesdk.data.ValidationException;
 import org.kitesdk.data.hbase.avro.GenericAvroDao;
 import org.kitesdk.data.hbase.avro.SpecificAvroDao;
+import org.kitesdk.data.hbase.avro.VersionedAvroEntityMapper;
+import org.kitesdk.data.hbase.impl.BaseDao;
+import org.kitesdk.data.hbase.impl.CachingDao;
+import org.kitesdk.data.hbase.impl.CompositeBaseDao;
 import org.kitesdk.data.hbase.impl.Dao;
+import org.kitesdk.data.hbase.impl.EntityMapper;
 import org.kitesdk.data.hbase.impl.SchemaManager;
 import org.kitesdk.data.hbase.manager.DefaultSchemaManager;
 import org.kitesdk.data.spi.AbstractDatasetRepository;
+import org.kitesdk.data.spi.DescriptorUtil;
 
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.Set;
 
 import org.apache.avro.specific.SpecificRecord;
 import org.apache.hadoop.conf.Configuration;
@@ -45,6 +53,7 @@ import org.kitesdk.data.URIBuilder;
 public class HBaseDatasetRepository extends AbstractDatasetRepository {
 
   private static final String DEFAULT_NAMESPACE = "default";
+  private static final long DEFAULT_ENTITY_CACHE_TTL_MS = 60 * 1000; // 1 min
 
   private HTablePool tablePool;
   private SchemaManager schemaManager;
@@ -139,6 +148,7 @@ public class HBaseDatasetRepository extends AbstractDatasetRepository {
     }
     Dao dao = SpecificAvroDao.buildCompositeDaoWithEntityManager(tablePool,
         tableName, subEntityClasses, schemaManager);
+    dao = withEntityCache(dao, descriptors.get(0));
     return new DaoDataset<E>(namespace, name, dao, descriptors.get(0),
         new URIBuilder(repositoryUri, namespace, name).build(), type);
   }
@@ -154,10 +164,57 @@ public class HBaseDatasetRepository extends AbstractDatasetRepository {
     } else {
       dao = new GenericAvroDao(tablePool, tableName, entityName, schemaManager);
     }
+    dao = withEntityCache(dao, descriptor);
     return new DaoDataset(namespace, name, dao, descriptor,
         new URIBuilder(repositoryUri, namespace, name).build(), type);
   }
 
+  @SuppressWarnings("unchecked")
+  private static Dao withEntityCache(Dao dao, DatasetDescriptor descriptor) {
+    long maxEntries = DescriptorUtil.getLong(
+        HBaseProperties.ENTITY_CACHE_MAX_ENTRIES_PROP, descriptor, 0);
+    long maxBytes = DescriptorUtil.getLong(
+        HBaseProperties.ENTITY_CACHE_MAX_BYTES_PROP, descriptor, 0);
+    if (maxEntries <= 0 && maxBytes <= 0) {
+      return dao;
+    }
+    ValidationException.check(maxEntries <= 0 || maxBytes <= 0,
+        "Cannot set both %s and %s",
+        HBaseProperties.ENTITY_CACHE_MAX_ENTRIES_PROP,
+        HBaseProperties.ENTITY_CACHE_MAX_BYTES_PROP);
+
+    Dao baseDao = dao;
+    if (baseDao instanceof CompositeBaseDao) {
+      baseDao = ((CompositeBaseDao) baseDao).getDao();
+    }
+    if (!(baseDao instanceof BaseDao)) {
+      return dao;
+    }
+
+    long ttlMillis = DescriptorUtil.getLong(
+        HBaseProperties.ENTITY_CACHE_TTL_MS_PROP, descriptor,
+        DEFAULT_ENTITY_CACHE_TTL_MS);
+    EntityMapper entityMapper = ((BaseDao) baseDao).getEntityMapper();
+    if (!DescriptorUtil.isEnabled(
+        HBaseProperties.ENTITY_CACHE_CHECK_VERSIONS_PROP, descriptor)) {
+      return new CachingDao(dao, entityMapper,
+          Math.max(maxEntries, 0), Math.max(maxBytes, 0), ttlMillis);
+    }
+
+    Set<String> versionColumns = null;
+    if (entityMapper instanceof VersionedAvroEntityMapper) {
+      versionColumns = ((VersionedAvroEntityMapper) entityMapper)
+          .getVersionColumns();
+    }
+    ValidationException.check(
+        versionColumns != null && !versionColumns.isEmpty(),
+        "Cannot use %s: entities do not have version columns",
+        HBaseProperties.ENTITY_CACHE_CHECK_VERSIONS_PROP);
+    return new CachingDao(dao, entityMapper,
+        Math.max(maxEntries, 0), Math.max(maxBytes, 0), ttlMillis,
+        ((BaseDao) baseDao).getHBaseClientTemplate(), versionColumns);
+  }
+
   private static boolean isSpecific(DatasetDescriptor descriptor) {
     try {
       Class.forName(descriptor.getSchema().getFullName());
@@ -15,20 +15,26 @@
  */
 package org.kitesdk.data.hbase;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.base.Objects;
 import com.google.common.base.Preconditions;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
 import java.io.IOException;
-import java.net.URI;
 import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.apache.avro.Schema;
 import org.apache.hadoop.hbase.HColumnDescriptor;
 import org.apache.hadoop.hbase.HTableDescriptor;
 import org.apache.hadoop.hbase.client.HBaseAdmin;
+import org.apache.hadoop.hbase.util.Bytes;
 import org.kitesdk.data.DatasetDescriptor;
 import org.kitesdk.data.DatasetIOException;
 import org.kitesdk.data.DatasetNotFoundException;
@@ -40,6 +46,7 @@ import org.kitesdk.data.hbase.impl.SchemaManager;
 import org.kitesdk.data.spi.PartitionStrategyParser;
 import org.kitesdk.data.spi.AbstractMetadataProvider;
 import org.kitesdk.data.spi.Compatibility;
+import org.kitesdk.data.spi.JsonUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -50,6 +57,9 @@ class HBaseMetadataProvider extends AbstractMetadataProvider {
 
   private static final String DEFAULT_NAMESPACE = "default";
   private static final String REPLICATION_ID_PROP = "hbase.replication.scope";
+  // descriptor properties are stored in the table's HBase descriptor, as a
+  // JSON object under this prefix followed by the entity name
+  private static final String PROPERTIES_KEY_PREFIX = "kite.properties.";
 
   private HBaseAdmin hbaseAdmin;
   private SchemaManager schemaManager;
@@ -109,6 +119,10 @@ class HBaseMetadataProvider extends AbstractMetadataProvider {
         for (String columnFamily : familiesToAdd) {
           desc.addFamily(columnFamily(columnFamily, descriptor));
         }
+        String properties = toJson(descriptor);
+        if (properties != null) {
+          desc.setValue(propertiesKey(entityName), properties);
+        }
         hbaseAdmin.createTable(desc);
       } else {
         Set<String> familiesToAdd = entitySchema.getColumnMappingDescriptor()
@@ -133,11 +147,12 @@ class HBaseMetadataProvider extends AbstractMetadataProvider {
             hbaseAdmin.enableTable(tableName);
           }
         }
+        storeProperties(tableName, entityName, toJson(descriptor));
       }
     } catch (IOException e) {
       throw new DatasetIOException("Cannot prepare table: " + name, e);
     }
-    return getDatasetDescriptor(schema, descriptor.getLocation());
+    return getDatasetDescriptor(schema, descriptor);
   }
 
   @Override
@@ -168,7 +183,14 @@ class HBaseMetadataProvider extends AbstractMetadataProvider {
     } else {
       LOG.info("Schema hasn't changed, not migrating: (" + name + ")");
     }
-    return getDatasetDescriptor(newSchema, descriptor.getLocation());
+
+    try {
+      storeProperties(tableName, entityName, toJson(descriptor));
+    } catch (IOException e) {
+      throw new DatasetIOException(
+          "Cannot store properties for dataset: " + name, e);
+    }
+    return getDatasetDescriptor(newSchema, descriptor);
   }
 
   @Override
@@ -182,10 +204,28 @@ class HBaseMetadataProvider extends AbstractMetadataProvider {
     }
     String tableName = getTableName(name);
     String entityName = getEntityName(name);
-    return new DatasetDescriptor.Builder()
+    DatasetDescriptor.Builder builder = new DatasetDescriptor.Builder()
         .schemaLiteral(schemaManager.getEntitySchema(tableName, entityName)
-            .getRawSchema())
-        .build();
+            .getRawSchema());
+
+    String properties;
+    try {
+      properties = hbaseAdmin.getTableDescriptor(Bytes.toBytes(tableName))
+          .getValue(propertiesKey(entityName));
+    } catch (IOException e) {
+      throw new DatasetIOException(
+          "Cannot load properties for dataset: " + name, e);
+    }
+    if (properties != null) {
+      ObjectNode json = JsonUtil.parse(properties, ObjectNode.class);
+      for (Iterator<Map.Entry<String, JsonNode>> fields = json.fields();
+           fields.hasNext(); ) {
+        Map.Entry<String, JsonNode> field = fields.next();
+        builder.property(field.getKey(), field.getValue().asText());
+      }
+    }
+
+    return builder.build();
   }
 
   @Override
@@ -222,6 +262,12 @@ class HBaseMetadataProvider extends AbstractMetadataProvider {
         throw new DatasetIOException("Cannot delete " + name, e);
       }
     }
+
+    try {
+      storeProperties(tableName, entityName, null);
+    } catch (IOException e) {
+      throw new DatasetIOException("Cannot delete " + name, e);
+    }
     return true;
   }
 
@@ -286,11 +332,61 @@ class HBaseMetadataProvider extends AbstractMetadataProvider {
     return schema;
   }
 
-  private static DatasetDescriptor getDatasetDescriptor(Schema schema, URI location) {
-    return new DatasetDescriptor.Builder()
+  private static String propertiesKey(String entityName) {
+    return PROPERTIES_KEY_PREFIX + entityName;
+  }
+
+  /**
+   * Returns the descriptor's properties as a JSON object, or null if it has
+   * no properties.
+   */
+  private static String toJson(DatasetDescriptor descriptor) {
+    Collection<String> properties = descriptor.listProperties();
+    if (properties.isEmpty()) {
+      return null;
+    }
+    ObjectNode json = JsonNodeFactory.instance.objectNode();
+    for (String property : properties) {
+      json.put(property, descriptor.getProperty(property));
+    }
+    return json.toString();
+  }
+
+  /**
+   * Replaces the properties stored for an entity, or removes them if
+   * {@code properties} is null. The table is only modified if the stored
+   * properties change.
+   */
+  private void storeProperties(String tableName, String entityName,
+                               String properties) throws IOException {
+    String key = propertiesKey(entityName);
+    HTableDescriptor desc = hbaseAdmin.getTableDescriptor(
+        Bytes.toBytes(tableName));
+    if (Objects.equal(properties, desc.getValue(key))) {
+      return;
+    }
+    if (properties != null) {
+      desc.setValue(key, properties);
+    } else {
+      desc.remove(Bytes.toBytes(key));
+    }
+    hbaseAdmin.disableTable(tableName);
+    try {
+      hbaseAdmin.modifyTable(Bytes.toBytes(tableName), desc);
+    } finally {
+      hbaseAdmin.enableTable(tableName);
+    }
+  }
+
+  private static DatasetDescriptor getDatasetDescriptor(Schema schema,
+      DatasetDescriptor descriptor) {
+    DatasetDescriptor.Builder builder = new DatasetDescriptor.Builder()
         .schema(schema)
-        .location(location)
-        .build();
+        .location(descriptor.getLocation());
+    for (String property : descriptor.listProperties()) {
+      builder.property(property, descriptor.getProperty(property));
+    }
+    return builder.build();
   }
 
   private HColumnDescriptor columnFamily(byte[] family, DatasetDescriptor descriptor) {
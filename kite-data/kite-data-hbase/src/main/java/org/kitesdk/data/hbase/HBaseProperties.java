@@ -0,0 +1,89 @@
+/**
+ * Copyright 2015 Cloudera Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kitesdk.data.hbase;
+
+/**
+ * Descriptor properties for HBase datasets. Properties are stored in the
+ * HBase descriptor of the dataset's table when the dataset is created or
+ * updated, and apply to datasets that are loaded later.
+ */
+public class HBaseProperties {
+  /**
+   * Used to enable an entity cache for point lookups, bounded by the number
+   * of cached entities.
+   *
+   * The value should be a long.
+   */
+  public static final String ENTITY_CACHE_MAX_ENTRIES_PROP =
+      "kite.hbase.entity-cache.max-entries";
+
+  /**
+   * Used to enable an entity cache for point lookups, bounded by the
+   * estimated size in bytes of the cached entities. This cannot be used with
+   * the max-entries setting.
+   *
+   * The value should be a long.
+   */
+  public static final String ENTITY_CACHE_MAX_BYTES_PROP =
+      "kite.hbase.entity-cache.max-bytes";
+
+  /**
+   * Used to set how long, in milliseconds, an entity may be served from the
+   * entity cache after it was read from HBase. Local puts, deletes, and
+   * increments invalidate cached entities; the TTL bounds how long changes
+   * made by other clients may go unnoticed. The default is 1 minute.
+   *
+   * The value should be a long.
+   */
+  public static final String ENTITY_CACHE_TTL_MS_PROP =
+      "kite.hbase.entity-cache.ttl-ms";
+
+  /**
+   * Used to check the schema and OCC version columns of a row in HBase on
+   * every entity cache hit, so that changes made by other clients are not
+   * served from the cache. Requires an entity schema with versioned columns.
+   *
+   * The value should be a boolean.
+   */
+  public static final String ENTITY_CACHE_CHECK_VERSIONS_PROP =
+      "kite.hbase.entity-cache.check-versions";
+
+  /**
+   * Used to scan the regions of a view in parallel with this many threads.
+   * Readers scan regions one at a time by default.
+   *
+   * The value should be an int.
+   */
+  public static final String SCAN_THREADS_PROP = "kite.hbase.scan.threads";
+
+  /**
+   * Used to set the number of entities buffered by each thread of a parallel
+   * scan. The default is 1000.
+   *
+   * The value should be an int.
+   */
+  public static final String SCAN_BUFFER_SIZE_PROP =
+      "kite.hbase.scan.buffer-size";
+
+  /**
+   * Used to allow parallel scans to return entities out of key order, as soon
+   * as they are read from any region. Parallel scans return entities in key
+   * order unless this is false.
+   *
+   * The value should be a boolean.
+   */
+  public static final String SCAN_ORDERED_PROP = "kite.hbase.scan.ordered";
+}
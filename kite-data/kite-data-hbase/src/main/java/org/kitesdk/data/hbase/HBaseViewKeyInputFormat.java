@@ -33,6 +33,7 @@ import org.apache.hadoop.mapreduce.TaskAttemptContext;
 import org.kitesdk.compat.Hadoop;
 import org.kitesdk.data.hbase.impl.BaseDao;
 import org.kitesdk.data.hbase.impl.BaseEntityScanner;
+import org.kitesdk.data.hbase.impl.CachingDao;
 import org.kitesdk.data.hbase.impl.Dao;
 import org.kitesdk.data.hbase.impl.EntityMapper;
 import org.kitesdk.data.spi.AbstractKeyRecordReaderWrapper;
@@ -50,6 +51,9 @@ class HBaseViewKeyInputFormat<E> extends InputFormat<E, Void> {
     this.dataset = dataset;
     this.view = null;
     Dao<E> dao = dataset.getDao();
+    if (dao instanceof CachingDao) {
+      dao = ((CachingDao<E>) dao).getDao();
+    }
     if (!(dao instanceof BaseDao)) {
       throw new UnsupportedOperationException("Only BaseDao subclasses supported.");
     }
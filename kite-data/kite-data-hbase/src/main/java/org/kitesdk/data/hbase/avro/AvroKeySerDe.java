@@ -22,8 +22,6 @@ import org.kitesdk.data.hbase.avro.io.MemcmpDecoder;
 import org.kitesdk.data.hbase.avro.io.MemcmpEncoder;
 import org.kitesdk.data.hbase.impl.KeySerDe;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -35,8 +33,6 @@ import org.apache.avro.generic.GenericDatumWriter;
 import org.apache.avro.generic.GenericRecord;
 import org.apache.avro.io.DatumReader;
 import org.apache.avro.io.DatumWriter;
-import org.apache.avro.io.Decoder;
-import org.apache.avro.io.Encoder;
 
 /**
  * Avro implementation of the KeySerDe interface. This will serialize Keys and
@@ -47,11 +43,25 @@ public class AvroKeySerDe implements KeySerDe {
   private final Schema schema;
   private final Schema[] partialSchemas;
   private final PartitionStrategy partitionStrategy;
+  private final DatumWriter<GenericRecord> datumWriter;
+  private final DatumWriter<GenericRecord>[] partialDatumWriters;
+  private final DatumReader<GenericRecord> datumReader;
 
+  // reuse an encoder per thread so its buffer is not allocated for every key
+  private final ThreadLocal<MemcmpEncoder> encoders =
+      new ThreadLocal<MemcmpEncoder>() {
+        @Override
+        protected MemcmpEncoder initialValue() {
+          return new MemcmpEncoder();
+        }
+      };
+
+  @SuppressWarnings("unchecked")
   public AvroKeySerDe(Schema schema, PartitionStrategy partitionStrategy) {
     this.schema = schema;
     int fieldSize = schema.getFields().size();
     partialSchemas = new Schema[fieldSize];
+    partialDatumWriters = new DatumWriter[fieldSize];
     for (int i = 0; i < fieldSize; i++) {
       if (i == (fieldSize - 1)) {
         break;
@@ -61,23 +71,25 @@ public class AvroKeySerDe implements KeySerDe {
         partialFieldList.add(AvroUtils.cloneField(field));
       }
       partialSchemas[i] = Schema.createRecord(partialFieldList);
+      partialDatumWriters[i] = new GenericDatumWriter<GenericRecord>(
+          partialSchemas[i]);
     }
     this.partitionStrategy = partitionStrategy;
+    this.datumWriter = new GenericDatumWriter<GenericRecord>(schema);
+    this.datumReader = new GenericDatumReader<GenericRecord>(schema);
   }
 
   @Override
   public byte[] serialize(PartitionKey key) {
-    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-    Encoder encoder = new MemcmpEncoder(outputStream);
-
     Schema schemaToUse;
+    DatumWriter<GenericRecord> writerToUse;
     if (key.getLength() == schema.getFields().size()) {
       schemaToUse = schema;
+      writerToUse = datumWriter;
     } else {
       schemaToUse = partialSchemas[key.getLength() - 1];
+      writerToUse = partialDatumWriters[key.getLength() - 1];
     }
-    DatumWriter<GenericRecord> datumWriter = new GenericDatumWriter<GenericRecord>(
-        schemaToUse);
     GenericRecord record = new GenericData.Record(schemaToUse);
     for (int i = 0; i < key.getLength(); i++) {
       Object keyPart = key.get(i);
@@ -104,18 +116,16 @@ public class AvroKeySerDe implements KeySerDe {
       }
       record.put(i, keyPart);
     }
-    AvroUtils.writeAvroEntity(record, encoder, datumWriter);
-    return outputStream.toByteArray();
+    MemcmpEncoder encoder = encoders.get();
+    encoder.reset();
+    AvroUtils.writeAvroEntity(record, encoder, writerToUse);
+    return encoder.toByteArray();
   }
 
   @Override
   public PartitionKey deserialize(byte[] keyBytes) {
-    ByteArrayInputStream inputStream = new ByteArrayInputStream(keyBytes);
-    Decoder decoder = new MemcmpDecoder(inputStream);
-    DatumReader<GenericRecord> datumReader = new GenericDatumReader<GenericRecord>(
-        schema);
     GenericRecord genericRecord = AvroUtils
-        .readAvroEntity(decoder, datumReader);
+        .readAvroEntity(new MemcmpDecoder(keyBytes), datumReader);
 
     Object[] keyParts = new Object[genericRecord.getSchema().getFields().size()];
     for (int i = 0; i < genericRecord.getSchema().getFields().size(); i++) {
@@ -16,6 +16,7 @@
 package org.kitesdk.data.hbase.avro;
 
 import org.kitesdk.data.DatasetException;
+import org.kitesdk.data.FieldMapping;
 import org.kitesdk.data.spi.PartitionKey;
 import org.kitesdk.data.SchemaNotFoundException;
 import org.kitesdk.data.ValidationException;
@@ -302,6 +303,25 @@ public class VersionedAvroEntityMapper<ENTITY extends IndexedRecord> implements
     return entityMappers.get(version).getEntitySerDe();
   }
 
+  /**
+   * Gets the columns that record the version of each row: the schema version
+   * column, and the OCC version column if the entity has an occVersion field.
+   * 
+   * @return The set of version columns.
+   */
+  public Set<String> getVersionColumns() {
+    Set<String> versionColumns = managedSchemaEntityVersionEntityMapper
+        .getRequiredColumns();
+    for (FieldMapping fieldMapping : entitySchema.getColumnMappingDescriptor()
+        .getFieldMappings()) {
+      if (fieldMapping.getMappingType() == FieldMapping.MappingType.OCC_VERSION) {
+        versionColumns.add(fieldMapping.getFamilyAsString() + ":"
+            + fieldMapping.getQualifierAsString());
+      }
+    }
+    return versionColumns;
+  }
+
   /**
    * Initialize the entity mapper we'll use to convert the schema version
    * metadata in each row to a ManagedSchemaEntityVersion record.
@@ -27,12 +27,52 @@ import org.apache.avro.io.Decoder;
  * A class that will decode Avro types, whose sort order can be determined by a
  * memcmp. Decodes avro types encoded with the MemcmpEncoder class. See that
  * class for information on how each type of value is encoded.
+ * <p>
+ * A decoder created with a byte array reads directly from the array, without
+ * wrapping it in a stream.
  */
 public class MemcmpDecoder extends Decoder {
-  private InputStream in;
+  private final InputStream in;
+  // holds encoded ints and longs read from the input stream
+  private final byte[] scratch;
+  private final byte[] bytes;
+  private int position;
+  private final int limit;
 
   public MemcmpDecoder(InputStream in) {
     this.in = in;
+    this.scratch = new byte[8];
+    this.bytes = null;
+    this.position = 0;
+    this.limit = 0;
+  }
+
+  /**
+   * Creates a MemcmpDecoder that reads from a byte array.
+   *
+   * @param bytes
+   *          The encoded bytes.
+   */
+  public MemcmpDecoder(byte[] bytes) {
+    this(bytes, 0, bytes.length);
+  }
+
+  /**
+   * Creates a MemcmpDecoder that reads from part of a byte array.
+   *
+   * @param bytes
+   *          The array that contains the encoded bytes.
+   * @param offset
+   *          The index of the first encoded byte.
+   * @param length
+   *          The number of encoded bytes.
+   */
+  public MemcmpDecoder(byte[] bytes, int offset, int length) {
+    this.in = null;
+    this.scratch = null;
+    this.bytes = bytes;
+    this.position = offset;
+    this.limit = offset + length;
   }
 
   @Override
@@ -46,11 +86,7 @@ public class MemcmpDecoder extends Decoder {
    */
   @Override
   public boolean readBoolean() throws IOException {
-    int byteRead = in.read();
-    if (byteRead == -1) {
-      throw new EOFException();
-    }
-    return byteRead > 0;
+    return readByte() != 0;
   }
 
   /**
@@ -64,15 +100,14 @@ public class MemcmpDecoder extends Decoder {
    */
   @Override
   public int readInt() throws IOException {
-    byte[] intBytes = new byte[4];
-    int i = in.read(intBytes);
-    if (i < 4) {
-      throw new EOFException();
+    byte[] intBytes = bytes;
+    int start = fill(4);
+    if (intBytes == null) {
+      intBytes = scratch;
     }
-    intBytes[0] = (byte) (intBytes[0] ^ 0x80);
 
-    int value = 0;
-    for (int j = 0; j < intBytes.length; ++j) {
+    int value = (intBytes[start] ^ 0x80) & 0xff;
+    for (int j = start + 1; j < start + 4; ++j) {
       value = (value << 8) + (intBytes[j] & 0xff);
     }
     return value;
@@ -89,15 +124,14 @@ public class MemcmpDecoder extends Decoder {
    */
   @Override
   public long readLong() throws IOException {
-    byte[] longBytes = new byte[8];
-    int i = in.read(longBytes);
-    if (i < 8) {
-      throw new EOFException();
+    byte[] longBytes = bytes;
+    int start = fill(8);
+    if (longBytes == null) {
+      longBytes = scratch;
     }
-    longBytes[0] = (byte) (longBytes[0] ^ 0x80);
 
-    long value = 0;
-    for (int j = 0; j < longBytes.length; ++j) {
+    long value = (longBytes[start] ^ 0x80) & 0xff;
+    for (int j = start + 1; j < start + 8; ++j) {
       value = (value << 8) + (longBytes[j] & 0xff);
     }
     return value;
@@ -177,6 +211,10 @@ public class MemcmpDecoder extends Decoder {
    */
   @Override
   public ByteBuffer readBytes(ByteBuffer old) throws IOException {
+    if (in == null) {
+      return ByteBuffer.wrap(readEscapedBytes());
+    }
+
     ByteArrayOutputStream bytesOut = new ByteArrayOutputStream();
     while (true) {
       int byteRead = in.read();
@@ -185,7 +223,7 @@ public class MemcmpDecoder extends Decoder {
       }
       if (byteRead == 0) {
         int secondByteRead = in.read();
-        if (byteRead < 0) {
+        if (secondByteRead < 0) {
           throw new EOFException();
         }
         if (secondByteRead == 0) {
@@ -193,10 +231,7 @@ public class MemcmpDecoder extends Decoder {
         } else if (secondByteRead == 1) {
           bytesOut.write(0);
         } else {
-          String msg = "Illegal encoding. 0 byte cannot be followed by "
-              + "anything other than 0 or 1. It was followed by "
-              + Integer.toString(byteRead);
-          throw new IOException(msg);
+          throw illegalEncoding(secondByteRead);
         }
       } else {
         bytesOut.write(byteRead);
@@ -226,6 +261,10 @@ public class MemcmpDecoder extends Decoder {
    */
   @Override
   public void readFixed(byte[] bytes, int start, int length) throws IOException {
+    if (in == null) {
+      System.arraycopy(this.bytes, fill(length), bytes, start, length);
+      return;
+    }
     int i = in.read(bytes, start, length);
     if (i < length) {
       throw new EOFException();
@@ -240,6 +279,10 @@ public class MemcmpDecoder extends Decoder {
    */
   @Override
   public void skipFixed(int length) throws IOException {
+    if (in == null) {
+      fill(length);
+      return;
+    }
     in.skip(length);
   }
 
@@ -316,10 +359,87 @@ public class MemcmpDecoder extends Decoder {
    * @return the byte read.
    */
   private byte readByte() throws IOException {
+    if (in == null) {
+      return bytes[fill(1)];
+    }
     int byteRead = in.read();
     if (byteRead == -1) {
       throw new EOFException();
     }
     return (byte) byteRead;
   }
+
+  /**
+   * Make the next length bytes available and return the index of the first.
+   * Bytes are read from the byte array, or into the scratch array when
+   * reading from a stream.
+   *
+   * @return the index of the first byte in the byte array or scratch array.
+   */
+  private int fill(int length) throws IOException {
+    if (in == null) {
+      if (limit - position < length) {
+        throw new EOFException();
+      }
+      int start = position;
+      position += length;
+      return start;
+    }
+    int i = in.read(scratch, 0, length);
+    if (i < length) {
+      throw new EOFException();
+    }
+    return 0;
+  }
+
+  /**
+   * Read escaped bytes from the byte array up to the two 0 byte end marker.
+   * The length is found first so that the result is allocated once.
+   *
+   * @return the unescaped bytes.
+   */
+  private byte[] readEscapedBytes() throws IOException {
+    int length = 0;
+    int end = position;
+    while (true) {
+      if (end >= limit) {
+        throw new EOFException();
+      }
+      if (bytes[end] == 0) {
+        if (end + 1 >= limit) {
+          throw new EOFException();
+        }
+        int secondByte = bytes[end + 1];
+        if (secondByte == 0) {
+          break;
+        } else if (secondByte != 1) {
+          throw illegalEncoding(secondByte & 0xff);
+        }
+        end += 2;
+      } else {
+        end += 1;
+      }
+      length += 1;
+    }
+
+    byte[] result = new byte[length];
+    int j = 0;
+    for (int i = position; i < end; ++i) {
+      result[j] = bytes[i];
+      if (bytes[i] == 0) {
+        // skip the 1 that follows an escaped 0
+        i += 1;
+      }
+      j += 1;
+    }
+    // skip the end marker
+    position = end + 2;
+    return result;
+  }
+
+  private static IOException illegalEncoding(int followingByte) {
+    return new IOException("Illegal encoding. 0 byte cannot be followed by "
+        + "anything other than 0 or 1. It was followed by "
+        + Integer.toString(followingByte));
+  }
 }
@@ -18,20 +18,79 @@ package org.kitesdk.data.hbase.avro.io;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.nio.ByteBuffer;
+import java.util.Arrays;
 import org.apache.avro.util.Utf8;
 import org.apache.avro.io.Encoder;
 
 /**
  * A class that will encode Avro types, whose sort order can be determined by a
  * memcmp.
+ * <p>
+ * An encoder created with an OutputStream writes each value to the stream. An
+ * encoder created without one writes into a growable byte array that is
+ * reused after {@link #reset()}, which avoids the stream overhead when
+ * encoding many small values, like row keys.
  */
 public class MemcmpEncoder extends Encoder {
-  private OutputStream out;
+  private static final int DEFAULT_BUFFER_SIZE = 64;
+
+  private final OutputStream out;
+  // holds encoded ints and longs before they are written
+  private final byte[] scratch = new byte[8];
+  private byte[] buffer;
+  private int count = 0;
 
   public MemcmpEncoder(OutputStream out) {
     this.out = out;
   }
 
+  /**
+   * Creates a MemcmpEncoder that writes to a byte array. The encoded bytes are
+   * returned by {@link #toByteArray()}.
+   */
+  public MemcmpEncoder() {
+    this.out = null;
+    this.buffer = new byte[DEFAULT_BUFFER_SIZE];
+  }
+
+  /**
+   * Returns a copy of the bytes written to this encoder since it was created
+   * or reset.
+   *
+   * @return The encoded bytes.
+   * @throws IllegalStateException
+   *           If this encoder writes to an OutputStream.
+   */
+  public byte[] toByteArray() {
+    checkBuffered();
+    return Arrays.copyOf(buffer, count);
+  }
+
+  /**
+   * Returns the number of bytes written to this encoder since it was created
+   * or reset.
+   *
+   * @return The number of encoded bytes.
+   * @throws IllegalStateException
+   *           If this encoder writes to an OutputStream.
+   */
+  public int size() {
+    checkBuffered();
+    return count;
+  }
+
+  /**
+   * Discards the bytes written to this encoder so that its buffer can be
+   * reused.
+   *
+   * @throws IllegalStateException
+   *           If this encoder writes to an OutputStream.
+   */
+  public void reset() {
+    checkBuffered();
+    count = 0;
+  }
+
   @Override
   public void flush() throws IOException {
     if (out != null) {
@@ -51,7 +110,7 @@ public class MemcmpEncoder extends Encoder {
    */
   @Override
   public void writeBoolean(boolean b) throws IOException {
-    out.write(b ? 1 : 0);
+    write(b ? 1 : 0);
   }
 
   /**
@@ -63,9 +122,11 @@ public class MemcmpEncoder extends Encoder {
    */
   @Override
   public void writeInt(int n) throws IOException {
-    byte[] intBytes = new byte[] { (byte) ((n >>> 24) ^ 0x80),
-        (byte) (n >>> 16), (byte) (n >>> 8), (byte) n };
-    out.write(intBytes);
+    scratch[0] = (byte) ((n >>> 24) ^ 0x80);
+    scratch[1] = (byte) (n >>> 16);
+    scratch[2] = (byte) (n >>> 8);
+    scratch[3] = (byte) n;
+    write(scratch, 0, 4);
   }
 
   /**
@@ -77,10 +138,15 @@ public class MemcmpEncoder extends Encoder {
    */
   @Override
   public void writeLong(long n) throws IOException {
-    byte[] intBytes = new byte[] { (byte) ((n >>> 56) ^ 0x80),
-        (byte) (n >>> 48), (byte) (n >>> 40), (byte) (n >>> 32),
-        (byte) (n >>> 24), (byte) (n >>> 16), (byte) (n >>> 8), (byte) n };
-    out.write(intBytes);
+    scratch[0] = (byte) ((n >>> 56) ^ 0x80);
+    scratch[1] = (byte) (n >>> 48);
+    scratch[2] = (byte) (n >>> 40);
+    scratch[3] = (byte) (n >>> 32);
+    scratch[4] = (byte) (n >>> 24);
+    scratch[5] = (byte) (n >>> 16);
+    scratch[6] = (byte) (n >>> 8);
+    scratch[7] = (byte) n;
+    write(scratch, 0, 8);
   }
 
   /**
@@ -143,7 +209,7 @@ public class MemcmpEncoder extends Encoder {
    */
   @Override
   public void writeFixed(byte[] bytes, int start, int len) throws IOException {
-    out.write(bytes, start, len);
+    write(bytes, start, len);
   }
 
   /**
@@ -175,16 +241,20 @@ public class MemcmpEncoder extends Encoder {
    */
   @Override
   public void writeBytes(byte[] bytes, int start, int len) throws IOException {
-    for (int i = start; i < start + len; ++i) {
+    // write runs of non-zero bytes at once, escaping each 0x00 between them
+    int runStart = start;
+    int end = start + len;
+    for (int i = start; i < end; ++i) {
       if (bytes[i] == 0x00) {
-        out.write(0);
-        out.write(1);
-      } else {
-        out.write((int) bytes[i]);
+        write(bytes, runStart, i - runStart);
+        write(0);
+        write(1);
+        runStart = i + 1;
       }
     }
-    out.write(0);
-    out.write(0);
+    write(bytes, runStart, end - runStart);
+    write(0);
+    write(0);
   }
 
   /**
@@ -210,7 +280,7 @@ public class MemcmpEncoder extends Encoder {
    */
   @Override
   public void startItem() throws IOException {
-    out.write(1);
+    write(1);
   }
 
   /**
@@ -218,7 +288,7 @@ public class MemcmpEncoder extends Encoder {
    */
   @Override
   public void writeArrayEnd() throws IOException {
-    out.write(0);
+    write(0);
   }
 
   /**
@@ -249,4 +319,40 @@ public class MemcmpEncoder extends Encoder {
   public void writeIndex(int unionIndex) throws IOException {
     writeInt(unionIndex);
   }
+
+  private void write(int b) throws IOException {
+    if (out != null) {
+      out.write(b);
+    } else {
+      ensureCapacity(1);
+      buffer[count] = (byte) b;
+      count += 1;
+    }
+  }
+
+  private void write(byte[] bytes, int start, int len) throws IOException {
+    if (len == 0) {
+      return;
+    }
+    if (out != null) {
+      out.write(bytes, start, len);
+    } else {
+      ensureCapacity(len);
+      System.arraycopy(bytes, start, buffer, count, len);
+      count += len;
+    }
+  }
+
+  private void ensureCapacity(int len) {
+    if (count + len > buffer.length) {
+      buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, count + len));
+    }
+  }
+
+  private void checkBuffered() {
+    if (out != null) {
+      throw new IllegalStateException(
+          "MemcmpEncoder writes to an OutputStream, not a byte array.");
+    }
+  }
 }
@@ -0,0 +1,49 @@
+/**
+ * Copyright 2015 Cloudera Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kitesdk.data.hbase.filters;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import org.apache.hadoop.hbase.filter.Filter;
+import org.apache.hadoop.hbase.filter.FilterList;
+import org.kitesdk.data.hbase.impl.EntitySchema;
+import org.kitesdk.data.hbase.impl.EntitySerDe;
+
+/**
+ * An EntityFilter that will only include rows where an entity field is equal
+ * to one of a set of values. Rows that don't have a value for the field are
+ * included.
+ */
+public class InEntityFilter implements EntityFilter {
+
+  private final Filter filter;
+
+  public InEntityFilter(EntitySchema entitySchema,
+      EntitySerDe<?> entitySerDe, String fieldName,
+      Collection<?> filterValues) {
+    List<Filter> filters = new ArrayList<Filter>(filterValues.size());
+    for (Object filterValue : filterValues) {
+      filters.add(new SingleFieldEntityFilter(entitySchema, entitySerDe,
+          fieldName, filterValue).getFilter());
+    }
+    this.filter = new FilterList(FilterList.Operator.MUST_PASS_ONE, filters);
+  }
+
+  public Filter getFilter() {
+    return filter;
+  }
+}
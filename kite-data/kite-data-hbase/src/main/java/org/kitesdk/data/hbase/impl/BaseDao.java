@@ -15,6 +15,9 @@
  */
 package org.kitesdk.data.hbase.impl;
 
+import java.util.Collection;
+import java.util.List;
+
 import org.kitesdk.data.spi.PartitionKey;
 import org.kitesdk.data.PartitionStrategy;
 
@@ -70,11 +73,21 @@ public class BaseDao<E> implements Dao<E> {
     return clientTemplate.get(key, entityMapper);
   }
 
+  @Override
+  public List<E> get(Collection<PartitionKey> keys) {
+    return clientTemplate.get(keys, entityMapper);
+  }
+
   @Override
   public boolean put(E entity) {
     return clientTemplate.put(entity, entityMapper);
   }
 
+  @Override
+  public boolean putAll(Collection<E> entities) {
+    return clientTemplate.putAll(entities, entityMapper);
+  }
+
   @Override
   public long increment(PartitionKey key, String fieldName, long amount) {
     return clientTemplate.increment(key, fieldName, amount, entityMapper);
@@ -85,6 +98,12 @@ public class BaseDao<E> implements Dao<E> {
         entityMapper.getKeySerDe());
   }
 
+  @Override
+  public void deleteAll(Collection<PartitionKey> keys) {
+    clientTemplate.deleteAll(keys, entityMapper.getRequiredColumns(),
+        entityMapper.getKeySerDe());
+  }
+
   @Override
   public boolean delete(E entity) {
     VersionCheckAction checkAction = entityMapper.mapFromEntity(entity)
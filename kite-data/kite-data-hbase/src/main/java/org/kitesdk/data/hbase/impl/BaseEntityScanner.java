@@ -104,7 +104,13 @@ public class BaseEntityScanner<E> extends AbstractDatasetReader<E>
     }
 
     if (scanBuilder.getEntityMapper() != null) {
-      HBaseUtils.addColumnsToScan(entityMapper.getRequiredColumns(), this.scan);
+      if (scanBuilder.getFields() != null) {
+        HBaseUtils.addColumnsToScan(HBaseUtils.getRequiredColumns(
+            entityMapper, scanBuilder.getFields()), this.scan);
+      } else {
+        HBaseUtils.addColumnsToScan(entityMapper.getRequiredColumns(),
+            this.scan);
+      }
     }
 
     // If Filter List Was Built, Add It To The Scanner
@@ -213,6 +219,18 @@ public class BaseEntityScanner<E> extends AbstractDatasetReader<E>
     return scan;
   }
 
+  HTablePool getTablePool() {
+    return tablePool;
+  }
+
+  String getTableName() {
+    return tableName;
+  }
+
+  EntityMapper<E> getEntityMapper() {
+    return entityMapper;
+  }
+
   /**
    * Scanner builder for BaseEntityScanner
    * 
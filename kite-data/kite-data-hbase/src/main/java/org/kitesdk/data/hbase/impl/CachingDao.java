@@ -0,0 +1,532 @@
+/**
+ * Copyright 2015 Cloudera Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kitesdk.data.hbase.impl;
+
+import com.google.common.base.Preconditions;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.RemovalListener;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.cache.Weigher;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.IndexedRecord;
+import org.apache.avro.specific.SpecificData;
+import org.apache.avro.specific.SpecificRecord;
+import org.apache.hadoop.hbase.client.Get;
+import org.apache.hadoop.hbase.client.Result;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.kitesdk.data.PartitionStrategy;
+import org.kitesdk.data.spi.PartitionKey;
+
+/**
+ * A Dao that caches entities returned by point lookups in memory.
+ * <p>
+ * Cached entities are invalidated when they are changed through this Dao: by
+ * put, delete, increment, or a batch created by this Dao. A put or delete that
+ * fails its version check also invalidates the entity, because the check
+ * failed when the row was changed by another client. Entities expire a fixed
+ * time after they are loaded, which bounds how long other changes go
+ * unnoticed.
+ * <p>
+ * If version columns are given, each cache hit also reads those columns from
+ * HBase and reloads the entity if they have changed since it was cached. This
+ * catches changes made by other clients, at the cost of a small Get per hit.
+ * <p>
+ * Callers get a copy of the cached entity, so entities can be modified
+ * without changing the cache. Only Avro records are cached.
+ *
+ * @param <E>
+ *          The entity type.
+ */
+public class CachingDao<E> implements Dao<E> {
+
+  // after this many keys, a batch invalidates the whole cache when flushed
+  private static final int MAX_TRACKED_BATCH_KEYS = 10000;
+
+  private final Dao<E> dao;
+  private final EntityMapper<E> entityMapper;
+  private final HBaseClientTemplate clientTemplate;
+  private final List<String> versionColumns;
+  private final Cache<PartitionKey, CachedEntity<E>> cache;
+  private final AtomicLong hits = new AtomicLong(0);
+  private final AtomicLong misses = new AtomicLong(0);
+  private final AtomicLong evictions = new AtomicLong(0);
+
+  // incremented by every change so that loads that overlap a change, and may
+  // have read the old entity, are not cached
+  private final AtomicLong changes = new AtomicLong(0);
+
+  /**
+   * Constructs a CachingDao. Exactly one of maxEntries and maxBytes must be
+   * positive.
+   *
+   * @param dao
+   *          The Dao that loads and stores entities.
+   * @param entityMapper
+   *          The EntityMapper used by the dao, used to find entity keys and
+   *          estimate entity sizes.
+   * @param maxEntries
+   *          The maximum number of cached entities, or 0 to bound by size.
+   * @param maxBytes
+   *          The maximum estimated size of cached entities, or 0 to bound by
+   *          number.
+   * @param ttlMillis
+   *          How long an entity may be cached, in milliseconds.
+   */
+  public CachingDao(Dao<E> dao, EntityMapper<E> entityMapper,
+      long maxEntries, long maxBytes, long ttlMillis) {
+    this(dao, entityMapper, maxEntries, maxBytes, ttlMillis, null, null);
+  }
+
+  /**
+   * Constructs a CachingDao that checks version columns on each cache hit.
+   * Exactly one of maxEntries and maxBytes must be positive.
+   *
+   * @param dao
+   *          The Dao that loads and stores entities.
+   * @param entityMapper
+   *          The EntityMapper used by the dao, used to find entity keys and
+   *          estimate entity sizes.
+   * @param maxEntries
+   *          The maximum number of cached entities, or 0 to bound by size.
+   * @param maxBytes
+   *          The maximum estimated size of cached entities, or 0 to bound by
+   *          number.
+   * @param ttlMillis
+   *          How long an entity may be cached, in milliseconds.
+   * @param clientTemplate
+   *          The HBaseClientTemplate used to read version columns, or null to
+   *          skip version checks.
+   * @param versionColumns
+   *          The columns, as family:qualifier, that change whenever a row is
+   *          changed, or null to skip version checks.
+   */
+  public CachingDao(Dao<E> dao, final EntityMapper<E> entityMapper,
+      long maxEntries, long maxBytes, long ttlMillis,
+      HBaseClientTemplate clientTemplate, Set<String> versionColumns) {
+    Preconditions.checkArgument((maxEntries > 0) != (maxBytes > 0),
+        "Either max entries or max bytes must be set: %s, %s",
+        maxEntries, maxBytes);
+    Preconditions.checkArgument(ttlMillis > 0,
+        "TTL must be positive: %s", ttlMillis);
+    Preconditions.checkArgument((clientTemplate == null) ==
+        (versionColumns == null || versionColumns.isEmpty()),
+        "Version checks require a client template and version columns");
+    this.dao = dao;
+    this.entityMapper = entityMapper;
+    this.clientTemplate = clientTemplate;
+    this.versionColumns = (versionColumns == null ? null :
+        new ArrayList<String>(versionColumns));
+
+    // Guava 11 has no CacheBuilder#recordStats, so evictions are counted here
+    CacheBuilder<PartitionKey, CachedEntity<E>> builder = CacheBuilder
+        .newBuilder()
+        .expireAfterWrite(ttlMillis, TimeUnit.MILLISECONDS)
+        .removalListener(new RemovalListener<PartitionKey, CachedEntity<E>>() {
+          @Override
+          public void onRemoval(
+              RemovalNotification<PartitionKey, CachedEntity<E>> removal) {
+            if (removal.wasEvicted()) {
+              evictions.incrementAndGet();
+            }
+          }
+        });
+    if (maxEntries > 0) {
+      this.cache = builder.maximumSize(maxEntries).build();
+    } else {
+      this.cache = builder
+          .weigher(new Weigher<PartitionKey, CachedEntity<E>>() {
+            @Override
+            public int weigh(PartitionKey key, CachedEntity<E> cached) {
+              // estimate the size using the Put that would store the entity
+              long size = entityMapper.mapFromEntity(cached.entity)
+                  .getPut().heapSize();
+              return (int) Math.min(size, Integer.MAX_VALUE);
+            }
+          })
+          .maximumWeight(maxBytes)
+          .build();
+    }
+  }
+
+  @Override
+  public E get(PartitionKey key) {
+    CachedEntity<E> cached = cache.getIfPresent(key);
+    List<ByteBuffer> versions = null;
+    if (cached != null) {
+      if (checkVersions()) {
+        versions = getVersions(key);
+      }
+      if (versions == null || versions.equals(cached.versions)) {
+        hits.incrementAndGet();
+        return copy(cached.entity);
+      }
+    }
+
+    misses.incrementAndGet();
+    long changesBeforeLoad = changes.get();
+    if (versions == null && checkVersions()) {
+      // read versions before the entity so they are never newer than it
+      versions = getVersions(key);
+    }
+    E entity = dao.get(key);
+    cache(key, entity, versions, changesBeforeLoad);
+    return entity;
+  }
+
+  @Override
+  public List<E> get(Collection<PartitionKey> keys) {
+    List<PartitionKey> keyList = new ArrayList<PartitionKey>(keys);
+    List<List<ByteBuffer>> versions = null;
+    if (checkVersions()) {
+      // read versions before the entities so they are never newer than them
+      versions = getVersions(keyList);
+    }
+
+    List<E> entities = new ArrayList<E>(keyList.size());
+    List<PartitionKey> missingKeys = new ArrayList<PartitionKey>();
+    List<Integer> missingPositions = new ArrayList<Integer>();
+    for (int i = 0; i < keyList.size(); i += 1) {
+      PartitionKey key = keyList.get(i);
+      CachedEntity<E> cached = cache.getIfPresent(key);
+      if (cached != null &&
+          (versions == null || versions.get(i).equals(cached.versions))) {
+        entities.add(copy(cached.entity));
+      } else {
+        missingPositions.add(entities.size());
+        missingKeys.add(key);
+        entities.add(null);
+      }
+    }
+    hits.addAndGet(entities.size() - missingKeys.size());
+    misses.addAndGet(missingKeys.size());
+
+    if (!missingKeys.isEmpty()) {
+      long changesBeforeLoad = changes.get();
+      List<E> loaded = dao.get(missingKeys);
+      for (int i = 0; i < loaded.size(); i += 1) {
+        E entity = loaded.get(i);
+        int position = missingPositions.get(i);
+        entities.set(position, entity);
+        cache(missingKeys.get(i), entity,
+            versions == null ? null : versions.get(position),
+            changesBeforeLoad);
+      }
+    }
+
+    return entities;
+  }
+
+  @Override
+  public boolean put(E entity) {
+    try {
+      return dao.put(entity);
+    } finally {
+      invalidate(entityMapper.mapToKey(entity));
+    }
+  }
+
+  @Override
+  public boolean putAll(Collection<E> entities) {
+    try {
+      return dao.putAll(entities);
+    } finally {
+      for (E entity : entities) {
+        invalidate(entityMapper.mapToKey(entity));
+      }
+    }
+  }
+
+  @Override
+  public long increment(PartitionKey key, String fieldName, long amount) {
+    try {
+      return dao.increment(key, fieldName, amount);
+    } finally {
+      invalidate(key);
+    }
+  }
+
+  @Override
+  public void delete(PartitionKey key) {
+    try {
+      dao.delete(key);
+    } finally {
+      invalidate(key);
+    }
+  }
+
+  @Override
+  public void deleteAll(Collection<PartitionKey> keys) {
+    try {
+      dao.deleteAll(keys);
+    } finally {
+      for (PartitionKey key : keys) {
+        invalidate(key);
+      }
+    }
+  }
+
+  @Override
+  public boolean delete(E entity) {
+    try {
+      return dao.delete(entity);
+    } finally {
+      invalidate(entityMapper.mapToKey(entity));
+    }
+  }
+
+  @Override
+  public EntityScanner<E> getScanner() {
+    return dao.getScanner();
+  }
+
+  @Override
+  public EntityScanner<E> getScanner(PartitionKey startKey,
+      PartitionKey stopKey) {
+    return dao.getScanner(startKey, stopKey);
+  }
+
+  @Override
+  public EntityScanner<E> getScanner(PartitionKey startKey,
+      boolean startInclusive, PartitionKey stopKey, boolean stopInclusive) {
+    return dao.getScanner(startKey, startInclusive, stopKey, stopInclusive);
+  }
+
+  @Override
+  public KeySchema getKeySchema() {
+    return dao.getKeySchema();
+  }
+
+  @Override
+  public EntitySchema getEntitySchema() {
+    return dao.getEntitySchema();
+  }
+
+  @Override
+  public PartitionStrategy getPartitionStrategy() {
+    return dao.getPartitionStrategy();
+  }
+
+  @Override
+  public EntityBatch<E> newBatch(long writeBufferSize) {
+    return new InvalidatingBatch(dao.newBatch(writeBufferSize));
+  }
+
+  @Override
+  public EntityBatch<E> newBatch() {
+    return new InvalidatingBatch(dao.newBatch());
+  }
+
+  /**
+   * Returns statistics for this cache: the number of hits, misses, and
+   * evictions. Evictions count entities removed because of the size bound or
+   * the TTL, but not entities invalidated by changes. A cache hit with stale
+   * version columns is counted as a miss.
+   *
+   * @return CacheStats
+   */
+  public CacheStats getStats() {
+    return new CacheStats(hits.get(), misses.get(), 0, 0, 0, evictions.get());
+  }
+
+  /**
+   * Discards all cached entities.
+   */
+  public void invalidateAll() {
+    changes.incrementAndGet();
+    cache.invalidateAll();
+  }
+
+  /**
+   * Returns the Dao wrapped by this CachingDao.
+   *
+   * @return Dao
+   */
+  public Dao<E> getDao() {
+    return dao;
+  }
+
+  private void invalidate(PartitionKey key) {
+    changes.incrementAndGet();
+    cache.invalidate(key);
+  }
+
+  private boolean checkVersions() {
+    return clientTemplate != null;
+  }
+
+  private List<ByteBuffer> getVersions(PartitionKey key) {
+    Get get = new Get(entityMapper.getKeySerDe().serialize(key));
+    HBaseUtils.addColumnsToGet(versionColumns, get);
+    return getVersions(clientTemplate.get(get));
+  }
+
+  private List<List<ByteBuffer>> getVersions(List<PartitionKey> keys) {
+    List<Get> gets = new ArrayList<Get>(keys.size());
+    for (PartitionKey key : keys) {
+      Get get = new Get(entityMapper.getKeySerDe().serialize(key));
+      HBaseUtils.addColumnsToGet(versionColumns, get);
+      gets.add(get);
+    }
+    Result[] results = clientTemplate.get(gets);
+    List<List<ByteBuffer>> versions = new ArrayList<List<ByteBuffer>>(
+        results.length);
+    for (Result result : results) {
+      versions.add(getVersions(result));
+    }
+    return versions;
+  }
+
+  private List<ByteBuffer> getVersions(Result result) {
+    List<ByteBuffer> versions = new ArrayList<ByteBuffer>(
+        versionColumns.size());
+    for (String column : versionColumns) {
+      byte[] value = null;
+      if (result != null && !result.isEmpty()) {
+        int sep = column.indexOf(':');
+        value = result.getValue(Bytes.toBytes(column.substring(0, sep)),
+            Bytes.toBytes(column.substring(sep + 1)));
+      }
+      versions.add(value == null ? null : ByteBuffer.wrap(value));
+    }
+    return versions;
+  }
+
+  private void cache(PartitionKey key, E entity, List<ByteBuffer> versions,
+      long changesBeforeLoad) {
+    if (entity == null || changes.get() != changesBeforeLoad) {
+      return;
+    }
+    E copy = copy(entity);
+    if (copy != null) {
+      cache.put(key, new CachedEntity<E>(copy, versions));
+      // a change may have been made after the check, but before the put
+      if (changes.get() != changesBeforeLoad) {
+        cache.invalidate(key);
+      }
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private E copy(E entity) {
+    if (entity instanceof SpecificRecord) {
+      return (E) SpecificData.get().deepCopy(
+          ((SpecificRecord) entity).getSchema(), entity);
+    } else if (entity instanceof IndexedRecord) {
+      return (E) GenericData.get().deepCopy(
+          ((IndexedRecord) entity).getSchema(), entity);
+    }
+    return null;
+  }
+
+  private static class CachedEntity<E> {
+    private final E entity;
+    // the values of the version columns read before the entity was loaded
+    private final List<ByteBuffer> versions;
+
+    private CachedEntity(E entity, List<ByteBuffer> versions) {
+      this.entity = entity;
+      this.versions = versions;
+    }
+  }
+
+  /**
+   * An EntityBatch that invalidates the entities it writes. Entities are
+   * invalidated when they are written and again when the batch is flushed,
+   * because they may be loaded and cached before the batch is flushed.
+   */
+  private class InvalidatingBatch implements EntityBatch<E> {
+    private final EntityBatch<E> batch;
+    private final List<PartitionKey> unflushedKeys =
+        new ArrayList<PartitionKey>();
+    private boolean invalidateAllOnFlush = false;
+
+    private InvalidatingBatch(EntityBatch<E> batch) {
+      this.batch = batch;
+    }
+
+    @Override
+    public void initialize() {
+      batch.initialize();
+    }
+
+    @Override
+    public void put(E entity) {
+      batch.put(entity);
+      written(entity);
+    }
+
+    @Override
+    public void write(E entity) {
+      batch.write(entity);
+      written(entity);
+    }
+
+    @Override
+    public void flush() {
+      batch.flush();
+      invalidateUnflushed();
+    }
+
+    @Override
+    public void close() {
+      try {
+        batch.close();
+      } finally {
+        invalidateUnflushed();
+      }
+    }
+
+    @Override
+    public boolean isOpen() {
+      return batch.isOpen();
+    }
+
+    private void written(E entity) {
+      PartitionKey key = entityMapper.mapToKey(entity);
+      invalidate(key);
+      if (invalidateAllOnFlush) {
+        return;
+      }
+      if (unflushedKeys.size() < MAX_TRACKED_BATCH_KEYS) {
+        unflushedKeys.add(key);
+      } else {
+        unflushedKeys.clear();
+        this.invalidateAllOnFlush = true;
+      }
+    }
+
+    private void invalidateUnflushed() {
+      if (invalidateAllOnFlush) {
+        invalidateAll();
+      } else {
+        for (PartitionKey key : unflushedKeys) {
+          invalidate(key);
+        }
+      }
+      unflushedKeys.clear();
+      this.invalidateAllOnFlush = false;
+    }
+  }
+}
@@ -17,6 +17,7 @@ package org.kitesdk.data.hbase.impl;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -184,11 +185,21 @@ public abstract class CompositeBaseDao<E, S> implements CompositeDao<E, S> {
     return baseDao.get(key);
   }
 
+  @Override
+  public List<E> get(Collection<PartitionKey> keys) {
+    return baseDao.get(keys);
+  }
+
   @Override
   public boolean put(E entity) {
     return baseDao.put(entity);
   }
 
+  @Override
+  public boolean putAll(Collection<E> entities) {
+    return baseDao.putAll(entities);
+  }
+
   @Override
   public long increment(PartitionKey key, String fieldName, long amount) {
     throw new UnsupportedOperationException(
@@ -200,6 +211,11 @@ public abstract class CompositeBaseDao<E, S> implements CompositeDao<E, S> {
     baseDao.delete(key);
   }
 
+  @Override
+  public void deleteAll(Collection<PartitionKey> keys) {
+    baseDao.deleteAll(keys);
+  }
+
   @Override
   public boolean delete(E entity) {
     return baseDao.delete(entity);
@@ -15,6 +15,9 @@
  */
 package org.kitesdk.data.hbase.impl;
 
+import java.util.Collection;
+import java.util.List;
+
 import org.kitesdk.data.spi.PartitionKey;
 import org.kitesdk.data.PartitionStrategy;
 
@@ -38,6 +41,17 @@ public interface Dao<E> {
    */
   public E get(PartitionKey key);
 
+  /**
+   * Return the entities stored in HBase at the rows specified by the keys,
+   * using a single multi-get.
+   * 
+   * @param keys
+   *          The keys of the rows to fetch
+   * @return A list with the entity for each key, in the same order as the
+   *         keys, or null for keys that have no entity
+   */
+  public List<E> get(Collection<PartitionKey> keys);
+
   /**
    * Put the entity into the HBase table with K key.
    * 
@@ -48,6 +62,17 @@ public interface Dao<E> {
    */
   public boolean put(E entity);
 
+  /**
+   * Put the entities into the HBase table in a batch. Entities with a
+   * checkConflict field are put individually.
+   * 
+   * @param entities
+   *          The entities to store
+   * @return True if all puts succeeded, False if any put failed due to update
+   *         conflict
+   */
+  public boolean putAll(Collection<E> entities);
+
   /**
    * Increment a field named fieldName on the entity by value.
    * 
@@ -70,6 +95,14 @@ public interface Dao<E> {
    */
   public void delete(PartitionKey key);
 
+  /**
+   * Deletes the entities in the HBase table at the keys in a batch.
+   * 
+   * @param keys
+   *          The keys of the entities to delete.
+   */
+  public void deleteAll(Collection<PartitionKey> keys);
+
   /**
    * Deletes the entity in the HBase table. If that entity has a checkConflict
    * field, then the delete will only be performed if the entity has the
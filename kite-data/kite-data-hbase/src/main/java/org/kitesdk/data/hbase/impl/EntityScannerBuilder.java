@@ -16,6 +16,7 @@
 package org.kitesdk.data.hbase.impl;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 import org.apache.hadoop.hbase.client.HTablePool;
@@ -48,6 +49,7 @@ public abstract class EntityScannerBuilder<E> {
   private List<ScanModifier> scanModifiers = new ArrayList<ScanModifier>();
   private boolean passAllFilters = true;
   private List<Filter> filterList = new ArrayList<Filter>();
+  private Collection<String> fields;
 
   /**
    * This is an abstract Builder object for the Entity Scanners, which will
@@ -198,6 +200,29 @@ public abstract class EntityScannerBuilder<E> {
     return this;
   }
 
+  /**
+   * Get the names of the fields to read, or null if all fields are read
+   * 
+   * @return the field names
+   */
+  Collection<String> getFields() {
+    return fields;
+  }
+
+  /**
+   * Set the entity fields the scanner should read. Only the columns those
+   * fields are mapped to are requested from HBase, and the other fields of
+   * scanned entities are set to their default values.
+   * 
+   * @param fields
+   *          The names of the fields to read
+   * @return ScannerBuilder
+   */
+  public EntityScannerBuilder<E> setFields(Collection<String> fields) {
+    this.fields = fields;
+    return this;
+  }
+
   /**
    * Add an Equality Filter to the Scanner, Will Filter Results Not Equal to the
    * Filter Value
@@ -22,6 +22,7 @@ import com.google.common.annotations.VisibleForTesting;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Set;
 
@@ -356,6 +357,81 @@ public class HBaseClientTemplate {
     }
   }
 
+  /**
+   * Execute a list of Gets on HBase as a single multi-get. The HBase client
+   * groups the Gets by region server, so this costs one request per region
+   * server rather than one per Get.
+   * 
+   * Any GetModifers registered with registerGetModifier will be invoked on
+   * each Get before the Gets are executed.
+   * 
+   * @param gets
+   *          The Gets to execute
+   * @return Results returned from the Gets, in the same order as the Gets.
+   */
+  public Result[] get(List<Get> gets) {
+    List<Get> modifiedGets = new ArrayList<Get>(gets.size());
+    for (Get get : gets) {
+      for (GetModifier getModifier : getModifiers) {
+        get = getModifier.modifyGet(get);
+      }
+      modifiedGets.add(get);
+    }
+
+    HTableInterface table = pool.getTable(tableName);
+    try {
+      try {
+        return table.get(modifiedGets);
+      } catch (IOException e) {
+        throw new DatasetIOException("Error performing multi-get", e);
+      }
+    } finally {
+      if (table != null) {
+        try {
+          table.close();
+        } catch (IOException e) {
+          throw new DatasetIOException("Error putting table back into pool", e);
+        }
+      }
+    }
+  }
+
+  /**
+   * Execute a multi-get on HBase, creating a Get for each key from the key's
+   * toByteArray method. Each Result will be mapped to an entity with the
+   * entityMapper.
+   * 
+   * Any GetModifers registered with registerGetModifier will be invoked on
+   * each Get before the Gets are executed.
+   * 
+   * @param keys
+   *          The StorageKeys to create Gets from.
+   * @param entityMapper
+   *          The EntityMapper to use to map the Results to entities.
+   * @return The entities created by the entityMapper, in the same order as
+   *         the keys, with null for each key that has no entity.
+   */
+  public <E> List<E> get(Collection<PartitionKey> keys,
+      EntityMapper<E> entityMapper) {
+    List<Get> gets = new ArrayList<Get>(keys.size());
+    for (PartitionKey key : keys) {
+      Get get = new Get(entityMapper.getKeySerDe().serialize(key));
+      HBaseUtils.addColumnsToGet(entityMapper.getRequiredColumns(), get);
+      gets.add(get);
+    }
+
+    Result[] results = get(gets);
+    List<E> entities = new ArrayList<E>(results.length);
+    for (Result result : results) {
+      if (result == null || result.isEmpty()) {
+        entities.add(null);
+      } else {
+        entities.add(entityMapper.mapToEntity(result));
+      }
+    }
+    return entities;
+  }
+
   /**
    * Execute a Put on HBase.
    * 
@@ -399,6 +475,10 @@ public class HBaseClientTemplate {
     for (PutActionModifier putActionModifier : putActionModifiers) {
       putAction = putActionModifier.modifyPutAction(putAction);
     }
+    return execute(putAction, table);
+  }
+
+  private boolean execute(PutAction putAction, HTableInterface table) {
     Put put = putAction.getPut();
     if (putAction.getVersionCheckAction() != null) {
       byte[] versionBytes = null;
@@ -489,6 +569,84 @@ public class HBaseClientTemplate {
     return put(putAction, putActionModifier);
   }
 
+  /**
+   * Execute a list of PutActions on HBase. Puts without a VersionCheckAction
+   * are sent in a single batch, which the HBase client groups by region
+   * server. Puts with a VersionCheckAction must be executed individually with
+   * checkAndPut.
+   * 
+   * Any PutModifers registered with registerPutModifier will be invoked on
+   * each PutAction before it is executed.
+   * 
+   * @param putActions
+   *          The puts to execute on HBase.
+   * @return True if all puts succeeded, False if any put failed due to update
+   *         conflict
+   */
+  public boolean putAll(List<PutAction> putActions) {
+    HTableInterface table = pool.getTable(tableName);
+    try {
+      List<PutAction> checkedPuts = new ArrayList<PutAction>();
+      List<Put> puts = new ArrayList<Put>(putActions.size());
+      for (PutAction putAction : putActions) {
+        for (PutActionModifier putActionModifier : putActionModifiers) {
+          putAction = putActionModifier.modifyPutAction(putAction);
+        }
+        if (putAction.getVersionCheckAction() != null) {
+          checkedPuts.add(putAction);
+        } else {
+          puts.add(putAction.getPut());
+        }
+      }
+
+      if (!puts.isEmpty()) {
+        try {
+          table.put(puts);
+        } catch (IOException e) {
+          throw new DatasetIOException("Error putting rows from table", e);
+        }
+      }
+
+      boolean succeeded = true;
+      for (PutAction putAction : checkedPuts) {
+        succeeded &= execute(putAction, table);
+      }
+      return succeeded;
+    } finally {
+      if (table != null) {
+        try {
+          table.close();
+        } catch (IOException e) {
+          throw new DatasetIOException("Error putting table back into pool", e);
+        }
+      }
+    }
+  }
+
+  /**
+   * Execute a batch of Puts on HBase, creating the Puts by mapping each entity
+   * to a PutAction with the entityMapper.
+   * 
+   * Any PutModifers registered with registerPutModifier will be invoked on
+   * each PutAction before it is executed.
+   * 
+   * @param entities
+   *          The entities to map to Puts with the entityMapper.
+   * @param entityMapper
+   *          The EntityMapper to map the keys and entities to puts.
+   * @return True if all puts succeeded, False if any put failed due to update
+   *         conflict
+   * @see #putAll(List)
+   */
+  public <E> boolean putAll(Collection<E> entities,
+      EntityMapper<E> entityMapper) {
+    List<PutAction> putActions = new ArrayList<PutAction>(entities.size());
+    for (E entity : entities) {
+      putActions.add(entityMapper.mapFromEntity(entity));
+    }
+    return putAll(putActions);
+  }
+
   /**
    * Execute an increment on an entity field. This field must be a type that
    * supports increments. Returns the new increment value of type long.
@@ -535,26 +693,84 @@ public class HBaseClientTemplate {
       for (DeleteActionModifier deleteActionModifier : deleteActionModifiers) {
         deleteAction = deleteActionModifier.modifyDeleteAction(deleteAction);
       }
-      Delete delete = deleteAction.getDelete();
-      if (deleteAction.getVersionCheckAction() != null) {
-        byte[] versionBytes = Bytes.toBytes(deleteAction
-            .getVersionCheckAction().getVersion());
+      return execute(deleteAction, table);
+    } finally {
+      if (table != null) {
         try {
-          return table.checkAndDelete(delete.getRow(),
-              Constants.SYS_COL_FAMILY, Constants.VERSION_CHECK_COL_QUALIFIER,
-              versionBytes, delete);
+          table.close();
         } catch (IOException e) {
-          throw new DatasetIOException(
-              "Error deleteing row from table with checkAndDelete", e);
+          throw new DatasetIOException("Error putting table back into pool", e);
         }
-      } else {
+      }
+    }
+  }
+
+  private boolean execute(DeleteAction deleteAction, HTableInterface table) {
+    Delete delete = deleteAction.getDelete();
+    if (deleteAction.getVersionCheckAction() != null) {
+      byte[] versionBytes = Bytes.toBytes(deleteAction
+          .getVersionCheckAction().getVersion());
+      try {
+        return table.checkAndDelete(delete.getRow(),
+            Constants.SYS_COL_FAMILY, Constants.VERSION_CHECK_COL_QUALIFIER,
+            versionBytes, delete);
+      } catch (IOException e) {
+        throw new DatasetIOException(
+            "Error deleteing row from table with checkAndDelete", e);
+      }
+    } else {
+      try {
+        table.delete(delete);
+        return true;
+      } catch (IOException e) {
+        throw new DatasetIOException("Error deleteing row from table", e);
+      }
+    }
+  }
+
+  /**
+   * Execute a list of DeleteActions on HBase. Deletes without a
+   * VersionCheckAction are sent in a single batch, which the HBase client
+   * groups by region server. Deletes with a VersionCheckAction must be
+   * executed individually with checkAndDelete.
+   * 
+   * Any DeleteActionModifers registered with registerDeleteModifier will be
+   * invoked on each DeleteAction before it is executed.
+   * 
+   * @param deleteActions
+   *          The deletes to execute on HBase.
+   * @return True if all deletes succeeded, False if any delete failed due to
+   *         update conflict
+   */
+  public boolean deleteAll(List<DeleteAction> deleteActions) {
+    HTableInterface table = pool.getTable(tableName);
+    try {
+      List<DeleteAction> checkedDeletes = new ArrayList<DeleteAction>();
+      List<Delete> deletes = new ArrayList<Delete>(deleteActions.size());
+      for (DeleteAction deleteAction : deleteActions) {
+        for (DeleteActionModifier deleteActionModifier : deleteActionModifiers) {
+          deleteAction = deleteActionModifier.modifyDeleteAction(deleteAction);
+        }
+        if (deleteAction.getVersionCheckAction() != null) {
+          checkedDeletes.add(deleteAction);
+        } else {
+          deletes.add(deleteAction.getDelete());
+        }
+      }
+
+      if (!deletes.isEmpty()) {
         try {
-          table.delete(delete);
-          return true;
+          table.delete(deletes);
         } catch (IOException e) {
-          throw new DatasetIOException("Error deleteing row from table", e);
+          throw new DatasetIOException("Error deleteing rows from table", e);
         }
       }
+
+      boolean succeeded = true;
+      for (DeleteAction deleteAction : checkedDeletes) {
+        succeeded &= execute(deleteAction, table);
+      }
+      return succeeded;
     } finally {
       if (table != null) {
         try {
@@ -638,6 +854,38 @@ public class HBaseClientTemplate {
   public boolean delete(PartitionKey key, Set<String> columns,
       VersionCheckAction checkAction,
       DeleteActionModifier deleteActionModifier, KeySerDe keySerDe) {
+    Delete delete = newDelete(key, columns, keySerDe);
+    return delete(new DeleteAction(delete, checkAction), deleteActionModifier);
+  }
+
+  /**
+   * Execute a batch of Deletes on HBase, creating a Delete for each key and
+   * the set of columns. Only the columns specified in this set will be deleted
+   * in each row.
+   * 
+   * Any DeleteActionModifers registered with registerDeleteModifier will be
+   * invoked on each Delete before it is executed.
+   * 
+   * @param keys
+   *          The StorageKeys to map to Deletes.
+   * @param columns
+   *          The set of columns to delete from each row.
+   * @return True if all deletes succeeded, False if any delete failed due to
+   *         update conflict
+   * @see #deleteAll(List)
+   */
+  public boolean deleteAll(Collection<PartitionKey> keys, Set<String> columns,
+      KeySerDe keySerDe) {
+    List<DeleteAction> deleteActions = new ArrayList<DeleteAction>(keys.size());
+    for (PartitionKey key : keys) {
+      deleteActions.add(
+          new DeleteAction(newDelete(key, columns, keySerDe), null));
+    }
+    return deleteAll(deleteActions);
+  }
+
+  private static Delete newDelete(PartitionKey key, Set<String> columns,
+      KeySerDe keySerDe) {
     byte[] keyBytes = keySerDe.serialize(key);
     Delete delete = new Delete(keyBytes);
     for (String requiredColumn : columns) {
@@ -649,7 +897,7 @@ public class HBaseClientTemplate {
             Bytes.toBytes(familyAndColumn[1]));
       }
     }
-    return delete(new DeleteAction(delete, checkAction), deleteActionModifier);
+    return delete;
   }
 
   /**
@@ -28,6 +28,8 @@ import org.apache.hadoop.hbase.client.Put;
 import org.apache.hadoop.hbase.client.Scan;
 import org.apache.hadoop.hbase.util.Bytes;
 import org.kitesdk.compat.DynMethods;
+import org.kitesdk.data.ColumnMapping;
+import org.kitesdk.data.FieldMapping;
 
 /**
  * Static utility functions for working with the HBase API.
@@ -159,6 +161,48 @@ public class HBaseUtils {
     });
   }
 
+  /**
+   * Get the columns an EntityMapper needs to read the given fields of its
+   * entities. Columns for the other fields are left out, but columns that
+   * aren't mapped to a field, like the schema version column, are kept.
+   * <p>
+   * If none of the fields is stored in a column, for example when only key
+   * fields are requested, all of the required columns are returned so that
+   * rows are still read.
+   *
+   * @param entityMapper
+   *          The EntityMapper that will map rows to entities
+   * @param fieldNames
+   *          The names of the fields to read
+   * @return The set of columns, in the format of getRequiredColumns
+   */
+  public static Set<String> getRequiredColumns(EntityMapper<?> entityMapper,
+      Collection<String> fieldNames) {
+    Set<String> columns = new HashSet<String>(
+        entityMapper.getRequiredColumns());
+
+    ColumnMapping.Builder requested = new ColumnMapping.Builder();
+    ColumnMapping.Builder other = new ColumnMapping.Builder();
+    for (FieldMapping fieldMapping : entityMapper.getEntitySchema()
+        .getColumnMappingDescriptor().getFieldMappings()) {
+      if (fieldNames.contains(fieldMapping.getFieldName())) {
+        requested.fieldMapping(fieldMapping);
+      } else {
+        other.fieldMapping(fieldMapping);
+      }
+    }
+
+    Set<String> requestedColumns = requested.build().getRequiredColumns();
+    if (requestedColumns.isEmpty()) {
+      return columns;
+    }
+
+    Set<String> otherColumns = other.build().getRequiredColumns();
+    otherColumns.removeAll(requestedColumns);
+    columns.removeAll(otherColumns);
+    return columns;
+  }
+
   /**
    * Add a Collection of Columns to a Get, Only Add Single Columns
    * If Their Family Isn't Already Being Added.
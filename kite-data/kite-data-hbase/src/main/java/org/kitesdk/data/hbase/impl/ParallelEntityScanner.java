@@ -0,0 +1,369 @@
+/**
+ * Copyright 2015 Cloudera Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kitesdk.data.hbase.impl;
+
+import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.apache.hadoop.hbase.client.HTable;
+import org.apache.hadoop.hbase.client.HTableInterface;
+import org.apache.hadoop.hbase.client.HTablePool;
+import org.apache.hadoop.hbase.client.Result;
+import org.apache.hadoop.hbase.client.ResultScanner;
+import org.apache.hadoop.hbase.client.Scan;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.hadoop.hbase.util.Pair;
+import org.kitesdk.data.DatasetIOException;
+import org.kitesdk.data.DatasetOperationException;
+import org.kitesdk.data.spi.AbstractDatasetReader;
+import org.kitesdk.data.spi.ReaderWriterState;
+
+/**
+ * An EntityScanner that splits a scan at region boundaries and scans the
+ * regions in parallel.
+ * <p>
+ * Each region is scanned by a background thread that maps rows to entities
+ * and buffers them until they are read. At most one region per thread is
+ * scanned at a time, and each scan buffers a bounded number of entities, so
+ * memory use does not depend on the number of regions.
+ * <p>
+ * When ordered, entities are returned in key order: regions are read in order
+ * while later regions are scanned ahead. When unordered, entities are
+ * returned from any region as soon as they are scanned.
+ *
+ * @param <E>
+ *          The entity type this scanner scans.
+ */
+public class ParallelEntityScanner<E> extends AbstractDatasetReader<E>
+    implements EntityScanner<E> {
+
+  // added to a region's queue when its scan is finished
+  private static final Object END = new Object();
+
+  private final Scan scan;
+  private final HTablePool tablePool;
+  private final String tableName;
+  private final EntityMapper<E> entityMapper;
+  private final int threads;
+  private final int bufferSize;
+  private final boolean ordered;
+
+  private List<Scan> regionScans;
+  private BlockingQueue<Object>[] queues;
+  private ExecutorService executor;
+  private int nextScan = 0;
+  private int current = 0;
+  private E next = null;
+  // a failed scan leaves nothing in its queue, so the failure is kept
+  private ScanFailure failure = null;
+  private volatile ReaderWriterState state;
+
+  /**
+   * Construct a ParallelEntityScanner for the scan that a BaseEntityScanner
+   * would run.
+   *
+   * @param scanner
+   *          The BaseEntityScanner whose Scan will be split. It is not opened.
+   * @param threads
+   *          The number of regions to scan at once.
+   * @param bufferSize
+   *          The number of entities to buffer for each region scan.
+   * @param ordered
+   *          Whether entities are returned in key order.
+   */
+  public ParallelEntityScanner(BaseEntityScanner<E> scanner, int threads,
+      int bufferSize, boolean ordered) {
+    Preconditions.checkArgument(threads > 0,
+        "Number of threads must be positive: %s", threads);
+    Preconditions.checkArgument(bufferSize > 0,
+        "Buffer size must be positive: %s", bufferSize);
+    this.scan = scanner.getScan();
+    this.tablePool = scanner.getTablePool();
+    this.tableName = scanner.getTableName();
+    this.entityMapper = scanner.getEntityMapper();
+    this.threads = threads;
+    this.bufferSize = bufferSize;
+    this.ordered = ordered;
+
+    this.state = ReaderWriterState.NEW;
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public void initialize() {
+    Preconditions.checkState(state.equals(ReaderWriterState.NEW),
+        "A scanner may not be opened more than once - current state:%s", state);
+
+    this.regionScans = splitScan();
+    this.queues = new BlockingQueue[regionScans.size()];
+    if (ordered) {
+      for (int i = 0; i < queues.length; i += 1) {
+        queues[i] = new ArrayBlockingQueue<Object>(bufferSize);
+      }
+    } else {
+      // all region scans share one queue, which is read until every scan ends
+      BlockingQueue<Object> shared =
+          new ArrayBlockingQueue<Object>(bufferSize * threads);
+      for (int i = 0; i < queues.length; i += 1) {
+        queues[i] = shared;
+      }
+    }
+
+    this.executor = Executors.newFixedThreadPool(
+        Math.max(1, Math.min(threads, regionScans.size())),
+        new ThreadFactoryBuilder()
+            .setDaemon(true)
+            .setNameFormat("kite-hbase-scan-%d")
+            .build());
+    for (int i = 0; i < threads; i += 1) {
+      startNextScan();
+    }
+
+    state = ReaderWriterState.OPEN;
+  }
+
+  @Override
+  public void close() {
+    if (!state.equals(ReaderWriterState.OPEN)) {
+      return;
+    }
+
+    state = ReaderWriterState.CLOSED;
+
+    // interrupts scans that are waiting for space in a queue
+    executor.shutdownNow();
+  }
+
+  @Override
+  public boolean isOpen() {
+    return state.equals(ReaderWriterState.OPEN);
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public boolean hasNext() {
+    Preconditions.checkState(state.equals(ReaderWriterState.OPEN),
+        "Attempt to read from a scanner in state:%s", state);
+
+    if (failure != null) {
+      throw failure.toException();
+    }
+
+    while (next == null) {
+      if (current >= queues.length) {
+        // every region scan has finished
+        executor.shutdown();
+        return false;
+      }
+
+      Object item = take(queues[current]);
+      if (item == END) {
+        current += 1;
+        startNextScan();
+      } else if (item instanceof ScanFailure) {
+        this.failure = (ScanFailure) item;
+        throw failure.toException();
+      } else {
+        next = (E) item;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public E next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    E entity = next;
+    next = null;
+    return entity;
+  }
+
+  @Override
+  public Iterator<E> iterator() {
+    return this;
+  }
+
+  /**
+   * Split the scan into scans that each cover the part of the scan's key range
+   * in one region.
+   */
+  private List<Scan> splitScan() {
+    Pair<byte[][], byte[][]> regions;
+    HTableInterface table = null;
+    try {
+      table = tablePool.getTable(tableName);
+      HTable regionTable = new HTable(table.getConfiguration(), tableName);
+      try {
+        regions = regionTable.getStartEndKeys();
+      } finally {
+        regionTable.close();
+      }
+    } catch (IOException e) {
+      throw new DatasetIOException("Failed to fetch region boundaries", e);
+    } finally {
+      if (table != null) {
+        try {
+          table.close();
+        } catch (IOException e) {
+          throw new DatasetIOException("Error putting table back into pool",
+              e);
+        }
+      }
+    }
+
+    List<Scan> scans = new ArrayList<Scan>();
+    for (Pair<byte[], byte[]> range : split(scan.getStartRow(),
+        scan.getStopRow(), regions.getFirst(), regions.getSecond())) {
+      try {
+        Scan regionScan = new Scan(scan);
+        regionScan.setStartRow(range.getFirst());
+        regionScan.setStopRow(range.getSecond());
+        scans.add(regionScan);
+      } catch (IOException e) {
+        throw new DatasetIOException("Failed to copy scan", e);
+      }
+    }
+    return scans;
+  }
+
+  /**
+   * Returns the parts of the key range [startRow, stopRow) that fall in each
+   * region, in order. Empty start or stop rows are unbounded, as they are in
+   * HBase.
+   */
+  static List<Pair<byte[], byte[]>> split(byte[] startRow, byte[] stopRow,
+      byte[][] regionStarts, byte[][] regionEnds) {
+    List<Pair<byte[], byte[]>> ranges = new ArrayList<Pair<byte[], byte[]>>();
+    for (int i = 0; i < regionStarts.length; i += 1) {
+      byte[] start = max(startRow, regionStarts[i]);
+      byte[] stop = minStop(stopRow, regionEnds[i]);
+      if (stop.length == 0 || Bytes.compareTo(start, stop) < 0) {
+        ranges.add(new Pair<byte[], byte[]>(start, stop));
+      }
+    }
+    return ranges;
+  }
+
+  private static byte[] max(byte[] left, byte[] right) {
+    return Bytes.compareTo(left, right) >= 0 ? left : right;
+  }
+
+  private static byte[] minStop(byte[] left, byte[] right) {
+    if (left.length == 0) {
+      return right;
+    } else if (right.length == 0) {
+      return left;
+    }
+    return Bytes.compareTo(left, right) <= 0 ? left : right;
+  }
+
+  private void startNextScan() {
+    if (nextScan < regionScans.size()) {
+      executor.execute(new RegionScan(
+          regionScans.get(nextScan), queues[nextScan]));
+      nextScan += 1;
+    }
+  }
+
+  private Object take(BlockingQueue<Object> queue) {
+    try {
+      return queue.take();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new DatasetOperationException(
+          "Interrupted while waiting for scan results", e);
+    }
+  }
+
+  /**
+   * Scans one region and adds its entities to a queue, followed by END.
+   */
+  private class RegionScan implements Runnable {
+    private final Scan regionScan;
+    private final BlockingQueue<Object> queue;
+
+    private RegionScan(Scan regionScan, BlockingQueue<Object> queue) {
+      this.regionScan = regionScan;
+      this.queue = queue;
+    }
+
+    @Override
+    public void run() {
+      try {
+        scan();
+        queue.put(END);
+      } catch (InterruptedException e) {
+        // the scanner was closed
+      } catch (Throwable t) {
+        try {
+          queue.put(new ScanFailure(t));
+        } catch (InterruptedException e) {
+          // the scanner was closed
+        }
+      }
+    }
+
+    private void scan() throws IOException, InterruptedException {
+      HTableInterface table = tablePool.getTable(tableName);
+      try {
+        ResultScanner resultScanner = table.getScanner(regionScan);
+        try {
+          for (Result result : resultScanner) {
+            if (!isOpen()) {
+              return;
+            }
+            E entity = entityMapper.mapToEntity(result);
+            if (entity != null) {
+              queue.put(entity);
+            }
+          }
+        } finally {
+          resultScanner.close();
+        }
+      } finally {
+        table.close();
+      }
+    }
+  }
+
+  private static class ScanFailure {
+    private final Throwable cause;
+
+    private ScanFailure(Throwable cause) {
+      this.cause = cause;
+    }
+
+    private RuntimeException toException() {
+      if (cause instanceof RuntimeException) {
+        return (RuntimeException) cause;
+      } else if (cause instanceof IOException) {
+        return new DatasetIOException("Failed to scan region",
+            (IOException) cause);
+      }
+      return new DatasetOperationException("Failed to scan region", cause);
+    }
+  }
+}
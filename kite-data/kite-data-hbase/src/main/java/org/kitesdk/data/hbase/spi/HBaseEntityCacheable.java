@@ -0,0 +1,38 @@
+/**
+ * Copyright 2015 Cloudera Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kitesdk.data.hbase.spi;
+
+import com.google.common.cache.CacheStats;
+
+/**
+ * Allows SPI access to the entity cache used for point lookups, which is
+ * enabled by the {@link org.kitesdk.data.hbase.HBaseProperties} entity cache
+ * properties.
+ */
+public interface HBaseEntityCacheable {
+  /**
+   * Returns statistics for the entity cache: the number of hits, misses, and
+   * evictions.
+   *
+   * @return CacheStats for the entity cache, or null if it is not enabled
+   */
+  CacheStats getEntityCacheStats();
+
+  /**
+   * Discards all entities in the entity cache.
+   */
+  void invalidateEntityCache();
+}
@@ -0,0 +1,168 @@
+/**
+ * Copyright 2015 Cloudera Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kitesdk.data.hbase;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.kitesdk.data.DatasetDescriptor;
+import org.kitesdk.data.Key;
+import org.kitesdk.data.RandomAccessDataset;
+import org.kitesdk.data.hbase.avro.AvroUtils;
+import org.kitesdk.data.hbase.testing.HBaseTestUtils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class AsyncRandomAccessDatasetTest {
+
+  private static final String tableName = "testtable";
+  private static final String managedTableName = "managed_schemas";
+
+  private RandomAccessDataset<GenericRecord> ds;
+
+  @BeforeClass
+  public static void beforeClass() throws Exception {
+    HBaseTestUtils.getMiniCluster();
+  }
+
+  @AfterClass
+  public static void afterClass() throws Exception {
+    HBaseTestUtils.util.deleteTable(Bytes.toBytes(tableName));
+  }
+
+  @Before
+  public void before() throws Exception {
+    HBaseDatasetRepository repo = new HBaseDatasetRepository.Builder()
+        .configuration(HBaseTestUtils.getConf()).build();
+    DatasetDescriptor descriptor = new DatasetDescriptor.Builder()
+        .schemaLiteral(AvroUtils.inputStreamToString(
+            AsyncRandomAccessDatasetTest.class
+                .getResourceAsStream("/TestGenericEntity.avsc")))
+        .build();
+    this.ds = repo.create("default", tableName + ".TestGenericEntity",
+        descriptor);
+  }
+
+  @After
+  public void after() throws Exception {
+    HBaseTestUtils.util.truncateTable(Bytes.toBytes(tableName));
+    HBaseTestUtils.util.truncateTable(Bytes.toBytes(managedTableName));
+  }
+
+  private Key key(long i) {
+    return new Key.Builder(ds)
+        .add("part1", "part1_" + i)
+        .add("part2", "part2_" + i).build();
+  }
+
+  @Test
+  public void testAsyncOperations() throws Exception {
+    AsyncRandomAccessDataset<GenericRecord> async =
+        new AsyncRandomAccessDataset.Builder<GenericRecord>(ds)
+            .maxInFlight(4)
+            .maxBatchSize(3)
+            .build();
+    try {
+      List<ListenableFuture<Boolean>> puts =
+          new ArrayList<ListenableFuture<Boolean>>();
+      for (int i = 0; i < 20; ++i) {
+        puts.add(async.put(HBaseDatasetRepositoryTest.createGenericEntity(i)));
+      }
+      for (ListenableFuture<Boolean> put : puts) {
+        assertTrue("Put should succeed", put.get());
+      }
+
+      List<ListenableFuture<GenericRecord>> gets =
+          new ArrayList<ListenableFuture<GenericRecord>>();
+      for (int i = 0; i < 21; ++i) {
+        gets.add(async.get(key(i)));
+      }
+      for (int i = 0; i < 20; ++i) {
+        assertEquals("part1_" + i,
+            gets.get(i).get().get("part1").toString());
+      }
+      assertNull("Missing entity should be null", gets.get(20).get());
+
+      async.delete(key(3)).get();
+      assertNull("Deleted entity should be null", async.get(key(3)).get());
+    } finally {
+      async.close();
+    }
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void testCoalescedGets() throws Exception {
+    ds.put(HBaseDatasetRepositoryTest.createGenericEntity(0));
+
+    // block multi-gets so that both gets are outstanding
+    final CountDownLatch unblock = new CountDownLatch(1);
+    final AtomicInteger multiGets = new AtomicInteger(0);
+    RandomAccessDataset<GenericRecord> blocking =
+        (RandomAccessDataset<GenericRecord>) Proxy.newProxyInstance(
+            getClass().getClassLoader(),
+            new Class<?>[] { RandomAccessDataset.class },
+            new InvocationHandler() {
+              @Override
+              public Object invoke(Object proxy, Method method, Object[] args)
+                  throws Throwable {
+                if ("get".equals(method.getName()) &&
+                    args[0] instanceof Collection) {
+                  multiGets.incrementAndGet();
+                  unblock.await();
+                }
+                try {
+                  return method.invoke(ds, args);
+                } catch (InvocationTargetException e) {
+                  throw e.getCause();
+                }
+              }
+            });
+
+    AsyncRandomAccessDataset<GenericRecord> async =
+        new AsyncRandomAccessDataset.Builder<GenericRecord>(blocking)
+            .threads(1)
+            .build();
+    try {
+      ListenableFuture<GenericRecord> first = async.get(key(0));
+      ListenableFuture<GenericRecord> second = async.get(key(0));
+      assertSame("Should share the outstanding get", first, second);
+
+      unblock.countDown();
+      assertEquals("part1_0", first.get().get("part1").toString());
+      assertEquals("Should run one multi-get", 1, multiGets.get());
+    } finally {
+      async.close();
+    }
+  }
+}
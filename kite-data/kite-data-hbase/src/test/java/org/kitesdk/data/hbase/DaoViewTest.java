@@ -16,6 +16,14 @@
 package org.kitesdk.data.hbase;
 
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.HashSet;
+import java.util.Set;
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.hadoop.hbase.client.Scan;
 import org.kitesdk.data.DatasetDescriptor;
 import org.kitesdk.data.DatasetReader;
 import org.kitesdk.data.DatasetWriter;
@@ -25,6 +33,10 @@ import org.kitesdk.data.hbase.avro.entities.ArrayRecord;
 import org.kitesdk.data.hbase.avro.entities.EmbeddedRecord;
 import org.kitesdk.data.hbase.avro.entities.TestEntity;
 import org.kitesdk.data.hbase.avro.entities.TestEnum;
+import org.kitesdk.data.hbase.impl.BaseDao;
+import org.kitesdk.data.hbase.impl.BaseEntityScanner;
+import org.kitesdk.data.hbase.impl.EntityMapper;
+import org.kitesdk.data.hbase.impl.HBaseUtils;
 import org.kitesdk.data.hbase.testing.HBaseTestUtils;
 
 import org.kitesdk.data.spi.AbstractRefinableView;
@@ -183,6 +195,157 @@ public class DaoViewTest {
 
   }
 
+  @Test
+  public void testProjection() {
+    populateTestEntities(10);
+
+    Schema datasetSchema = ds.getDescriptor().getSchema();
+    List<Schema.Field> fields = new ArrayList<Schema.Field>();
+    for (String name : Arrays.asList("part1", "field1")) {
+      Schema.Field field = datasetSchema.getField(name);
+      fields.add(new Schema.Field(field.name(), field.schema(), null, null));
+    }
+    Schema projection = Schema.createRecord(datasetSchema.getName(), null,
+        datasetSchema.getNamespace(), false);
+    projection.setFields(fields);
+
+    DaoDataset<GenericRecord> generic = (DaoDataset<GenericRecord>) repo
+        .load("default", tableName, GenericRecord.class);
+    // part2 is not projected, but is used to filter entities
+    AbstractRefinableView<GenericRecord> view = new DaoView<GenericRecord>(
+        generic, GenericRecord.class)
+        .from(NAMES[1], "3").to(NAMES[1], "5")
+        .asSchema(projection);
+
+    List<String> parts = new ArrayList<String>();
+    DatasetReader<GenericRecord> reader = view.newReader();
+    try {
+      for (GenericRecord record : reader) {
+        Assert.assertEquals(projection, record.getSchema());
+        Assert.assertEquals("field1", record.get("field1").toString());
+        parts.add(record.get("part1").toString());
+      }
+    } finally {
+      reader.close();
+    }
+    Assert.assertEquals(Arrays.asList("3", "4", "5"), parts);
+  }
+
+  @Test
+  public void testProjectionOfNullableField() throws Exception {
+    String nullableTable = "nullabletable";
+    Schema schema = new Schema.Parser().parse("{" +
+        "\"type\": \"record\", \"name\": \"NullableEntity\"," +
+        "\"partitions\": [{\"type\": \"identity\", \"source\": \"id\"}]," +
+        "\"fields\": [" +
+        "{\"name\": \"id\", \"type\": \"string\"," +
+        " \"mapping\": {\"type\": \"key\"}}," +
+        "{\"name\": \"name\", \"type\": \"string\"," +
+        " \"mapping\": {\"type\": \"column\", \"value\": \"meta:name\"}}," +
+        "{\"name\": \"note\", \"type\": [\"null\", \"string\"], \"default\": null," +
+        " \"mapping\": {\"type\": \"column\", \"value\": \"meta:note\"}}]}");
+    DaoDataset<GenericRecord> nullable = (DaoDataset<GenericRecord>) repo
+        .create("default", nullableTable, new DatasetDescriptor.Builder()
+            .schema(schema).build(), GenericRecord.class);
+    try {
+      for (int i = 0; i < 10; i++) {
+        GenericRecord entity = new GenericData.Record(
+            nullable.getDescriptor().getSchema());
+        entity.put("id", Integer.toString(i));
+        entity.put("name", "name_" + i);
+        // odd rows have no note column
+        entity.put("note", (i % 2 == 0 ? "note_" + i : null));
+        nullable.put(entity);
+      }
+
+      Schema projection = Schema.createRecord("NullableEntity", null, null,
+          false);
+      projection.setFields(Arrays.asList(new Schema.Field("note",
+          schema.getField("note").schema(), null, null)));
+      AbstractRefinableView<GenericRecord> view = new DaoView<GenericRecord>(
+          nullable, GenericRecord.class).asSchema(projection);
+
+      int nulls = 0;
+      int total = 0;
+      DatasetReader<GenericRecord> reader = view.newReader();
+      try {
+        for (GenericRecord record : reader) {
+          total += 1;
+          if (record.get("note") == null) {
+            nulls += 1;
+          }
+        }
+      } finally {
+        reader.close();
+      }
+      Assert.assertEquals("Should read rows without the projected column",
+          10, total);
+      Assert.assertEquals(5, nulls);
+    } finally {
+      repo.delete("default", nullableTable);
+      HBaseTestUtils.util.deleteTable(Bytes.toBytes(nullableTable));
+    }
+  }
+
+  @Test
+  public void testFilterPushdown() {
+    for (int i = 0; i < 10; i++) {
+      TestEntity entity = newTestEntity(Integer.toString(i), Integer.toString(i));
+      entity.setField1("field1_" + (i % 3));
+      ds.put(entity);
+    }
+
+    DaoView<TestEntity> view = (DaoView<TestEntity>)
+        new DaoView<TestEntity>(ds, TestEntity.class)
+            .with("field1", "field1_1", "field1_2")
+            .with("field2");
+    Scan scan = ((BaseEntityScanner<TestEntity>) view.newFilteredScanner())
+        .getScan();
+    Assert.assertNotNull("Should filter rows in HBase", scan.getFilter());
+
+    List<String> parts = new ArrayList<String>();
+    DatasetReader<TestEntity> reader = view.newReader();
+    try {
+      for (TestEntity entity : reader) {
+        parts.add(entity.getPart1());
+      }
+    } finally {
+      reader.close();
+    }
+    Assert.assertEquals(Arrays.asList("1", "2", "4", "5", "7", "8"), parts);
+
+    // constraints that can't be pushed down are still applied
+    DaoView<TestEntity> range = (DaoView<TestEntity>)
+        new DaoView<TestEntity>(ds, TestEntity.class)
+            .from("field1", "field1_1");
+    Assert.assertNull(((BaseEntityScanner<TestEntity>)
+        range.newFilteredScanner()).getScan().getFilter());
+    validCount(range, 6);
+  }
+
+  @Test
+  public void testProjectedColumns() {
+    EntityMapper<TestEntity> mapper =
+        ((BaseDao<TestEntity>) ds.getDao()).getEntityMapper();
+
+    Set<String> columns = HBaseUtils.getRequiredColumns(
+        mapper, Arrays.asList("part1", "field3"));
+    Assert.assertTrue(columns.contains("meta:part1"));
+    Assert.assertTrue(columns.contains("string:"));
+    Assert.assertFalse(columns.contains("meta:part2"));
+    Assert.assertFalse(columns.contains("meta:field1"));
+    Assert.assertFalse(columns.contains("embedded:"));
+    // columns that are not mapped to a field, like the schema version, are kept
+    Set<String> unmapped = new HashSet<String>(mapper.getRequiredColumns());
+    unmapped.removeAll(mapper.getEntitySchema().getColumnMappingDescriptor()
+        .getRequiredColumns());
+    Assert.assertTrue(columns.containsAll(unmapped));
+
+    // when no requested field is stored in a column, all columns are read
+    Assert.assertEquals(mapper.getRequiredColumns(),
+        HBaseUtils.getRequiredColumns(mapper, Arrays.asList("missing")));
+  }
+
   private TestEntity newTestEntity(String part1, String part2) {
     return TestEntity
         .newBuilder()
@@ -218,4 +381,17 @@ public class DaoViewTest {
     }
     Assert.assertEquals(endIdx, cnt);
   }
+
+  private void validCount(View<TestEntity> view, int expected) {
+    int cnt = 0;
+    DatasetReader<TestEntity> reader = view.newReader();
+    try {
+      for (TestEntity entity : reader) {
+        cnt++;
+      }
+    } finally {
+      reader.close();
+    }
+    Assert.assertEquals(expected, cnt);
+  }
 }
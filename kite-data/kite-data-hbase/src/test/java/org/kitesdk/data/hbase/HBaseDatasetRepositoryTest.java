@@ -25,9 +25,12 @@ import org.kitesdk.data.hbase.avro.entities.ArrayRecord;
 import org.kitesdk.data.hbase.avro.entities.EmbeddedRecord;
 import org.kitesdk.data.hbase.avro.entities.TestEntity;
 import org.kitesdk.data.hbase.avro.entities.TestEnum;
+import org.kitesdk.data.hbase.spi.HBaseEntityCacheable;
 import org.kitesdk.data.hbase.testing.HBaseTestUtils;
 
+import com.google.common.cache.CacheStats;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -268,6 +271,180 @@ public class HBaseDatasetRepositoryTest {
     compareEntitiesWithUtf8(0, ds.get(key));
   }
 
+  @Test
+  public void testBatchOperations() throws Exception {
+    String datasetName = tableName + ".TestGenericEntity";
+    HBaseDatasetRepository repo = new HBaseDatasetRepository.Builder()
+        .configuration(HBaseTestUtils.getConf()).build();
+
+    DatasetDescriptor descriptor = new DatasetDescriptor.Builder()
+        .schemaLiteral(testGenericEntity)
+        .build();
+    RandomAccessDataset<GenericRecord> ds = repo.create("default", datasetName, descriptor);
+
+    List<GenericRecord> entities = new ArrayList<GenericRecord>();
+    List<Key> keys = new ArrayList<Key>();
+    for (int i = 0; i < 10; ++i) {
+      entities.add(createGenericEntity(i));
+      String iStr = Long.toString(i);
+      keys.add(new Key.Builder(ds)
+          .add("part1", "part1_" + iStr)
+          .add("part2", "part2_" + iStr).build());
+    }
+    assertTrue("All puts should succeed", ds.putAll(entities));
+
+    // add a key that was not written
+    keys.add(new Key.Builder(ds)
+        .add("part1", "part1_10")
+        .add("part2", "part2_10").build());
+    List<GenericRecord> fetched = ds.get(keys);
+    assertEquals(11, fetched.size());
+    for (int i = 0; i < 10; ++i) {
+      compareEntitiesWithUtf8(i, fetched.get(i));
+    }
+    assertNull("Missing entities should be null", fetched.get(10));
+
+    ds.deleteAll(Arrays.asList(keys.get(3), keys.get(5)));
+    fetched = ds.get(keys);
+    for (int i = 0; i < 10; ++i) {
+      if (i == 3 || i == 5) {
+        assertNull("Deleted entities should be null", fetched.get(i));
+      } else {
+        compareEntitiesWithUtf8(i, fetched.get(i));
+      }
+    }
+  }
+
+  @Test
+  public void testEntityCache() throws Exception {
+    String datasetName = tableName + ".TestGenericEntity";
+    HBaseDatasetRepository repo = new HBaseDatasetRepository.Builder()
+        .configuration(HBaseTestUtils.getConf()).build();
+
+    DatasetDescriptor descriptor = new DatasetDescriptor.Builder()
+        .schemaLiteral(testGenericEntity)
+        .property(HBaseProperties.ENTITY_CACHE_MAX_ENTRIES_PROP, "100")
+        .build();
+    RandomAccessDataset<GenericRecord> ds = repo.create("default", datasetName, descriptor);
+    HBaseEntityCacheable cacheable = (HBaseEntityCacheable) ds;
+
+    ds.put(createGenericEntity(0));
+    Key key = new Key.Builder(ds)
+        .add("part1", "part1_0")
+        .add("part2", "part2_0").build();
+
+    GenericRecord first = ds.get(key);
+    GenericRecord stale = ds.get(key);
+    compareEntitiesWithUtf8(0, stale);
+    first.put("field1", "changed");
+    compareEntitiesWithUtf8(0, stale);
+    CacheStats stats = cacheable.getEntityCacheStats();
+    assertEquals(1, stats.hitCount());
+    assertEquals(1, stats.missCount());
+
+    // a put invalidates the cached entity
+    assertTrue("Put should succeed", ds.put(first));
+    assertEquals("changed", ds.get(key).get("field1").toString());
+    assertEquals(2, cacheable.getEntityCacheStats().missCount());
+
+    // a put that fails the version check also invalidates it
+    assertFalse("Stale put should fail", ds.put(stale));
+    assertEquals("changed", ds.get(key).get("field1").toString());
+    assertEquals(3, cacheable.getEntityCacheStats().missCount());
+
+    ds.delete(key);
+    assertNull("Deleted entity should not be cached", ds.get(key));
+
+    // invalidated entities are not counted as evictions
+    assertEquals(0, cacheable.getEntityCacheStats().evictionCount());
+  }
+
+  @Test
+  public void testEntityCacheEvictions() throws Exception {
+    String datasetName = tableName + ".TestGenericEntity";
+    HBaseDatasetRepository repo = new HBaseDatasetRepository.Builder()
+        .configuration(HBaseTestUtils.getConf()).build();
+
+    DatasetDescriptor descriptor = new DatasetDescriptor.Builder()
+        .schemaLiteral(testGenericEntity)
+        .property(HBaseProperties.ENTITY_CACHE_MAX_ENTRIES_PROP, "1")
+        .build();
+    RandomAccessDataset<GenericRecord> ds = repo.create("default", datasetName, descriptor);
+    HBaseEntityCacheable cacheable = (HBaseEntityCacheable) ds;
+
+    List<Key> keys = new ArrayList<Key>();
+    for (int i = 0; i < 3; ++i) {
+      ds.put(createGenericEntity(i));
+      keys.add(new Key.Builder(ds)
+          .add("part1", "part1_" + i)
+          .add("part2", "part2_" + i).build());
+    }
+
+    for (int i = 0; i < 3; ++i) {
+      compareEntitiesWithUtf8(i, ds.get(keys.get(i)));
+    }
+    CacheStats stats = cacheable.getEntityCacheStats();
+    assertEquals(0, stats.hitCount());
+    assertEquals(3, stats.missCount());
+    assertEquals(2, stats.evictionCount());
+
+    // the last entity is still cached
+    compareEntitiesWithUtf8(2, ds.get(keys.get(2)));
+    stats = cacheable.getEntityCacheStats();
+    assertEquals(1, stats.hitCount());
+    assertEquals(2, stats.evictionCount());
+  }
+
+  @Test
+  public void testEntityCacheChecksVersions() throws Exception {
+    String datasetName = tableName + ".TestGenericEntity";
+    HBaseDatasetRepository repo = new HBaseDatasetRepository.Builder()
+        .configuration(HBaseTestUtils.getConf()).build();
+
+    DatasetDescriptor descriptor = new DatasetDescriptor.Builder()
+        .schemaLiteral(testGenericEntity)
+        .property(HBaseProperties.ENTITY_CACHE_MAX_ENTRIES_PROP, "100")
+        .property(HBaseProperties.ENTITY_CACHE_CHECK_VERSIONS_PROP, "true")
+        .build();
+    RandomAccessDataset<GenericRecord> ds = repo.create("default", datasetName, descriptor);
+    HBaseEntityCacheable cacheable = (HBaseEntityCacheable) ds;
+
+    ds.put(createGenericEntity(0));
+    Key key = new Key.Builder(ds)
+        .add("part1", "part1_0")
+        .add("part2", "part2_0").build();
+
+    compareEntitiesWithUtf8(0, ds.get(key));
+    compareEntitiesWithUtf8(0, ds.get(key));
+    assertEquals(1, cacheable.getEntityCacheStats().hitCount());
+
+    // change the entity through another dataset instance with its own cache
+    RandomAccessDataset<GenericRecord> other = repo.load("default", datasetName);
+    GenericRecord changed = other.get(key);
+    changed.put("field1", "changed");
+    assertTrue("Put should succeed", other.put(changed));
+
+    assertEquals("changed", ds.get(key).get("field1").toString());
+    assertEquals("changed",
+        ds.get(Arrays.asList(key)).get(0).get("field1").toString());
+    CacheStats stats = cacheable.getEntityCacheStats();
+    assertEquals(2, stats.hitCount());
+    assertEquals(2, stats.missCount());
+  }
+
+  @Test
+  public void testEntityCacheDisabled() throws Exception {
+    String datasetName = tableName + ".TestGenericEntity";
+    HBaseDatasetRepository repo = new HBaseDatasetRepository.Builder()
+        .configuration(HBaseTestUtils.getConf()).build();
+
+    DatasetDescriptor descriptor = new DatasetDescriptor.Builder()
+        .schemaLiteral(testGenericEntity)
+        .build();
+    RandomAccessDataset<GenericRecord> ds = repo.create("default", datasetName, descriptor);
+    assertNull(((HBaseEntityCacheable) ds).getEntityCacheStats());
+  }
+
   @Test
   public void testUpdateDataset() throws Exception {
 
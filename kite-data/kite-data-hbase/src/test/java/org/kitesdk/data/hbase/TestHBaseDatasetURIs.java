@@ -28,6 +28,7 @@ import org.kitesdk.data.Datasets;
 import org.kitesdk.data.RandomAccessDataset;
 import org.kitesdk.data.TestHelpers;
 import org.kitesdk.data.hbase.impl.Loader;
+import org.kitesdk.data.hbase.spi.HBaseEntityCacheable;
 import org.kitesdk.data.hbase.testing.HBaseTestUtils;
 import org.kitesdk.data.spi.DatasetRepositories;
 import org.kitesdk.data.spi.DatasetRepository;
@@ -68,6 +69,34 @@ public class TestHBaseDatasetURIs {
     repo.delete("default", "test");
   }
 
+  @Test
+  public void testLoadedDatasetKeepsProperties() {
+    DatasetRepository repo = DatasetRepositories.repositoryFor(repositoryUri);
+    repo.delete("default", "test");
+    repo.create("default", "test", new DatasetDescriptor.Builder(descriptor)
+        .property(HBaseProperties.ENTITY_CACHE_MAX_ENTRIES_PROP, "100")
+        .property(HBaseProperties.SCAN_THREADS_PROP, "2")
+        .build());
+
+    RandomAccessDataset<Object> ds = Datasets
+        .<Object, RandomAccessDataset<Object>>load(URI.create("dataset:hbase:" + zk + "/test"), Object.class);
+
+    Assert.assertEquals("Should load stored properties", "100",
+        ds.getDescriptor().getProperty(HBaseProperties.ENTITY_CACHE_MAX_ENTRIES_PROP));
+    Assert.assertEquals("Should load stored properties", "2",
+        ds.getDescriptor().getProperty(HBaseProperties.SCAN_THREADS_PROP));
+    Assert.assertNotNull("Should use an entity cache after load",
+        ((HBaseEntityCacheable) ds).getEntityCacheStats());
+
+    repo.delete("default", "test");
+    repo.create("default", "test", descriptor);
+    Assert.assertFalse("Should not keep properties of a deleted dataset",
+        repo.load("default", "test").getDescriptor()
+            .hasProperty(HBaseProperties.ENTITY_CACHE_MAX_ENTRIES_PROP));
+
+    repo.delete("default", "test");
+  }
+
   @Test
   public void testMissingDataset() {
     TestHelpers.assertThrows("Should not find dataset: no such dataset",
@@ -17,9 +17,11 @@ package org.kitesdk.data.hbase.avro.io;
 
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
 import java.io.InputStream;
 import java.nio.ByteBuffer;
 
@@ -111,4 +113,56 @@ public class MemcmpDecoderTest {
     Utf8 readString = decoder.readString(null);
     assertEquals("hello there", readString.toString());
   }
+
+  @Test
+  public void testReadByteArray() throws Exception {
+    Decoder decoder = new MemcmpDecoder(new byte[] { (byte) 0x7f, (byte) 0xff,
+        (byte) 0xff, (byte) 0xff, (byte) 0x01, (byte) 0x00, (byte) 0x01,
+        (byte) 0xff, (byte) 0x00, (byte) 0x00, (byte) 0x80, (byte) 0x00,
+        (byte) 0x00, (byte) 0x00, (byte) 0x00, (byte) 0x00, (byte) 0x00,
+        (byte) 0x01 });
+    assertEquals(-1, decoder.readInt());
+    assertArrayEquals(new byte[] { (byte) 0x01, (byte) 0x00, (byte) 0xff },
+        decoder.readBytes(null).array());
+    assertEquals(1L, decoder.readLong());
+  }
+
+  @Test
+  public void testReadByteArrayRange() throws Exception {
+    Decoder decoder = new MemcmpDecoder(new byte[] { (byte) 0xff, (byte) 0x80,
+        (byte) 0x00, (byte) 0x00, (byte) 0x01, (byte) 0xff }, 1, 4);
+    assertEquals(1, decoder.readInt());
+  }
+
+  @Test(expected = EOFException.class)
+  public void testReadByteArrayPastEnd() throws Exception {
+    Decoder decoder = new MemcmpDecoder(new byte[] { (byte) 0x80, (byte) 0x00,
+        (byte) 0x00, (byte) 0x01, (byte) 0xff }, 1, 4);
+    decoder.readInt();
+  }
+
+  @Test(expected = EOFException.class)
+  public void testReadUnterminatedBytes() throws Exception {
+    Decoder decoder = new MemcmpDecoder(new byte[] { (byte) 0x01, (byte) 0x00 });
+    decoder.readBytes(null);
+  }
+
+  @Test
+  public void testReadBufferedEncoderOutput() throws Exception {
+    MemcmpEncoder encoder = new MemcmpEncoder();
+    encoder.writeFloat(-1.1f);
+    encoder.writeDouble(1.1d);
+    encoder.writeString("hello\u0000there");
+    encoder.writeBoolean(true);
+    encoder.writeFixed(new byte[] { (byte) 0x00, (byte) 0x01 }, 0, 2);
+
+    Decoder decoder = new MemcmpDecoder(encoder.toByteArray());
+    assertEquals(-1.1f, decoder.readFloat(), 0.0001);
+    assertEquals(1.1d, decoder.readDouble(), 0.0001);
+    assertEquals("hello\u0000there", decoder.readString(null).toString());
+    assertTrue(decoder.readBoolean());
+    byte[] fixed = new byte[2];
+    decoder.readFixed(fixed, 0, 2);
+    assertArrayEquals(new byte[] { (byte) 0x00, (byte) 0x01 }, fixed);
+  }
 }
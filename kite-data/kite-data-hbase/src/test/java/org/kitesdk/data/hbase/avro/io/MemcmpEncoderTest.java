@@ -16,11 +16,14 @@
 package org.kitesdk.data.hbase.avro.io;
 
 import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
 
 import java.io.ByteArrayOutputStream;
 
 import org.apache.avro.io.Encoder;
+import org.apache.avro.util.Utf8;
 import org.junit.Before;
+import org.junit.Ignore;
 import org.junit.Test;
 
 public class MemcmpEncoderTest {
@@ -74,4 +77,61 @@ public class MemcmpEncoderTest {
     assertArrayEquals(new byte[] { (byte) 0x01, (byte) 0x00, (byte) 0x01,
         (byte) 0xff, (byte) 0x00, (byte) 0x00 }, byteOutputStream.toByteArray());
   }
+
+  @Test
+  public void testBufferedEncodingMatchesStream() throws Exception {
+    MemcmpEncoder buffered = new MemcmpEncoder();
+    buffered.writeInt(7);
+    buffered.reset();
+    writeKey(encoder, 1234L);
+    writeKey(buffered, 1234L);
+    assertArrayEquals(byteOutputStream.toByteArray(), buffered.toByteArray());
+    assertEquals(byteOutputStream.size(), buffered.size());
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testStreamEncoderHasNoByteArray() throws Exception {
+    ((MemcmpEncoder) encoder).toByteArray();
+  }
+
+  @Test
+  @Ignore
+  public void benchmarkEncodeKeys() throws Exception {
+    int iters = 5000000;
+    for (int round = 0; round < 3; round++) {
+      long start = System.nanoTime();
+      for (long i = 0; i < iters; i++) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writeKey(new MemcmpEncoder(out), i);
+        out.toByteArray();
+      }
+      long streamNanos = System.nanoTime() - start;
+
+      MemcmpEncoder buffered = new MemcmpEncoder();
+      start = System.nanoTime();
+      for (long i = 0; i < iters; i++) {
+        buffered.reset();
+        writeKey(buffered, i);
+        buffered.toByteArray();
+      }
+      long bufferedNanos = System.nanoTime() - start;
+
+      System.out.println("Results: iters=" + iters
+          + ", stream[ns/key]=" + (streamNanos / iters)
+          + ", buffered[ns/key]=" + (bufferedNanos / iters));
+    }
+  }
+
+  /**
+   * Writes a composite key like those used for rows: a string, a long, and an
+   * int.
+   */
+  private static void writeKey(Encoder encoder, long id) throws Exception {
+    encoder.writeString(new Utf8("part1_" + (id % 100)));
+    encoder.writeLong(id);
+    encoder.writeInt((int) id);
+    encoder.writeBytes(new byte[] { (byte) 0x01, (byte) 0x00, (byte) 0x02 },
+        0, 3);
+    encoder.flush();
+  }
 }
@@ -0,0 +1,227 @@
+/**
+ * Copyright 2015 Cloudera Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kitesdk.data.hbase.impl;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.hadoop.hbase.HColumnDescriptor;
+import org.apache.hadoop.hbase.HTableDescriptor;
+import org.apache.hadoop.hbase.client.HTable;
+import org.apache.hadoop.hbase.client.HTablePool;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.hadoop.hbase.util.Pair;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.kitesdk.data.DatasetDescriptor;
+import org.kitesdk.data.DatasetReader;
+import org.kitesdk.data.RandomAccessDataset;
+import org.kitesdk.data.View;
+import org.kitesdk.data.hbase.HBaseDatasetRepository;
+import org.kitesdk.data.hbase.HBaseDatasetRepositoryTest;
+import org.kitesdk.data.hbase.HBaseProperties;
+import org.kitesdk.data.hbase.avro.AvroUtils;
+import org.kitesdk.data.hbase.avro.GenericAvroDao;
+import org.kitesdk.data.hbase.manager.DefaultSchemaManager;
+import org.kitesdk.data.hbase.testing.HBaseTestUtils;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class ParallelEntityScannerTest {
+
+  private static final String tableName = "paralleltable";
+  private static final String managedTableName = "managed_schemas";
+  private static final byte[] EMPTY = new byte[0];
+
+  @BeforeClass
+  public static void beforeClass() throws Exception {
+    HBaseTestUtils.getMiniCluster();
+    // split the table into three regions: part1_0-2, part1_3-5, part1_6-9
+    HTableDescriptor desc = new HTableDescriptor(tableName);
+    desc.addFamily(new HColumnDescriptor(Constants.SYS_COL_FAMILY));
+    HBaseTestUtils.util.getHBaseAdmin().createTable(desc, new byte[][] {
+        Bytes.toBytes("part1_3"), Bytes.toBytes("part1_6") });
+  }
+
+  @AfterClass
+  public static void afterClass() throws Exception {
+    HBaseTestUtils.util.deleteTable(Bytes.toBytes(tableName));
+  }
+
+  @After
+  public void after() throws Exception {
+    HBaseTestUtils.util.truncateTable(Bytes.toBytes(tableName));
+    HBaseTestUtils.util.truncateTable(Bytes.toBytes(managedTableName));
+  }
+
+  private RandomAccessDataset<GenericRecord> createDataset(boolean ordered)
+      throws Exception {
+    HBaseDatasetRepository repo = new HBaseDatasetRepository.Builder()
+        .configuration(HBaseTestUtils.getConf()).build();
+    DatasetDescriptor descriptor = new DatasetDescriptor.Builder()
+        .schemaLiteral(AvroUtils.inputStreamToString(
+            ParallelEntityScannerTest.class
+                .getResourceAsStream("/TestGenericEntity.avsc")))
+        .property(HBaseProperties.SCAN_THREADS_PROP, "2")
+        .property(HBaseProperties.SCAN_BUFFER_SIZE_PROP, "2")
+        .property(HBaseProperties.SCAN_ORDERED_PROP, Boolean.toString(ordered))
+        .build();
+    RandomAccessDataset<GenericRecord> ds = repo.create("default",
+        tableName + ".TestGenericEntity", descriptor);
+    for (int i = 0; i < 10; ++i) {
+      ds.put(HBaseDatasetRepositoryTest.createGenericEntity(i));
+    }
+    return ds;
+  }
+
+  private static List<String> read(View<GenericRecord> view) {
+    List<String> parts = new ArrayList<String>();
+    DatasetReader<GenericRecord> reader = view.newReader();
+    try {
+      for (GenericRecord entity : reader) {
+        parts.add(entity.get("part1").toString());
+      }
+    } finally {
+      reader.close();
+    }
+    return parts;
+  }
+
+  @Test
+  public void testOrderedScan() throws Exception {
+    HTable table = new HTable(HBaseTestUtils.getConf(), tableName);
+    try {
+      assertEquals("Table should have 3 regions", 3,
+          table.getStartKeys().length);
+    } finally {
+      table.close();
+    }
+
+    RandomAccessDataset<GenericRecord> ds = createDataset(true);
+    List<String> expected = new ArrayList<String>();
+    for (int i = 0; i < 10; ++i) {
+      expected.add("part1_" + i);
+    }
+    assertEquals(expected, read(ds));
+
+    View<GenericRecord> range = ds
+        .from("part1", "part1_2").from("part2", "part2_2")
+        .to("part1", "part1_7").to("part2", "part2_7");
+    assertEquals(expected.subList(2, 8), read(range));
+  }
+
+  @Test
+  public void testUnorderedScan() throws Exception {
+    RandomAccessDataset<GenericRecord> ds = createDataset(false);
+    Set<String> expected = new HashSet<String>();
+    for (int i = 0; i < 10; ++i) {
+      expected.add("part1_" + i);
+    }
+    List<String> actual = read(ds);
+    assertEquals(10, actual.size());
+    assertEquals(expected, new HashSet<String>(actual));
+  }
+
+  @Test(timeout = 60000)
+  @SuppressWarnings("unchecked")
+  public void testFailureIsRethrown() throws Exception {
+    createDataset(true);
+    HTablePool tablePool = new HTablePool(HBaseTestUtils.getConf(), 10);
+    final EntityMapper<GenericRecord> mapper = new GenericAvroDao(tablePool,
+        tableName, "TestGenericEntity", new DefaultSchemaManager(tablePool))
+        .getEntityMapper();
+    // delegates to the dataset's mapper, but fails to map any row
+    EntityMapper<GenericRecord> failing = (EntityMapper<GenericRecord>)
+        Proxy.newProxyInstance(EntityMapper.class.getClassLoader(),
+            new Class<?>[] { EntityMapper.class }, new InvocationHandler() {
+              @Override
+              public Object invoke(Object proxy, Method method, Object[] args)
+                  throws Throwable {
+                if ("mapToEntity".equals(method.getName())) {
+                  throw new IllegalStateException("Cannot map row");
+                }
+                try {
+                  return method.invoke(mapper, args);
+                } catch (InvocationTargetException e) {
+                  throw e.getCause();
+                }
+              }
+            });
+
+    ParallelEntityScanner<GenericRecord> scanner =
+        new ParallelEntityScanner<GenericRecord>(
+            new BaseEntityScanner.Builder<GenericRecord>(
+                tablePool, tableName, failing).build(), 2, 2, true);
+    scanner.initialize();
+    try {
+      for (int i = 0; i < 2; i += 1) {
+        try {
+          scanner.hasNext();
+          fail("Should throw the scan failure");
+        } catch (IllegalStateException e) {
+          // expected, and again on the next call instead of blocking
+        }
+      }
+    } finally {
+      scanner.close();
+    }
+  }
+
+  @Test
+  public void testSplit() {
+    byte[][] starts = new byte[][] { EMPTY, Bytes.toBytes("c"),
+        Bytes.toBytes("f") };
+    byte[][] ends = new byte[][] { Bytes.toBytes("c"), Bytes.toBytes("f"),
+        EMPTY };
+
+    List<Pair<byte[], byte[]>> all = ParallelEntityScanner.split(
+        EMPTY, EMPTY, starts, ends);
+    assertEquals(3, all.size());
+    for (int i = 0; i < 3; i += 1) {
+      assertArrayEquals(starts[i], all.get(i).getFirst());
+      assertArrayEquals(ends[i], all.get(i).getSecond());
+    }
+
+    List<Pair<byte[], byte[]>> middle = ParallelEntityScanner.split(
+        Bytes.toBytes("d"), Bytes.toBytes("e"), starts, ends);
+    assertEquals(1, middle.size());
+    assertArrayEquals(Bytes.toBytes("d"), middle.get(0).getFirst());
+    assertArrayEquals(Bytes.toBytes("e"), middle.get(0).getSecond());
+
+    List<Pair<byte[], byte[]>> spanning = ParallelEntityScanner.split(
+        Bytes.toBytes("b"), Bytes.toBytes("g"), starts, ends);
+    assertEquals(3, spanning.size());
+    assertArrayEquals(Bytes.toBytes("b"), spanning.get(0).getFirst());
+    assertArrayEquals(Bytes.toBytes("c"), spanning.get(0).getSecond());
+    assertArrayEquals(Bytes.toBytes("f"), spanning.get(2).getFirst());
+    assertArrayEquals(Bytes.toBytes("g"), spanning.get(2).getSecond());
+
+    // a stop row at a region boundary does not include the next region
+    List<Pair<byte[], byte[]>> boundary = ParallelEntityScanner.split(
+        EMPTY, Bytes.toBytes("c"), starts, ends);
+    assertEquals(1, boundary.size());
+  }
+}
@@ -15,47 +15,91 @@
  */
 package org.kitesdk.morphline.api;
 
+import java.util.AbstractList;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
 import java.util.TreeMap;
 
+import com.google.common.base.Objects;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.ListMultimap;
 
 /**
  * A record is a set of named fields where each field has a list of one or more values.
- * 
+ *
  * A value can be of any type, i.e. any Java Object. That is, a record is a {@link ListMultimap} as
  * in Guava’s {@link ArrayListMultimap}. Note that a field can be multi-valued and that any two
  * records need not use common field names. This flexible data model corresponds exactly to the
  * characteristics of the Solr/Lucene data model (i.e. a record is a SolrInputDocument). A field
  * with zero values is removed from the record - it does not exist as such.
+ *
+ * Internally, fields are stored in slots of parallel arrays, and a single-valued field stores its
+ * value without allocating a list. Copies share these arrays until either record is modified.
+ * Calling {@link #getFields()} converts the record to a multimap, which is kept from then on so
+ * that the returned multimap stays live.
  */
 public final class Record {
-  
+
+  private static final int INITIAL_CAPACITY = 8;
+
+  // names[i] is stored in slot i with values[i], which is either the value of a single-valued
+  // field or a Values list with two or more values
+  private String[] names;
+  private int[] hashes;
+  private Object[] values;
+  private int size;
+
+  // true if the slot arrays and Values lists may be used by another record
+  private boolean shared;
+
+  // all fields, once getFields() has been called; the slot arrays are unused from then on
   private ArrayListMultimap<String, Object> fields;
 
   /** Creates a new empty record. */
   public Record() {
-    this(create());
+    this.names = new String[INITIAL_CAPACITY];
+    this.hashes = new int[INITIAL_CAPACITY];
+    this.values = new Object[INITIAL_CAPACITY];
+    this.size = 0;
+    this.shared = false;
   }
-  
-  private Record(ArrayListMultimap<String, Object> fields) {
-    Preconditions.checkNotNull(fields);
-    this.fields = fields;
+
+  private Record(Record other) {
+    this.names = other.names;
+    this.hashes = other.hashes;
+    this.values = other.values;
+    this.size = other.size;
+    this.shared = true;
+    other.shared = true;
   }
 
   /** Returns a shallow copy of this record. */
   public Record copy() {
-    //return new Record(ArrayListMultimap.create(fields)); // adding fields later causes (slow) rehashing
-    ArrayListMultimap<String,Object> copy = ArrayListMultimap.create(fields.size() + 16, 10);
-    copy.putAll(fields);
-    return new Record(copy);
+    if (fields == null) {
+      return new Record(this); // copy-on-write
+    }
+    Record copy = new Record();
+    for (Map.Entry<String, Collection<Object>> entry : fields.asMap().entrySet()) {
+      for (Object value : entry.getValue()) {
+        copy.put(entry.getKey(), value);
+      }
+    }
+    return copy;
   }
-  
+
   /** Returns the fields that are stored in this record. */
   public ListMultimap<String, Object> getFields() {
+    if (fields == null) {
+      fields = toMultimap();
+      names = null;
+      hashes = null;
+      values = null;
+      size = 0;
+    }
     return fields;
   }
 
@@ -64,18 +108,47 @@ public final class Record {
    * returned, but never <code>null</null>.
    */
   public List get(String key) {
-    return fields.get(key);
+    if (fields != null) {
+      return fields.get(key);
+    }
+    return new FieldValues(key);
   }
-  
+
   /** Adds the given value to the values currently associated with the given key. */
   public void put(String key, Object value) {
-    fields.put(key, value);    
+    if (fields != null) {
+      fields.put(key, value);
+      return;
+    }
+    int slot = indexOf(key);
+    if (slot < 0) {
+      addSlot(key, value);
+    } else {
+      unshare();
+      Object current = values[slot];
+      if (current instanceof Values) {
+        ((Values) current).add(value);
+      } else {
+        Values list = new Values();
+        list.add(current);
+        list.add(value);
+        values[slot] = list;
+      }
+    }
   }
-  
+
   /** Returns the first value associated with the given key, or null if no such value exists */
   public Object getFirstValue(String key) {
-    List values = fields.get(key);
-    return values.size() > 0 ? values.get(0) : null;
+    if (fields != null) {
+      List values = fields.get(key);
+      return values.size() > 0 ? values.get(0) : null;
+    }
+    int slot = indexOf(key);
+    if (slot < 0) {
+      return null;
+    }
+    Object value = values[slot];
+    return value instanceof Values ? ((Values) value).get(0) : value;
   }
 
   /**
@@ -83,48 +156,299 @@ public final class Record {
    * with the given key.
    */
   public void replaceValues(String key, Object value) {
-//    fields.replaceValues(key, Collections.singletonList(value)); // unnecessarily slow
-    List<Object> list = fields.get(key);
-    list.clear(); 
-    list.add(value);
+    if (fields != null) {
+//      fields.replaceValues(key, Collections.singletonList(value)); // unnecessarily slow
+      List<Object> list = fields.get(key);
+      list.clear();
+      list.add(value);
+      return;
+    }
+    int slot = indexOf(key);
+    if (slot < 0) {
+      addSlot(key, value);
+    } else {
+      unshare();
+      values[slot] = value;
+    }
   }
-  
+
   /** Removes all values that are associated with the given key */
   public void removeAll(String key) {
-    //fields.removeAll(key); // unnecessarily slow
-    fields.get(key).clear();
+    if (fields != null) {
+      //fields.removeAll(key); // unnecessarily slow
+      fields.get(key).clear();
+      return;
+    }
+    int slot = indexOf(key);
+    if (slot >= 0) {
+      removeSlot(slot);
+    }
   }
-  
+
   /**
    * Adds the given value to the values currently associated with the given key, iff the key isn't
    * already associated with that same value.
    */
   public void putIfAbsent(String key, Object value) {
-    if (!fields.containsEntry(key, value)) {
-      fields.put(key, value);
+    if (fields != null) {
+      if (!fields.containsEntry(key, value)) {
+        fields.put(key, value);
+      }
+      return;
+    }
+    int slot = indexOf(key);
+    if (slot >= 0) {
+      Object current = values[slot];
+      if (current instanceof Values) {
+        if (((Values) current).contains(value)) {
+          return;
+        }
+      } else if (Objects.equal(current, value)) {
+        return;
+      }
     }
+    put(key, value);
   }
-  
+
   @Override
   public boolean equals(Object other) {
     if (other instanceof Record) {
-      return fields.equals(((Record)other).getFields());
+      return asMultimap().equals(((Record)other).asMultimap());
     }
     return false;
   }
 
   @Override
   public int hashCode() {
-    return fields.hashCode();
+    return asMultimap().hashCode();
   }
-  
+
   @Override
   public String toString() { // print fields sorted by key for better human readability
-    return new TreeMap<String, Collection<Object>>(fields.asMap()).toString();
+    return new TreeMap<String, Collection<Object>>(asMultimap().asMap()).toString();
+  }
+
+  private ListMultimap<String, Object> asMultimap() {
+    return fields != null ? fields : toMultimap();
+  }
+
+  private ArrayListMultimap<String, Object> toMultimap() {
+    ArrayListMultimap<String, Object> multimap = ArrayListMultimap.create(size + 16, 10);
+    for (int i = 0; i < size; i++) {
+      Object value = values[i];
+      if (value instanceof Values) {
+        multimap.putAll(names[i], (Values) value);
+      } else {
+        multimap.put(names[i], value);
+      }
+    }
+    return multimap;
+  }
+
+  /** Returns the slot of the given key, or -1 if the key has no values */
+  private int indexOf(String key) {
+    int hash = key.hashCode();
+    for (int i = 0; i < size; i++) {
+      if (hashes[i] == hash && (names[i] == key || names[i].equals(key))) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private void addSlot(String key, Object value) {
+    unshare();
+    if (size == names.length) {
+      int capacity = names.length * 2;
+      String[] newNames = new String[capacity];
+      int[] newHashes = new int[capacity];
+      Object[] newValues = new Object[capacity];
+      System.arraycopy(names, 0, newNames, 0, size);
+      System.arraycopy(hashes, 0, newHashes, 0, size);
+      System.arraycopy(values, 0, newValues, 0, size);
+      names = newNames;
+      hashes = newHashes;
+      values = newValues;
+    }
+    names[size] = key;
+    hashes[size] = key.hashCode();
+    values[size] = value;
+    size++;
+  }
+
+  private void removeSlot(int slot) {
+    unshare();
+    int moved = size - slot - 1;
+    System.arraycopy(names, slot + 1, names, slot, moved);
+    System.arraycopy(hashes, slot + 1, hashes, slot, moved);
+    System.arraycopy(values, slot + 1, values, slot, moved);
+    size--;
+    names[size] = null;
+    values[size] = null;
   }
 
-  private static ArrayListMultimap<String, Object> create() {
-    return ArrayListMultimap.create();
+  /** Makes sure that the slot arrays and Values lists are only used by this record */
+  private void unshare() {
+    if (!shared) {
+      return;
+    }
+    names = names.clone();
+    hashes = hashes.clone();
+    values = values.clone();
+    for (int i = 0; i < size; i++) {
+      if (values[i] instanceof Values) {
+        values[i] = new Values((Values) values[i]);
+      }
+    }
+    shared = false;
+  }
+
+  private int sizeOf(String key) {
+    if (fields != null) {
+      return fields.get(key).size();
+    }
+    int slot = indexOf(key);
+    if (slot < 0) {
+      return 0;
+    }
+    Object value = values[slot];
+    return value instanceof Values ? ((Values) value).size() : 1;
   }
-  
+
+  private Object getValue(String key, int index) {
+    if (fields != null) {
+      return fields.get(key).get(index);
+    }
+    int slot = indexOf(key);
+    Object value = slot < 0 ? null : values[slot];
+    if (value instanceof Values) {
+      return ((Values) value).get(index);
+    }
+    checkIndex(index, slot < 0 ? 0 : 1);
+    return value;
+  }
+
+  private Object setValue(String key, int index, Object element) {
+    if (fields != null) {
+      return fields.get(key).set(index, element);
+    }
+    int slot = indexOf(key);
+    Object value = slot < 0 ? null : values[slot];
+    if (value instanceof Values) {
+      unshare();
+      return ((Values) values[slot]).set(index, element);
+    }
+    checkIndex(index, slot < 0 ? 0 : 1);
+    unshare();
+    values[slot] = element;
+    return value;
+  }
+
+  private void addValue(String key, int index, Object element) {
+    if (fields != null) {
+      fields.get(key).add(index, element);
+      return;
+    }
+    int count = sizeOf(key);
+    Preconditions.checkPositionIndex(index, count);
+    if (index == count) {
+      put(key, element);
+      return;
+    }
+    int slot = indexOf(key);
+    unshare();
+    Object value = values[slot];
+    if (value instanceof Values) {
+      ((Values) value).add(index, element);
+    } else {
+      Values list = new Values();
+      list.add(element);
+      list.add(value);
+      values[slot] = list;
+    }
+  }
+
+  private Object removeValue(String key, int index) {
+    if (fields != null) {
+      return fields.get(key).remove(index);
+    }
+    int slot = indexOf(key);
+    Object value = slot < 0 ? null : values[slot];
+    if (!(value instanceof Values)) {
+      checkIndex(index, slot < 0 ? 0 : 1);
+      removeSlot(slot);
+      return value;
+    }
+    unshare();
+    Values list = (Values) values[slot];
+    Object removed = list.remove(index);
+    if (list.size() == 1) {
+      values[slot] = list.get(0);
+    }
+    return removed;
+  }
+
+  private static void checkIndex(int index, int size) {
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+    }
+  }
+
+
+  ///////////////////////////////////////////////////////////////////////////////
+  // Nested classes:
+  ///////////////////////////////////////////////////////////////////////////////
+  /** The values of a multi-valued field; distinguishes them from a value that is a List */
+  private static final class Values extends ArrayList<Object> {
+
+    public Values() {
+      super(4);
+    }
+
+    public Values(Values values) {
+      super(values);
+    }
+  }
+
+
+  /** A live view of the values of a field, as returned by {@link Record#get(String)} */
+  private final class FieldValues extends AbstractList<Object> implements RandomAccess {
+
+    private final String key;
+
+    public FieldValues(String key) {
+      this.key = key;
+    }
+
+    @Override
+    public Object get(int index) {
+      return getValue(key, index);
+    }
+
+    @Override
+    public int size() {
+      return sizeOf(key);
+    }
+
+    @Override
+    public Object set(int index, Object element) {
+      return setValue(key, index, element);
+    }
+
+    @Override
+    public void add(int index, Object element) {
+      addValue(key, index, element);
+    }
+
+    @Override
+    public Object remove(int index) {
+      return removeValue(key, index);
+    }
+
+    @Override
+    public void clear() {
+      Record.this.removeAll(key);
+    }
+  }
+
 }
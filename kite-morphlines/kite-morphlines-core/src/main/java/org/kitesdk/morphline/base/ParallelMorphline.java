@@ -0,0 +1,344 @@
+/*
+ * Copyright 2015 Cloudera Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kitesdk.morphline.base;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.kitesdk.morphline.api.Command;
+import org.kitesdk.morphline.api.MorphlineContext;
+import org.kitesdk.morphline.api.MorphlineRuntimeException;
+import org.kitesdk.morphline.api.Record;
+import org.kitesdk.morphline.stdlib.DropRecordBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.typesafe.config.Config;
+
+/**
+ * Runs a morphline on several threads. Each worker thread runs its own compiled copy of the
+ * morphline, and records passed to {@link #process(Record)} are distributed over the workers
+ * through a bounded queue. Records emitted by the workers are passed to a single final child.
+ *
+ * The rules for commands are:
+ * <ul>
+ * <li>Commands in the morphline need not be thread-safe, because each worker has its own command
+ * chain. Commands that keep state across records, such as sequence numbers or samples, see only
+ * the records of their own worker.</li>
+ * <li>The final child need not be thread-safe. It is called by one thread at a time, though not
+ * always by the same thread.</li>
+ * <li>The morphline context is shared by all workers, so its exception handler must be
+ * thread-safe. Commands that register global resources when they are compiled, such as metrics
+ * reporters, should not be run in parallel.</li>
+ * <li>A record must not be modified by the caller after it was passed to process.</li>
+ * </ul>
+ *
+ * If output is ordered, the records emitted for each input record are passed to the final child in
+ * the order of the input records. In that case, commands see true as the result of passing a record
+ * to the final child. If output is unordered, records are passed to the final child as soon as
+ * they are emitted.
+ *
+ * Notifications wait until all records that were passed to process have reached the final child,
+ * and are then sent to each worker's morphline. The final child receives each notification once,
+ * so it can treat a commit notification as the end of a batch. A shutdown notification stops the
+ * workers.
+ *
+ * Process and notify must be called by one thread at a time. Process returns true unless a worker
+ * failed, in which case the failure is thrown by the next call to process or notify.
+ */
+public final class ParallelMorphline implements Command {
+
+  private final Command finalChild;
+  private final MorphlineContext context;
+  private final boolean ordered;
+  private final int maxPending;
+  private final BlockingQueue<Task> queue;
+  private final List<Worker> workers;
+  private final ExecutorService executor;
+
+  // guards the fields below and calls to finalChild
+  private final Object lock = new Object();
+  private long numSubmitted = 0;
+  private long numCompleted = 0;
+  private long nextOutput = 0;
+  private final Map<Long, List<Record>> pending = new HashMap<Long, List<Record>>();
+  private Throwable failure = null;
+  private boolean isShutdown = false;
+
+  private static final Task STOP = new Task(-1, null);
+
+  private static final Logger LOG = LoggerFactory.getLogger(ParallelMorphline.class);
+
+  /**
+   * Compiles the given morphline config once per worker, and starts the workers.
+   *
+   * @param morphlineConfig the morphline to run, as found by {@link Compiler#find}
+   * @param morphlineContext the context shared by all workers
+   * @param finalChild the command that receives the output records, or null to drop them
+   * @param numWorkers the number of worker threads
+   * @param queueSize the maximum number of records waiting for a worker
+   * @param ordered whether output records are passed to finalChild in the order of the input
+   */
+  public ParallelMorphline(Config morphlineConfig, MorphlineContext morphlineContext,
+      Command finalChild, int numWorkers, int queueSize, boolean ordered) {
+    Preconditions.checkNotNull(morphlineConfig);
+    Preconditions.checkNotNull(morphlineContext);
+    Preconditions.checkArgument(numWorkers > 0, "numWorkers must be positive: %s", numWorkers);
+    Preconditions.checkArgument(queueSize > 0, "queueSize must be positive: %s", queueSize);
+    if (finalChild == null) {
+      finalChild = new DropRecordBuilder().build(null, null, null, morphlineContext);
+    }
+    this.finalChild = finalChild;
+    this.context = morphlineContext;
+    this.ordered = ordered;
+    this.maxPending = queueSize;
+    this.queue = new ArrayBlockingQueue<Task>(queueSize);
+
+    this.workers = new ArrayList<Worker>(numWorkers);
+    for (int i = 0; i < numWorkers; i++) {
+      Output output = new Output(i == 0);
+      Command morphline = new Compiler().compile(morphlineConfig, morphlineContext, output);
+      workers.add(new Worker(morphline, output));
+    }
+    this.executor = Executors.newFixedThreadPool(numWorkers, new ThreadFactoryBuilder()
+        .setDaemon(true)
+        .setNameFormat("morphline-worker-%d")
+        .build());
+    for (Worker worker : workers) {
+      executor.execute(worker);
+    }
+  }
+
+  @Override
+  public Command getParent() {
+    return null;
+  }
+
+  @Override
+  public boolean process(Record record) {
+    Preconditions.checkNotNull(record);
+    long seq;
+    synchronized (lock) {
+      checkFailure();
+      if (isShutdown) {
+        throw new IllegalStateException("Morphline has been shut down");
+      }
+      seq = numSubmitted++;
+    }
+    try {
+      queue.put(new Task(seq, record));
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new MorphlineRuntimeException("Interrupted while submitting record", e);
+    }
+    return true;
+  }
+
+  @Override
+  public void notify(Record notification) {
+    synchronized (lock) {
+      while (numCompleted < numSubmitted) {
+        waitForWorkers();
+      }
+      checkFailure();
+      if (isShutdown) {
+        return;
+      }
+    }
+
+    // the workers are idle, and take no records until this returns
+    for (Worker worker : workers) {
+      worker.morphline.notify(notification);
+    }
+
+    if (Notifications.containsLifecycleEvent(notification, Notifications.LifecycleEvent.SHUTDOWN)) {
+      synchronized (lock) {
+        isShutdown = true;
+      }
+      for (int i = 0; i < workers.size(); i++) {
+        try {
+          queue.put(STOP);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new MorphlineRuntimeException("Interrupted while stopping workers", e);
+        }
+      }
+      executor.shutdown();
+    }
+  }
+
+  private void checkFailure() {
+    if (failure != null) {
+      throw new MorphlineRuntimeException("Morphline worker failed", failure);
+    }
+  }
+
+  private void waitForWorkers() {
+    try {
+      lock.wait();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new MorphlineRuntimeException("Interrupted while waiting for workers", e);
+    }
+  }
+
+  /** Called by a worker when it is done with the task with the given sequence number */
+  private void complete(long seq, List<Record> outputs) {
+    synchronized (lock) {
+      try {
+        if (ordered) {
+          // bound the output that waits for an earlier, slower record
+          while (seq != nextOutput && pending.size() >= maxPending) {
+            waitForWorkers();
+          }
+          pending.put(seq, outputs);
+          List<Record> next;
+          while ((next = pending.remove(nextOutput)) != null) {
+            for (Record record : next) {
+              if (!finalChild.process(record)) {
+                LOG.warn("Final child failed to process record: {}", record);
+              }
+            }
+            nextOutput++;
+          }
+        }
+      } catch (Throwable t) {
+        fail(t);
+      } finally {
+        numCompleted++;
+        lock.notifyAll();
+      }
+    }
+  }
+
+  private void fail(Throwable t) {
+    synchronized (lock) {
+      if (failure == null) {
+        failure = t;
+      }
+    }
+  }
+
+
+  ///////////////////////////////////////////////////////////////////////////////
+  // Nested classes:
+  ///////////////////////////////////////////////////////////////////////////////
+  private static final class Task {
+
+    private final long seq;
+    private final Record record;
+
+    public Task(long seq, Record record) {
+      this.seq = seq;
+      this.record = record;
+    }
+  }
+
+
+  ///////////////////////////////////////////////////////////////////////////////
+  // Nested classes:
+  ///////////////////////////////////////////////////////////////////////////////
+  /** Runs one compiled morphline on the records taken from the queue */
+  private final class Worker implements Runnable {
+
+    private final Command morphline;
+    private final Output output;
+
+    public Worker(Command morphline, Output output) {
+      this.morphline = morphline;
+      this.output = output;
+    }
+
+    @Override
+    public void run() {
+      while (true) {
+        Task task;
+        try {
+          task = queue.take();
+        } catch (InterruptedException e) {
+          return;
+        }
+        if (task == STOP) {
+          return;
+        }
+
+        output.records = ordered ? new ArrayList<Record>(1) : null;
+        try {
+          if (!morphline.process(task.record)) {
+            LOG.warn("Morphline failed to process record: {}", task.record);
+          }
+        } catch (Throwable t) {
+          try {
+            context.getExceptionHandler().handleException(t, task.record);
+          } catch (Throwable t2) {
+            fail(t2);
+          }
+        }
+        complete(task.seq, output.records);
+      }
+    }
+  }
+
+
+  ///////////////////////////////////////////////////////////////////////////////
+  // Nested classes:
+  ///////////////////////////////////////////////////////////////////////////////
+  /** The final child of each worker's morphline */
+  private final class Output implements Command {
+
+    private final boolean isNotifying;
+    private List<Record> records; // output of the current task if ordered
+
+    public Output(boolean isNotifying) {
+      this.isNotifying = isNotifying;
+    }
+
+    @Override
+    public Command getParent() {
+      return null;
+    }
+
+    @Override
+    public void notify(Record notification) {
+      // each worker's morphline forwards the notification, but finalChild gets it once
+      if (isNotifying) {
+        synchronized (lock) {
+          finalChild.notify(notification);
+        }
+      }
+    }
+
+    @Override
+    public boolean process(Record record) {
+      if (ordered) {
+        records.add(record);
+        return true;
+      }
+      synchronized (lock) {
+        return finalChild.process(record);
+      }
+    }
+  }
+
+}
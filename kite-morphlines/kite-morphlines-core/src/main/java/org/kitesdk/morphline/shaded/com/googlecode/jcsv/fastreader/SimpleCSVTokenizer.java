@@ -15,6 +15,7 @@ package org.kitesdk.morphline.shaded.com.googlecode.jcsv.fastreader;
 
 import java.io.BufferedReader;
 import java.io.IOException;
+import java.nio.charset.Charset;
 import java.util.List;
 
 import org.kitesdk.morphline.api.Record;
@@ -58,6 +59,46 @@ public final class SimpleCSVTokenizer implements CSVTokenizer {
     return true;
   }
 
+  /**
+   * Splits the given encoded line into parts, using the given delimiter, and decodes only the parts
+   * that are kept. The charset must encode the delimiter and whitespace as single bytes that don't
+   * occur in the encoding of other characters.
+   */
+  public boolean tokenizeLine(byte[] line, int start, int end, Charset charset, Record record) {
+    byte separator = (byte) separatorChar;
+    int from = start;
+    int j = 0;
+    for (int i = start; i < end; i++) {
+      if (line[i] == separator) {
+        put(line, from, i, j, charset, record);
+        from = i+1;
+        j++;
+      }
+    }
+    put(line, from, end, j, charset, record);
+    return true;
+  }
+
+  private void put(byte[] line, int start, int end, int j, Charset charset, Record record) {
+    if (j >= columnNames.size()) {
+      columnNames.add("column" + j);
+    }
+    String columnName = columnNames.get(j);
+    if (columnName.length() != 0) { // empty column name indicates omit this field on output
+      if (trim) { // same as String.trim()
+        while (start < end && (line[start] & 0xFF) <= ' ') {
+          start++;
+        }
+        while (end > start && (line[end - 1] & 0xFF) <= ' ') {
+          end--;
+        }
+      }
+      if (end > start || addEmptyStrings) {
+        record.put(columnName, new String(line, start, end - start, charset));
+      }
+    }
+  }
+
   private void put(String line, int start, int i, int j, Record record) {
     if (j >= columnNames.size()) {
       columnNames.add("column" + j);
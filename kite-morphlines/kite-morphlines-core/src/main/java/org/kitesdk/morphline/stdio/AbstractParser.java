@@ -160,7 +160,7 @@ public abstract class AbstractParser extends AbstractCommand {
   }
 
   private boolean hasAtLeastOneAttachment(Record record) {
-    if (!record.getFields().containsKey(Fields.ATTACHMENT_BODY)) {
+    if (record.get(Fields.ATTACHMENT_BODY).isEmpty()) {
       LOG.debug("Command failed because of missing attachment for record: {}", record);
       return false;
     }
@@ -168,7 +168,7 @@ public abstract class AbstractParser extends AbstractCommand {
   }
   
   private boolean hasAtLeastOneMimeType(Record record) {
-    if (!record.getFields().containsKey(Fields.ATTACHMENT_MIME_TYPE)) {
+    if (record.get(Fields.ATTACHMENT_MIME_TYPE).isEmpty()) {
       LOG.debug("Command failed because of missing MIME type for record: {}", record);
       return false;
     }  
@@ -0,0 +1,142 @@
+/*
+ * Copyright 2015 Cloudera Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kitesdk.morphline.stdio;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+
+import com.google.common.base.Charsets;
+
+/**
+ * Reads lines from a stream without decoding them, so that callers can scan a line for delimiters
+ * and decode only the parts they keep.
+ *
+ * Lines are terminated like in {@link java.io.BufferedReader#readLine()}: by '\n', '\r' or "\r\n".
+ * The current line is the range [getLineStart(), getLineEnd()) of getBuffer(), and is valid until
+ * the next call to readLine(). The buffer is reused, and grows to hold the longest line.
+ *
+ * This only works for charsets that encode these terminators as single bytes that never occur
+ * inside the encoding of another character; see {@link #isAsciiCompatible(Charset)}.
+ */
+final class ByteLineReader {
+
+  private final InputStream in;
+  private byte[] buf;
+  private int pos = 0; // start of the unread bytes
+  private int limit = 0; // end of the unread bytes
+  private boolean isEOF = false;
+  private boolean skipLF = false; // the previous line ended with '\r'
+  private int lineStart = 0;
+  private int lineEnd = 0;
+
+  public ByteLineReader(InputStream in, int bufferSize) {
+    this.in = in;
+    this.buf = new byte[Math.max(1, bufferSize)];
+  }
+
+  /**
+   * Returns true if lines and ASCII delimiters can be found by scanning the bytes of the given
+   * charset, i.e. if it encodes ASCII as is and every other character without bytes below 0x80.
+   */
+  public static boolean isAsciiCompatible(Charset charset) {
+    return charset.equals(Charsets.UTF_8)
+        || charset.equals(Charsets.US_ASCII)
+        || charset.equals(Charsets.ISO_8859_1);
+  }
+
+  /** Advances to the next line, and returns false if the end of the stream has been reached */
+  public boolean readLine() throws IOException {
+    if (skipLF) {
+      if (pos == limit && !isEOF) {
+        fill();
+      }
+      if (pos < limit && buf[pos] == '\n') {
+        pos++;
+      }
+      skipLF = false;
+    }
+
+    int i = pos;
+    while (true) {
+      for (; i < limit; i++) {
+        byte b = buf[i];
+        if (b == '\n' || b == '\r') {
+          lineStart = pos;
+          lineEnd = i;
+          pos = i + 1;
+          skipLF = (b == '\r');
+          return true;
+        }
+      }
+      if (isEOF) {
+        if (pos == limit) {
+          return false;
+        }
+        lineStart = pos;
+        lineEnd = limit;
+        pos = limit;
+        return true;
+      }
+      int scanned = i - pos;
+      fill();
+      i = pos + scanned;
+    }
+  }
+
+  public byte[] getBuffer() {
+    return buf;
+  }
+
+  public int getLineStart() {
+    return lineStart;
+  }
+
+  public int getLineEnd() {
+    return lineEnd;
+  }
+
+  /** Returns true if the current line is empty */
+  public boolean isLineEmpty() {
+    return lineStart == lineEnd;
+  }
+
+  /** Decodes the current line */
+  public String getLine(Charset charset) {
+    return new String(buf, lineStart, lineEnd - lineStart, charset);
+  }
+
+  /** Moves the unread bytes to the front of the buffer, and reads more bytes */
+  private void fill() throws IOException {
+    if (pos > 0) {
+      System.arraycopy(buf, pos, buf, 0, limit - pos);
+      limit -= pos;
+      pos = 0;
+    }
+    if (limit == buf.length) {
+      byte[] newBuf = new byte[2 * buf.length];
+      System.arraycopy(buf, 0, newBuf, 0, limit);
+      buf = newBuf;
+    }
+    int n = in.read(buf, limit, buf.length - limit);
+    if (n < 0) {
+      isEOF = true;
+    } else {
+      limit += n;
+    }
+  }
+
+}
@@ -115,6 +115,12 @@ public final class ReadCSVBuilder implements CommandBuilder {
       Record template = inputRecord.copy();
       removeAttachments(template);
       Charset detectedCharset = detectCharset(inputRecord, charset);  
+      if (tokenizer instanceof SimpleCSVTokenizer
+          && ByteLineReader.isAsciiCompatible(detectedCharset)
+          && separatorChar < 128
+          && (commentPrefix.length() == 0 || commentPrefix.charAt(0) < 128)) {
+        return doProcessBytes(template, stream, detectedCharset);
+      }
       BufferedReader reader = new BufferedReader(
           new InputStreamReader(stream, detectedCharset), getBufferSize(stream));
       if (ignoreFirstLine) {
@@ -165,6 +171,62 @@ public final class ReadCSVBuilder implements CommandBuilder {
       }
     }
     
+    /**
+     * Same as above for unquoted CSV, except that lines are scanned for separators without decoding
+     * them, and only the columns that are kept are decoded.
+     */
+    private boolean doProcessBytes(Record template, InputStream stream, Charset detectedCharset)
+        throws IOException {
+      ByteLineReader reader = new ByteLineReader(stream, getBufferSize(stream));
+      SimpleCSVTokenizer simpleTokenizer = (SimpleCSVTokenizer) tokenizer;
+      byte comment = (commentPrefix.length() > 0 ? (byte) commentPrefix.charAt(0) : -1);
+      if (ignoreFirstLine) {
+        reader.readLine();
+      }
+
+      while (reader.readLine()) {
+        byte[] line = reader.getBuffer();
+        int start = reader.getLineStart();
+        int end = reader.getLineEnd();
+
+        // a line has at least as many bytes as chars, so only long lines need to be decoded
+        if (end - start > maxCharactersPerRecord) {
+          String str = reader.getLine(detectedCharset);
+          if (!QuotedCSVTokenizer.verifyRecordLength(
+              str.length(), maxCharactersPerRecord, null, str, ignoreTooLongRecords, LOG)) {
+            continue; // ignore
+          }
+        }
+
+        if (ignoreEmptyLines && isTrimmedLineEmpty(line, start, end)) {
+          continue; // ignore
+        }
+
+        if (comment >= 0 && start < end && line[start] == comment) {
+          continue; // ignore
+        }
+
+        Record outputRecord = template.copy();
+        simpleTokenizer.tokenizeLine(line, start, end, detectedCharset, outputRecord);
+        incrementNumRecords();
+
+        // pass record to next command in chain:
+        if (!getChild().process(outputRecord)) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    private boolean isTrimmedLineEmpty(byte[] line, int start, int end) {
+      for (int i = end; --i >= start; ) {
+        if ((line[i] & 0xFF) > ' ') {
+          return false;
+        }
+      }
+      return true;
+    }
+
     private boolean isTrimmedLineEmpty(String line) {
 //      return line.trim().length() == 0; // slow
       int len = line.length();
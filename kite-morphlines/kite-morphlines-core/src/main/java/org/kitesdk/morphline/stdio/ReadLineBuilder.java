@@ -76,6 +76,10 @@ public final class ReadLineBuilder implements CommandBuilder {
       removeAttachments(template);
       template.removeAll(Fields.MESSAGE);
       Charset detectedCharset = detectCharset(inputRecord, charset);  
+      if (ByteLineReader.isAsciiCompatible(detectedCharset)
+          && (commentPrefix == null || commentPrefix.charAt(0) < 128)) {
+        return doProcessBytes(template, stream, detectedCharset);
+      }
       Reader reader = new InputStreamReader(stream, detectedCharset);
       BufferedReader lineReader = new BufferedReader(reader, getBufferSize(stream));
       boolean isFirst = true;
@@ -104,6 +108,34 @@ public final class ReadLineBuilder implements CommandBuilder {
       return true;        
     }
       
+    /** Same as above, except lines are only decoded if they aren't ignored */
+    private boolean doProcessBytes(Record template, InputStream stream, Charset detectedCharset)
+        throws IOException {
+      ByteLineReader lineReader = new ByteLineReader(stream, getBufferSize(stream));
+      byte comment = (commentPrefix != null ? (byte) commentPrefix.charAt(0) : -1);
+      if (ignoreFirstLine) {
+        lineReader.readLine(); // ignore first line
+      }
+
+      while (lineReader.readLine()) {
+        if (lineReader.isLineEmpty()) {
+          continue; // ignore empty lines
+        }
+        if (comment >= 0 && lineReader.getBuffer()[lineReader.getLineStart()] == comment) {
+          continue; // ignore comments
+        }
+        Record outputRecord = template.copy();
+        outputRecord.put(Fields.MESSAGE, lineReader.getLine(detectedCharset));
+        incrementNumRecords();
+        
+        // pass record to next command in chain:
+        if (!getChild().process(outputRecord)) {
+          return false;
+        }
+      }
+      return true;
+    }
+
   }
   
 }
@@ -69,13 +69,14 @@ abstract class AbstractAddValuesCommand extends AbstractCommand {
   protected void prepare(Record record, String key) {    
   }
   
-  @SuppressWarnings("unchecked")
   protected void putAll(Record record, String key, Collection values) {
-    record.getFields().putAll(key, values);
+    for (Object value : values) {
+      record.put(key, value);
+    }
   }
   
   protected void put(Record record, String key, Object value) {
-    record.getFields().put(key, value);
+    record.put(key, value);
   }
   
 }
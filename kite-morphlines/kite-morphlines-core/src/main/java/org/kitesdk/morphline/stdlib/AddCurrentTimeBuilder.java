@@ -66,7 +66,7 @@ public final class AddCurrentTimeBuilder implements CommandBuilder {
 
     @Override
     protected boolean doProcess(Record record) {      
-      if (preserveExisting && record.getFields().containsKey(fieldName)) {
+      if (preserveExisting && !record.get(fieldName).isEmpty()) {
         // we must preserve the existing timestamp
       } else {
         record.replaceValues(fieldName, System.currentTimeMillis());
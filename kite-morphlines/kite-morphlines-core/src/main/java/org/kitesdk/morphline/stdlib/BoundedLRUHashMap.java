@@ -0,0 +1,39 @@
+/*
+ * Copyright 2013 Cloudera Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kitesdk.morphline.stdlib;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A HashMap that evicts the least recently used entry once it holds more than the given number of
+ * entries.
+ */
+final class BoundedLRUHashMap<K,V> extends LinkedHashMap<K,V> {
+
+  private final int capacity;
+
+  BoundedLRUHashMap(int capacity) {
+    super(16, 0.5f, true);
+    this.capacity = capacity;
+  }
+
+  @Override
+  protected boolean removeEldestEntry(Map.Entry eldest) {
+    return size() > capacity;
+  }
+
+}
@@ -15,6 +15,7 @@
  */
 package org.kitesdk.morphline.stdlib;
 
+import java.text.DecimalFormatSymbols;
 import java.text.ParsePosition;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
@@ -23,9 +24,11 @@ import java.util.Calendar;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
+import java.util.GregorianCalendar;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.Locale;
+import java.util.Map;
 import java.util.TimeZone;
 
 import org.kitesdk.morphline.api.Command;
@@ -64,13 +67,23 @@ public final class ConvertTimestampBuilder implements CommandBuilder {
 
     private final String fieldName;
     private final List<SimpleDateFormat> inputFormats = new ArrayList<SimpleDateFormat>();
+    private final int[] isoLayouts; // parallel to inputFormats
     private final SimpleDateFormat outputFormat;
+    private final Map<String, String> cache; // maps recently seen input timestamps to output
     private final String inputFormatsDebugString; // cached
     
     private static final String NATIVE_SOLR_FORMAT = "yyyy-MM-dd'T'HH:mm:ss.SSS'Z'"; // e.g. 2007-04-26T08:05:04.789Z
     private static final SimpleDateFormat UNIX_TIME_IN_MILLIS = new SimpleDateFormat("'unixTimeInMillis'");
     private static final SimpleDateFormat UNIX_TIME_IN_SECONDS = new SimpleDateFormat("'unixTimeInSeconds'");
     
+    // ISO 8601 layouts that are parsed without SimpleDateFormat if the input timezone is UTC
+    private static final int NO_ISO_LAYOUT = 0;
+    private static final int ISO_DATE = 10; // e.g. 2007-04-26
+    private static final int ISO_DATE_TIME = 19; // e.g. 2007-04-26T08:05:04
+    private static final int ISO_DATE_TIME_Z = 20; // e.g. 2007-04-26T08:05:04Z
+    private static final int ISO_DATE_TIME_MILLIS_Z = 24; // e.g. 2007-04-26T08:05:04.789Z
+    private static final long NO_MATCH = Long.MIN_VALUE;
+    
     static {
       DateUtil.DEFAULT_DATE_FORMATS.add(0, NATIVE_SOLR_FORMAT); 
     }    
@@ -81,12 +94,15 @@ public final class ConvertTimestampBuilder implements CommandBuilder {
       this.fieldName = getConfigs().getString(config, "field", Fields.TIMESTAMP);
       TimeZone inputTimeZone = getTimeZone(getConfigs().getString(config, "inputTimezone", "UTC"));
       Locale inputLocale = getLocale(getConfigs().getString(config, "inputLocale", ""));
-      for (String inputFormat : getConfigs().getStringList(config, "inputFormats", DateUtil.DEFAULT_DATE_FORMATS)) {
+      List<String> inputFormatStrings = getConfigs().getStringList(config, "inputFormats", DateUtil.DEFAULT_DATE_FORMATS);
+      this.isoLayouts = new int[inputFormatStrings.size()];
+      for (String inputFormat : inputFormatStrings) {
         SimpleDateFormat dateFormat = getUnixTimeFormat(inputFormat, inputTimeZone);
         if (dateFormat == null) {
           dateFormat = new SimpleDateFormat(inputFormat, inputLocale);
           dateFormat.setTimeZone(inputTimeZone);
           dateFormat.set2DigitYearStart(DateUtil.DEFAULT_TWO_DIGIT_YEAR_START);
+          isoLayouts[inputFormats.size()] = getIsoLayout(inputFormat, dateFormat, inputLocale);
         }
         this.inputFormats.add(dateFormat);
       }
@@ -99,6 +115,11 @@ public final class ConvertTimestampBuilder implements CommandBuilder {
         dateFormat.setTimeZone(outputTimeZone);
       }
       this.outputFormat = dateFormat;
+      int cacheCapacity = getConfigs().getInt(config, "cacheCapacity", 1000);
+      if (cacheCapacity < 0) {
+        throw new MorphlineCompilationException("cacheCapacity must not be negative: " + cacheCapacity, config);
+      }
+      this.cache = cacheCapacity > 0 ? new BoundedLRUHashMap<String, String>(cacheCapacity) : null;
       validateArguments();
 
       List<String> inputFormatsStringList = new ArrayList<String>();
@@ -118,47 +139,169 @@ public final class ConvertTimestampBuilder implements CommandBuilder {
     @Override
     @SuppressWarnings("unchecked")
     protected boolean doProcess(Record record) {
-      ParsePosition pos = new ParsePosition(0);
       ListIterator iter = record.get(fieldName).listIterator();
       while (iter.hasNext()) {
         String timestamp = iter.next().toString();
-        boolean foundMatchingFormat = false;
-        for (SimpleDateFormat inputFormat : inputFormats) {
-          Date date;
-          boolean isUnixTime;
-          if (inputFormat == UNIX_TIME_IN_MILLIS) {
-            isUnixTime = true;
-            date = parseUnixTime(timestamp, 1);
-          } else if (inputFormat == UNIX_TIME_IN_SECONDS) {
-            isUnixTime = true;
-            date = parseUnixTime(timestamp, 1000);
+        // log lines often share the same timestamp, so remember recent conversions
+        String result = (cache == null ? null : cache.get(timestamp));
+        if (result == null) {
+          result = convert(timestamp);
+          if (result == null) {
+            LOG.debug("Cannot parse timestamp '{}' with any of these input formats: {}", timestamp, inputFormatsDebugString);
+            return false;
+          }
+          if (cache != null) {
+            cache.put(timestamp, result);
+          }
+        }
+        iter.set(result);
+      }
+      
+      // pass record to next command in chain:
+      return super.doProcess(record);
+    }
+
+    /**
+     * Returns the given timestamp in the output format, as parsed by the first input format that
+     * matches it, or null if no input format matches.
+     */
+    private String convert(String timestamp) {
+      ParsePosition pos = new ParsePosition(0);
+      for (int i = 0; i < inputFormats.size(); i++) {
+        SimpleDateFormat inputFormat = inputFormats.get(i);
+        Date date;
+        boolean isComplete;
+        if (inputFormat == UNIX_TIME_IN_MILLIS) {
+          isComplete = true;
+          date = parseUnixTime(timestamp, 1);
+        } else if (inputFormat == UNIX_TIME_IN_SECONDS) {
+          isComplete = true;
+          date = parseUnixTime(timestamp, 1000);
+        } else {
+          long millis = (isoLayouts[i] == NO_ISO_LAYOUT ? NO_MATCH : parseIso(timestamp, isoLayouts[i]));
+          if (millis != NO_MATCH) {
+            isComplete = true;
+            date = new Date(millis);
           } else {
-            isUnixTime = false;
             pos.setIndex(0);
             date = inputFormat.parse(timestamp, pos);
+            isComplete = (pos.getIndex() == timestamp.length());
           }
-          if (date != null && (isUnixTime || pos.getIndex() == timestamp.length())) {
-            String result;
-            if (outputFormat == UNIX_TIME_IN_MILLIS) {
-              result = String.valueOf(date.getTime());
-            } else if (outputFormat == UNIX_TIME_IN_SECONDS) {
-              result = String.valueOf(date.getTime() / 1000);
-            } else {
-              result = outputFormat.format(date);
-            }
-            iter.set(result);
-            foundMatchingFormat = true;
-            break;
+        }
+        if (date != null && isComplete) {
+          if (outputFormat == UNIX_TIME_IN_MILLIS) {
+            return String.valueOf(date.getTime());
+          } else if (outputFormat == UNIX_TIME_IN_SECONDS) {
+            return String.valueOf(date.getTime() / 1000);
+          } else {
+            return outputFormat.format(date);
           }
         }
-        if (!foundMatchingFormat) {
-          LOG.debug("Cannot parse timestamp '{}' with any of these input formats: {}", timestamp, inputFormatsDebugString);
-          return false;
+      }
+      return null;
+    }
+
+    /**
+     * Returns the ISO 8601 layout of the given input format if timestamps in that layout can be
+     * parsed by {@link #parseIso(String, int)} with the same result as with SimpleDateFormat.
+     */
+    private int getIsoLayout(String format, SimpleDateFormat dateFormat, Locale locale) {
+      if (!dateFormat.getTimeZone().hasSameRules(TimeZone.getTimeZone("UTC"))
+          || dateFormat.getCalendar().getClass() != GregorianCalendar.class
+          || DecimalFormatSymbols.getInstance(locale).getZeroDigit() != '0') {
+        return NO_ISO_LAYOUT;
+      }
+      if (format.equals("yyyy-MM-dd")) {
+        return ISO_DATE;
+      } else if (format.equals("yyyy-MM-dd'T'HH:mm:ss")) {
+        return ISO_DATE_TIME;
+      } else if (format.equals("yyyy-MM-dd'T'HH:mm:ss'Z'")) {
+        return ISO_DATE_TIME_Z;
+      } else if (format.equals(NATIVE_SOLR_FORMAT)) {
+        return ISO_DATE_TIME_MILLIS_Z;
+      } else {
+        return NO_ISO_LAYOUT;
+      }
+    }
+
+    /**
+     * Parses the given UTC timestamp in the given ISO 8601 layout, and returns its Unix time in
+     * millis. Returns NO_MATCH unless the timestamp has exactly that layout and in-range field
+     * values; SimpleDateFormat parses leniently, so only it can decide about other timestamps.
+     */
+    private static long parseIso(String timestamp, int layout) {
+      if (timestamp.length() != layout) {
+        return NO_MATCH;
+      }
+      int year = parseDigits(timestamp, 0, 4);
+      int month = parseDigits(timestamp, 5, 2);
+      int day = parseDigits(timestamp, 8, 2);
+      if (timestamp.charAt(4) != '-' || timestamp.charAt(7) != '-'
+          || year < 1600 // before then, SimpleDateFormat uses the Julian calendar
+          || month < 1 || month > 12
+          || day < 1 || day > daysInMonth(year, month)) {
+        return NO_MATCH;
+      }
+      long millis = daysSinceEpoch(year, month, day) * 24 * 60 * 60 * 1000;
+      if (layout == ISO_DATE) {
+        return millis;
+      }
+
+      int hour = parseDigits(timestamp, 11, 2);
+      int minute = parseDigits(timestamp, 14, 2);
+      int second = parseDigits(timestamp, 17, 2);
+      if (timestamp.charAt(10) != 'T' || timestamp.charAt(13) != ':' || timestamp.charAt(16) != ':'
+          || hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 59) {
+        return NO_MATCH;
+      }
+      millis += ((hour * 60L + minute) * 60 + second) * 1000;
+      if (layout == ISO_DATE_TIME) {
+        return millis;
+      }
+
+      if (layout == ISO_DATE_TIME_MILLIS_Z) {
+        int fraction = parseDigits(timestamp, 20, 3);
+        if (timestamp.charAt(19) != '.' || fraction < 0) {
+          return NO_MATCH;
         }
+        millis += fraction;
       }
-      
-      // pass record to next command in chain:
-      return super.doProcess(record);
+      if (timestamp.charAt(layout - 1) != 'Z') {
+        return NO_MATCH;
+      }
+      return millis;
+    }
+
+    /** Returns the value of the given number of ASCII digits at the given index, or -1 */
+    private static int parseDigits(String str, int start, int length) {
+      int value = 0;
+      for (int i = start; i < start + length; i++) {
+        char c = str.charAt(i);
+        if (c < '0' || c > '9') {
+          return -1;
+        }
+        value = value * 10 + (c - '0');
+      }
+      return value;
+    }
+
+    private static int daysInMonth(int year, int month) {
+      if (month == 2) {
+        boolean isLeapYear = (year % 4 == 0 && (year % 100 != 0 || year % 400 == 0));
+        return isLeapYear ? 29 : 28;
+      }
+      return (month == 4 || month == 6 || month == 9 || month == 11) ? 30 : 31;
+    }
+
+    /** Returns the number of days from 1970-01-01 to the given date of the Gregorian calendar */
+    private static long daysSinceEpoch(int year, int month, int day) {
+      // see http://howardhinnant.github.io/date_algorithms.html#days_from_civil
+      int y = (month <= 2 ? year - 1 : year);
+      int era = y / 400; // y is positive
+      int yearOfEra = y - era * 400;
+      int dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+      int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+      return era * 146097L + dayOfEra - 719468;
     }
 
     // work around the fact that SimpleDateFormat doesn't understand Unix time format
@@ -180,6 +323,9 @@ public final class ConvertTimestampBuilder implements CommandBuilder {
     
     // work around the fact that SimpleDateFormat doesn't understand Unix time format
     private Date parseUnixTime(String timestamp, long scale) {
+      if (!isInteger(timestamp)) {
+        return null; // fast path that avoids the exception below for other formats
+      }
       try {
         return new Date(scale * Long.parseLong(timestamp));
       } catch (NumberFormatException e) {
@@ -187,6 +333,21 @@ public final class ConvertTimestampBuilder implements CommandBuilder {
       }
     }
     
+    private boolean isInteger(String str) {
+      int len = str.length();
+      int i = (len > 1 && (str.charAt(0) == '-' || str.charAt(0) == '+')) ? 1 : 0;
+      if (i == len) {
+        return false;
+      }
+      for (; i < len; i++) {
+        char c = str.charAt(i);
+        if (c < '0' || c > '9') {
+          return false;
+        }
+      }
+      return true;
+    }
+    
     private TimeZone getTimeZone(String timeZoneID) {
       if (!Arrays.asList(TimeZone.getAvailableIDs()).contains(timeZoneID)) {
         throw new MorphlineCompilationException("Unknown timezone: " + timeZoneID, getConfig());
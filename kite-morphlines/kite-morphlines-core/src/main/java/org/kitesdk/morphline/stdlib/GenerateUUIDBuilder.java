@@ -88,7 +88,7 @@ public final class GenerateUUIDBuilder implements CommandBuilder {
 
     @Override
     protected boolean doProcess(Record record) {      
-      if (preserveExisting && record.getFields().containsKey(fieldName)) {
+      if (preserveExisting && !record.get(fieldName).isEmpty()) {
         ; // we must preserve the existing id
       } else {
         record.replaceValues(fieldName, generateUUID());
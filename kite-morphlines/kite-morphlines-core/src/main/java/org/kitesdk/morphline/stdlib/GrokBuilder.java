@@ -165,7 +165,12 @@ public final class GrokBuilder implements CommandBuilder {
         }        
         int numMatches = 0;
         for (Object value : values) {
-          matcher.reset(value.toString());
+          String str = value.toString();
+          if (!regex.mayMatch(str)) {
+            todo--; // cheap rejection; the value lacks a literal that every match contains
+            continue;
+          }
+          matcher.reset(str);
           if (!findSubstrings) {
             if (matcher.matches()) {
               numMatches++;
@@ -224,12 +229,14 @@ public final class GrokBuilder implements CommandBuilder {
       private final Matcher matcher;
       private final String[] groupNames;
       private final int[] groupNumbers;
+      private final String[] requiredLiterals;
           
       public Regex(String recordInputField, Matcher matcher) {
         Preconditions.checkNotNull(recordInputField);
         Preconditions.checkNotNull(matcher);
         this.recordInputField = recordInputField;
         this.matcher = matcher;
+        this.requiredLiterals = RequiredLiterals.of(matcher.namedPattern().pattern());
         
         int size = 0;
         for (Map.Entry<String, List<GroupInfo>> entry : matcher.namedPattern().groupInfo().entrySet()) {
@@ -263,6 +270,11 @@ public final class GrokBuilder implements CommandBuilder {
         }
       }
 
+      /** Returns false if the given string can't match because it lacks a required literal */
+      public boolean mayMatch(String str) {
+        return RequiredLiterals.containsAll(str, requiredLiterals);
+      }
+
       public String getRecordInputField() {
         return recordInputField;
       }
@@ -18,7 +18,6 @@ package org.kitesdk.morphline.stdlib;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
-import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -187,26 +186,6 @@ final class PatternNameMatcher {
   }
   
   
-  ///////////////////////////////////////////////////////////////////////////////
-  // Nested classes:
-  ///////////////////////////////////////////////////////////////////////////////
-  private static final class BoundedLRUHashMap<K,V> extends LinkedHashMap<K,V> {
-    
-    private final int capacity;
-
-    private BoundedLRUHashMap(int capacity) {
-      super(16, 0.5f, true);
-      this.capacity = capacity;
-    }
-    
-    @Override
-    protected boolean removeEldestEntry(Map.Entry eldest) {
-      return size() > capacity;
-    }
-      
-  } 
-
-
   ///////////////////////////////////////////////////////////////////////////////
   // Nested classes:
   ///////////////////////////////////////////////////////////////////////////////
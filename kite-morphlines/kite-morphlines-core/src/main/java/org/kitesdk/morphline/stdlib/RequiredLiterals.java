@@ -0,0 +1,304 @@
+/*
+ * Copyright 2015 Cloudera Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kitesdk.morphline.stdlib;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Finds the literal strings that any match of a regex must contain, so that strings that lack one
+ * of them can be rejected with a cheap substring search instead of running the regex.
+ *
+ * The analysis is conservative: a literal is only reported if it is required by every match, and
+ * regexes with constructs that aren't understood yield no literals at all, in which case the regex
+ * always has to be run.
+ */
+final class RequiredLiterals {
+
+  private static final int UNSUPPORTED_FLAGS =
+      Pattern.CASE_INSENSITIVE | Pattern.COMMENTS | Pattern.LITERAL | Pattern.CANON_EQ;
+
+  private final String regex;
+  private int pos = 0;
+
+  private RequiredLiterals(String regex) {
+    this.regex = regex;
+  }
+
+  /**
+   * Returns the distinct literals that every match of the given pattern contains, longest first.
+   */
+  public static String[] of(Pattern pattern) {
+    if ((pattern.flags() & UNSUPPORTED_FLAGS) != 0) {
+      return new String[0];
+    }
+    List<String> literals;
+    try {
+      RequiredLiterals parser = new RequiredLiterals(pattern.pattern());
+      literals = parser.parseSequence();
+      if (parser.pos != parser.regex.length()) { // unbalanced ')'
+        return new String[0];
+      }
+    } catch (UnsupportedRegexException e) {
+      return new String[0];
+    }
+
+    List<String> result = new ArrayList<String>(new LinkedHashSet<String>(literals));
+    Collections.sort(result, new Comparator<String>() {
+      @Override
+      public int compare(String s1, String s2) {
+        return s2.length() - s1.length(); // the longest literal is the most selective
+      }
+    });
+    return result.toArray(new String[result.size()]);
+  }
+
+  /** Returns true if the given string contains all the given literals */
+  public static boolean containsAll(String str, String[] literals) {
+    for (String literal : literals) {
+      if (str.indexOf(literal) < 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Parses a sequence of alternatives up to the next unbalanced ')' or the end of the regex, and
+   * returns the literals required by all of them.
+   */
+  private List<String> parseSequence() {
+    List<String> literals = new ArrayList<String>();
+    StringBuilder run = new StringBuilder();
+    boolean isAlternation = false;
+    while (pos < regex.length() && regex.charAt(pos) != ')') {
+      char c = regex.charAt(pos++);
+      switch (c) {
+        case '|': {
+          isAlternation = true;
+          flush(run, literals);
+          break;
+        }
+        case '(': {
+          flush(run, literals);
+          boolean isRequired = parseGroupPrefix();
+          List<String> groupLiterals = parseSequence();
+          if (pos >= regex.length()) {
+            throw new UnsupportedRegexException(); // unbalanced '('
+          }
+          pos++; // ')'
+          if (parseQuantifier() == 0) {
+            isRequired = false;
+          }
+          if (isRequired) {
+            literals.addAll(groupLiterals);
+          }
+          break;
+        }
+        case '[': {
+          flush(run, literals);
+          skipCharClass();
+          parseQuantifier();
+          break;
+        }
+        case '.':
+        case '^':
+        case '$': {
+          flush(run, literals);
+          parseQuantifier();
+          break;
+        }
+        case '\\': {
+          if (pos >= regex.length()) {
+            throw new UnsupportedRegexException();
+          }
+          char escaped = regex.charAt(pos++);
+          if (escaped == 'Q') {
+            int end = regex.indexOf("\\E", pos);
+            String quoted = end < 0 ? regex.substring(pos) : regex.substring(pos, end);
+            pos = end < 0 ? regex.length() : end + 2;
+            if (quoted.length() > 0) {
+              run.append(quoted, 0, quoted.length() - 1);
+              addLiteral(quoted.charAt(quoted.length() - 1), run, literals);
+            }
+          } else if (!Character.isLetterOrDigit(escaped)) {
+            addLiteral(escaped, run, literals);
+          } else {
+            int literal = escapedLiteral(escaped);
+            if (literal >= 0) {
+              addLiteral((char) literal, run, literals);
+            } else {
+              flush(run, literals);
+              parseQuantifier();
+            }
+          }
+          break;
+        }
+        default: {
+          addLiteral(c, run, literals);
+          break;
+        }
+      }
+    }
+    if (isAlternation) {
+      return Collections.emptyList();
+    }
+    flush(run, literals);
+    return literals;
+  }
+
+  /** Returns false if the group that starts at pos need not consume its content */
+  private boolean parseGroupPrefix() {
+    if (!regex.startsWith("?", pos)) {
+      return true; // capturing group
+    }
+    if (regex.startsWith("?:", pos) || regex.startsWith("?>", pos)) {
+      pos += 2;
+      return true;
+    }
+    if (regex.startsWith("?=", pos) || regex.startsWith("?!", pos)) {
+      pos += 2;
+      return false;
+    }
+    if (regex.startsWith("?<=", pos) || regex.startsWith("?<!", pos)) {
+      pos += 3;
+      return false;
+    }
+    if (regex.startsWith("?<", pos)) { // named group
+      int end = regex.indexOf('>', pos);
+      if (end < 0) {
+        throw new UnsupportedRegexException();
+      }
+      pos = end + 1;
+      return true;
+    }
+    throw new UnsupportedRegexException(); // e.g. inline flags like (?i)
+  }
+
+  /** Returns the character matched by the given escape, or -1 if it isn't a single character */
+  private int escapedLiteral(char escaped) {
+    switch (escaped) {
+      case 't': return '\t';
+      case 'n': return '\n';
+      case 'r': return '\r';
+      case 'f': return '\f';
+      case 'a': return '\u0007';
+      case 'e': return '\u001B';
+      case 'd': case 'D': case 's': case 'S': case 'w': case 'W':
+      case 'b': case 'B': case 'A': case 'G': case 'Z': case 'z': case 'R':
+      case 'h': case 'H': case 'v': case 'V': {
+        return -1;
+      }
+      default: {
+        // backreferences and escapes with arguments, such as hex, unicode or property escapes
+        throw new UnsupportedRegexException();
+      }
+    }
+  }
+
+  /** Appends the given literal character to the run, unless a quantifier follows it */
+  private void addLiteral(char c, StringBuilder run, List<String> literals) {
+    int min = parseQuantifier();
+    if (min < 0) {
+      run.append(c);
+    } else {
+      if (min > 0) {
+        run.append(c); // repetitions of c are not contiguous with what follows
+      }
+      flush(run, literals);
+    }
+  }
+
+  /**
+   * Skips the quantifier at pos, if any, and returns its minimum number of repetitions, or -1 if
+   * there is no quantifier.
+   */
+  private int parseQuantifier() {
+    if (pos >= regex.length()) {
+      return -1;
+    }
+    int min;
+    char c = regex.charAt(pos);
+    if (c == '?' || c == '*') {
+      pos++;
+      min = 0;
+    } else if (c == '+') {
+      pos++;
+      min = 1;
+    } else if (c == '{' && pos + 1 < regex.length() && Character.isDigit(regex.charAt(pos + 1))) {
+      int end = regex.indexOf('}', pos);
+      if (end < 0) {
+        throw new UnsupportedRegexException();
+      }
+      int i = pos + 1;
+      min = 0;
+      while (i < end && Character.isDigit(regex.charAt(i))) {
+        min = 10 * min + (regex.charAt(i) - '0');
+        i++;
+      }
+      pos = end + 1;
+    } else {
+      return -1;
+    }
+    if (pos < regex.length() && (regex.charAt(pos) == '?' || regex.charAt(pos) == '+')) {
+      pos++; // reluctant or possessive
+    }
+    return min;
+  }
+
+  /** Skips the character class that starts just before pos, including nested classes */
+  private void skipCharClass() {
+    int depth = 1;
+    if (regex.startsWith("^", pos)) {
+      pos++;
+    }
+    if (regex.startsWith("]", pos)) {
+      pos++; // a leading ']' is a literal
+    }
+    while (depth > 0) {
+      if (pos >= regex.length()) {
+        throw new UnsupportedRegexException();
+      }
+      char c = regex.charAt(pos++);
+      if (c == '\\') {
+        pos++;
+      } else if (c == '[') {
+        depth++;
+      } else if (c == ']') {
+        depth--;
+      }
+    }
+  }
+
+  private static void flush(StringBuilder run, List<String> literals) {
+    if (run.length() > 0) {
+      literals.add(run.toString());
+      run.setLength(0);
+    }
+  }
+
+
+  ///////////////////////////////////////////////////////////////////////////////
+  // Nested classes:
+  ///////////////////////////////////////////////////////////////////////////////
+  private static final class UnsupportedRegexException extends RuntimeException {
+  }
+
+}
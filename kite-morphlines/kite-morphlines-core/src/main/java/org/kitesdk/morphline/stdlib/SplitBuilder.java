@@ -111,7 +111,9 @@ public final class SplitBuilder implements CommandBuilder {
       for (Object value : record.get(inputFieldName)) {
         Iterable<String> columns = splitter.split(value.toString());
         if (outputFieldNames == null) {
-          record.getFields().putAll(outputFieldName, columns);
+          for (String column : columns) {
+            record.put(outputFieldName, column);
+          }
         } else {
           extractColumns(record, columns);
         }
@@ -1555,6 +1555,22 @@ public class MorphlineTest extends AbstractMorphlineTest {
     processAndVerifySuccess(record, expected);
   }
   
+  @Test
+  public void testConvertTimestampWithRepeatedAndLenientValues() throws Exception {
+    morphline = createMorphline("test-morphlines/convertTimestamp");    
+    Record record = new Record();
+    record.put("ts1", "2011-09-06T14:14:34.789Z");
+    record.put("ts1", "2011-09-06T14:14:34.789Z"); // served from cache
+    record.put("ts1", "2013-9-6"); // not ISO 8601, but SimpleDateFormat is lenient
+    record.put("ts1", "2013-09-31"); // rolls over to the next month
+    Record expected = new Record();
+    expected.put("ts1", "2011-09-06T07:14:34.789-0700");
+    expected.put("ts1", "2011-09-06T07:14:34.789-0700");
+    expected.put("ts1", "2013-09-05T17:00:00.000-0700");
+    expected.put("ts1", "2013-09-30T17:00:00.000-0700");
+    processAndVerifySuccess(record, expected);
+  }
+  
   @Test
   public void testDecodeBase64() throws Exception {
     morphline = createMorphline("test-morphlines/decodeBase64");    
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2015 Cloudera Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kitesdk.morphline.api;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+import org.junit.Test;
+import org.kitesdk.morphline.base.Notifications;
+import org.kitesdk.morphline.base.ParallelMorphline;
+
+import com.codahale.metrics.MetricRegistry;
+
+public class ParallelMorphlineTest extends AbstractMorphlineTest {
+
+  private static final int NUM_RECORDS = 1000;
+
+  private Command createParallelMorphline(boolean ordered) throws Exception {
+    morphContext = new MorphlineContext.Builder().setMetricRegistry(new MetricRegistry()).build();
+    return new ParallelMorphline(parse("test-morphlines/addValues"), morphContext, collector, 4, 10,
+        ordered);
+  }
+
+  private List<Object> run(Command parallel) {
+    Notifications.notifyBeginTransaction(parallel);
+    Notifications.notifyStartSession(parallel);
+    List<Object> expected = new ArrayList<Object>();
+    for (int i = 0; i < NUM_RECORDS; i++) {
+      Record record = new Record();
+      record.put("id", i);
+      assertTrue(parallel.process(record));
+      expected.add(i);
+    }
+    Notifications.notifyCommitTransaction(parallel);
+    return expected;
+  }
+
+  private List<Object> collectIds() {
+    List<Object> ids = new ArrayList<Object>();
+    for (Record record : collector.getRecords()) {
+      assertEquals("123", record.getFirstValue("source_host"));
+      ids.add(record.getFirstValue("id"));
+    }
+    return ids;
+  }
+
+  @Test
+  public void testOrdered() throws Exception {
+    Command parallel = createParallelMorphline(true);
+    List<Object> expected = run(parallel);
+    // all records reached the collector before the commit returned
+    assertEquals(expected, collectIds());
+    assertEquals(1, collector.getNumStartEvents());
+    Notifications.notifyShutdown(parallel);
+  }
+
+  @Test
+  public void testUnordered() throws Exception {
+    Command parallel = createParallelMorphline(false);
+    List<Object> expected = run(parallel);
+    List<Object> actual = collectIds();
+    assertEquals(NUM_RECORDS, actual.size());
+    assertEquals(new HashSet<Object>(expected), new HashSet<Object>(actual));
+    assertEquals(1, collector.getNumStartEvents());
+    Notifications.notifyShutdown(parallel);
+  }
+
+  @Test
+  public void testProcessAfterShutdown() throws Exception {
+    Command parallel = createParallelMorphline(true);
+    Notifications.notifyShutdown(parallel);
+    try {
+      parallel.process(new Record());
+      fail();
+    } catch (IllegalStateException e) {
+      ; // expected
+    }
+  }
+
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2015 Cloudera Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kitesdk.morphline.api;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.ListIterator;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+@SuppressWarnings("unchecked")
+public class RecordTest extends Assert {
+
+  @Test
+  public void testSingleAndMultiValuedFields() throws Exception {
+    Record record = new Record();
+    for (int i = 0; i < 20; i++) {
+      record.put("f" + i, i);
+    }
+    record.put("f3", "x");
+    record.put("f3", "y");
+    assertEquals(Arrays.asList(3, "x", "y"), record.get("f3"));
+    assertEquals(3, record.getFirstValue("f3"));
+    assertEquals(Arrays.asList(19), record.get("f19"));
+    assertEquals(0, record.get("missing").size());
+    assertNull(record.getFirstValue("missing"));
+
+    record.replaceValues("f3", "z");
+    assertEquals(Arrays.asList("z"), record.get("f3"));
+    record.removeAll("f3");
+    assertEquals(0, record.get("f3").size());
+    assertFalse(record.toString().contains("f3="));
+
+    record.putIfAbsent("f4", 4);
+    record.putIfAbsent("f4", 5);
+    record.putIfAbsent("f4", 5);
+    assertEquals(Arrays.asList(4, 5), record.get("f4"));
+
+    List list = new ArrayList();
+    list.add("a");
+    record.put("list", list);
+    record.put("null", null);
+    assertSame(list, record.getFirstValue("list"));
+    assertEquals(1, record.get("list").size());
+    assertEquals(1, record.get("null").size());
+  }
+
+  @Test
+  public void testCopyOnWrite() throws Exception {
+    Record record = new Record();
+    record.put("first_name", "Nadja");
+    record.put("tags", "one");
+    record.put("tags", "two");
+
+    Record copy = record.copy();
+    assertEquals(record, copy);
+    copy.put("tags", "three");
+    copy.replaceValues("first_name", "Lisa");
+    copy.put("age", 8);
+    assertEquals(Arrays.asList("one", "two"), record.get("tags"));
+    assertEquals("Nadja", record.getFirstValue("first_name"));
+    assertEquals(0, record.get("age").size());
+    assertEquals(Arrays.asList("one", "two", "three"), copy.get("tags"));
+
+    Record other = record.copy();
+    record.removeAll("tags");
+    assertEquals(Arrays.asList("one", "two"), other.get("tags"));
+    assertFalse(record.equals(other));
+  }
+
+  @Test
+  public void testLiveValues() throws Exception {
+    Record record = new Record();
+    record.put("tags", "one");
+    record.put("tags", "two");
+
+    ListIterator iter = record.get("tags").listIterator();
+    while (iter.hasNext()) {
+      iter.set(iter.next() + "!");
+    }
+    assertEquals(Arrays.asList("one!", "two!"), record.get("tags"));
+
+    List values = record.get("empty");
+    values.add("a");
+    values.add(0, "b");
+    assertEquals(Arrays.asList("b", "a"), record.get("empty"));
+    values.remove(0);
+    values.remove(0);
+    assertEquals(0, record.get("empty").size());
+    assertFalse(record.toString().contains("empty"));
+
+    record.get("tags").clear();
+    assertEquals(new Record(), record);
+
+    try {
+      record.get("missing").get(0);
+      fail();
+    } catch (IndexOutOfBoundsException e) {
+      ; // expected
+    }
+  }
+
+  @Test
+  public void testGetFields() throws Exception {
+    Record record = new Record();
+    record.put("tags", "one");
+    Record copy = record.copy();
+
+    record.getFields().put("tags", "two");
+    assertEquals(Arrays.asList("one", "two"), record.get("tags"));
+    assertEquals(Arrays.asList("one"), copy.get("tags"));
+    assertFalse(record.equals(copy));
+
+    copy.put("tags", "two");
+    assertEquals(record, copy);
+    assertEquals(record.hashCode(), copy.hashCode());
+
+    Record copyOfFields = record.copy();
+    copyOfFields.put("tags", "three");
+    assertEquals(2, record.get("tags").size());
+    assertEquals(3, copyOfFields.get("tags").size());
+  }
+
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2015 Cloudera Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kitesdk.morphline.stdio;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.google.common.base.Charsets;
+
+public class ByteLineReaderTest extends Assert {
+
+  private static final String[] INPUTS = {
+    "",
+    "a",
+    "a\n",
+    "\n\n",
+    "a\nbc\r\ndef\rg",
+    "a\r\r\nb\n\rc\r",
+    "héllo wörld\n€,x\r\n",
+  };
+
+  @Test
+  public void testSameLinesAsBufferedReader() throws Exception {
+    for (String input : INPUTS) {
+      List<String> expected = readLines(new BufferedReader(new StringReader(input)));
+      byte[] bytes = input.getBytes(Charsets.UTF_8);
+      for (int bufferSize = 1; bufferSize <= 4; bufferSize++) {
+        assertEquals(input, expected, readLines(new ByteLineReader(new ByteArrayInputStream(bytes), bufferSize)));
+        // a stream that returns one byte at a time splits "\r\n" across reads
+        assertEquals(input, expected, readLines(new ByteLineReader(new SlowInputStream(bytes), bufferSize)));
+      }
+    }
+  }
+
+  @Test
+  public void testAsciiCompatible() throws Exception {
+    assertTrue(ByteLineReader.isAsciiCompatible(Charsets.UTF_8));
+    assertTrue(ByteLineReader.isAsciiCompatible(Charsets.ISO_8859_1));
+    assertFalse(ByteLineReader.isAsciiCompatible(Charsets.UTF_16));
+  }
+
+  private List<String> readLines(BufferedReader reader) throws IOException {
+    List<String> lines = new ArrayList<String>();
+    String line;
+    while ((line = reader.readLine()) != null) {
+      lines.add(line);
+    }
+    return lines;
+  }
+
+  private List<String> readLines(ByteLineReader reader) throws IOException {
+    List<String> lines = new ArrayList<String>();
+    while (reader.readLine()) {
+      lines.add(reader.getLine(Charsets.UTF_8));
+    }
+    return lines;
+  }
+
+
+  ///////////////////////////////////////////////////////////////////////////////
+  // Nested classes:
+  ///////////////////////////////////////////////////////////////////////////////
+  private static final class SlowInputStream extends InputStream {
+
+    private final InputStream in;
+
+    public SlowInputStream(byte[] bytes) {
+      this.in = new ByteArrayInputStream(bytes);
+    }
+
+    @Override
+    public int read() throws IOException {
+      return in.read();
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      return in.read(b, off, Math.min(1, len));
+    }
+  }
+
+}
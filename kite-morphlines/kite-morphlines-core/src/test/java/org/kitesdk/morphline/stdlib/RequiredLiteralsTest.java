@@ -0,0 +1,73 @@
+/*
+ * Copyright 2015 Cloudera Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kitesdk.morphline.stdlib;
+
+import java.util.Arrays;
+import java.util.regex.Pattern;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class RequiredLiteralsTest extends Assert {
+
+  private void assertLiterals(String regex, String... expected) {
+    assertEquals(Arrays.asList(expected), Arrays.asList(RequiredLiterals.of(Pattern.compile(regex))));
+  }
+
+  @Test
+  public void testLiterals() throws Exception {
+    assertLiterals(".*");
+    assertLiterals("foo", "foo");
+    assertLiterals("GET /index\\.html", "GET /index.html");
+    assertLiterals("abc.*defgh", "defgh", "abc");
+    assertLiterals("ab?c", "a", "c");
+    assertLiterals("ab+c", "ab", "c");
+    assertLiterals("ab{2,3}c", "ab", "c");
+    assertLiterals("ab{0,3}c", "a", "c");
+    assertLiterals("\\Qa.b\\E\\d+:", "a.b", ":");
+    assertLiterals("x\\ty", "x\ty");
+    assertLiterals("[ab]cd[^e\\]]", "cd");
+  }
+
+  @Test
+  public void testGroups() throws Exception {
+    assertLiterals("(foo) (bar)", "foo", "bar", " ");
+    assertLiterals("(?:foo)? bar", " bar");
+    assertLiterals("(foo|bar) baz", " baz");
+    assertLiterals("foo|bar");
+    assertLiterals("((a|b)cd)+e", "cd", "e");
+    assertLiterals("(?=foo)bar", "bar");
+    assertLiterals("(?<name>foo) bar", " bar", "foo");
+    assertLiterals("(?:\\[(\\d+)\\])?: msg", ": msg");
+  }
+
+  @Test
+  public void testUnsupported() throws Exception {
+    assertLiterals("(?i)foo");
+    assertLiterals("(a)\\1foo");
+    assertLiterals("\\x41foo");
+    assertEquals(0, RequiredLiterals.of(Pattern.compile("foo", Pattern.CASE_INSENSITIVE)).length);
+  }
+
+  @Test
+  public void testContainsAll() throws Exception {
+    String[] literals = RequiredLiterals.of(Pattern.compile("GET (\\S+) HTTP"));
+    assertTrue(RequiredLiterals.containsAll("GET /a HTTP/1.1", literals));
+    assertFalse(RequiredLiterals.containsAll("POST /a HTTP/1.1", literals));
+    assertTrue(RequiredLiterals.containsAll("anything", new String[0]));
+  }
+
+}